@@ -1,12 +1,20 @@
 package com.rigiresearch.dt.controller.model.identification;
 
-import com.rigiresearch.dt.experimentation.evolution.Record;
+import com.rigiresearch.dt.experimentation.evolution.FitnessValue;
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import com.rigiresearch.dt.experimentation.evolution.genetic.Checkpoint;
 import com.rigiresearch.dt.experimentation.evolution.genetic.EvolutionResults;
 import com.rigiresearch.dt.experimentation.evolution.genetic.GeneticAlgorithm;
 import com.rigiresearch.dt.experimentation.evolution.optimization.DifferentiableFunction;
 import com.rigiresearch.middleware.graph.Graph;
 import com.rigiresearch.middleware.graph.Node;
-import java.util.Comparator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.DoubleSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.configuration2.Configuration;
 
@@ -73,21 +81,51 @@ public final class ModelIdentification {
             ModelIdentification.STEADY_NUMBER,
             ModelIdentification.MUTATION_PROB,
             ModelIdentification.CROSSOVER_PROB,
-            ModelIdentification.NUMBER_RESULTS
+            ModelIdentification.NUMBER_RESULTS,
+            this.checkpoint()
         );
-        final Comparator<Record> comparator = (r1, r2) -> {
-            final String key = "fitness.value";
-            return ((Double) r1.get(key)).compareTo((Double) r2.get(key));
-        };
-        // TODO Put all replicas into a single collection
-        // this.results.getRecords()
-        //     .stream()
-        //     .map()
-        //     .sorted(comparator)
-        //     .limit(100L);
+        // TODO Fit the function to the records of the best candidates (see #fitness())
         return null;
     }
 
+    /**
+     * The fitness of the simulated candidates, aggregated by line.
+     * @return The statistics of each line, in order of first appearance
+     */
+    public Map<String, DoubleSummaryStatistics> fitness() {
+        final Map<String, DoubleSummaryStatistics> fitness = new LinkedHashMap<>();
+        for (final RecordTable records : this.result().getRecords()) {
+            records.groupBy(FitnessValue.LINE, FitnessValue.FITNESS)
+                .forEach((line, statistics) ->
+                    fitness.computeIfAbsent(line, key -> new DoubleSummaryStatistics())
+                        .combine(statistics)
+                );
+        }
+        return fitness;
+    }
+
+    /**
+     * Reads the checkpoint of a previous run, if there is one.
+     * @return A checkpoint, or null to start anew
+     */
+    private Checkpoint checkpoint() {
+        Checkpoint checkpoint = null;
+        if (this.config.containsKey(GeneticAlgorithm.CHECKPOINT)) {
+            final Path path = Paths.get(this.config.getString(GeneticAlgorithm.CHECKPOINT));
+            if (Files.exists(path)) {
+                try {
+                    checkpoint = Checkpoint.read(path);
+                } catch (final IOException exception) {
+                    throw new IllegalStateException(
+                        String.format("Could not read the checkpoint %s", path),
+                        exception
+                    );
+                }
+            }
+        }
+        return checkpoint;
+    }
+
     /**
      * The evolution results returned by the genetic algorithm.
      * @return Non-null object
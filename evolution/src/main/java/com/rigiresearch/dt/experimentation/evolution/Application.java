@@ -1,5 +1,7 @@
 package com.rigiresearch.dt.experimentation.evolution;
 
+import com.rigiresearch.dt.experimentation.evolution.sensitivity.SensitivityAnalysis;
+import java.nio.file.Paths;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 import org.slf4j.Logger;
@@ -22,10 +24,21 @@ public final class Application {
         LoggerFactory.getLogger(Application.class);
 
     /**
-     * The main entry point.
+     * The main entry point. Use {@code sensitivity <graph> <properties>} to
+     * run a {@link SensitivityAnalysis}.
      * @param args The application arguments
      */
     public static void main(final String... args) {
+        if (args.length == 3 && "sensitivity".equals(args[0])) {
+            final SensitivityAnalysis analysis =
+                new SensitivityAnalysis(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.print(
+                analysis.run(report ->
+                    Application.LOGGER.info("Evaluated {} groups", report.getGroups())
+                )
+            );
+            return;
+        }
         Application.LOGGER.info("Nothing to do here...");
     }
 
@@ -6,16 +6,22 @@ import com.rigiresearch.dt.experimentation.evolution.fitness.FitnessFunction;
 import com.rigiresearch.dt.experimentation.evolution.fitness.LinearFitnessFunction;
 import com.rigiresearch.dt.experimentation.evolution.fitness.NormalizedFitnessFunction;
 import com.rigiresearch.dt.experimentation.evolution.genetic.EvolvingProperties;
-import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import com.rigiresearch.dt.experimentation.simulation.metrics.ExcessWaitingTime;
 import com.rigiresearch.dt.experimentation.simulation.metrics.HeadwayCoefficientOfVariation;
 import com.rigiresearch.dt.experimentation.simulation.metrics.ObservedLineHeadway;
-import java.util.Collection;
+import com.rigiresearch.dt.experimentation.simulation.metrics.SimulationStatistics;
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import jsl.utilities.statistic.Statistic;
+import lombok.Value;
 import org.apache.commons.configuration2.Configuration;
 
 /**
@@ -27,6 +33,87 @@ import org.apache.commons.configuration2.Configuration;
  */
 public final class FitnessValue {
 
+    /**
+     * The columns of the simulation records.
+     */
+    public static final RecordTable.Schema SCHEMA = new RecordTable.Schema();
+
+    /**
+     * The line name.
+     */
+    public static final RecordTable.Column LINE = FitnessValue.SCHEMA.strings("line");
+
+    /**
+     * The fleet of the line.
+     */
+    public static final RecordTable.Column FLEET = FitnessValue.SCHEMA.doubles("fleet");
+
+    /**
+     * The planned number of buses.
+     */
+    public static final RecordTable.Column PLANNED_BUSES =
+        FitnessValue.SCHEMA.doubles("planned.buses");
+
+    /**
+     * The number of buses.
+     */
+    public static final RecordTable.Column NUM_BUSES = FitnessValue.SCHEMA.doubles("buses");
+
+    /**
+     * The planned headway.
+     */
+    public static final RecordTable.Column HEADWAY = FitnessValue.SCHEMA.doubles("headway");
+
+    /**
+     * The maximum headway.
+     */
+    public static final RecordTable.Column MAX_HEADWAY =
+        FitnessValue.SCHEMA.doubles("headway.max");
+
+    /**
+     * The minimum headway.
+     */
+    public static final RecordTable.Column MIN_HEADWAY =
+        FitnessValue.SCHEMA.doubles("headway.min");
+
+    /**
+     * The average excess waiting time.
+     */
+    public static final RecordTable.Column EWT_AVERAGE = FitnessValue.SCHEMA.doubles("ewt.a");
+
+    /**
+     * The variance of the excess waiting time.
+     */
+    public static final RecordTable.Column EWT_VARIANCE = FitnessValue.SCHEMA.doubles("ewt.v");
+
+    /**
+     * The headway coefficient of variation.
+     */
+    public static final RecordTable.Column HEADWAY_CV = FitnessValue.SCHEMA.doubles("hcv");
+
+    /**
+     * The observed line headway.
+     */
+    public static final RecordTable.Column OBSERVED_HEADWAY =
+        FitnessValue.SCHEMA.doubles("headway.observed");
+
+    /**
+     * The fitness value of the line.
+     */
+    public static final RecordTable.Column FITNESS =
+        FitnessValue.SCHEMA.doubles(EvolvingProperties.SIM_FITNESS.getId());
+
+    /**
+     * The number of the evaluation that simulated the line (set by the
+     * genetic algorithm).
+     */
+    public static final RecordTable.Column NUMBER = FitnessValue.SCHEMA.ints("number");
+
+    /**
+     * The replica that simulated the line (set by the genetic algorithm).
+     */
+    public static final RecordTable.Column REPLICA = FitnessValue.SCHEMA.ints("replica");
+
     /**
      * Name for the buses argument.
      */
@@ -53,9 +140,34 @@ public final class FitnessValue {
     private static final String OLH = "olh";
 
     /**
-     * The decorated simulation.
+     * The order of the argument values given to the fitness evaluators.
      */
-    private final DtSimulation simulation;
+    private static final List<String> ARGUMENTS = Arrays.asList(
+        FitnessValue.BUSES,
+        FitnessValue.OLH,
+        FitnessValue.HCV,
+        FitnessValue.VEWT,
+        FitnessValue.EWT
+    );
+
+    /**
+     * The maximum number of compiled fitness functions kept.
+     */
+    private static final int MAX_EVALUATORS = 256;
+
+    /**
+     * The most recently used compiled fitness functions, by their parameters.
+     * Parameters include the planned buses, which evolve, so the least
+     * recently used functions are evicted rather than kept for the lifetime
+     * of the JVM.
+     */
+    private static final Map<FitnessValue.Parameters, FitnessFunction.Evaluator> EVALUATORS =
+        Collections.synchronizedMap(new FitnessValue.Evaluators(FitnessValue.MAX_EVALUATORS));
+
+    /**
+     * The statistics of the decorated simulation.
+     */
+    private final SimulationStatistics simulation;
 
     /**
      * The excess waiting time metric.
@@ -75,7 +187,7 @@ public final class FitnessValue {
     /**
      * The fitness function.
      */
-    final FitnessValue.TriFunction<Double, Double, Double, Double, CompositeFitnessFunction>
+    final FitnessValue.TriFunction<Double, Double, Double, Double, FitnessFunction.Evaluator>
             fitness;
 
     /**
@@ -86,10 +198,11 @@ public final class FitnessValue {
     /**
      * Default constructor.
      *
-     * @param simulation The input graph
+     * @param simulation The statistics of a simulation run, either collected
+     *  by the simulation or re-derived from recorded observations
      * @param config     The configuration options
      */
-    public FitnessValue(final DtSimulation simulation,
+    public FitnessValue(final SimulationStatistics simulation,
                         final Configuration config) {
         this.config = config;
         this.simulation = simulation;
@@ -106,19 +219,65 @@ public final class FitnessValue {
                     )
                 )
             );
-        final double maxEwt = config.getDouble("fitness.params.ewt.max");
         this.ewt = new ExcessWaitingTime(simulation, headways);
         this.hcv = new HeadwayCoefficientOfVariation(simulation);
         this.olh = new ObservedLineHeadway(simulation);
-        this.fitness = (minHeadway, maxHeadway, fleet, plannedBuses) ->
-            new CompositeFitnessFunction()
-                .withFunction(
-                    new CubicFitnessFunction(0.0, plannedBuses, fleet, FitnessValue.BUSES), 0.2)
-                .withFunction(new NormalizedFitnessFunction(minHeadway, maxHeadway, FitnessValue.OLH), 0.3)
-                .withFunction(new LinearFitnessFunction(0.0, FitnessValue.HCV), 0.1)
-                .withFunction(new LinearFitnessFunction(0.0, FitnessValue.VEWT), 0.1)
-                .withFunction(new NormalizedFitnessFunction(0.0, maxEwt, FitnessValue.EWT), 0.3)
-                .validate();
+        this.fitness = FitnessValue.fitness(config);
+    }
+
+    /**
+     * Creates the fitness function for a line.
+     *
+     * @param config The configuration options
+     * @return A function to obtain the fitness function given the minimum
+     *  and maximum headway, the fleet and the planned buses. Functions are
+     *  compiled once per set of parameters and then reused, while they are
+     *  among the {@link #MAX_EVALUATORS} most recently used
+     */
+    static FitnessValue.TriFunction<Double, Double, Double, Double, FitnessFunction.Evaluator>
+        fitness(final Configuration config) {
+        final double maxEwt = config.getDouble("fitness.params.ewt.max");
+        return (minHeadway, maxHeadway, fleet, plannedBuses) ->
+            FitnessValue.EVALUATORS.computeIfAbsent(
+                new FitnessValue.Parameters(maxEwt, minHeadway, maxHeadway, fleet, plannedBuses),
+                FitnessValue::compile
+            );
+    }
+
+    /**
+     * Creates and compiles the fitness function for a line.
+     *
+     * @param parameters The parameters of the function
+     * @return An evaluator expecting the arguments in the order of
+     *  {@link #ARGUMENTS}
+     */
+    private static FitnessFunction.Evaluator compile(final FitnessValue.Parameters parameters) {
+        return new CompositeFitnessFunction()
+            .withFunction(
+                new CubicFitnessFunction(
+                    0.0,
+                    parameters.getPlannedBuses(),
+                    parameters.getFleet(),
+                    FitnessValue.BUSES
+                ),
+                0.2
+            )
+            .withFunction(
+                new NormalizedFitnessFunction(
+                    parameters.getMinHeadway(),
+                    parameters.getMaxHeadway(),
+                    FitnessValue.OLH
+                ),
+                0.3
+            )
+            .withFunction(new LinearFitnessFunction(0.0, FitnessValue.HCV), 0.1)
+            .withFunction(new LinearFitnessFunction(0.0, FitnessValue.VEWT), 0.1)
+            .withFunction(
+                new NormalizedFitnessFunction(0.0, parameters.getMaxEwt(), FitnessValue.EWT),
+                0.3
+            )
+            .validate()
+            .compile(FitnessValue.ARGUMENTS);
     }
 
     /**
@@ -128,8 +287,8 @@ public final class FitnessValue {
      * @return A double between {@code -1} and {@code 1}
      */
     public double asDouble(final Line line) {
-        return (double) this.asRecord(line)
-            .get(EvolvingProperties.SIM_FITNESS.getId());
+        final RecordTable table = new RecordTable(FitnessValue.SCHEMA, 1);
+        return table.getDouble(this.append(table, line), FitnessValue.FITNESS);
     }
 
     /**
@@ -151,75 +310,209 @@ public final class FitnessValue {
     /**
      * Computes the metrics for the given line.
      *
+     * @param table The table to which the metrics are appended
      * @param line The line of interest
-     * @return A record with all the computed data
+     * @return The index of the row with all the computed data
      */
-    public Record asRecord(final Line line) {
-        final Record record = new Record();
-        record.put("line", line.getName());
-        final double fleet = this.config.getDouble(
+    public int append(final RecordTable table, final Line line) {
+        final Statistic ewt = this.ewt.value(line);
+        return FitnessValue.append(
+            table,
+            this.config,
+            this.fitness,
+            line,
+            ewt.getAverage(),
+            ewt.getVariance(),
+            this.hcv.value(line),
+            this.olh.value(line).getAverage()
+        );
+    }
+
+    /**
+     * Computes the metrics for the given line from the summary of a
+     * replication, such as the ones kept in a result store.
+     *
+     * @param table The table to which the metrics are appended
+     * @param config The configuration options
+     * @param line The line of interest
+     * @param summary The summary of the line
+     * @return The index of the row with all the computed data
+     */
+    public static int append(final RecordTable table, final Configuration config,
+        final Line line, final ReplicationSummary summary) {
+        return FitnessValue.append(
+            table,
+            config,
+            FitnessValue.fitness(config),
+            line,
+            summary.getEwtAverage(),
+            summary.getEwtVariance(),
+            summary.getHcv(),
+            summary.getHeadway()
+        );
+    }
+
+    /**
+     * Computes the metrics for the lines in the summaries of several
+     * replications, evaluating the fitness function of each line once for all
+     * of its replications. Rows are appended in the order of the summaries.
+     *
+     * @param table The table to which the metrics are appended
+     * @param config The configuration options
+     * @param lines The lines of interest, by name
+     * @param summaries The summaries of the lines
+     */
+    public static void append(final RecordTable table, final Configuration config,
+        final Map<String, Line> lines, final List<ReplicationSummary> summaries) {
+        final Map<String, List<Integer>> rows = new LinkedHashMap<>();
+        for (final ReplicationSummary summary : summaries) {
+            final int row = FitnessValue.metrics(
+                table,
+                config,
+                lines.get(summary.getLine()),
+                summary.getEwtAverage(),
+                summary.getEwtVariance(),
+                summary.getHcv(),
+                summary.getHeadway()
+            );
+            rows.computeIfAbsent(summary.getLine(), name -> new ArrayList<>()).add(row);
+        }
+        final FitnessValue.TriFunction<Double, Double, Double, Double, FitnessFunction.Evaluator>
+            function = FitnessValue.fitness(config);
+        for (final List<Integer> indices : rows.values()) {
+            final int first = indices.get(0);
+            final FitnessFunction.Evaluator evaluator = function.apply(
+                table.getDouble(first, FitnessValue.MIN_HEADWAY),
+                table.getDouble(first, FitnessValue.MAX_HEADWAY),
+                table.getDouble(first, FitnessValue.FLEET),
+                table.getDouble(first, FitnessValue.PLANNED_BUSES)
+            );
+            final double[][] values = new double[indices.size()][];
+            for (int index = 0; index < values.length; index++) {
+                values[index] = FitnessValue.arguments(table, indices.get(index));
+            }
+            final double[] results = evaluator.evaluate(values);
+            for (int index = 0; index < results.length; index++) {
+                table.set(indices.get(index), FitnessValue.FITNESS, results[index]);
+            }
+        }
+    }
+
+    /**
+     * Computes the fitness value for the given line, based on the given
+     * metrics.
+     *
+     * @param table The table to which the metrics are appended
+     * @param config The configuration options
+     * @param function The fitness function
+     * @param line The line of interest
+     * @param ewta The average excess waiting time
+     * @param ewtv The variance of the excess waiting time
+     * @param hcv The headway coefficient of variation
+     * @param olh The observed line headway
+     * @return The index of the row with all the computed data
+     */
+    static int append(final RecordTable table, final Configuration config,
+        final FitnessValue.TriFunction<Double, Double, Double, Double, FitnessFunction.Evaluator>
+            function,
+        final Line line, final double ewta, final double ewtv, final double hcv,
+        final double olh) {
+        final int row = FitnessValue.metrics(table, config, line, ewta, ewtv, hcv, olh);
+        final double fitness = function.apply(
+            table.getDouble(row, FitnessValue.MIN_HEADWAY),
+            table.getDouble(row, FitnessValue.MAX_HEADWAY),
+            table.getDouble(row, FitnessValue.FLEET),
+            table.getDouble(row, FitnessValue.PLANNED_BUSES)
+        ).evaluate(FitnessValue.arguments(table, row));
+        table.set(row, FitnessValue.FITNESS, fitness);
+        return row;
+    }
+
+    /**
+     * Appends the configuration of the given line and the given metrics,
+     * without the fitness value.
+     *
+     * @param table The table to which the metrics are appended
+     * @param config The configuration options
+     * @param line The line of interest
+     * @param ewta The average excess waiting time
+     * @param ewtv The variance of the excess waiting time
+     * @param hcv The headway coefficient of variation
+     * @param olh The observed line headway
+     * @return The index of the new row
+     */
+    private static int metrics(final RecordTable table, final Configuration config,
+        final Line line, final double ewta, final double ewtv, final double hcv,
+        final double olh) {
+        final int row = table.append();
+        table.set(row, FitnessValue.LINE, line.getName());
+        final double fleet = config.getDouble(
             String.format("%s.fleet", line.getName())
         );
-        record.put("fleet", fleet);
-        final double plannedBuses = this.config.getDouble(
+        table.set(row, FitnessValue.FLEET, fleet);
+        final double plannedBuses = config.getDouble(
             String.format("%s.planned.buses", line.getName())
         );
-        record.put("planned.buses", plannedBuses);
-        final double buses = this.config.getDouble(
+        table.set(row, FitnessValue.PLANNED_BUSES, plannedBuses);
+        final double buses = config.getDouble(
             String.format("%s.buses", line.getName())
         );
-        record.put("buses", buses);
-        record.put(
-            "headway",
-            this.config.getDouble(
+        table.set(row, FitnessValue.NUM_BUSES, buses);
+        table.set(
+            row,
+            FitnessValue.HEADWAY,
+            config.getDouble(
                 String.format("%s.headway", line.getName())
             )
         );
-        final double maxHeadway = this.config.getDouble(
+        final double maxHeadway = config.getDouble(
             String.format("%s.headway.max", line.getName())
         );
-        record.put("headway.max", maxHeadway);
-        final double minHeadway = this.config.getDouble(
+        table.set(row, FitnessValue.MAX_HEADWAY, maxHeadway);
+        final double minHeadway = config.getDouble(
             String.format("%s.headway.min", line.getName())
         );
-        record.put("headway.min", minHeadway);
+        table.set(row, FitnessValue.MIN_HEADWAY, minHeadway);
         // Excess waiting time
-        final Statistic ewt = this.ewt.value(line);
-        final double ewta = ewt.getAverage();
-        record.put("ewt.a", ewta);
-        final double ewtv = ewt.getVariance();
-        record.put("ewt.v", ewtv);
+        table.set(row, FitnessValue.EWT_AVERAGE, ewta);
+        table.set(row, FitnessValue.EWT_VARIANCE, ewtv);
         // Headway coefficient of variation
-        final Double hcv = this.hcv.value(line);
-        record.put("hcv", hcv);
+        table.set(row, FitnessValue.HEADWAY_CV, hcv);
         // Observed line headway
-        final double olh = this.olh.value(line).getAverage();
-        record.put("headway.observed", olh);
-        final double fitness =
-            this.fitness.apply(minHeadway, maxHeadway, fleet, plannedBuses)
-                .evaluate(
-                    new FitnessFunction.NamedArgument(FitnessValue.BUSES, buses),
-                    new FitnessFunction.NamedArgument(FitnessValue.OLH, olh),
-                    new FitnessFunction.NamedArgument(FitnessValue.HCV, hcv),
-                    new FitnessFunction.NamedArgument(FitnessValue.VEWT, ewtv),
-                    new FitnessFunction.NamedArgument(FitnessValue.EWT, ewta)
-                );
-        record.put(EvolvingProperties.SIM_FITNESS.getId(), fitness);
-        return record;
+        table.set(row, FitnessValue.OBSERVED_HEADWAY, olh);
+        return row;
+    }
+
+    /**
+     * Reads the arguments of the fitness function from a row.
+     *
+     * @param table The table containing the metrics
+     * @param row The row index
+     * @return The argument values, in the order of {@link #ARGUMENTS}
+     */
+    private static double[] arguments(final RecordTable table, final int row) {
+        return new double[] {
+            table.getDouble(row, FitnessValue.NUM_BUSES),
+            table.getDouble(row, FitnessValue.OBSERVED_HEADWAY),
+            table.getDouble(row, FitnessValue.HEADWAY_CV),
+            table.getDouble(row, FitnessValue.EWT_VARIANCE),
+            table.getDouble(row, FitnessValue.EWT_AVERAGE),
+        };
     }
 
     /***
-     * Allows ot obtain a record containing the inputs and outputs of a simulation.
-     * @return a record containing the inputs and outputs of a simulation.
+     * Allows ot obtain the records containing the inputs and outputs of a simulation.
+     * @return a table with a row per line.
      */
-    public Collection<Record> asRecords() {
-        return this.simulation.getGraph()
+    public RecordTable asTable() {
+        final RecordTable table = new RecordTable(FitnessValue.SCHEMA);
+        this.simulation.getGraph()
             .getNodes()
             .stream()
             .filter(Line.class::isInstance)
             .map(Line.class::cast)
-            .map(this::asRecord)
-            .collect(Collectors.toList());
+            .forEach(line -> this.append(table, line));
+        return table;
     }
 
     /**
@@ -245,4 +538,71 @@ public final class FitnessValue {
         Y apply(X1 arg1, X2 arg2, X3 arg3, X4 arg4);
     }
 
+    /**
+     * Compiled fitness functions, evicting the least recently used one once
+     * there are too many.
+     */
+    private static final class Evaluators
+        extends LinkedHashMap<FitnessValue.Parameters, FitnessFunction.Evaluator> {
+
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The maximum number of functions.
+         */
+        private final int capacity;
+
+        /**
+         * Default constructor.
+         * @param capacity The maximum number of functions
+         */
+        Evaluators(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+            final Map.Entry<FitnessValue.Parameters, FitnessFunction.Evaluator> eldest) {
+            return this.size() > this.capacity;
+        }
+
+    }
+
+    /**
+     * The parameters of the fitness function of a line.
+     */
+    @Value
+    private static class Parameters {
+
+        /**
+         * The maximum excess waiting time.
+         */
+        double maxEwt;
+
+        /**
+         * The minimum headway.
+         */
+        double minHeadway;
+
+        /**
+         * The maximum headway.
+         */
+        double maxHeadway;
+
+        /**
+         * The fleet of the line.
+         */
+        double fleet;
+
+        /**
+         * The planned number of buses.
+         */
+        double plannedBuses;
+
+    }
+
 }
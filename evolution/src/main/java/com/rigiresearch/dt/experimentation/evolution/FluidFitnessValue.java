@@ -0,0 +1,108 @@
+package com.rigiresearch.dt.experimentation.evolution;
+
+import com.rigiresearch.dt.experimentation.evolution.fitness.FitnessFunction;
+import com.rigiresearch.dt.experimentation.simulation.fluid.FluidEstimate;
+import com.rigiresearch.dt.experimentation.simulation.fluid.FluidModel;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.util.Map;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * Computes the same records as {@link FitnessValue}, but from a
+ * {@link FluidModel} instead of a simulation run.
+ *
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class FluidFitnessValue {
+
+    /**
+     * The approximated performance per line.
+     */
+    private final Map<Line, FluidEstimate> estimates;
+
+    /**
+     * The fitness function.
+     */
+    private final
+        FitnessValue.TriFunction<Double, Double, Double, Double, FitnessFunction.Evaluator>
+        fitness;
+
+    /**
+     * The simulation configuration data.
+     */
+    private final Configuration config;
+
+    /**
+     * Default constructor.
+     *
+     * @param graph The input graph
+     * @param config The configuration options
+     * @param length The length of a replication
+     */
+    public FluidFitnessValue(final Graph<Node> graph, final Configuration config,
+        final double length) {
+        this.config = config;
+        this.estimates = new FluidModel(graph, config, length).estimates();
+        this.fitness = FitnessValue.fitness(config);
+    }
+
+    /**
+     * Computes the fitness value for the given line.
+     *
+     * @param line The line of interest
+     * @return A double between {@code -1} and {@code 1}
+     */
+    public double asDouble(final Line line) {
+        final RecordTable table = new RecordTable(FitnessValue.SCHEMA, 1);
+        return table.getDouble(this.append(table, line), FitnessValue.FITNESS);
+    }
+
+    /**
+     * Computes the fitness value for all lines.
+     *
+     * @return The sum of fitness values
+     */
+    public double asDouble() {
+        return this.estimates.keySet()
+            .stream()
+            .mapToDouble(this::asDouble)
+            .sum();
+    }
+
+    /**
+     * Computes the metrics for the given line.
+     *
+     * @param table The table to which the metrics are appended
+     * @param line The line of interest
+     * @return The index of the row with all the computed data
+     */
+    public int append(final RecordTable table, final Line line) {
+        final FluidEstimate estimate = this.estimates.get(line);
+        return FitnessValue.append(
+            table,
+            this.config,
+            this.fitness,
+            line,
+            estimate.excessWaitingTimeAverage(),
+            estimate.excessWaitingTimeVariance(),
+            estimate.headwayCoefficientOfVariation(),
+            estimate.getHeadway()
+        );
+    }
+
+    /**
+     * Computes the metrics for all lines.
+     *
+     * @return A table with a row per line
+     */
+    public RecordTable asTable() {
+        final RecordTable table = new RecordTable(FitnessValue.SCHEMA);
+        this.estimates.keySet().forEach(line -> this.append(table, line));
+        return table;
+    }
+
+}
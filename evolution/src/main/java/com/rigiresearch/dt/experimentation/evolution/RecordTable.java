@@ -0,0 +1,813 @@
+package com.rigiresearch.dt.experimentation.evolution;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import lombok.Getter;
+
+/**
+ * A table of simulation records stored by column. Numeric values are kept in
+ * primitive arrays, and strings (e.g., line names) are encoded as indexes
+ * into a dictionary, so a row takes a few bytes per column instead of a map
+ * of boxed values. Columns are defined upfront by a {@link RecordTable.Schema}
+ * and always keep the order in which they were defined.
+ *
+ * <p>This class is not thread-safe.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class RecordTable {
+
+    /**
+     * The initial number of rows.
+     */
+    private static final int CAPACITY = 16;
+
+    /**
+     * The columns of this table.
+     */
+    @Getter
+    private final RecordTable.Schema schema;
+
+    /**
+     * The values of the double columns.
+     */
+    private final double[][] doubles;
+
+    /**
+     * The values of the integer columns.
+     */
+    private final int[][] ints;
+
+    /**
+     * The values of the long columns.
+     */
+    private final long[][] longs;
+
+    /**
+     * The dictionary codes of the string columns, or -1 for null.
+     */
+    private final int[][] codes;
+
+    /**
+     * The distinct strings, by code.
+     */
+    private final List<String> dictionary;
+
+    /**
+     * The code of each distinct string.
+     */
+    private final Map<String, Integer> encoding;
+
+    /**
+     * The number of rows.
+     */
+    private int size;
+
+    /**
+     * Default constructor.
+     * @param schema The columns of the table
+     */
+    public RecordTable(final RecordTable.Schema schema) {
+        this(schema, RecordTable.CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     * @param schema The columns of the table
+     * @param capacity The initial number of rows
+     */
+    public RecordTable(final RecordTable.Schema schema, final int capacity) {
+        schema.freeze();
+        final int rows = Math.max(capacity, 1);
+        this.schema = schema;
+        this.doubles = new double[schema.count(RecordTable.Type.DOUBLE)][rows];
+        this.ints = new int[schema.count(RecordTable.Type.INT)][rows];
+        this.longs = new long[schema.count(RecordTable.Type.LONG)][rows];
+        this.codes = new int[schema.count(RecordTable.Type.STRING)][rows];
+        this.dictionary = new ArrayList<>();
+        this.encoding = new HashMap<>();
+    }
+
+    /**
+     * Reads a table written by {@link #write(DataOutput)}.
+     * @param input The input
+     * @param schema The expected columns
+     * @return A new table
+     * @throws IOException If the table cannot be read or its columns are not
+     *  the expected ones
+     */
+    public static RecordTable read(final DataInput input, final RecordTable.Schema schema)
+        throws IOException {
+        final int columns = input.readShort();
+        if (columns != schema.getColumns().size()) {
+            throw new IOException(
+                String.format(
+                    "Expected %d columns but found %d",
+                    schema.getColumns().size(),
+                    columns
+                )
+            );
+        }
+        for (final RecordTable.Column column : schema.getColumns()) {
+            final String name = input.readUTF();
+            final RecordTable.Type type = RecordTable.Type.values()[input.readByte()];
+            if (!column.getName().equals(name) || column.getType() != type) {
+                throw new IOException(
+                    String.format("Expected column %s but found %s", column, name)
+                );
+            }
+        }
+        final int rows = input.readInt();
+        final RecordTable table = new RecordTable(schema, rows);
+        table.size = rows;
+        final int strings = input.readInt();
+        for (int code = 0; code < strings; code++) {
+            table.encode(input.readUTF());
+        }
+        for (final double[] values : table.doubles) {
+            for (int row = 0; row < rows; row++) {
+                values[row] = input.readDouble();
+            }
+        }
+        for (final int[] values : table.ints) {
+            for (int row = 0; row < rows; row++) {
+                values[row] = input.readInt();
+            }
+        }
+        for (final long[] values : table.longs) {
+            for (int row = 0; row < rows; row++) {
+                values[row] = input.readLong();
+            }
+        }
+        for (final int[] values : table.codes) {
+            for (int row = 0; row < rows; row++) {
+                values[row] = input.readInt();
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Appends an empty row. Numeric values are zero and strings are null.
+     * @return The index of the new row
+     */
+    public int append() {
+        if (this.size == this.capacity()) {
+            this.grow();
+        }
+        for (final int[] values : this.codes) {
+            values[this.size] = -1;
+        }
+        return this.size++;
+    }
+
+    /**
+     * Appends the rows of another table with the same schema.
+     * @param other The other table
+     */
+    public void append(final RecordTable other) {
+        this.check(other.schema);
+        for (int row = 0; row < other.size; row++) {
+            final int target = this.append();
+            for (int index = 0; index < this.doubles.length; index++) {
+                this.doubles[index][target] = other.doubles[index][row];
+            }
+            for (int index = 0; index < this.ints.length; index++) {
+                this.ints[index][target] = other.ints[index][row];
+            }
+            for (int index = 0; index < this.longs.length; index++) {
+                this.longs[index][target] = other.longs[index][row];
+            }
+            for (int index = 0; index < this.codes.length; index++) {
+                final int code = other.codes[index][row];
+                if (code >= 0) {
+                    this.codes[index][target] = this.encode(other.dictionary.get(code));
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of rows.
+     * @return A positive number, or zero
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes all rows.
+     */
+    public void clear() {
+        this.size = 0;
+        this.dictionary.clear();
+        this.encoding.clear();
+    }
+
+    /**
+     * Sets a double value.
+     * @param row The row index
+     * @param column A double column
+     * @param value The value
+     */
+    public void set(final int row, final RecordTable.Column column, final double value) {
+        this.doubles[this.slot(column, RecordTable.Type.DOUBLE)][this.row(row)] = value;
+    }
+
+    /**
+     * Sets an integer value.
+     * @param row The row index
+     * @param column An integer column
+     * @param value The value
+     */
+    public void set(final int row, final RecordTable.Column column, final int value) {
+        this.ints[this.slot(column, RecordTable.Type.INT)][this.row(row)] = value;
+    }
+
+    /**
+     * Sets a long value.
+     * @param row The row index
+     * @param column A long column
+     * @param value The value
+     */
+    public void set(final int row, final RecordTable.Column column, final long value) {
+        this.longs[this.slot(column, RecordTable.Type.LONG)][this.row(row)] = value;
+    }
+
+    /**
+     * Sets a string value.
+     * @param row The row index
+     * @param column A string column
+     * @param value The value, or null
+     */
+    public void set(final int row, final RecordTable.Column column, final String value) {
+        final int slot = this.slot(column, RecordTable.Type.STRING);
+        if (value == null) {
+            this.codes[slot][this.row(row)] = -1;
+        } else {
+            this.codes[slot][this.row(row)] = this.encode(value);
+        }
+    }
+
+    /**
+     * A double value.
+     * @param row The row index
+     * @param column A double column
+     * @return The value
+     */
+    public double getDouble(final int row, final RecordTable.Column column) {
+        return this.doubles[this.slot(column, RecordTable.Type.DOUBLE)][this.row(row)];
+    }
+
+    /**
+     * An integer value.
+     * @param row The row index
+     * @param column An integer column
+     * @return The value
+     */
+    public int getInt(final int row, final RecordTable.Column column) {
+        return this.ints[this.slot(column, RecordTable.Type.INT)][this.row(row)];
+    }
+
+    /**
+     * A long value.
+     * @param row The row index
+     * @param column A long column
+     * @return The value
+     */
+    public long getLong(final int row, final RecordTable.Column column) {
+        return this.longs[this.slot(column, RecordTable.Type.LONG)][this.row(row)];
+    }
+
+    /**
+     * A string value.
+     * @param row The row index
+     * @param column A string column
+     * @return The value, or null
+     */
+    public String getString(final int row, final RecordTable.Column column) {
+        final int code = this.codes[this.slot(column, RecordTable.Type.STRING)][this.row(row)];
+        String value = null;
+        if (code >= 0) {
+            value = this.dictionary.get(code);
+        }
+        return value;
+    }
+
+    /**
+     * A numeric value, whatever the type of its column.
+     * @param row The row index
+     * @param column A numeric column
+     * @return The value
+     */
+    public double getNumber(final int row, final RecordTable.Column column) {
+        this.check(column.getSchema());
+        final double value;
+        switch (column.getType()) {
+            case DOUBLE:
+                value = this.getDouble(row, column);
+                break;
+            case INT:
+                value = this.getInt(row, column);
+                break;
+            case LONG:
+                value = this.getLong(row, column);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                    String.format("Column %s is not numeric", column)
+                );
+        }
+        return value;
+    }
+
+    /**
+     * Scans the values of a numeric column.
+     * @param column A numeric column
+     * @return A stream of the values, in row order
+     */
+    public DoubleStream scan(final RecordTable.Column column) {
+        final DoubleStream stream;
+        if (column.getType() == RecordTable.Type.DOUBLE) {
+            stream = Arrays.stream(
+                this.doubles[this.slot(column, RecordTable.Type.DOUBLE)],
+                0,
+                this.size
+            );
+        } else {
+            stream = IntStream.range(0, this.size)
+                .mapToDouble(row -> this.getNumber(row, column));
+        }
+        return stream;
+    }
+
+    /**
+     * Aggregates the values of a numeric column by the values of a string
+     * column (e.g., the fitness by line).
+     * @param key A string column
+     * @param value A numeric column
+     * @return The statistics of each group, in order of first appearance
+     */
+    public Map<String, DoubleSummaryStatistics> groupBy(final RecordTable.Column key,
+        final RecordTable.Column value) {
+        final int slot = this.slot(key, RecordTable.Type.STRING);
+        final DoubleSummaryStatistics[] groups =
+            new DoubleSummaryStatistics[this.dictionary.size()];
+        for (int row = 0; row < this.size; row++) {
+            final int code = this.codes[slot][row];
+            if (code >= 0) {
+                if (groups[code] == null) {
+                    groups[code] = new DoubleSummaryStatistics();
+                }
+                groups[code].accept(this.getNumber(row, value));
+            }
+        }
+        final Map<String, DoubleSummaryStatistics> statistics = new LinkedHashMap<>();
+        for (int code = 0; code < groups.length; code++) {
+            if (groups[code] != null) {
+                statistics.put(this.dictionary.get(code), groups[code]);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Writes the rows as comma-separated values, in column order.
+     * @param writer The output
+     * @param header Whether to write the column names first
+     */
+    public void writeCsv(final Writer writer, final boolean header) {
+        final PrintWriter printer = new PrintWriter(writer);
+        if (header) {
+            printer.println(this.schema.header());
+        }
+        for (int row = 0; row < this.size; row++) {
+            printer.println(this.asCsv(row));
+        }
+        printer.flush();
+    }
+
+    /**
+     * Writes this table in binary form: the columns, the string dictionary,
+     * and then the values of each column.
+     * @param output The output
+     * @throws IOException If the table cannot be written
+     */
+    public void write(final DataOutput output) throws IOException {
+        output.writeShort(this.schema.getColumns().size());
+        for (final RecordTable.Column column : this.schema.getColumns()) {
+            output.writeUTF(column.getName());
+            output.writeByte(column.getType().ordinal());
+        }
+        output.writeInt(this.size);
+        output.writeInt(this.dictionary.size());
+        for (final String value : this.dictionary) {
+            output.writeUTF(value);
+        }
+        for (final double[] values : this.doubles) {
+            for (int row = 0; row < this.size; row++) {
+                output.writeDouble(values[row]);
+            }
+        }
+        for (final int[] values : this.ints) {
+            for (int row = 0; row < this.size; row++) {
+                output.writeInt(values[row]);
+            }
+        }
+        for (final long[] values : this.longs) {
+            for (int row = 0; row < this.size; row++) {
+                output.writeLong(values[row]);
+            }
+        }
+        for (final int[] values : this.codes) {
+            for (int row = 0; row < this.size; row++) {
+                output.writeInt(values[row]);
+            }
+        }
+    }
+
+    /**
+     * Returns a row as comma-separated values, in column order.
+     * @param row The row index
+     * @return A non-null string
+     */
+    public String asCsv(final int row) {
+        final List<RecordTable.Column> columns = this.schema.getColumns();
+        final StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < columns.size(); index++) {
+            if (index > 0) {
+                builder.append(',');
+            }
+            builder.append(this.value(row, columns.get(index)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns a log-friendly string listing each column:value pair in a row.
+     * @param row The row index
+     * @return A non-null string
+     */
+    public String asLog(final int row) {
+        return this.schema.getColumns()
+            .stream()
+            .map(column -> String.format("%s: %s", column.getName(), this.value(row, column)))
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * A value as text.
+     * @param row The row index
+     * @param column The column
+     * @return A non-null string
+     */
+    private String value(final int row, final RecordTable.Column column) {
+        final String value;
+        switch (column.getType()) {
+            case DOUBLE:
+                value = Double.toString(this.getDouble(row, column));
+                break;
+            case INT:
+                value = Integer.toString(this.getInt(row, column));
+                break;
+            case LONG:
+                value = Long.toString(this.getLong(row, column));
+                break;
+            default:
+                value = String.valueOf(this.getString(row, column));
+                break;
+        }
+        return value;
+    }
+
+    /**
+     * The index of a column among the columns of its type.
+     * @param column The column
+     * @param type The expected type
+     * @return The index
+     */
+    private int slot(final RecordTable.Column column, final RecordTable.Type type) {
+        this.check(column.getSchema());
+        if (column.getType() != type) {
+            throw new IllegalArgumentException(
+                String.format("Expected a %s column but got %s", type, column)
+            );
+        }
+        return column.getSlot();
+    }
+
+    /**
+     * Checks that a row exists.
+     * @param row The row index
+     * @return The row index
+     */
+    private int row(final int row) {
+        if (row < 0 || row >= this.size) {
+            throw new IndexOutOfBoundsException(
+                String.format("Row %d is out of bounds for %d rows", row, this.size)
+            );
+        }
+        return row;
+    }
+
+    /**
+     * Checks that a schema is the schema of this table.
+     * @param other The schema
+     */
+    private void check(final RecordTable.Schema other) {
+        if (other != this.schema) {
+            throw new IllegalArgumentException("The column belongs to a different schema");
+        }
+    }
+
+    /**
+     * The code of a string, adding it to the dictionary if needed.
+     * @param value The string
+     * @return The code
+     */
+    private int encode(final String value) {
+        Integer code = this.encoding.get(value);
+        if (code == null) {
+            code = this.dictionary.size();
+            this.dictionary.add(value);
+            this.encoding.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * The number of rows that fit in the arrays.
+     * @return A positive number
+     */
+    private int capacity() {
+        final int capacity;
+        if (this.doubles.length > 0) {
+            capacity = this.doubles[0].length;
+        } else if (this.ints.length > 0) {
+            capacity = this.ints[0].length;
+        } else if (this.longs.length > 0) {
+            capacity = this.longs[0].length;
+        } else {
+            capacity = this.codes[0].length;
+        }
+        return capacity;
+    }
+
+    /**
+     * Doubles the number of rows that fit in the arrays.
+     */
+    private void grow() {
+        final int capacity = this.capacity() * 2;
+        for (int index = 0; index < this.doubles.length; index++) {
+            this.doubles[index] = Arrays.copyOf(this.doubles[index], capacity);
+        }
+        for (int index = 0; index < this.ints.length; index++) {
+            this.ints[index] = Arrays.copyOf(this.ints[index], capacity);
+        }
+        for (int index = 0; index < this.longs.length; index++) {
+            this.longs[index] = Arrays.copyOf(this.longs[index], capacity);
+        }
+        for (int index = 0; index < this.codes.length; index++) {
+            this.codes[index] = Arrays.copyOf(this.codes[index], capacity);
+        }
+    }
+
+    /**
+     * The type of a column.
+     */
+    public enum Type {
+        /**
+         * Double values.
+         */
+        DOUBLE,
+
+        /**
+         * Integer values.
+         */
+        INT,
+
+        /**
+         * Long values.
+         */
+        LONG,
+
+        /**
+         * Strings, encoded with a dictionary.
+         */
+        STRING
+    }
+
+    /**
+     * The ordered columns of a table. Columns are added before the first
+     * table with this schema is created, typically in static fields:
+     * <pre>
+     * SCHEMA = new RecordTable.Schema();
+     * LINE = SCHEMA.strings("line");
+     * FITNESS = SCHEMA.doubles("fitness");
+     * </pre>
+     */
+    public static final class Schema {
+
+        /**
+         * The columns, in order.
+         */
+        private final List<RecordTable.Column> columns;
+
+        /**
+         * An unmodifiable view of the columns.
+         */
+        private final List<RecordTable.Column> view;
+
+        /**
+         * Whether columns can no longer be added.
+         */
+        private boolean frozen;
+
+        /**
+         * Default constructor.
+         */
+        public Schema() {
+            this.columns = new ArrayList<>();
+            this.view = Collections.unmodifiableList(this.columns);
+        }
+
+        /**
+         * Adds a double column.
+         * @param name The column name
+         * @return The new column
+         */
+        public RecordTable.Column doubles(final String name) {
+            return this.add(name, RecordTable.Type.DOUBLE);
+        }
+
+        /**
+         * Adds an integer column.
+         * @param name The column name
+         * @return The new column
+         */
+        public RecordTable.Column ints(final String name) {
+            return this.add(name, RecordTable.Type.INT);
+        }
+
+        /**
+         * Adds a long column.
+         * @param name The column name
+         * @return The new column
+         */
+        public RecordTable.Column longs(final String name) {
+            return this.add(name, RecordTable.Type.LONG);
+        }
+
+        /**
+         * Adds a string column.
+         * @param name The column name
+         * @return The new column
+         */
+        public RecordTable.Column strings(final String name) {
+            return this.add(name, RecordTable.Type.STRING);
+        }
+
+        /**
+         * The columns, in order.
+         * @return An unmodifiable list
+         */
+        public List<RecordTable.Column> getColumns() {
+            return this.view;
+        }
+
+        /**
+         * Finds a column by name.
+         * @param name The column name
+         * @return The column
+         */
+        public synchronized RecordTable.Column column(final String name) {
+            return this.columns.stream()
+                .filter(column -> column.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                    String.format("There is no column named %s", name)
+                ));
+        }
+
+        /**
+         * The column names, comma-separated.
+         * @return A non-null string
+         */
+        public String header() {
+            return this.getColumns()
+                .stream()
+                .map(RecordTable.Column::getName)
+                .collect(Collectors.joining(","));
+        }
+
+        /**
+         * Adds a column.
+         * @param name The column name
+         * @param type The column type
+         * @return The new column
+         */
+        private synchronized RecordTable.Column add(final String name,
+            final RecordTable.Type type) {
+            if (this.frozen) {
+                throw new IllegalStateException(
+                    String.format("Cannot add column %s to a schema already in use", name)
+                );
+            }
+            if (this.columns.stream().anyMatch(column -> column.getName().equals(name))) {
+                throw new IllegalArgumentException(
+                    String.format("There is already a column named %s", name)
+                );
+            }
+            final RecordTable.Column column =
+                new RecordTable.Column(this, name, type, this.count(type));
+            this.columns.add(column);
+            return column;
+        }
+
+        /**
+         * The number of columns of a type.
+         * @param type The type
+         * @return A positive number, or zero
+         */
+        private synchronized int count(final RecordTable.Type type) {
+            return (int) this.columns.stream()
+                .filter(column -> column.getType() == type)
+                .count();
+        }
+
+        /**
+         * Prevents adding columns.
+         */
+        private synchronized void freeze() {
+            if (this.columns.isEmpty()) {
+                throw new IllegalStateException("Expected at least one column");
+            }
+            this.frozen = true;
+        }
+
+    }
+
+    /**
+     * A column of a schema.
+     */
+    @Getter
+    public static final class Column {
+
+        /**
+         * The schema defining this column.
+         */
+        private final RecordTable.Schema schema;
+
+        /**
+         * The column name.
+         */
+        private final String name;
+
+        /**
+         * The column type.
+         */
+        private final RecordTable.Type type;
+
+        /**
+         * The index of this column among the columns of its type.
+         */
+        private final int slot;
+
+        /**
+         * Default constructor.
+         * @param schema The schema defining this column
+         * @param name The column name
+         * @param type The column type
+         * @param slot The index of this column among the columns of its type
+         */
+        Column(final RecordTable.Schema schema, final String name,
+            final RecordTable.Type type, final int slot) {
+            this.schema = schema;
+            this.name = name;
+            this.type = type;
+            this.slot = slot;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s)", this.name, this.type);
+        }
+
+    }
+
+}
@@ -0,0 +1,362 @@
+package com.rigiresearch.dt.experimentation.evolution.distributed;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
+
+/**
+ * The messages exchanged by a {@link WorkerPool} and its
+ * {@link EvaluationWorker}s, in big-endian order.
+ *
+ * <p>Workers connect to the pool, which first sends the
+ * {@link #writeSetup(DataOutputStream, String, Configuration, int, double,
+ * double) setup}: the graph of stations (as XML), the base simulation
+ * properties, and the number and length of the replications. The worker
+ * keeps them resident and answers {@link #READY}. From then on, the pool
+ * sends one request per evaluation: the first replication and the number of
+ * replications to run, and the gene vector (the headway and number of buses
+ * of each line, in the order of the {@code lines} property). The worker
+ * answers with the summary of each line and replication.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+final class EvaluationProtocol {
+
+    /**
+     * The first bytes of a setup message ("DTGA"), followed by the version.
+     */
+    static final int MAGIC = 0x44544741;
+
+    /**
+     * The protocol version.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The status of a successful setup or evaluation.
+     */
+    static final int READY = 0;
+
+    /**
+     * The status of a failed setup or evaluation, followed by a message.
+     */
+    static final int FAILED = 1;
+
+    /**
+     * Utility class.
+     */
+    private EvaluationProtocol() {
+    }
+
+    /**
+     * Writes the setup message.
+     * @param output The connection output
+     * @param graph The graph of stations, as XML
+     * @param config The base simulation configuration
+     * @param replications The number of replications per evaluation
+     * @param length The length of each replication
+     * @param warmUp The length of the warm-up period of each replication
+     * @throws IOException If the message cannot be written
+     */
+    static void writeSetup(final DataOutputStream output, final String graph,
+        final Configuration config, final int replications, final double length,
+        final double warmUp) throws IOException {
+        output.writeInt(EvaluationProtocol.MAGIC);
+        output.writeInt(EvaluationProtocol.VERSION);
+        EvaluationProtocol.writeString(output, graph);
+        final List<String> keys = new ArrayList<>();
+        config.getKeys().forEachRemaining(keys::add);
+        output.writeInt(keys.size());
+        for (final String key : keys) {
+            final Object value = config.getProperty(key);
+            final String text;
+            if (value instanceof Collection) {
+                final StringBuilder builder = new StringBuilder();
+                final Iterator<?> iterator = ((Collection<?>) value).iterator();
+                while (iterator.hasNext()) {
+                    builder.append(iterator.next());
+                    if (iterator.hasNext()) {
+                        builder.append(',');
+                    }
+                }
+                text = builder.toString();
+            } else {
+                text = String.valueOf(value);
+            }
+            EvaluationProtocol.writeString(output, key);
+            EvaluationProtocol.writeString(output, text);
+        }
+        output.writeInt(replications);
+        output.writeDouble(length);
+        output.writeDouble(warmUp);
+        output.flush();
+    }
+
+    /**
+     * Reads a setup message.
+     * @param input The connection input
+     * @return The setup
+     * @throws IOException If the message cannot be read
+     */
+    static EvaluationProtocol.Setup readSetup(final DataInputStream input)
+        throws IOException {
+        final int magic = input.readInt();
+        final int version = input.readInt();
+        if (magic != EvaluationProtocol.MAGIC || version != EvaluationProtocol.VERSION) {
+            throw new IOException(
+                String.format("Unsupported protocol %x version %d", magic, version)
+            );
+        }
+        final String graph = EvaluationProtocol.readString(input);
+        final PropertiesConfiguration config = new PropertiesConfiguration();
+        config.setListDelimiterHandler(new DefaultListDelimiterHandler(','));
+        final int properties = input.readInt();
+        for (int index = 0; index < properties; index++) {
+            config.addProperty(
+                EvaluationProtocol.readString(input),
+                EvaluationProtocol.readString(input)
+            );
+        }
+        return new EvaluationProtocol.Setup(
+            graph,
+            config,
+            input.readInt(),
+            input.readDouble(),
+            input.readDouble()
+        );
+    }
+
+    /**
+     * Writes an evaluation request.
+     * @param output The connection output
+     * @param first The number of the first replication to run
+     * @param count The number of replications to run
+     * @param genes The headway and number of buses of each line
+     * @throws IOException If the message cannot be written
+     */
+    static void writeRequest(final DataOutputStream output, final int first, final int count,
+        final double... genes) throws IOException {
+        output.writeInt(first);
+        output.writeInt(count);
+        output.writeInt(genes.length);
+        for (final double gene : genes) {
+            output.writeDouble(gene);
+        }
+        output.flush();
+    }
+
+    /**
+     * Reads an evaluation request.
+     * @param input The connection input
+     * @return The request
+     * @throws IOException If the message cannot be read
+     */
+    static EvaluationProtocol.Request readRequest(final DataInputStream input)
+        throws IOException {
+        final int first = input.readInt();
+        final int count = input.readInt();
+        final double[] genes = new double[input.readInt()];
+        for (int index = 0; index < genes.length; index++) {
+            genes[index] = input.readDouble();
+        }
+        return new EvaluationProtocol.Request(first, count, genes);
+    }
+
+    /**
+     * Writes a successful evaluation response.
+     * @param output The connection output
+     * @param summaries The summary of each line and replication
+     * @throws IOException If the message cannot be written
+     */
+    static void writeResponse(final DataOutputStream output,
+        final List<ReplicationSummary> summaries) throws IOException {
+        output.writeInt(EvaluationProtocol.READY);
+        output.writeInt(summaries.size());
+        for (final ReplicationSummary summary : summaries) {
+            output.writeInt(summary.getReplica());
+            output.writeUTF(summary.getLine());
+            output.writeDouble(summary.getWaiting());
+            output.writeDouble(summary.getHeadway());
+            output.writeDouble(summary.getHcv());
+            output.writeDouble(summary.getEwtAverage());
+            output.writeDouble(summary.getEwtVariance());
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes a failure.
+     * @param output The connection output
+     * @param message The failure message
+     * @throws IOException If the message cannot be written
+     */
+    static void writeFailure(final DataOutputStream output, final String message)
+        throws IOException {
+        output.writeInt(EvaluationProtocol.FAILED);
+        EvaluationProtocol.writeString(output, message);
+        output.flush();
+    }
+
+    /**
+     * Reads an evaluation response.
+     * @param input The connection input
+     * @return The summary of each line and replication
+     * @throws IOException If the message cannot be read
+     * @throws IllegalStateException If the worker failed to evaluate the
+     *  candidate
+     */
+    static List<ReplicationSummary> readResponse(final DataInputStream input)
+        throws IOException {
+        EvaluationProtocol.readStatus(input);
+        final int size = input.readInt();
+        final List<ReplicationSummary> summaries = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            summaries.add(
+                new ReplicationSummary(
+                    input.readInt(),
+                    input.readUTF(),
+                    input.readDouble(),
+                    input.readDouble(),
+                    input.readDouble(),
+                    input.readDouble(),
+                    input.readDouble()
+                )
+            );
+        }
+        return summaries;
+    }
+
+    /**
+     * Reads a status, failing if it is not {@link #READY}.
+     * @param input The connection input
+     * @throws IOException If the status cannot be read
+     * @throws IllegalStateException If the status reports a failure
+     */
+    static void readStatus(final DataInputStream input) throws IOException {
+        final int status = input.readInt();
+        if (status != EvaluationProtocol.READY) {
+            throw new IllegalStateException(
+                String.format("The worker failed: %s", EvaluationProtocol.readString(input))
+            );
+        }
+    }
+
+    /**
+     * Writes a string of any length.
+     * @param output The connection output
+     * @param value The string
+     * @throws IOException If the string cannot be written
+     */
+    private static void writeString(final DataOutputStream output, final String value)
+        throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a string of any length.
+     * @param input The connection input
+     * @return The string
+     * @throws IOException If the string cannot be read
+     */
+    private static String readString(final DataInputStream input) throws IOException {
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The setup sent to each worker.
+     */
+    static final class Setup {
+
+        /**
+         * The graph of stations, as XML.
+         */
+        final String graph;
+
+        /**
+         * The base simulation configuration.
+         */
+        final Configuration config;
+
+        /**
+         * The number of replications per evaluation.
+         */
+        final int replications;
+
+        /**
+         * The length of each replication.
+         */
+        final double length;
+
+        /**
+         * The length of the warm-up period of each replication.
+         */
+        final double warmUp;
+
+        /**
+         * Default constructor.
+         * @param graph The graph of stations, as XML
+         * @param config The base simulation configuration
+         * @param replications The number of replications per evaluation
+         * @param length The length of each replication
+         * @param warmUp The length of the warm-up period of each replication
+         */
+        Setup(final String graph, final Configuration config, final int replications,
+            final double length, final double warmUp) {
+            this.graph = graph;
+            this.config = config;
+            this.replications = replications;
+            this.length = length;
+            this.warmUp = warmUp;
+        }
+
+    }
+
+    /**
+     * An evaluation request.
+     */
+    static final class Request {
+
+        /**
+         * The number of the first replication to run.
+         */
+        final int first;
+
+        /**
+         * The number of replications to run.
+         */
+        final int count;
+
+        /**
+         * The headway and number of buses of each line.
+         */
+        final double[] genes;
+
+        /**
+         * Default constructor.
+         * @param first The number of the first replication to run
+         * @param count The number of replications to run
+         * @param genes The headway and number of buses of each line
+         */
+        Request(final int first, final int count, final double... genes) {
+            this.first = first;
+            this.count = count;
+            this.genes = genes;
+        }
+
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.rigiresearch.dt.experimentation.evolution.distributed;
+
+import com.rigiresearch.dt.experimentation.evolution.genetic.GeneticAlgorithm;
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.GraphParser;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.configuration2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A process evaluating genetic algorithm candidates for a
+ * {@link WorkerPool}. The worker connects to the pool, receives the graph of
+ * stations and the base configuration once, and then simulates the
+ * replications of each gene vector it receives, one at a time.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class EvaluationWorker {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(EvaluationWorker.class);
+
+    /**
+     * The graph of stations.
+     */
+    private final Graph<Node> graph;
+
+    /**
+     * The simulation configuration, updated with the genes of each candidate.
+     */
+    private final Configuration config;
+
+    /**
+     * The lines to summarize, sorted by name.
+     */
+    private final List<Line> lines;
+
+    /**
+     * The ids of the evolving lines, in the order of the genes.
+     */
+    private final List<String> ids;
+
+    /**
+     * The setup received from the pool.
+     */
+    private final EvaluationProtocol.Setup setup;
+
+    /**
+     * Default constructor.
+     * @param setup The setup received from the pool
+     * @throws JAXBException If the graph cannot be parsed
+     */
+    EvaluationWorker(final EvaluationProtocol.Setup setup) throws JAXBException {
+        this.setup = setup;
+        this.graph = new GraphParser()
+            .withBindings("bindings.xml")
+            .instance(setup.graph);
+        this.config = setup.config;
+        this.lines = this.graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .sorted(Comparator.comparing(Line::getName))
+            .collect(Collectors.toList());
+        this.ids = this.config.getList(String.class, "lines");
+    }
+
+    /**
+     * Main entry point. Use {@code <host> <port>} to connect to a pool.
+     * @param args The application arguments
+     * @throws IOException If the connection fails
+     */
+    public static void main(final String... args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(
+                "Expected two arguments: the host and port of the worker pool"
+            );
+        }
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            EvaluationWorker.serve(
+                new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+            );
+        }
+    }
+
+    /**
+     * Evaluates the candidates sent by the pool until it disconnects.
+     * @param input The connection input
+     * @param output The connection output
+     * @throws IOException If the connection fails
+     */
+    static void serve(final DataInputStream input, final DataOutputStream output)
+        throws IOException {
+        final EvaluationWorker worker;
+        try {
+            worker = new EvaluationWorker(EvaluationProtocol.readSetup(input));
+        } catch (final JAXBException | RuntimeException exception) {
+            EvaluationProtocol.writeFailure(output, String.valueOf(exception.getMessage()));
+            throw new IOException("Could not set up the worker", exception);
+        }
+        output.writeInt(EvaluationProtocol.READY);
+        output.flush();
+        while (true) {
+            final EvaluationProtocol.Request request;
+            try {
+                request = EvaluationProtocol.readRequest(input);
+            } catch (final EOFException exception) {
+                EvaluationWorker.LOGGER.info("The worker pool disconnected");
+                break;
+            }
+            final List<ReplicationSummary> summaries;
+            try {
+                summaries = worker.evaluate(request.first, request.count, request.genes);
+            } catch (final RuntimeException exception) {
+                EvaluationWorker.LOGGER.error("Could not evaluate a candidate", exception);
+                EvaluationProtocol.writeFailure(output, String.valueOf(exception.getMessage()));
+                continue;
+            }
+            EvaluationProtocol.writeResponse(output, summaries);
+        }
+    }
+
+    /**
+     * Simulates replications of a candidate.
+     * @param first The number of the first replication to run
+     * @param count The number of replications to run
+     * @param genes The headway and number of buses of each line
+     * @return The summary of each line and replication
+     */
+    List<ReplicationSummary> evaluate(final int first, final int count,
+        final double... genes) {
+        GeneticAlgorithm.configure(this.config, this.ids, genes);
+        final List<ReplicationSummary> summaries = new ArrayList<>(count * this.lines.size());
+        for (int replica = first; replica < first + count; replica++) {
+            final DtSimulation simulation = new DtSimulation(this.graph, this.config);
+            simulation.setLengthOfReplication(this.setup.length);
+            simulation.setLengthOfWarmUp(this.setup.warmUp);
+            simulation.run();
+            for (final Line line : this.lines) {
+                summaries.add(
+                    ReplicationSummary.of(
+                        replica,
+                        simulation,
+                        line,
+                        this.config.getDouble(String.format("%s.headway", line.getName()))
+                    )
+                );
+            }
+        }
+        return summaries;
+    }
+
+}
@@ -0,0 +1,545 @@
+package com.rigiresearch.dt.experimentation.evolution.distributed;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.GraphParser;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.configuration2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of {@link EvaluationWorker} processes evaluating genetic algorithm
+ * candidates, so that replications are not limited by the heap and garbage
+ * collector of a single JVM.
+ *
+ * <p>The pool listens on a local socket and forks the given number of
+ * workers, which connect back to it. Workers started by other means (e.g., on
+ * other machines, with {@code EvaluationWorker <host> <port>}) may connect too,
+ * provided the pool listens on a reachable address. Each worker receives the
+ * graph and base configuration once, and then only gene vectors (see
+ * {@link EvaluationProtocol}).</p>
+ *
+ * <p>Evaluations are retried on another worker if their worker disconnects,
+ * or does not answer within the timeout (see {@link #TIMEOUT}), up to
+ * {@link #MAX_ATTEMPTS} times, and crashed local workers are restarted
+ * up to {@link #MAX_RESTARTS} times. At most {@link #QUEUE_PER_WORKER}
+ * evaluations per worker may be pending; further calls to
+ * {@link #evaluate(double...)} block until one completes.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class WorkerPool implements Closeable {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerPool.class);
+
+    /**
+     * The number of evaluations that may wait for a worker, per worker.
+     */
+    private static final int QUEUE_PER_WORKER = 4;
+
+    /**
+     * The maximum number of times an evaluation is sent to a worker.
+     */
+    public static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * The maximum number of times crashed local workers are restarted.
+     */
+    public static final int MAX_RESTARTS = 10;
+
+    /**
+     * The default time, in milliseconds, a worker may take to answer before
+     * it is considered hung, disconnected, and its evaluation retried.
+     */
+    public static final int TIMEOUT = (int) TimeUnit.MINUTES.toMillis(30L);
+
+    /**
+     * The graph of stations, as XML.
+     */
+    private final String graph;
+
+    /**
+     * The base simulation configuration.
+     */
+    private final Configuration config;
+
+    /**
+     * The number of replications per evaluation.
+     */
+    private final int replications;
+
+    /**
+     * The length of each replication.
+     */
+    private final double length;
+
+    /**
+     * The length of the warm-up period of each replication.
+     */
+    private final double warmUp;
+
+    /**
+     * The time, in milliseconds, a worker may take to answer.
+     */
+    private final int timeout;
+
+    /**
+     * The socket accepting worker connections.
+     */
+    private final ServerSocket server;
+
+    /**
+     * The evaluations waiting for a worker. Retried evaluations go first.
+     */
+    private final BlockingDeque<WorkerPool.Task> queue;
+
+    /**
+     * The permits to submit an evaluation.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The open worker connections.
+     */
+    private final Set<Socket> connections;
+
+    /**
+     * The running local workers.
+     */
+    private final Set<Process> processes;
+
+    /**
+     * The number of times local workers were restarted.
+     */
+    private final AtomicInteger restarts;
+
+    /**
+     * Whether the pool is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Secondary constructor. Listens on the loopback interface.
+     * @param graph The graph of stations
+     * @param config The base simulation configuration
+     * @param replications The number of replications per evaluation
+     * @param length The length of each replication
+     * @param warmUp The length of the warm-up period of each replication
+     * @param workers The number of local workers
+     * @throws IOException If the pool cannot listen or fork the workers
+     */
+    public WorkerPool(final Graph<Node> graph, final Configuration config,
+        final int replications, final double length, final double warmUp,
+        final int workers) throws IOException {
+        this(
+            graph,
+            config,
+            replications,
+            length,
+            warmUp,
+            workers,
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)
+        );
+    }
+
+    /**
+     * Secondary constructor. Uses the default timeout.
+     * @param graph The graph of stations
+     * @param config The base simulation configuration
+     * @param replications The number of replications per evaluation
+     * @param length The length of each replication
+     * @param warmUp The length of the warm-up period of each replication
+     * @param workers The number of local workers
+     * @param address The address on which workers connect
+     * @throws IOException If the pool cannot listen or fork the workers
+     */
+    public WorkerPool(final Graph<Node> graph, final Configuration config,
+        final int replications, final double length, final double warmUp,
+        final int workers, final InetSocketAddress address) throws IOException {
+        this(
+            graph,
+            config,
+            replications,
+            length,
+            warmUp,
+            workers,
+            address,
+            WorkerPool.TIMEOUT
+        );
+    }
+
+    /**
+     * Default constructor.
+     * @param graph The graph of stations
+     * @param config The base simulation configuration
+     * @param replications The number of replications per evaluation
+     * @param length The length of each replication
+     * @param warmUp The length of the warm-up period of each replication
+     * @param workers The number of local workers
+     * @param address The address on which workers connect
+     * @param timeout The time, in milliseconds, a worker may take to answer
+     * @throws IOException If the pool cannot listen or fork the workers
+     */
+    public WorkerPool(final Graph<Node> graph, final Configuration config,
+        final int replications, final double length, final double warmUp,
+        final int workers, final InetSocketAddress address, final int timeout)
+        throws IOException {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException(
+                String.format("The timeout must be positive, but was %d", timeout)
+            );
+        }
+        final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        try {
+            new GraphParser()
+                .withBindings("bindings.xml")
+                .write(graph, xml);
+        } catch (final JAXBException exception) {
+            throw new IllegalArgumentException("Could not serialize the graph", exception);
+        }
+        this.graph = new String(xml.toByteArray(), StandardCharsets.UTF_8);
+        this.config = config;
+        this.replications = replications;
+        this.length = length;
+        this.warmUp = warmUp;
+        this.timeout = timeout;
+        this.queue = new LinkedBlockingDeque<>();
+        this.permits = new Semaphore(Math.max(workers, 1) * WorkerPool.QUEUE_PER_WORKER);
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.processes = ConcurrentHashMap.newKeySet();
+        this.restarts = new AtomicInteger();
+        this.server = new ServerSocket();
+        this.server.bind(address);
+        final Thread acceptor = new Thread(this::accept, "worker-pool-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        for (int worker = 0; worker < workers; worker++) {
+            this.fork();
+        }
+    }
+
+    /**
+     * The port on which workers connect.
+     * @return A port number
+     */
+    public int port() {
+        return this.server.getLocalPort();
+    }
+
+    /**
+     * The number of connected workers.
+     * @return A positive number, or zero
+     */
+    public int size() {
+        return this.connections.size();
+    }
+
+    /**
+     * Evaluates a candidate, blocking while too many evaluations are pending.
+     * @param genes The headway and number of buses of each line, in the order
+     *  of the {@code lines} property
+     * @return The summary of each line and replication
+     */
+    public List<ReplicationSummary> evaluate(final double... genes) {
+        return this.evaluate(1, this.replications, genes);
+    }
+
+    /**
+     * Runs some of the replications of a candidate, blocking while too many
+     * evaluations are pending. Replications are numbered from 1.
+     * @param first The number of the first replication to run
+     * @param count The number of replications to run
+     * @param genes The headway and number of buses of each line, in the order
+     *  of the {@code lines} property
+     * @return The summary of each line and replication
+     */
+    public List<ReplicationSummary> evaluate(final int first, final int count,
+        final double... genes) {
+        final WorkerPool.Task task = new WorkerPool.Task(first, count, genes);
+        try {
+            this.permits.acquire();
+            try {
+                if (this.closed) {
+                    throw new IllegalStateException("The worker pool is closed");
+                }
+                this.queue.put(task);
+                this.abandonIfDead();
+                return task.future.get();
+            } finally {
+                this.permits.release();
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating", exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException("Could not evaluate a candidate", exception.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        this.server.close();
+        for (final Socket socket : this.connections) {
+            socket.close();
+        }
+        this.processes.forEach(Process::destroy);
+        this.abandon("The worker pool is closed");
+    }
+
+    /**
+     * Accepts worker connections until the pool is closed.
+     */
+    private void accept() {
+        while (!this.closed) {
+            try {
+                final Socket socket = this.server.accept();
+                socket.setTcpNoDelay(true);
+                final Thread thread = new Thread(
+                    () -> this.dispatch(socket),
+                    String.format("worker-pool-%s", socket.getRemoteSocketAddress())
+                );
+                thread.setDaemon(true);
+                thread.start();
+            } catch (final IOException exception) {
+                if (!this.closed) {
+                    WorkerPool.LOGGER.error("Could not accept a worker", exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets up a worker and sends it evaluations until it disconnects, or
+     * takes longer than the timeout to answer.
+     * @param socket The worker connection
+     */
+    private void dispatch(final Socket socket) {
+        this.connections.add(socket);
+        WorkerPool.Task task = null;
+        try {
+            // A hung worker would otherwise hold its evaluation forever
+            socket.setSoTimeout(this.timeout);
+            final DataInputStream input =
+                new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream output =
+                new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            EvaluationProtocol.writeSetup(
+                output,
+                this.graph,
+                this.config,
+                this.replications,
+                this.length,
+                this.warmUp
+            );
+            EvaluationProtocol.readStatus(input);
+            WorkerPool.LOGGER.info("Worker {} connected", socket.getRemoteSocketAddress());
+            while (!this.closed) {
+                task = this.queue.poll(1L, TimeUnit.SECONDS);
+                if (task == null) {
+                    continue;
+                }
+                EvaluationProtocol.writeRequest(output, task.first, task.count, task.genes);
+                try {
+                    task.future.complete(EvaluationProtocol.readResponse(input));
+                } catch (final IllegalStateException exception) {
+                    // The worker is fine, but the candidate cannot be simulated
+                    task.future.completeExceptionally(exception);
+                }
+                task = null;
+            }
+        } catch (final SocketTimeoutException exception) {
+            WorkerPool.LOGGER.warn(
+                "Worker {} did not answer within {} ms",
+                socket.getRemoteSocketAddress(),
+                this.timeout
+            );
+        } catch (final IOException | IllegalStateException exception) {
+            if (!this.closed) {
+                WorkerPool.LOGGER.warn(
+                    "Worker {} disconnected",
+                    socket.getRemoteSocketAddress(),
+                    exception
+                );
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.connections.remove(socket);
+            try {
+                socket.close();
+            } catch (final IOException exception) {
+                WorkerPool.LOGGER.debug("Could not close the connection", exception);
+            }
+            if (task != null) {
+                this.retry(task);
+            }
+            this.abandonIfDead();
+        }
+    }
+
+    /**
+     * Queues an evaluation again, unless it failed too many times.
+     * @param task The evaluation
+     */
+    private void retry(final WorkerPool.Task task) {
+        if (++task.attempts < WorkerPool.MAX_ATTEMPTS && !this.closed) {
+            this.queue.addFirst(task);
+        } else {
+            task.future.completeExceptionally(
+                new IOException(
+                    String.format("The evaluation failed after %d attempts", task.attempts)
+                )
+            );
+        }
+    }
+
+    /**
+     * Forks a local worker, and restarts it if it crashes.
+     * @throws IOException If the worker cannot be started
+     */
+    private void fork() throws IOException {
+        InetAddress host = this.server.getInetAddress();
+        if (host.isAnyLocalAddress()) {
+            host = InetAddress.getLoopbackAddress();
+        }
+        final Process process = new ProcessBuilder(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp",
+            System.getProperty("java.class.path"),
+            EvaluationWorker.class.getName(),
+            host.getHostAddress(),
+            Integer.toString(this.port())
+        ).inheritIO().start();
+        this.processes.add(process);
+        final Thread monitor = new Thread(() -> this.monitor(process), "worker-pool-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    /**
+     * Waits for a local worker to exit, and restarts it unless the pool is
+     * closed or the workers crashed too many times.
+     * @param process The worker process
+     */
+    private void monitor(final Process process) {
+        try {
+            final int status = process.waitFor();
+            this.processes.remove(process);
+            if (!this.closed) {
+                WorkerPool.LOGGER.warn("A local worker exited with status {}", status);
+                if (this.restarts.incrementAndGet() <= WorkerPool.MAX_RESTARTS) {
+                    this.fork();
+                } else {
+                    WorkerPool.LOGGER.error("Local workers crashed too many times");
+                    this.abandonIfDead();
+                }
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (final IOException exception) {
+            WorkerPool.LOGGER.error("Could not restart a local worker", exception);
+            this.abandonIfDead();
+        }
+    }
+
+    /**
+     * Fails the pending evaluations if local workers were forked but none is
+     * left, since no worker would ever take them.
+     */
+    private void abandonIfDead() {
+        if (this.restarts.get() > WorkerPool.MAX_RESTARTS
+            && this.processes.isEmpty() && this.connections.isEmpty()) {
+            this.abandon("There are no workers left");
+        }
+    }
+
+    /**
+     * Fails the pending evaluations.
+     * @param reason The reason
+     */
+    private void abandon(final String reason) {
+        WorkerPool.Task task = this.queue.poll();
+        while (task != null) {
+            task.future.completeExceptionally(new SocketException(reason));
+            task = this.queue.poll();
+        }
+    }
+
+    /**
+     * An evaluation.
+     */
+    private static final class Task {
+
+        /**
+         * The number of the first replication to run.
+         */
+        private final int first;
+
+        /**
+         * The number of replications to run.
+         */
+        private final int count;
+
+        /**
+         * The genes of the candidate.
+         */
+        private final double[] genes;
+
+        /**
+         * The summaries, once evaluated.
+         */
+        private final CompletableFuture<List<ReplicationSummary>> future;
+
+        /**
+         * The number of failed attempts.
+         */
+        private int attempts;
+
+        /**
+         * Default constructor.
+         * @param first The number of the first replication to run
+         * @param count The number of replications to run
+         * @param genes The genes of the candidate
+         */
+        Task(final int first, final int count, final double... genes) {
+            this.first = first;
+            this.count = count;
+            this.genes = genes.clone();
+            this.future = new CompletableFuture<>();
+        }
+
+    }
+
+}
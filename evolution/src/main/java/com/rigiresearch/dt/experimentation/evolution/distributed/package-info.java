@@ -0,0 +1,6 @@
+/**
+ * Contains classes to evaluate the fitness of genetic algorithm candidates
+ * in a pool of worker processes.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.evolution.distributed;
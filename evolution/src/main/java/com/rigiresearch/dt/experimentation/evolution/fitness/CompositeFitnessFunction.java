@@ -106,6 +106,41 @@ public class CompositeFitnessFunction implements FitnessFunction {
         return result;
     }
 
+    /**
+     * Validates this function and binds its arguments to positions in an
+     * array of values, in the order given by {@link #arguments()}.
+     * @return An evaluator of this function
+     */
+    public FitnessFunction.Evaluator compile() {
+        return this.validate().compile(this.arguments());
+    }
+
+    /**
+     * Binds the arguments of every function to positions in an array of
+     * values. Each function is evaluated once per evaluation, and its score
+     * weighted.
+     * @param names The argument names, in the order of the values
+     * @return An evaluator of this function
+     */
+    @Override
+    public FitnessFunction.Evaluator compile(final List<String> names) {
+        final FitnessFunction.Evaluator[] functions =
+            new FitnessFunction.Evaluator[this.pairs.size()];
+        final double[] weights = new double[this.pairs.size()];
+        for (int index = 0; index < functions.length; index++) {
+            final CompositeFitnessFunction.Pair pair = this.pairs.get(index);
+            functions[index] = pair.getFunction().compile(names);
+            weights[index] = pair.getWeight();
+        }
+        return values -> {
+            double result = 0.0;
+            for (int index = 0; index < functions.length; index++) {
+                result += weights[index] * functions[index].evaluate(values);
+            }
+            return result;
+        };
+    }
+
     /**
      * Finds a pair by the name of the argument that the function handles.
      * This assumes that only one function handles a particular argument name.
@@ -135,6 +135,40 @@ public final class CubicFitnessFunction implements FitnessFunction {
         return normalized;
     }
 
+    /**
+     * Compiles {@link #evaluate(FitnessFunction.NamedArgument...)}. The bounds
+     * of each part are computed once, and the argument is compared with them
+     * in double precision rather than as a {@link BigDecimal}, so that
+     * evaluating does not allocate.
+     * @param names The argument names, in the order of the values
+     * @return An evaluator of the normalized function
+     */
+    @Override
+    public FitnessFunction.Evaluator compile(final List<String> names) {
+        final int slot = FitnessFunction.slot(this.argument, names);
+        final double lower = this.a.doubleValue();
+        final double middle = this.b.doubleValue();
+        final double upper = this.c.doubleValue();
+        final double first = this.evaluateNonNormalized(lower);
+        final double second = this.evaluateNonNormalized(middle);
+        final double third = this.evaluateNonNormalized(upper);
+        return values -> {
+            final double x = values[slot];
+            final double normalized;
+            if (lower <= x && x <= middle) {
+                final double y = -10.0 * StrictMath.pow(x - middle, 3.0);
+                normalized = FitnessFunction.normalizeInRange(y, second, first, 0.0, 1.0);
+            } else if (middle <= x && x <= upper) {
+                final double y = -10.0 * StrictMath.pow(x - middle, 3.0);
+                normalized = FitnessFunction.normalizeInRange(y, third, second, -1.0, 0.0);
+            } else {
+                LOGGER.warn("Value {} is out of the boundaries [{}, {}] = -1", x, lower, upper);
+                normalized = -1.0;
+            }
+            return normalized;
+        };
+    }
+
     @Override
     public List<String> arguments() {
         return Collections.singletonList(this.argument);
@@ -25,6 +25,50 @@ public interface FitnessFunction {
      */
     List<String> arguments();
 
+    /**
+     * Binds the arguments of this function to positions in an array of
+     * values, so that it can be evaluated repeatedly without looking up or
+     * allocating arguments. Functions should override this method; the
+     * default evaluator wraps the values in named arguments on every call.
+     * @param names The argument names, in the order of the values that the
+     *  evaluator receives
+     * @return An evaluator of this function
+     */
+    default FitnessFunction.Evaluator compile(final List<String> names) {
+        final List<String> arguments = this.arguments();
+        final int[] slots = new int[arguments.size()];
+        for (int index = 0; index < slots.length; index++) {
+            slots[index] = FitnessFunction.slot(arguments.get(index), names);
+        }
+        return values -> {
+            final FitnessFunction.NamedArgument[] args =
+                new FitnessFunction.NamedArgument[slots.length];
+            for (int index = 0; index < slots.length; index++) {
+                args[index] = new FitnessFunction.NamedArgument(
+                    arguments.get(index),
+                    values[slots[index]]
+                );
+            }
+            return this.evaluate(args);
+        };
+    }
+
+    /**
+     * Finds the position of an argument.
+     * @param name The argument name
+     * @param names The argument names, in the order of the values
+     * @return The index of the argument in the values
+     */
+    static int slot(final String name, final List<String> names) {
+        final int slot = names.indexOf(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException(
+                String.format("Argument '%s' not found", name)
+            );
+        }
+        return slot;
+    }
+
     /**
      * Finds an argument by its name.
      * @param name The argument name
@@ -75,6 +119,55 @@ public interface FitnessFunction {
         return (b - a) * ((value-min)/(max-min)) + a;
     }
 
+    /**
+     * A fitness function whose arguments are bound to positions in an array
+     * of values.
+     */
+    @FunctionalInterface
+    interface Evaluator {
+
+        /**
+         * Evaluates the function.
+         * @param values The argument values, in the order given to
+         *  {@link FitnessFunction#compile(List)}
+         * @return A positive or negative number, including 0
+         */
+        double evaluate(double... values);
+
+        /**
+         * Evaluates the function for several sets of arguments.
+         * @param values The argument values, one array per evaluation
+         * @param results The array in which the results are stored, at the
+         *  same index as their values
+         */
+        default void evaluate(final double[][] values, final double[] results) {
+            if (results.length < values.length) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Expected room for %d results but got %d",
+                        values.length,
+                        results.length
+                    )
+                );
+            }
+            for (int index = 0; index < values.length; index++) {
+                results[index] = this.evaluate(values[index]);
+            }
+        }
+
+        /**
+         * Evaluates the function for several sets of arguments.
+         * @param values The argument values, one array per evaluation
+         * @return The results, in the order of the values
+         */
+        default double[] evaluate(final double[][] values) {
+            final double[] results = new double[values.length];
+            this.evaluate(values, results);
+            return results;
+        }
+
+    }
+
     @Value
     class NamedArgument {
 
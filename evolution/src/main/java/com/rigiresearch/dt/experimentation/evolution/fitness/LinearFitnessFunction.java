@@ -46,13 +46,29 @@ public final class LinearFitnessFunction implements FitnessFunction {
                 String.format("Argument '%s' not found", this.argument)
             );
         }
+        return this.value(arg.get().getValue());
+    }
+
+    @Override
+    public FitnessFunction.Evaluator compile(final List<String> names) {
+        final int slot = FitnessFunction.slot(this.argument, names);
+        return values -> this.value(values[slot]);
+    }
+
+    /**
+     * Evaluates this function.
+     * @param value The argument value
+     * @return The negated value, or {@link Double#MIN_VALUE} if it is below
+     *  the minimum
+     */
+    private double value(final double value) {
         final double result;
-        if (arg.get().getValue() - this.min >= LinearFitnessFunction.EPSILON) {
+        if (value - this.min >= LinearFitnessFunction.EPSILON) {
             // Make it negative to maximize the value
-            result = -arg.get().getValue();
+            result = -value;
         } else {
             LOGGER.warn("Value {} is below the minimum boundary ({}) = Double.MIN_VALUE",
-                arg.get().getValue(), this.min);
+                value, this.min);
             result = Double.MIN_VALUE;
         }
         return result;
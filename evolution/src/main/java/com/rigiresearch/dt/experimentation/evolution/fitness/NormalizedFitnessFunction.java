@@ -53,16 +53,31 @@ public final class NormalizedFitnessFunction implements FitnessFunction {
         final Optional<NamedArgument> arg =
                 FitnessFunction.argument(this.argument, arguments);
         this.checkArgument(arg);
+        return this.value(arg.get().getValue());
+    }
+
+    @Override
+    public FitnessFunction.Evaluator compile(final List<String> names) {
+        final int slot = FitnessFunction.slot(this.argument, names);
+        return values -> this.value(values[slot]);
+    }
+
+    /**
+     * Evaluates this function.
+     * @param value The argument value
+     * @return a double value between -1.0 and 1.0
+     */
+    private double value(final double value) {
         final double result;
-        if (arg.get().getValue() < this.min) {
+        if (value < this.min) {
             result = Double.MIN_VALUE;
-            LOGGER.warn("Value {} is below the minimum boundary ({})", arg.get().getValue(), this.min);
-        } else if (arg.get().getValue() > this.max) {
+            LOGGER.warn("Value {} is below the minimum boundary ({})", value, this.min);
+        } else if (value > this.max) {
             result = -1;
-            LOGGER.warn("Value {} is above the maximum boundary ({})", arg.get().getValue(), this.max);
+            LOGGER.warn("Value {} is above the maximum boundary ({})", value, this.max);
         } else {
             result = FitnessFunction.normalizeInRange(
-                    arg.get().getValue(),
+                    value,
                     this.max,
                     this.min,
                     -1.0,
@@ -0,0 +1,177 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The state of a {@link GeneticAlgorithm} after a generation: the evaluated
+ * population, the generation counters, the number of evaluations, and the
+ * best fitness per generation. The simulation records are not copied; the
+ * checkpoint only keeps the length of the {@link RecordSink} file at the time
+ * it was taken. Resuming from a checkpoint does not evaluate the restored
+ * population again.
+ *
+ * <p>Checkpoints are written as gzip-compressed binary files.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class Checkpoint {
+
+    /**
+     * The first bytes of a checkpoint ("DTCP").
+     */
+    private static final int MAGIC = 0x44544350;
+
+    /**
+     * The format version.
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * The number of completed generations.
+     */
+    private final int generation;
+
+    /**
+     * The Jenetics generation number at which evolution continues.
+     */
+    private final long start;
+
+    /**
+     * The number of evaluations performed so far.
+     */
+    private final int executions;
+
+    /**
+     * The gene values of each individual of the population.
+     */
+    private final List<double[]> genes;
+
+    /**
+     * The fitness of each individual of the population.
+     */
+    private final double[] fitness;
+
+    /**
+     * The generation in which each individual was created.
+     */
+    private final long[] births;
+
+    /**
+     * The length in bytes of the simulation records file.
+     */
+    private final long records;
+
+    /**
+     * The best fitness value per generation.
+     */
+    private final RecordTable frecords;
+
+    /**
+     * Reads a checkpoint.
+     * @param path The path to the checkpoint file
+     * @return A non-null checkpoint
+     * @throws IOException If the file cannot be read or is not a checkpoint
+     */
+    public static Checkpoint read(final Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+            new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (input.readInt() != Checkpoint.MAGIC || input.readInt() != Checkpoint.VERSION) {
+                throw new IOException(
+                    String.format("%s is not a supported checkpoint", path)
+                );
+            }
+            final int generation = input.readInt();
+            final long start = input.readLong();
+            final int executions = input.readInt();
+            final int size = input.readInt();
+            final int length = input.readInt();
+            final List<double[]> genes = new ArrayList<>(size);
+            final double[] fitness = new double[size];
+            final long[] births = new long[size];
+            for (int individual = 0; individual < size; individual++) {
+                final double[] values = new double[length];
+                for (int gene = 0; gene < length; gene++) {
+                    values[gene] = input.readDouble();
+                }
+                genes.add(values);
+                fitness[individual] = input.readDouble();
+                births[individual] = input.readLong();
+            }
+            return new Checkpoint(
+                generation,
+                start,
+                executions,
+                genes,
+                fitness,
+                births,
+                input.readLong(),
+                RecordTable.read(input, GeneticAlgorithm.GENERATIONS)
+            );
+        }
+    }
+
+    /**
+     * Writes this checkpoint, replacing the file only once it is complete.
+     * @param path The path to the checkpoint file
+     * @throws IOException If the file cannot be written
+     */
+    public void write(final Path path) throws IOException {
+        final Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, "checkpoint", ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temporary))
+                ))) {
+                output.writeInt(Checkpoint.MAGIC);
+                output.writeInt(Checkpoint.VERSION);
+                output.writeInt(this.generation);
+                output.writeLong(this.start);
+                output.writeInt(this.executions);
+                output.writeInt(this.genes.size());
+                int length = 0;
+                if (!this.genes.isEmpty()) {
+                    length = this.genes.get(0).length;
+                }
+                output.writeInt(length);
+                for (int individual = 0; individual < this.genes.size(); individual++) {
+                    for (final double value : this.genes.get(individual)) {
+                        output.writeDouble(value);
+                    }
+                    output.writeDouble(this.fitness[individual]);
+                    output.writeLong(this.births[individual]);
+                }
+                output.writeLong(this.records);
+                this.frecords.write(output);
+            }
+            Files.move(
+                temporary,
+                path,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+}
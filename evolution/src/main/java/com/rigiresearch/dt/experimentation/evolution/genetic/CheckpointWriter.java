@@ -0,0 +1,121 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes checkpoints in a background thread, so that evolution is not
+ * blocked by the file system. If checkpoints are taken faster than they can
+ * be written, only the latest one is written. The simulation records are
+ * written before each checkpoint, so that the file is at least as long as
+ * the length kept by the checkpoint (see {@link RecordSink#mark()}).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class CheckpointWriter implements Closeable {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointWriter.class);
+
+    /**
+     * The path to the checkpoint file.
+     */
+    private final Path path;
+
+    /**
+     * The thread writing the checkpoints.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The checkpoint waiting to be written, or null.
+     */
+    private final AtomicReference<Checkpoint> pending;
+
+    /**
+     * The simulation records referenced by the checkpoints, or null.
+     */
+    private final RecordSink records;
+
+    /**
+     * Constructor for checkpoints without simulation records.
+     * @param path The path to the checkpoint file
+     */
+    public CheckpointWriter(final Path path) {
+        this(path, null);
+    }
+
+    /**
+     * Default constructor.
+     * @param path The path to the checkpoint file
+     * @param records The simulation records referenced by the checkpoints,
+     *  or null
+     */
+    public CheckpointWriter(final Path path, final RecordSink records) {
+        this.path = path;
+        this.records = records;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pending = new AtomicReference<>();
+    }
+
+    /**
+     * Schedules a checkpoint to be written.
+     * @param checkpoint The checkpoint
+     */
+    public void save(final Checkpoint checkpoint) {
+        if (this.pending.getAndSet(checkpoint) == null) {
+            this.executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Waits for the pending checkpoint to be written.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(1L, TimeUnit.MINUTES);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the latest checkpoint.
+     */
+    private void flush() {
+        final Checkpoint checkpoint = this.pending.getAndSet(null);
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            if (this.records != null) {
+                this.records.flush();
+            }
+            checkpoint.write(this.path);
+            CheckpointWriter.LOGGER.info(
+                "Saved generation {} to {}",
+                checkpoint.getGeneration(),
+                this.path
+            );
+        } catch (final IOException exception) {
+            CheckpointWriter.LOGGER.error("Could not save a checkpoint", exception);
+        }
+    }
+
+}
@@ -0,0 +1,299 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import io.jenetics.Chromosome;
+import io.jenetics.DoubleGene;
+import io.jenetics.Genotype;
+import io.jenetics.Optimize;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionDurations;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.util.ISeq;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evolves a decomposition of the encoding cooperatively: each species owns
+ * some of the chromosomes (e.g., those of a line, or of a cluster of lines
+ * that interact) and evolves its own population. An individual is evaluated
+ * in context, completing the encoding with the best individual of every
+ * other species, so each species searches only its own part of the space.
+ *
+ * <p>Species evolve one generation at a time, in parallel, against the
+ * collaborators chosen after the previous generation. When the
+ * collaborators of a species change, its population is evaluated again, so
+ * that its fitness values refer to the current context.</p>
+ *
+ * <p>Since the species evolve in parallel, the fitness function is called
+ * from several threads at once and must be thread-safe.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class Coevolution {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(Coevolution.class);
+
+    /**
+     * The indices of the chromosomes owned by each species.
+     */
+    private final List<int[]> species;
+
+    /**
+     * The engine of each species.
+     */
+    private final List<Engine<DoubleGene, Double>> engines;
+
+    /**
+     * The fitness function of complete genotypes.
+     */
+    private final Function<Genotype<DoubleGene>, Double> fitness;
+
+    /**
+     * The chromosomes of the best collaborators, replaced between generations.
+     */
+    private volatile List<Chromosome<DoubleGene>> context;
+
+    /**
+     * Default constructor.
+     * @param encoding The complete encoding
+     * @param species The indices of the chromosomes owned by each species,
+     *  such that every chromosome belongs to exactly one species
+     * @param fitness The fitness function of complete genotypes, which must be
+     *  thread-safe
+     * @param factory Creates the engine builder of each species
+     */
+    public Coevolution(final Genotype<DoubleGene> encoding, final List<int[]> species,
+        final Function<Genotype<DoubleGene>, Double> fitness,
+        final Coevolution.EngineFactory factory) {
+        final int[] owners = new int[encoding.length()];
+        for (int index = 0; index < species.size(); index++) {
+            for (final int chromosome : species.get(index)) {
+                if (chromosome < 0 || chromosome >= owners.length || owners[chromosome] > 0) {
+                    throw new IllegalArgumentException(
+                        String.format(
+                            "Chromosome %d is out of range or owned by several species",
+                            chromosome
+                        )
+                    );
+                }
+                owners[chromosome] = index + 1;
+            }
+        }
+        for (int chromosome = 0; chromosome < owners.length; chromosome++) {
+            if (owners[chromosome] == 0) {
+                throw new IllegalArgumentException(
+                    String.format("Chromosome %d is not owned by any species", chromosome)
+                );
+            }
+        }
+        this.species = new ArrayList<>(species);
+        this.fitness = fitness;
+        final Genotype<DoubleGene> initial = encoding.newInstance();
+        this.context = IntStream.range(0, initial.length())
+            .mapToObj(initial::get)
+            .collect(Collectors.toList());
+        this.engines = new ArrayList<>(species.size());
+        for (int index = 0; index < species.size(); index++) {
+            final int owner = index;
+            final Genotype<DoubleGene> part = Genotype.of(
+                IntStream.of(species.get(index))
+                    .mapToObj(encoding::get)
+                    .collect(Collectors.toList())
+            );
+            this.engines.add(
+                factory.create(
+                    genotype -> this.fitness.apply(this.assemble(owner, genotype)),
+                    part
+                ).build()
+            );
+        }
+    }
+
+    /**
+     * Evolves every species, each generation in parallel.
+     * @param generations The number of generations
+     * @param observer Receives the complete candidates evaluated in each
+     *  generation, by the calling thread
+     * @param results The number of results to collect
+     * @return The best results, in increasing order of fitness
+     */
+    public ISeq<EvolutionResult<DoubleGene, Double>> evolve(final long generations,
+        final Consumer<? super EvolutionResult<DoubleGene, Double>> observer,
+        final int results) {
+        final int size = this.species.size();
+        final ExecutorService threads = Executors.newFixedThreadPool(size);
+        final List<EvolutionStart<DoubleGene, Double>> starts = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            starts.add(EvolutionStart.empty());
+        }
+        final List<EvolutionResult<DoubleGene, Double>> improvements = new ArrayList<>();
+        double best = Double.NEGATIVE_INFINITY;
+        try {
+            for (long generation = 1L; generation <= generations; generation++) {
+                final List<Future<EvolutionResult<DoubleGene, Double>>> futures =
+                    new ArrayList<>(size);
+                for (int index = 0; index < size; index++) {
+                    final Engine<DoubleGene, Double> engine = this.engines.get(index);
+                    final EvolutionStart<DoubleGene, Double> start = starts.get(index);
+                    futures.add(threads.submit(() -> engine.evolve(start)));
+                }
+                final List<EvolutionResult<DoubleGene, Double>> species = new ArrayList<>(size);
+                for (final Future<EvolutionResult<DoubleGene, Double>> future : futures) {
+                    species.add(future.get());
+                }
+                final EvolutionResult<DoubleGene, Double> result =
+                    this.combine(species, generation);
+                observer.accept(result);
+                if (result.bestFitness() > best) {
+                    best = result.bestFitness();
+                    improvements.add(result);
+                }
+                this.collaborate(species, starts);
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evolving the species", exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException("Could not evolve a species", exception.getCause());
+        } finally {
+            threads.shutdownNow();
+        }
+        return improvements.stream()
+            .collect(ISeq.toISeq(results));
+    }
+
+    /**
+     * Completes the part of a species with the current collaborators.
+     * @param owner The species' index
+     * @param part The species' chromosomes
+     * @return A complete genotype
+     */
+    private Genotype<DoubleGene> assemble(final int owner, final Genotype<DoubleGene> part) {
+        final List<Chromosome<DoubleGene>> chromosomes = new ArrayList<>(this.context);
+        final int[] indices = this.species.get(owner);
+        for (int index = 0; index < indices.length; index++) {
+            chromosomes.set(indices[index], part.get(index));
+        }
+        return Genotype.of(chromosomes);
+    }
+
+    /**
+     * Gathers the complete candidates evaluated by every species in a
+     * generation.
+     * @param species The result of each species
+     * @param generation The generation
+     * @return A result whose population contains every complete candidate
+     */
+    private EvolutionResult<DoubleGene, Double> combine(
+        final List<EvolutionResult<DoubleGene, Double>> species, final long generation) {
+        final List<Phenotype<DoubleGene, Double>> population = new ArrayList<>();
+        for (int index = 0; index < species.size(); index++) {
+            for (final Phenotype<DoubleGene, Double> phenotype
+                : species.get(index).population()) {
+                population.add(
+                    Phenotype.of(
+                        this.assemble(index, phenotype.genotype()),
+                        generation,
+                        phenotype.fitness()
+                    )
+                );
+            }
+        }
+        return EvolutionResult.of(
+            Optimize.MAXIMUM,
+            ISeq.of(population),
+            generation,
+            EvolutionDurations.ZERO,
+            0,
+            0,
+            0
+        );
+    }
+
+    /**
+     * Makes the best individual of each species the collaborator of the
+     * others, and prepares the next generation of every species. A species
+     * whose collaborators changed is evaluated again.
+     * @param species The result of each species
+     * @param starts The start of each species, updated for the next generation
+     */
+    private void collaborate(final List<EvolutionResult<DoubleGene, Double>> species,
+        final List<EvolutionStart<DoubleGene, Double>> starts) {
+        final List<Chromosome<DoubleGene>> next = new ArrayList<>(this.context);
+        final boolean[] changed = new boolean[species.size()];
+        for (int index = 0; index < species.size(); index++) {
+            final Genotype<DoubleGene> best = species.get(index).bestPhenotype().genotype();
+            final int[] indices = this.species.get(index);
+            for (int chromosome = 0; chromosome < indices.length; chromosome++) {
+                if (!next.get(indices[chromosome]).equals(best.get(chromosome))) {
+                    next.set(indices[chromosome], best.get(chromosome));
+                    changed[index] = true;
+                }
+            }
+        }
+        this.context = next;
+        int reevaluated = 0;
+        for (int index = 0; index < species.size(); index++) {
+            boolean stale = false;
+            for (int other = 0; other < species.size(); other++) {
+                stale |= other != index && changed[other];
+            }
+            final EvolutionStart<DoubleGene, Double> start = species.get(index).next();
+            if (stale) {
+                reevaluated++;
+                starts.set(
+                    index,
+                    EvolutionStart.of(
+                        start.population()
+                            .map(phenotype -> Phenotype.<DoubleGene, Double>of(
+                                phenotype.genotype(),
+                                phenotype.generation()
+                            )),
+                        start.generation()
+                    )
+                );
+            } else {
+                starts.set(index, start);
+            }
+        }
+        Coevolution.LOGGER.info(
+            "Updated the collaborators; {} out of {} species are evaluated again",
+            reevaluated,
+            species.size()
+        );
+    }
+
+    /**
+     * Creates the engine builder of a species.
+     */
+    @FunctionalInterface
+    public interface EngineFactory {
+
+        /**
+         * Creates an engine builder.
+         * @param fitness The species' fitness function, which evaluates an
+         *  individual in context
+         * @param encoding The species' encoding
+         * @return A new builder
+         */
+        Engine.Builder<DoubleGene, Double> create(
+            Function<Genotype<DoubleGene>, Double> fitness, Genotype<DoubleGene> encoding);
+
+    }
+
+}
@@ -1,12 +1,13 @@
 package com.rigiresearch.dt.experimentation.evolution.genetic;
 
-import com.rigiresearch.dt.experimentation.evolution.Record;
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
 import io.jenetics.DoubleGene;
 import io.jenetics.engine.EvolutionResult;
 import io.jenetics.engine.EvolutionStatistics;
 import io.jenetics.stat.DoubleMomentStatistics;
 import io.jenetics.util.ISeq;
-import java.util.List;
+import java.io.Closeable;
+import java.io.IOException;
 import lombok.Getter;
 
 /**
@@ -17,7 +18,7 @@ import lombok.Getter;
  * @since 0.1.0
  */
 @Getter
-public final class EvolutionResults {
+public final class EvolutionResults implements Closeable {
 
     /**
      * The phenotype that was obtained from evolving the algorithm.
@@ -30,14 +31,14 @@ public final class EvolutionResults {
     private final EvolutionStatistics<Double, DoubleMomentStatistics> statistics;
 
     /**
-     * The simulation records.
+     * The simulation records, kept on disk until the results are closed.
      */
-    private final List<Record> records;
+    private final RecordSink records;
 
     /**
      * Fitness values of the best phenotype per generation.
      */
-    private final List<Record> frecords;
+    private final RecordTable frecords;
 
     /**
      * Constructor of the class.
@@ -48,10 +49,19 @@ public final class EvolutionResults {
      */
     public EvolutionResults(final ISeq<EvolutionResult<DoubleGene, Double>> results,
         EvolutionStatistics<Double, DoubleMomentStatistics> statistics,
-        List<Record> records, final List<Record> frecords) {
+        RecordSink records, final RecordTable frecords) {
         this.results = results;
         this.statistics = statistics;
         this.records = records;
         this.frecords = frecords;
     }
+
+    /**
+     * Releases the simulation records.
+     * @throws IOException If the records cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.records.close();
+    }
 }
@@ -0,0 +1,91 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The fitness values of the candidates evaluated so far, by gene vector, so
+ * that a candidate found by several threads (e.g., by several islands) is
+ * simulated only once. A thread asking for a candidate that another thread
+ * is evaluating waits for its value instead of evaluating it again; threads
+ * asking for other candidates never wait.
+ *
+ * <p>This class is thread-safe.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class FitnessCache {
+
+    /**
+     * The fitness values, by gene vector.
+     */
+    private final ConcurrentMap<List<Double>, CompletableFuture<Double>> values;
+
+    /**
+     * The number of values found in the cache.
+     */
+    private final AtomicLong hits;
+
+    /**
+     * Default constructor.
+     */
+    public FitnessCache() {
+        this.values = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong();
+    }
+
+    /**
+     * Finds the fitness value of a candidate, evaluating it if no other
+     * thread did. If the evaluation fails, the candidate is removed so that
+     * it can be evaluated again.
+     * @param genes The candidate's genes
+     * @param evaluation Evaluates the candidate
+     * @return The fitness value
+     */
+    public double get(final double[] genes, final DoubleSupplier evaluation) {
+        final List<Double> key = new ArrayList<>(genes.length);
+        for (final double gene : genes) {
+            key.add(gene);
+        }
+        final CompletableFuture<Double> future = new CompletableFuture<>();
+        final CompletableFuture<Double> previous = this.values.putIfAbsent(key, future);
+        final double value;
+        if (previous == null) {
+            try {
+                value = evaluation.getAsDouble();
+            } catch (final RuntimeException exception) {
+                this.values.remove(key, future);
+                future.completeExceptionally(exception);
+                throw exception;
+            }
+            future.complete(value);
+        } else {
+            this.hits.incrementAndGet();
+            value = previous.join();
+        }
+        return value;
+    }
+
+    /**
+     * The number of cached candidates.
+     * @return A positive number, or zero
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+    /**
+     * The number of evaluations avoided.
+     * @return A positive number, or zero
+     */
+    public long hits() {
+        return this.hits.get();
+    }
+
+}
@@ -1,8 +1,15 @@
 package com.rigiresearch.dt.experimentation.evolution.genetic;
 
 import com.rigiresearch.dt.experimentation.evolution.FitnessValue;
-import com.rigiresearch.dt.experimentation.evolution.Record;
+import com.rigiresearch.dt.experimentation.evolution.FluidFitnessValue;
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import com.rigiresearch.dt.experimentation.evolution.distributed.WorkerPool;
+import com.rigiresearch.dt.experimentation.evolution.genetic.util.ResultWriter;
 import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import com.rigiresearch.dt.experimentation.simulation.store.ResultKey;
+import com.rigiresearch.dt.experimentation.simulation.store.ResultStore;
 import com.rigiresearch.middleware.graph.Graph;
 import com.rigiresearch.middleware.graph.Node;
 import io.jenetics.Chromosome;
@@ -10,26 +17,45 @@ import io.jenetics.DoubleChromosome;
 import io.jenetics.DoubleGene;
 import io.jenetics.Genotype;
 import io.jenetics.IntegerChromosome;
+import io.jenetics.IntegerGene;
 import io.jenetics.Mutator;
+import io.jenetics.Phenotype;
 import io.jenetics.RouletteWheelSelector;
 import io.jenetics.SinglePointCrossover;
 import io.jenetics.engine.Engine;
 import io.jenetics.engine.EvolutionResult;
 import io.jenetics.engine.EvolutionStatistics;
+import io.jenetics.engine.EvolutionStream;
+import io.jenetics.engine.Evaluators;
 import io.jenetics.engine.Limits;
 import io.jenetics.stat.DoubleMomentStatistics;
 import io.jenetics.stat.MinMax;
 import io.jenetics.util.DoubleRange;
 import io.jenetics.util.ISeq;
 import io.jenetics.util.IntRange;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -86,10 +112,139 @@ public final class GeneticAlgorithm {
     private static final int NUM_REPLICAS = 10;
 
     /**
-     * The simulation recoreds.
+     * Configuration key of the minimum approximated fitness (summed over the
+     * lines) for a candidate to be simulated. Candidates below this threshold
+     * are rejected using the fluid model. If the key is not defined, all
+     * candidates are simulated. The fitness of a rejected candidate is the
+     * fluid model's estimate of a single replication multiplied by the number
+     * of replications. It is not a simulated total: it only ranks the
+     * candidate on the same scale as the simulated ones, and it never reaches
+     * the simulation records, the racing test or the surrogate.
      */
-    private List<Record> simulationRecords
-        ;
+    public static final String SCREENING_THRESHOLD = "fitness.params.screening.threshold";
+
+    /**
+     * Configuration key of the number of worker processes evaluating the
+     * candidates (see {@link WorkerPool}). If the key is not defined, or is
+     * zero, candidates are evaluated one at a time in this process.
+     */
+    public static final String WORKERS = "fitness.params.workers";
+
+    /**
+     * Configuration key of the time, in milliseconds, a worker process may
+     * take to evaluate a candidate before its evaluation is retried on
+     * another worker. Defaults to {@link WorkerPool#TIMEOUT}.
+     */
+    public static final String WORKER_TIMEOUT = "fitness.params.workers.timeout";
+
+    /**
+     * Configuration key of the path to which checkpoints are written (see
+     * {@link Checkpoint}). If the key is not defined, no checkpoints are
+     * written. Checkpoints only keep the population and the counters, so
+     * they cannot be combined with islands, species, racing or the surrogate.
+     */
+    public static final String CHECKPOINT = "fitness.params.checkpoint";
+
+    /**
+     * Configuration key of the number of generations between checkpoints.
+     */
+    public static final String CHECKPOINT_INTERVAL = "fitness.params.checkpoint.interval";
+
+    /**
+     * Configuration key of the path to which the simulation records are
+     * written as they are produced (see {@link ResultWriter#open}). If the key
+     * is not defined, records are only kept in the {@link RecordSink}.
+     */
+    public static final String RESULTS = "fitness.params.results";
+
+    /**
+     * Configuration key of the fraction of the offspring that is simulated
+     * once the surrogate is trained (see {@link SurrogateEvaluator}). If the
+     * key is not defined, every candidate is simulated.
+     */
+    public static final String SURROGATE = "fitness.params.surrogate.fraction";
+
+    /**
+     * Configuration key of the number of simulated candidates before the
+     * surrogate is used. Defaults to the population size.
+     */
+    public static final String SURROGATE_WARMUP = "fitness.params.surrogate.warmup";
+
+    /**
+     * Configuration key of the kernel width of the surrogate, in units of the
+     * gene ranges.
+     */
+    public static final String SURROGATE_SCALE = "fitness.params.surrogate.scale";
+
+    /**
+     * Configuration key of the number of replications per racing step (see
+     * {@link Racing}). If the key is not defined, every candidate gets all
+     * replications.
+     */
+    public static final String RACING = "fitness.params.racing.increment";
+
+    /**
+     * Configuration key of the significance level of the racing test.
+     */
+    public static final String RACING_ALPHA = "fitness.params.racing.alpha";
+
+    /**
+     * The number of islands evolving in parallel. Each island may override the
+     * mutation and crossover probabilities with the properties
+     * {@code fitness.params.islands.<index>.mutation} and
+     * {@code fitness.params.islands.<index>.crossover}, starting at zero.
+     */
+    public static final String ISLANDS = "fitness.params.islands";
+
+    /**
+     * The number of generations between migrations.
+     */
+    public static final String ISLANDS_INTERVAL = "fitness.params.islands.interval";
+
+    /**
+     * The number of individuals that leave an island per migration.
+     */
+    public static final String ISLANDS_MIGRANTS = "fitness.params.islands.migrants";
+
+    /**
+     * Whether to evolve one species per line, cooperatively.
+     */
+    public static final String COEVOLUTION = "fitness.params.coevolution";
+
+    /**
+     * The clusters of interacting lines that evolve as a single species, each
+     * one a list of line ids separated by {@code +}. Lines not in a cluster
+     * evolve alone.
+     */
+    public static final String COEVOLUTION_CLUSTERS = "fitness.params.coevolution.clusters";
+
+    /**
+     * The columns of the best fitness value per generation.
+     */
+    public static final RecordTable.Schema GENERATIONS = new RecordTable.Schema();
+
+    /**
+     * The generation number.
+     */
+    public static final RecordTable.Column GENERATION =
+        GeneticAlgorithm.GENERATIONS.ints("generation");
+
+    /**
+     * The best fitness value of the generation.
+     */
+    public static final RecordTable.Column BEST_FITNESS =
+        GeneticAlgorithm.GENERATIONS.doubles("fitness");
+
+    /**
+     * The simulation records, open while the algorithm evolves.
+     */
+    private RecordSink simulationRecords;
+
+    /**
+     * The writer of the simulation records, open while the algorithm evolves,
+     * or null if the configuration does not define one.
+     */
+    private ResultWriter output;
 
     /**
      * The encoding used to characterize a solution in the problem.
@@ -98,6 +253,42 @@ public final class GeneticAlgorithm {
 
     private AtomicInteger execution;
 
+    /**
+     * The store of simulation results, open while the algorithm evolves, or
+     * null if the configuration does not define one.
+     */
+    private ResultStore store;
+
+    /**
+     * The pool of worker processes, open while the algorithm evolves, or null
+     * if the configuration does not define one.
+     */
+    private WorkerPool pool;
+
+    /**
+     * The metamodel of the fitness function, trained while the algorithm
+     * evolves, or null if the configuration does not define one.
+     */
+    private RbfSurrogate surrogate;
+
+    /**
+     * The candidates whose fitness the surrogate predicted, shared by the
+     * evaluators of every island.
+     */
+    private Set<Genotype<DoubleGene>> predicted;
+
+    /**
+     * The racing test stopping dominated candidates early, or null if the
+     * configuration does not define one.
+     */
+    private Racing racing;
+
+    /**
+     * Whether candidates are evaluated concurrently, either by the pool of
+     * worker processes or by several islands.
+     */
+    private boolean concurrent;
+
     /**
      * Constructor of the class.
      *
@@ -111,7 +302,6 @@ public final class GeneticAlgorithm {
         this.numGenerations = numGenerations;
         //lineIds = config.getList("lines").stream().map(String.class::cast).collect(Collectors.toSet());
         lineIds = config.getList("lines").stream().map(String.class::cast).collect(Collectors.toList());
-        simulationRecords = new ArrayList<Record>(numGenerations);
         this.execution = new AtomicInteger(0);
         generateEncoding();
     }
@@ -140,69 +330,240 @@ public final class GeneticAlgorithm {
      * The fitness function that defines the effectiveness of a transit system's configuration (chromosome).
      *
      * @param genotype The generated genotype in a generation.
-     * @return The effectiveness of a transit system's configuration (chromosome).
+     * @return The effectiveness of a transit system's configuration (chromosome): the sum of
+     *  the fitness of its simulated replications, or, for a screened candidate, the scaled
+     *  estimate of the fluid model (see {@link #SCREENING_THRESHOLD})
      */
     private Double fitness(Genotype genotype) {
         int number = this.execution.incrementAndGet();
-        int lineId = 0;
+        final double[] genes = GeneticAlgorithm.genes(genotype);
+        // Candidates evaluated concurrently need their own properties
+        final Configuration config;
+        if (!this.concurrent) {
+            config = this.config;
+        } else {
+            final PropertiesConfiguration copy = new PropertiesConfiguration();
+            synchronized (this.config) {
+                copy.copy(this.config);
+            }
+            config = copy;
+        }
         // Adjusting properties for the simulation
-        for (int i = 0; i < genotype.length(); i++) {
-            if (i % 2 == 0) {
-                //Double Chromosome
-                final DoubleChromosome headwayChromosome = (DoubleChromosome) genotype.get(i);
-                config.setProperty(lineIds.get(lineId).concat(".").concat(EvolvingProperties.HEADWAY.getId()), headwayChromosome.get(0).doubleValue());
+        GeneticAlgorithm.configure(config, lineIds, genes);
+        // Reject clearly bad candidates before paying for full replications
+        if (config.containsKey(GeneticAlgorithm.SCREENING_THRESHOLD)) {
+            final double estimate =
+                new FluidFitnessValue(graph, config, LENGTH_REPLICATION).asDouble();
+            if (estimate < config.getDouble(GeneticAlgorithm.SCREENING_THRESHOLD)) {
+                GeneticAlgorithm.LOGGER.info(
+                    "Execution {} screened out (approximated fitness: {})",
+                    number,
+                    estimate
+                );
+                // Scaled to rank among simulated totals, although it was never simulated
+                return estimate * GeneticAlgorithm.NUM_REPLICAS;
+            }
+        }
+
+        // Run the simulation replicas in increments, while the candidate can beat the incumbent
+        final RecordTable records =
+            new RecordTable(FitnessValue.SCHEMA, lineIds.size() * GeneticAlgorithm.NUM_REPLICAS);
+        final double[] replicas = new double[GeneticAlgorithm.NUM_REPLICAS];
+        int done = 0;
+        boolean dominated = false;
+        while (done < GeneticAlgorithm.NUM_REPLICAS && !dominated) {
+            final int count;
+            if (this.racing == null) {
+                count = GeneticAlgorithm.NUM_REPLICAS;
             } else {
-                //Integer Chromosome
-                final IntegerChromosome busesChromosome = (IntegerChromosome) genotype.get(i);
-                config.setProperty(lineIds.get(lineId).concat(".").concat(EvolvingProperties.NUM_BUSES.getId()), busesChromosome.get(0).intValue());
-                lineId++;
+                count = this.racing.next(done);
             }
+            final RecordTable increment;
+            if (this.pool == null) {
+                increment = this.runReplicasAndCollectRecords(config, number, done + 1, count);
+            } else {
+                increment = this.remoteRecords(config, genes, number, done + 1, count);
+            }
+            for (int row = 0; row < increment.size(); row++) {
+                replicas[increment.getInt(row, FitnessValue.REPLICA) - 1] +=
+                    increment.getDouble(row, FitnessValue.FITNESS);
+            }
+            records.append(increment);
+            done += count;
+            dominated = this.racing != null && this.racing.dominated(replicas, done);
         }
-        // Run the simulation replicas and collect the records
-        final Collection<Record> records = this.runReplicasAndCollectRecords(number);
 
         // Store new records
-        this.simulationRecords.addAll(records);
+        try {
+            this.simulationRecords.append(records);
+            if (this.output != null) {
+                this.output.write(records);
+            }
+        } catch (final IOException exception) {
+            throw new IllegalStateException("Could not store the simulation records", exception);
+        }
 
         // Compute a fitness value by adding the replications' fitness values
-        return records.stream()
-            .map(record -> {
-                GeneticAlgorithm.LOGGER.info(record.asLog());
-                return record.get(EvolvingProperties.SIM_FITNESS.getId());
-            })
-            .map(Double.class::cast)
-            .mapToDouble(value -> value)
-            .sum();
+        for (int row = 0; row < records.size(); row++) {
+            GeneticAlgorithm.LOGGER.info(records.asLog(row));
+        }
+        final double fitness;
+        if (dominated) {
+            fitness = this.racing.conservative(replicas, done);
+            GeneticAlgorithm.LOGGER.info(
+                "Execution {} stopped after {} replicas (conservative fitness: {})",
+                number,
+                done,
+                fitness
+            );
+        } else {
+            fitness = records.scan(FitnessValue.FITNESS).sum();
+            if (this.racing != null) {
+                this.racing.offer(replicas);
+            }
+            // Only the fitness of fully simulated candidates trains the surrogate
+            if (this.surrogate != null) {
+                this.surrogate.add(genes, fitness);
+            }
+        }
+        return fitness;
+    }
+
+    /**
+     * The genes of a candidate: the headway and number of buses of each line.
+     * @param genotype The candidate's genotype
+     * @return The value of each gene, in the order of the chromosomes
+     */
+    static double[] genes(final Genotype genotype) {
+        final double[] genes = new double[genotype.length()];
+        for (int index = 0; index < genes.length; index++) {
+            genes[index] = ((Number) genotype.get(index).gene().allele()).doubleValue();
+        }
+        return genes;
+    }
+
+    /**
+     * Updates a configuration with the genes of a candidate.
+     * @param config The simulation configuration
+     * @param lines The ids of the evolving lines
+     * @param genes The headway and number of buses of each line
+     */
+    public static void configure(final Configuration config, final List<String> lines,
+        final double... genes) {
+        for (int index = 0; index < lines.size(); index++) {
+            config.setProperty(
+                lines.get(index).concat(".").concat(EvolvingProperties.HEADWAY.getId()),
+                genes[2 * index]
+            );
+            config.setProperty(
+                lines.get(index).concat(".").concat(EvolvingProperties.NUM_BUSES.getId()),
+                (int) genes[2 * index + 1]
+            );
+        }
+    }
+
+    /**
+     * Evaluates a candidate in the pool of worker processes.
+     * @param config The candidate's configuration
+     * @param genes The candidate's genes
+     * @param number The execution number
+     * @param first The number of the first replica to run
+     * @param count The number of replicas to run
+     * @return The collected records
+     */
+    private RecordTable remoteRecords(final Configuration config,
+        final double[] genes, final int number, final int first, final int count) {
+        final Map<String, Line> lines = graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .collect(Collectors.toMap(Line::getName, Function.identity()));
+        final List<ReplicationSummary> summaries = this.pool.evaluate(first, count, genes);
+        final RecordTable records = new RecordTable(FitnessValue.SCHEMA, summaries.size());
+        FitnessValue.append(records, config, lines, summaries);
+        for (int row = 0; row < records.size(); row++) {
+            records.set(row, FitnessValue.NUMBER, number);
+            records.set(row, FitnessValue.REPLICA, summaries.get(row).getReplica());
+        }
+        return records;
     }
 
     /**
      * Run the simulation replicas and collect the records.
+     * @param config The candidate's configuration
      * @param number The execution number
+     * @param first The number of the first replica to run
+     * @param count The number of replicas to run
      * @return The collected records
      */
-    private Collection<Record> runReplicasAndCollectRecords(final int number) {
+    private RecordTable runReplicasAndCollectRecords(final Configuration config,
+        final int number, final int first, final int count) {
         // Run the simulation replicas and store the records
-        final Collection<Record> records = new ArrayList<>();
-        final AtomicInteger atomic = new AtomicInteger(1);
-        while (atomic.get() <= GeneticAlgorithm.NUM_REPLICAS) {
+        final RecordTable records = new RecordTable(FitnessValue.SCHEMA, lineIds.size() * count);
+        final AtomicInteger atomic = new AtomicInteger(first);
+        while (atomic.get() < first + count) {
             final int replica = atomic.getAndIncrement();
+            final int start = records.size();
+            if (this.store == null) {
+                // Configuration and execution of the simulation;
+                final DtSimulation simulation = DtSimulation.create(graph, config);
+                simulation.setLengthOfReplication(LENGTH_REPLICATION);
+                simulation.setLengthOfWarmUp(LENGTH_WARM_UP);
+                simulation.run();
 
-            // Configuration and execution of the simulation;
-            final DtSimulation simulation = new DtSimulation(graph, config);
+                // Collection of metrics
+                final FitnessValue metrics = new FitnessValue(simulation, config);
+                records.append(metrics.asTable());
+            } else {
+                this.storedRecords(config, records, replica);
+            }
+            for (int row = start; row < records.size(); row++) {
+                records.set(row, FitnessValue.NUMBER, number);
+                records.set(row, FitnessValue.REPLICA, replica);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Collects the records of a replication from the result store, simulating
+     * the replication only if the store does not contain it.
+     * @param config The candidate's configuration
+     * @param records The table to which the records are appended
+     * @param replica The replica number
+     */
+    private void storedRecords(final Configuration config, final RecordTable records,
+        final int replica) {
+        final Map<String, Line> lines = graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .collect(Collectors.toMap(Line::getName, Function.identity()));
+        final ResultKey key = ResultKey.of(
+            graph,
+            config,
+            "jsl",
+            ResultKey.UNSEEDED,
+            replica,
+            LENGTH_REPLICATION,
+            LENGTH_WARM_UP
+        );
+        final List<ReplicationSummary> summaries = this.store.computeIfAbsent(key, () -> {
+            final DtSimulation simulation = DtSimulation.create(graph, config);
             simulation.setLengthOfReplication(LENGTH_REPLICATION);
             simulation.setLengthOfWarmUp(LENGTH_WARM_UP);
             simulation.run();
-
-            // Collection of metrics
-            final FitnessValue metrics = new FitnessValue(simulation, config);
-            final Collection<Record> tmp = metrics.asRecords();
-            tmp.forEach(record -> {
-                record.put("number", number);
-                record.put("replica", replica);
-            });
-            records.addAll(tmp);
-        }
-        return records;
+            return lines.values()
+                .stream()
+                .map(line -> ReplicationSummary.of(
+                    replica,
+                    simulation,
+                    line,
+                    config.getDouble(line.getName().concat(".headway"))
+                ))
+                .collect(Collectors.toList());
+        });
+        FitnessValue.append(records, config, lines, summaries);
     }
 
     /***
@@ -215,38 +576,610 @@ public final class GeneticAlgorithm {
      * @return The evolution results.
      */
     public EvolutionResults evolve(int populationSize, int steadyNumber, double mutationProb, double crossoverProb, int results) {
-        // Obtain the Jenetics engine for the generation.
-        final Engine<DoubleGene, Double> engine = Engine.builder(this::fitness, encoding)
-                .populationSize(populationSize)
-                .maximizing()
-                // Uncomment this to turn on the optimization mode
-                .selector(new RouletteWheelSelector<>())
-                .alterers(
-                        new Mutator<>(mutationProb),
-                        new SinglePointCrossover<>(crossoverProb))
-                .executor(Executors.newSingleThreadExecutor())
-                .build();
+        return this.evolve(
+            populationSize, steadyNumber, mutationProb, crossoverProb, results, null);
+    }
+
+    /**
+     * Evolves the genetic algorithm, continuing from a checkpoint. The
+     * population of the checkpoint is not evaluated again, and evolution
+     * stops once the total number of generations is reached. The statistics
+     * only cover the generations evolved after the checkpoint.
+     * @param populationSize The size of the population
+     * @param steadyNumber The number of steady evolutions before ending the
+     *  algorithm
+     * @param mutationProb The mutation probability
+     * @param crossoverProb The crossover probability
+     * @param results The number of results to collect
+     * @param checkpoint The checkpoint to continue from, or null to start
+     *  from a random population
+     * @return The evolution results
+     */
+    public EvolutionResults evolve(final int populationSize, final int steadyNumber,
+        final double mutationProb, final double crossoverProb, final int results,
+        final Checkpoint checkpoint) {
+        final int islands = config.getInt(GeneticAlgorithm.ISLANDS, 1);
+        final List<int[]> species;
+        if (config.getBoolean(GeneticAlgorithm.COEVOLUTION, false)) {
+            species = this.species();
+        } else {
+            species = Collections.emptyList();
+        }
+        if (islands > 1 && !species.isEmpty()) {
+            throw new IllegalArgumentException("Cannot evolve islands and species together");
+        }
+        final boolean partitioned = islands > 1 || !species.isEmpty();
+        // Checkpoints only keep the population and the counters
+        final boolean stateful = partitioned
+            || config.containsKey(GeneticAlgorithm.RACING)
+            || config.containsKey(GeneticAlgorithm.SURROGATE);
+        if (stateful && (checkpoint != null || config.containsKey(GeneticAlgorithm.CHECKPOINT))) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Checkpoints (%s) cannot be used with islands, species, racing or "
+                        + "the surrogate, whose state they do not keep",
+                    GeneticAlgorithm.CHECKPOINT
+                )
+            );
+        }
+        // Evaluate candidates concurrently only if there are worker processes, islands or species
+        final int parallel = Math.max(islands, species.size());
+        final int workers = config.getInt(GeneticAlgorithm.WORKERS, 0);
+        final ExecutorService executor;
+        if (workers > 0) {
+            this.pool = this.openPool(workers);
+            executor = Executors.newFixedThreadPool(workers);
+        } else if (parallel > 1) {
+            executor = Executors.newFixedThreadPool(parallel);
+        } else {
+            executor = Executors.newSingleThreadExecutor();
+        }
+        this.concurrent = workers > 0 || parallel > 1;
+        // Stop simulating candidates that cannot beat the incumbent, if configured
+        if (config.containsKey(GeneticAlgorithm.RACING)) {
+            this.racing = new Racing(
+                GeneticAlgorithm.NUM_REPLICAS,
+                config.getInt(GeneticAlgorithm.RACING),
+                config.getDouble(GeneticAlgorithm.RACING_ALPHA, Racing.DEFAULT_ALPHA)
+            );
+        } else {
+            this.racing = null;
+        }
+        // Simulate only the offspring that the surrogate selects, if configured
+        if (config.containsKey(GeneticAlgorithm.SURROGATE) && !species.isEmpty()) {
+            GeneticAlgorithm.LOGGER.warn("The surrogate is not used with species");
+            this.surrogate = null;
+        } else if (config.containsKey(GeneticAlgorithm.SURROGATE)) {
+            this.surrogate = this.surrogate();
+            this.predicted = ConcurrentHashMap.newKeySet();
+        } else {
+            this.surrogate = null;
+        }
 
         // Define the statistics to be collected.
         final EvolutionStatistics<Double, DoubleMomentStatistics> statistics = EvolutionStatistics.ofNumber();
 
-        final List<Record> frecords = new ArrayList<>();
+        final RecordTable frecords = new RecordTable(GeneticAlgorithm.GENERATIONS);
         final AtomicInteger generation = new AtomicInteger(0);
+        if (checkpoint != null) {
+            generation.set(checkpoint.getGeneration());
+            this.execution.set(checkpoint.getExecutions());
+            frecords.append(checkpoint.getFrecords());
+        }
+        this.simulationRecords = this.openRecords(checkpoint);
+        // Save the state of the algorithm periodically in the background, if configured
+        final CheckpointWriter writer;
+        if (config.containsKey(GeneticAlgorithm.CHECKPOINT)) {
+            writer = new CheckpointWriter(
+                Paths.get(config.getString(GeneticAlgorithm.CHECKPOINT)),
+                this.simulationRecords
+            );
+        } else {
+            writer = null;
+        }
+        final int interval = config.getInt(GeneticAlgorithm.CHECKPOINT_INTERVAL, 10);
+        this.output = this.openOutput();
 
-        // Run the algorithm
-        final ISeq<EvolutionResult<DoubleGene, Double>> sequence = engine.stream()
-            //.limit(Limits.bySteadyFitness(steadyNumber))
-            .limit(Limits.byFixedGeneration(numGenerations))
-            .peek(result -> {
-                final Record frecord = new Record();
-                frecord.put("generation", generation.incrementAndGet());
-                frecord.put("fitness", result.bestFitness());
-                frecords.add(frecord);
-            })
-            .peek(statistics)
-            .flatMap(MinMax.toStrictlyIncreasing())
-            .collect(ISeq.toISeq(results));
+        // Reuse the replications simulated in previous runs, if configured
+        this.store = ResultStore.from(config).orElse(null);
+        final ISeq<EvolutionResult<DoubleGene, Double>> sequence;
+        try {
+            if (islands > 1) {
+                sequence = this.evolveIslands(
+                    islands,
+                    populationSize,
+                    mutationProb,
+                    crossoverProb,
+                    results,
+                    executor,
+                    statistics,
+                    frecords
+                );
+            } else if (!species.isEmpty()) {
+                sequence = this.coevolve(
+                    species,
+                    populationSize,
+                    mutationProb,
+                    crossoverProb,
+                    results,
+                    executor,
+                    statistics,
+                    frecords
+                );
+            } else {
+                // Obtain the Jenetics engine for the generation.
+                final Engine<DoubleGene, Double> engine =
+                    this.builder(this::fitness, encoding, executor, populationSize)
+                        .alterers(
+                                new Mutator<>(mutationProb),
+                                new SinglePointCrossover<>(crossoverProb))
+                        .build();
+                final EvolutionStream<DoubleGene, Double> stream;
+                if (checkpoint == null) {
+                    stream = engine.stream();
+                } else {
+                    stream = engine.stream(this.population(checkpoint), checkpoint.getStart());
+                }
+                // Run the algorithm
+                sequence = stream
+                    //.limit(Limits.bySteadyFitness(steadyNumber))
+                    .limit(Limits.byFixedGeneration(Math.max(numGenerations - generation.get(), 0)))
+                    .peek(result -> {
+                        final int row = frecords.append();
+                        frecords.set(
+                            row, GeneticAlgorithm.GENERATION, generation.incrementAndGet());
+                        frecords.set(row, GeneticAlgorithm.BEST_FITNESS, result.bestFitness());
+                        if (writer != null && generation.get() % interval == 0) {
+                            writer.save(this.checkpoint(result, generation.get(), frecords));
+                        }
+                    })
+                    .peek(statistics)
+                    .flatMap(MinMax.toStrictlyIncreasing())
+                    .collect(ISeq.toISeq(results));
+            }
+        } finally {
+            this.closeStore();
+            this.closePool();
+            executor.shutdown();
+            if (writer != null) {
+                writer.close();
+            }
+            this.flushRecords();
+            this.closeOutput();
+        }
         return new EvolutionResults(sequence, statistics, simulationRecords, frecords);
     }
 
+    /**
+     * Creates an engine builder, without alterers.
+     * @param fitness The fitness function
+     * @param encoding The encoding of the candidates
+     * @param executor The executor evaluating the candidates
+     * @param populationSize The size of the population
+     * @return A new builder
+     */
+    private Engine.Builder<DoubleGene, Double> builder(
+        final Function<Genotype<DoubleGene>, Double> fitness,
+        final Genotype<DoubleGene> encoding, final ExecutorService executor,
+        final int populationSize) {
+        final Engine.Builder<DoubleGene, Double> builder;
+        if (this.surrogate == null) {
+            builder = Engine.builder(fitness, encoding);
+        } else {
+            builder = new Engine.Builder<>(
+                new SurrogateEvaluator(
+                    Evaluators.concurrent(fitness, executor),
+                    this.surrogate,
+                    GeneticAlgorithm::genes,
+                    config.getDouble(GeneticAlgorithm.SURROGATE),
+                    config.getInt(GeneticAlgorithm.SURROGATE_WARMUP, populationSize),
+                    this.predicted
+                ),
+                encoding
+            );
+        }
+        return builder
+            .populationSize(populationSize)
+            .maximizing()
+            // Uncomment this to turn on the optimization mode
+            .selector(new RouletteWheelSelector<>())
+            .executor(executor);
+    }
+
+    /**
+     * Evolves several islands in parallel, which share the fitness values of
+     * the candidates they evaluate.
+     * @param islands The number of islands
+     * @param populationSize The size of each island's population
+     * @param mutationProb The default mutation probability
+     * @param crossoverProb The default crossover probability
+     * @param results The number of results to collect
+     * @param executor The executor evaluating the candidates
+     * @param statistics The statistics of every island's generations
+     * @param frecords The best fitness value per generation, across islands
+     * @return The best results of all islands
+     */
+    private ISeq<EvolutionResult<DoubleGene, Double>> evolveIslands(final int islands,
+        final int populationSize, final double mutationProb, final double crossoverProb,
+        final int results, final ExecutorService executor,
+        final Consumer<? super EvolutionResult<DoubleGene, Double>> statistics,
+        final RecordTable frecords) {
+        // Migrants and repeated offspring are simulated only once
+        final FitnessCache cache = new FitnessCache();
+        final Function<Genotype<DoubleGene>, Double> fitness = genotype -> cache.get(
+            GeneticAlgorithm.genes(genotype),
+            () -> this.fitness(genotype)
+        );
+        final List<Engine.Builder<DoubleGene, Double>> builders = new ArrayList<>(islands);
+        for (int island = 0; island < islands; island++) {
+            final String prefix = String.format("%s.%d.", GeneticAlgorithm.ISLANDS, island);
+            builders.add(
+                this.builder(fitness, encoding, executor, populationSize)
+                    .alterers(
+                        new Mutator<>(config.getDouble(prefix.concat("mutation"), mutationProb)),
+                        new SinglePointCrossover<>(
+                            config.getDouble(prefix.concat("crossover"), crossoverProb)
+                        )
+                    )
+            );
+        }
+        final IslandModel model = new IslandModel(
+            builders,
+            config.getInt(GeneticAlgorithm.ISLANDS_INTERVAL, IslandModel.DEFAULT_INTERVAL),
+            config.getInt(GeneticAlgorithm.ISLANDS_MIGRANTS, IslandModel.DEFAULT_MIGRANTS)
+        );
+        final Map<Long, Double> best = new ConcurrentSkipListMap<>();
+        final ISeq<EvolutionResult<DoubleGene, Double>> sequence = model.evolve(
+            numGenerations,
+            result -> {
+                best.merge(result.generation(), result.bestFitness(), Math::max);
+                synchronized (statistics) {
+                    statistics.accept(result);
+                }
+            },
+            results
+        );
+        for (final Map.Entry<Long, Double> entry : best.entrySet()) {
+            final int row = frecords.append();
+            frecords.set(row, GeneticAlgorithm.GENERATION, entry.getKey().intValue());
+            frecords.set(row, GeneticAlgorithm.BEST_FITNESS, entry.getValue());
+        }
+        GeneticAlgorithm.LOGGER.info(
+            "The islands evaluated {} distinct candidates ({} repeated)",
+            cache.size(),
+            cache.hits()
+        );
+        return sequence;
+    }
+
+    /**
+     * Evolves one species per line, or per cluster of lines, cooperatively.
+     * @param species The indices of the chromosomes owned by each species
+     * @param populationSize The size of each species' population
+     * @param mutationProb The mutation probability
+     * @param crossoverProb The crossover probability
+     * @param results The number of results to collect
+     * @param executor The executor evaluating the candidates
+     * @param statistics The statistics of the complete candidates
+     * @param frecords The best fitness value per generation
+     * @return The best results
+     */
+    private ISeq<EvolutionResult<DoubleGene, Double>> coevolve(final List<int[]> species,
+        final int populationSize, final double mutationProb, final double crossoverProb,
+        final int results, final ExecutorService executor,
+        final Consumer<? super EvolutionResult<DoubleGene, Double>> statistics,
+        final RecordTable frecords) {
+        // The species' threads evaluate candidates at once, so simulations are
+        // created through DtSimulation.create, and configured on a private copy
+        // of the properties whenever the evaluations overlap
+        final Coevolution coevolution = new Coevolution(
+            encoding,
+            species,
+            this::fitness,
+            (fitness, part) -> this.builder(fitness, part, executor, populationSize)
+                .alterers(
+                    new Mutator<>(mutationProb),
+                    new SinglePointCrossover<>(crossoverProb)
+                )
+        );
+        return coevolution.evolve(
+            numGenerations,
+            result -> {
+                final int row = frecords.append();
+                frecords.set(row, GeneticAlgorithm.GENERATION, (int) result.generation());
+                frecords.set(row, GeneticAlgorithm.BEST_FITNESS, result.bestFitness());
+                statistics.accept(result);
+            },
+            results
+        );
+    }
+
+    /**
+     * The chromosomes of each species: one species per cluster of lines, and
+     * one per line not in a cluster.
+     * @return The indices of the chromosomes owned by each species
+     */
+    private List<int[]> species() {
+        final List<List<String>> clusters = new ArrayList<>();
+        final Set<String> assigned = new HashSet<>();
+        final List<String> configured = config.getList(
+            String.class,
+            GeneticAlgorithm.COEVOLUTION_CLUSTERS,
+            Collections.emptyList()
+        );
+        for (final String cluster : configured) {
+            final List<String> lines = Arrays.asList(cluster.trim().split("\\s*\\+\\s*"));
+            for (final String line : lines) {
+                if (!lineIds.contains(line) || !assigned.add(line)) {
+                    throw new IllegalArgumentException(
+                        String.format("Line '%s' is not evolving or is in several clusters", line)
+                    );
+                }
+            }
+            clusters.add(lines);
+        }
+        for (final String line : lineIds) {
+            if (!assigned.contains(line)) {
+                clusters.add(Collections.singletonList(line));
+            }
+        }
+        // Each line has a headway chromosome followed by a fleet chromosome
+        final List<int[]> species = new ArrayList<>(clusters.size());
+        for (final List<String> cluster : clusters) {
+            final int[] chromosomes = new int[cluster.size() * 2];
+            for (int index = 0; index < cluster.size(); index++) {
+                chromosomes[2 * index] = 2 * lineIds.indexOf(cluster.get(index));
+                chromosomes[2 * index + 1] = chromosomes[2 * index] + 1;
+            }
+            species.add(chromosomes);
+        }
+        return species;
+    }
+
+    /**
+     * Creates the surrogate of the fitness function, over the ranges of the
+     * encoding.
+     * @return A new, untrained surrogate
+     */
+    private RbfSurrogate surrogate() {
+        final double[] lower = new double[encoding.length()];
+        final double[] upper = new double[encoding.length()];
+        for (int index = 0; index < lower.length; index++) {
+            final Chromosome chromosome = encoding.get(index);
+            if (chromosome instanceof DoubleChromosome) {
+                lower[index] = ((DoubleChromosome) chromosome).min();
+                upper[index] = ((DoubleChromosome) chromosome).max();
+            } else {
+                lower[index] = ((IntegerChromosome) chromosome).min();
+                upper[index] = ((IntegerChromosome) chromosome).max();
+            }
+        }
+        return new RbfSurrogate(
+            lower,
+            upper,
+            config.getDouble(GeneticAlgorithm.SURROGATE_SCALE, RbfSurrogate.DEFAULT_SCALE),
+            RbfSurrogate.DEFAULT_NOISE
+        );
+    }
+
+    /**
+     * Takes a checkpoint of the algorithm after a generation.
+     * @param result The result of the generation
+     * @param generation The number of completed generations
+     * @param frecords The best fitness value per generation
+     * @return A new checkpoint
+     */
+    private Checkpoint checkpoint(final EvolutionResult<DoubleGene, Double> result,
+        final int generation, final RecordTable frecords) {
+        final ISeq<Phenotype<DoubleGene, Double>> population = result.population();
+        final List<double[]> genes = new ArrayList<>(population.size());
+        final double[] fitness = new double[population.size()];
+        final long[] births = new long[population.size()];
+        for (int index = 0; index < population.size(); index++) {
+            final Phenotype<DoubleGene, Double> phenotype = population.get(index);
+            genes.add(GeneticAlgorithm.genes(phenotype.genotype()));
+            fitness[index] = phenotype.fitness();
+            births[index] = phenotype.generation();
+        }
+        final RecordTable copy = new RecordTable(GeneticAlgorithm.GENERATIONS, frecords.size());
+        copy.append(frecords);
+        // The records are written along with the checkpoint, off this thread
+        final long records;
+        try {
+            records = this.simulationRecords.mark();
+        } catch (final IOException exception) {
+            throw new IllegalStateException("Could not store the simulation records", exception);
+        }
+        return new Checkpoint(
+            generation,
+            result.next().generation(),
+            this.execution.get(),
+            genes,
+            fitness,
+            births,
+            records,
+            copy
+        );
+    }
+
+    /**
+     * Restores the evaluated population of a checkpoint.
+     * @param checkpoint The checkpoint
+     * @return The population
+     */
+    private ISeq<Phenotype<DoubleGene, Double>> population(final Checkpoint checkpoint) {
+        final List<Phenotype<DoubleGene, Double>> population =
+            new ArrayList<>(checkpoint.getGenes().size());
+        for (int index = 0; index < checkpoint.getGenes().size(); index++) {
+            population.add(
+                Phenotype.of(
+                    this.genotype(checkpoint.getGenes().get(index)),
+                    checkpoint.getBirths()[index],
+                    checkpoint.getFitness()[index]
+                )
+            );
+        }
+        return ISeq.of(population);
+    }
+
+    /**
+     * Creates a genotype with the given gene values, within the ranges of
+     * the encoding.
+     * @param genes The headway and number of buses of each line
+     * @return A new genotype
+     */
+    private Genotype genotype(final double... genes) {
+        final List<Chromosome> chromosomes = new ArrayList<>(genes.length);
+        for (int index = 0; index < genes.length; index++) {
+            final Chromosome template = encoding.get(index);
+            if (template instanceof DoubleChromosome) {
+                final DoubleChromosome range = (DoubleChromosome) template;
+                chromosomes.add(
+                    DoubleChromosome.of(DoubleGene.of(genes[index], range.min(), range.max()))
+                );
+            } else {
+                final IntegerChromosome range = (IntegerChromosome) template;
+                chromosomes.add(
+                    IntegerChromosome.of(
+                        IntegerGene.of((int) genes[index], range.min(), range.max())
+                    )
+                );
+            }
+        }
+        return Genotype.of((Iterable) chromosomes);
+    }
+
+    /**
+     * Opens the simulation records. If checkpoints are enabled, records are
+     * kept next to the checkpoint, so that they can be resumed as well.
+     * @param checkpoint The checkpoint to continue from, or null
+     * @return A new record sink
+     */
+    private RecordSink openRecords(final Checkpoint checkpoint) {
+        try {
+            final RecordSink records;
+            if (config.containsKey(GeneticAlgorithm.CHECKPOINT)) {
+                final Path path = Paths.get(
+                    config.getString(GeneticAlgorithm.CHECKPOINT).concat(RecordSink.EXTENSION)
+                );
+                if (checkpoint == null) {
+                    records = new RecordSink(path, FitnessValue.SCHEMA);
+                } else {
+                    records = RecordSink.resume(
+                        path,
+                        FitnessValue.SCHEMA,
+                        checkpoint.getRecords()
+                    );
+                }
+            } else {
+                if (checkpoint != null) {
+                    GeneticAlgorithm.LOGGER.warn(
+                        "The records before the checkpoint are not restored because {} is not set",
+                        GeneticAlgorithm.CHECKPOINT
+                    );
+                }
+                records = RecordSink.temporary(FitnessValue.SCHEMA);
+            }
+            return records;
+        } catch (final IOException exception) {
+            throw new IllegalStateException("Could not open the simulation records", exception);
+        }
+    }
+
+    /**
+     * Opens the writer of the simulation records, if configured.
+     * @return A new writer, or null
+     */
+    private ResultWriter openOutput() {
+        ResultWriter writer = null;
+        if (config.containsKey(GeneticAlgorithm.RESULTS)) {
+            final Path path = Paths.get(config.getString(GeneticAlgorithm.RESULTS));
+            try {
+                writer = ResultWriter.open(path, FitnessValue.SCHEMA);
+            } catch (final IOException exception) {
+                throw new IllegalStateException(
+                    String.format("Could not open the results file %s", path),
+                    exception
+                );
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Closes the writer of the simulation records, if open.
+     */
+    private void closeOutput() {
+        if (this.output != null) {
+            try {
+                this.output.close();
+            } catch (final IOException exception) {
+                GeneticAlgorithm.LOGGER.warn("Could not write the simulation records", exception);
+            }
+            this.output = null;
+        }
+    }
+
+    /**
+     * Writes the buffered simulation records, keeping the sink open so that
+     * the results can read them.
+     */
+    private void flushRecords() {
+        try {
+            this.simulationRecords.flush();
+        } catch (final IOException exception) {
+            GeneticAlgorithm.LOGGER.warn("Could not store the simulation records", exception);
+        }
+    }
+
+    /**
+     * Forks the worker processes.
+     * @param workers The number of worker processes
+     * @return The pool of workers
+     */
+    private WorkerPool openPool(final int workers) {
+        try {
+            return new WorkerPool(
+                graph,
+                config,
+                NUM_REPLICAS,
+                LENGTH_REPLICATION,
+                LENGTH_WARM_UP,
+                workers,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                config.getInt(GeneticAlgorithm.WORKER_TIMEOUT, WorkerPool.TIMEOUT)
+            );
+        } catch (final IOException exception) {
+            throw new IllegalStateException("Could not start the worker processes", exception);
+        }
+    }
+
+    /**
+     * Closes the pool of worker processes, if open.
+     */
+    private void closePool() {
+        if (this.pool != null) {
+            try {
+                this.pool.close();
+            } catch (final IOException exception) {
+                GeneticAlgorithm.LOGGER.warn("Could not close the worker pool", exception);
+            }
+            this.pool = null;
+        }
+    }
+
+    /**
+     * Closes the result store, if open.
+     */
+    private void closeStore() {
+        if (this.store != null) {
+            try {
+                this.store.close();
+            } catch (final IOException exception) {
+                GeneticAlgorithm.LOGGER.warn("Could not close the result store", exception);
+            }
+            this.store = null;
+        }
+    }
+
 }
@@ -0,0 +1,227 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import io.jenetics.DoubleGene;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionInterceptor;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.engine.Limits;
+import io.jenetics.stat.MinMax;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.MSeq;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evolves several populations (islands) in parallel, each with its own
+ * engine, and periodically sends the best individuals of each island to the
+ * next one, in a ring. Islands do not wait for each other: every few
+ * generations, an island publishes its emigrants in its own slot and takes
+ * whatever its neighbour published last, if it has not taken it already.
+ * Immigrants replace the island's worst individuals.
+ *
+ * <p>The islands' engines may use different alterers, so that some explore
+ * while others exploit.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class IslandModel {
+
+    /**
+     * The default number of generations between migrations.
+     */
+    public static final int DEFAULT_INTERVAL = 5;
+
+    /**
+     * The default number of individuals that leave an island per migration.
+     */
+    public static final int DEFAULT_MIGRANTS = 2;
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(IslandModel.class);
+
+    /**
+     * The engine of each island.
+     */
+    private final List<Engine<DoubleGene, Double>> engines;
+
+    /**
+     * The last individuals published by each island, or null if its
+     * neighbour took them already.
+     */
+    private final AtomicReferenceArray<ISeq<Phenotype<DoubleGene, Double>>> emigrants;
+
+    /**
+     * The number of generations between migrations.
+     */
+    private final int interval;
+
+    /**
+     * The number of individuals that leave an island per migration.
+     */
+    private final int migrants;
+
+    /**
+     * Default constructor.
+     * @param builders The engine builder of each island
+     * @param interval The number of generations between migrations
+     * @param migrants The number of individuals that leave an island per
+     *  migration
+     */
+    public IslandModel(final List<Engine.Builder<DoubleGene, Double>> builders,
+        final int interval, final int migrants) {
+        if (builders.isEmpty()) {
+            throw new IllegalArgumentException("Expected at least one island");
+        }
+        if (interval < 1 || migrants < 0) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Expected a positive interval and migrants but got %d and %d",
+                    interval,
+                    migrants
+                )
+            );
+        }
+        this.interval = interval;
+        this.migrants = migrants;
+        this.emigrants = new AtomicReferenceArray<>(builders.size());
+        this.engines = new ArrayList<>(builders.size());
+        for (int island = 0; island < builders.size(); island++) {
+            final int index = island;
+            this.engines.add(
+                builders.get(island)
+                    .interceptor(
+                        EvolutionInterceptor.of(
+                            start -> this.immigrate(index, start),
+                            result -> this.emigrate(index, result)
+                        )
+                    )
+                    .build()
+            );
+        }
+    }
+
+    /**
+     * Evolves every island, each in its own thread.
+     * @param generations The number of generations per island
+     * @param observer Receives the result of every generation of every
+     *  island, from the islands' threads
+     * @param results The number of results to collect
+     * @return The best results of all islands, in increasing order of fitness
+     */
+    public ISeq<EvolutionResult<DoubleGene, Double>> evolve(final long generations,
+        final Consumer<? super EvolutionResult<DoubleGene, Double>> observer,
+        final int results) {
+        final ExecutorService threads = Executors.newFixedThreadPool(this.engines.size());
+        final List<Future<List<EvolutionResult<DoubleGene, Double>>>> futures =
+            this.engines.stream()
+                .map(engine -> threads.submit(() ->
+                    engine.stream()
+                        .limit(Limits.byFixedGeneration(generations))
+                        .peek(observer)
+                        .flatMap(MinMax.toStrictlyIncreasing())
+                        .collect(Collectors.toList())
+                ))
+                .collect(Collectors.toList());
+        final List<EvolutionResult<DoubleGene, Double>> improvements = new ArrayList<>();
+        try {
+            for (final Future<List<EvolutionResult<DoubleGene, Double>>> future : futures) {
+                improvements.addAll(future.get());
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evolving the islands", exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException("Could not evolve an island", exception.getCause());
+        } finally {
+            threads.shutdownNow();
+        }
+        return improvements.stream()
+            .sorted()
+            .collect(ISeq.toISeq(results));
+    }
+
+    /**
+     * Publishes the best individuals of an island, on migration generations.
+     * @param island The island's index
+     * @param result The island's last generation
+     * @return The same result
+     */
+    private EvolutionResult<DoubleGene, Double> emigrate(final int island,
+        final EvolutionResult<DoubleGene, Double> result) {
+        if (this.migrants > 0 && result.generation() % this.interval == 0) {
+            this.emigrants.set(
+                island,
+                result.population()
+                    .stream()
+                    .sorted(Comparator.comparing(Phenotype<DoubleGene, Double>::fitness).reversed())
+                    .limit(this.migrants)
+                    .collect(ISeq.toISeq())
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the worst individuals of an island with the emigrants of the
+     * previous island, if it published any since the last migration.
+     * @param island The island's index
+     * @param start The island's next generation
+     * @return The start with the immigrants
+     */
+    private EvolutionStart<DoubleGene, Double> immigrate(final int island,
+        final EvolutionStart<DoubleGene, Double> start) {
+        final ISeq<Phenotype<DoubleGene, Double>> population = start.population();
+        if ((start.generation() - 1) % this.interval != 0
+            || population.isEmpty()
+            || population.stream().anyMatch(Phenotype::nonEvaluated)) {
+            return start;
+        }
+        final int source = (island + this.engines.size() - 1) % this.engines.size();
+        final ISeq<Phenotype<DoubleGene, Double>> immigrants =
+            this.emigrants.getAndSet(source, null);
+        if (immigrants == null) {
+            return start;
+        }
+        final int count = Math.min(immigrants.size(), population.size());
+        final int[] worst = IntStream.range(0, population.size())
+            .boxed()
+            .sorted(Comparator.comparing(index -> population.get(index).fitness()))
+            .limit(count)
+            .mapToInt(Integer::intValue)
+            .toArray();
+        final MSeq<Phenotype<DoubleGene, Double>> next = MSeq.of(population);
+        for (int index = 0; index < count; index++) {
+            final Phenotype<DoubleGene, Double> immigrant = immigrants.get(index);
+            // Immigrants are born again, so that their age counts on this island
+            next.set(
+                worst[index],
+                Phenotype.of(immigrant.genotype(), start.generation(), immigrant.fitness())
+            );
+        }
+        IslandModel.LOGGER.info(
+            "Island {} received {} individuals from island {} at generation {}",
+            island,
+            count,
+            source,
+            start.generation()
+        );
+        return EvolutionStart.of(next.toISeq(), start.generation());
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+/**
+ * Decides when to stop simulating a candidate that is clearly worse than the
+ * incumbent, i.e., the best candidate simulated with every replication so
+ * far. Replications are run in increments, and after each one the fitness
+ * of the candidate's replications is compared with the incumbent's: the
+ * candidate is dominated if the upper confidence bound of the difference
+ * between their means is negative. The bound uses the Student's t
+ * distribution with the Welch-Satterthwaite degrees of freedom, since a
+ * candidate is compared after only a few replications and their variances
+ * differ. The confidence level is divided among
+ * the possible comparisons (Bonferroni), so that stopping after any of them
+ * keeps the overall error rate.
+ *
+ * <p>This class is thread-safe.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class Racing {
+
+    /**
+     * The default significance level.
+     */
+    public static final double DEFAULT_ALPHA = 0.05;
+
+    /**
+     * The minimum number of replications to estimate a variance.
+     */
+    private static final int MINIMUM = 2;
+
+    /**
+     * The number of replications of a complete evaluation.
+     */
+    private final int replications;
+
+    /**
+     * The number of replications per increment.
+     */
+    private final int increment;
+
+    /**
+     * The one-sided confidence level of each comparison.
+     */
+    private final double level;
+
+    /**
+     * The fitness of each replication of the incumbent, or null.
+     */
+    private double[] incumbent;
+
+    /**
+     * The sum of the incumbent's replications.
+     */
+    private double best;
+
+    /**
+     * Default constructor.
+     * @param replications The number of replications of a complete evaluation
+     * @param increment The number of replications per increment
+     * @param alpha The probability of stopping a candidate that is not worse
+     *  than the incumbent
+     */
+    public Racing(final int replications, final int increment, final double alpha) {
+        if (increment < 1 || increment > replications) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Expected an increment between 1 and %d but got %d",
+                    replications,
+                    increment
+                )
+            );
+        }
+        if (alpha <= 0.0 || alpha >= 1.0) {
+            throw new IllegalArgumentException(
+                String.format("Expected a significance level in (0, 1) but got %f", alpha)
+            );
+        }
+        this.replications = replications;
+        this.increment = increment;
+        // Comparisons happen after each increment, except the last one
+        final int looks = Math.max((replications - 1) / increment, 1);
+        this.level = 1.0 - alpha / looks;
+        this.best = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * The number of replications to run next.
+     * @param done The number of replications run so far
+     * @return A positive number, or zero if the evaluation is complete
+     */
+    public int next(final int done) {
+        return Math.min(this.increment, this.replications - done);
+    }
+
+    /**
+     * Whether a candidate is statistically worse than the incumbent.
+     * @param values The fitness of each replication of the candidate
+     * @param count The number of replications run so far
+     * @return Whether to stop simulating the candidate
+     */
+    public synchronized boolean dominated(final double[] values, final int count) {
+        boolean dominated = false;
+        if (this.incumbent != null && count >= Racing.MINIMUM && count < this.replications) {
+            final double[] candidate = Racing.moments(values, count);
+            final double[] elite = Racing.moments(this.incumbent, this.replications);
+            final double first = candidate[1] / count;
+            final double second = elite[1] / this.replications;
+            final double error = Math.sqrt(first + second);
+            final double difference = candidate[0] - elite[0];
+            if (error > 0.0) {
+                final double freedom = (first + second) * (first + second)
+                    / (first * first / (count - 1)
+                    + second * second / (this.replications - 1));
+                dominated = difference + this.critical(freedom) * error < 0.0;
+            } else {
+                dominated = difference < 0.0;
+            }
+        }
+        return dominated;
+    }
+
+    /**
+     * A conservative fitness value for a stopped candidate: the lower
+     * confidence bound of its mean replication fitness, scaled to a complete
+     * evaluation.
+     * @param values The fitness of each replication of the candidate
+     * @param count The number of replications run
+     * @return The fitness value
+     */
+    public double conservative(final double[] values, final int count) {
+        final double[] moments = Racing.moments(values, count);
+        final double bound;
+        if (moments[1] > 0.0) {
+            bound = moments[0]
+                - this.critical(count - 1.0) * Math.sqrt(moments[1] / count);
+        } else {
+            bound = moments[0];
+        }
+        return bound * this.replications;
+    }
+
+    /**
+     * Offers a candidate with every replication as the new incumbent.
+     * @param values The fitness of each replication of the candidate
+     */
+    public synchronized void offer(final double[] values) {
+        double sum = 0.0;
+        for (int index = 0; index < this.replications; index++) {
+            sum += values[index];
+        }
+        if (sum > this.best) {
+            this.best = sum;
+            this.incumbent = values.clone();
+        }
+    }
+
+    /**
+     * The mean and sample variance of the first values.
+     * @param values The values
+     * @param count The number of values
+     * @return The mean and the variance
+     */
+    private static double[] moments(final double[] values, final int count) {
+        double sum = 0.0;
+        for (int index = 0; index < count; index++) {
+            sum += values[index];
+        }
+        final double mean = sum / count;
+        double squares = 0.0;
+        for (int index = 0; index < count; index++) {
+            squares += (values[index] - mean) * (values[index] - mean);
+        }
+        final double variance;
+        if (count > 1) {
+            variance = squares / (count - 1);
+        } else {
+            variance = 0.0;
+        }
+        return new double[] {mean, variance};
+    }
+
+    /**
+     * The one-sided critical value of each comparison.
+     * @param freedom The degrees of freedom
+     * @return The quantile of the Student's t distribution
+     */
+    private double critical(final double freedom) {
+        return new TDistribution(freedom).inverseCumulativeProbability(this.level);
+    }
+
+}
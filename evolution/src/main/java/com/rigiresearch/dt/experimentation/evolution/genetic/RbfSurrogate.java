@@ -0,0 +1,307 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * A radial-basis metamodel of the fitness function, trained on the
+ * candidates simulated so far. Genes are scaled to the unit interval and
+ * compared with a Gaussian kernel; the model interpolates the fitness values
+ * around their mean, like a Gaussian process with constant mean, so it also
+ * estimates how uncertain each prediction is.
+ *
+ * <p>Training is incremental: the Cholesky factor of the kernel matrix grows
+ * by one row per sample, which costs {@code O(n^2)} instead of refactoring
+ * the whole matrix. The noise added to the diagonal keeps the factor well
+ * conditioned, so candidates simulated more than once are averaged rather
+ * than breaking the factorization.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class RbfSurrogate {
+
+    /**
+     * The default kernel width, in units of the gene ranges.
+     */
+    public static final double DEFAULT_SCALE = 0.25;
+
+    /**
+     * The default noise added to the kernel diagonal, relative to the
+     * kernel's maximum value. Fitness values are averaged over stochastic
+     * replications, so the model smooths rather than interpolates exactly.
+     */
+    public static final double DEFAULT_NOISE = 1.0e-3;
+
+    /**
+     * The lower bound of each gene.
+     */
+    private final double[] lower;
+
+    /**
+     * The width of each gene's range.
+     */
+    private final double[] width;
+
+    /**
+     * The factor of the exponent of the Gaussian kernel.
+     */
+    private final double gamma;
+
+    /**
+     * The noise added to the kernel diagonal.
+     */
+    private final double noise;
+
+    /**
+     * The scaled genes of the samples.
+     */
+    private final List<double[]> points;
+
+    /**
+     * The fitness values of the samples.
+     */
+    private final List<Double> values;
+
+    /**
+     * The rows of the lower-triangular Cholesky factor of the kernel matrix.
+     */
+    private final List<double[]> factor;
+
+    /**
+     * The weights of the samples, or null if they must be recomputed.
+     */
+    private double[] weights;
+
+    /**
+     * The mean of the fitness values.
+     */
+    private double mean;
+
+    /**
+     * The standard deviation of the fitness values.
+     */
+    private double deviation;
+
+    /**
+     * Default constructor.
+     * @param lower The lower bound of each gene
+     * @param upper The upper bound of each gene
+     */
+    public RbfSurrogate(final double[] lower, final double[] upper) {
+        this(lower, upper, RbfSurrogate.DEFAULT_SCALE, RbfSurrogate.DEFAULT_NOISE);
+    }
+
+    /**
+     * Constructor.
+     * @param lower The lower bound of each gene
+     * @param upper The upper bound of each gene
+     * @param scale The kernel width, in units of the gene ranges
+     * @param noise The noise added to the kernel diagonal
+     */
+    public RbfSurrogate(final double[] lower, final double[] upper, final double scale,
+        final double noise) {
+        if (lower.length != upper.length) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Expected %d upper bounds but got %d",
+                    lower.length,
+                    upper.length
+                )
+            );
+        }
+        if (scale <= 0.0 || noise <= 0.0) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Expected a positive scale and noise but got %f and %f",
+                    scale,
+                    noise
+                )
+            );
+        }
+        this.lower = lower.clone();
+        this.width = new double[lower.length];
+        for (int index = 0; index < lower.length; index++) {
+            this.width[index] = Math.max(upper[index] - lower[index], Double.MIN_NORMAL);
+        }
+        this.gamma = 1.0 / (2.0 * scale * scale);
+        this.noise = noise;
+        this.points = new ArrayList<>();
+        this.values = new ArrayList<>();
+        this.factor = new ArrayList<>();
+    }
+
+    /**
+     * Adds a simulated candidate.
+     * @param genes The candidate's genes
+     * @param value The candidate's fitness value
+     * @return Whether the sample was added, which fails only if rounding
+     *  errors made the factor singular
+     */
+    public synchronized boolean add(final double[] genes, final double value) {
+        final double[] point = this.scale(genes);
+        final int size = this.points.size();
+        // Solve L row = k, where k is the kernel between the new and previous points
+        final double[] row = new double[size + 1];
+        double norm = 0.0;
+        for (int index = 0; index < size; index++) {
+            final double[] previous = this.factor.get(index);
+            double sum = this.kernel(point, this.points.get(index));
+            for (int column = 0; column < index; column++) {
+                sum -= previous[column] * row[column];
+            }
+            row[index] = sum / previous[index];
+            norm += row[index] * row[index];
+        }
+        final double diagonal = 1.0 + this.noise - norm;
+        final boolean added = diagonal > this.noise * this.noise;
+        if (added) {
+            row[size] = Math.sqrt(diagonal);
+            this.factor.add(row);
+            this.points.add(point);
+            this.values.add(value);
+            this.weights = null;
+        }
+        return added;
+    }
+
+    /**
+     * The number of samples.
+     * @return A positive number, or zero
+     */
+    public synchronized int size() {
+        return this.points.size();
+    }
+
+    /**
+     * Predicts the fitness value of a candidate.
+     * @param genes The candidate's genes
+     * @return The prediction, with a zero mean and an infinite deviation if
+     *  there are no samples
+     */
+    public synchronized RbfSurrogate.Prediction predict(final double[] genes) {
+        final int size = this.points.size();
+        final RbfSurrogate.Prediction prediction;
+        if (size == 0) {
+            prediction = new RbfSurrogate.Prediction(0.0, Double.POSITIVE_INFINITY);
+        } else {
+            this.train();
+            final double[] point = this.scale(genes);
+            // The mean interpolates the centred values: m + k'w
+            double value = this.mean;
+            // The variance is the kernel's minus the explained part: 1 - |L^-1 k|^2
+            final double[] solved = new double[size];
+            double norm = 0.0;
+            for (int index = 0; index < size; index++) {
+                final double kernel = this.kernel(point, this.points.get(index));
+                value += kernel * this.weights[index];
+                final double[] row = this.factor.get(index);
+                double sum = kernel;
+                for (int column = 0; column < index; column++) {
+                    sum -= row[column] * solved[column];
+                }
+                solved[index] = sum / row[index];
+                norm += solved[index] * solved[index];
+            }
+            prediction = new RbfSurrogate.Prediction(
+                value,
+                this.deviation * Math.sqrt(Math.max(1.0 - norm, 0.0))
+            );
+        }
+        return prediction;
+    }
+
+    /**
+     * Computes the weights of the samples, if there are new samples.
+     */
+    private void train() {
+        if (this.weights != null) {
+            return;
+        }
+        final int size = this.points.size();
+        double sum = 0.0;
+        for (final double value : this.values) {
+            sum += value;
+        }
+        this.mean = sum / size;
+        double squares = 0.0;
+        for (final double value : this.values) {
+            squares += (value - this.mean) * (value - this.mean);
+        }
+        this.deviation = Math.sqrt(squares / size);
+        // Solve L z = y - m and then L' w = z
+        final double[] solved = new double[size];
+        for (int index = 0; index < size; index++) {
+            final double[] row = this.factor.get(index);
+            double value = this.values.get(index) - this.mean;
+            for (int column = 0; column < index; column++) {
+                value -= row[column] * solved[column];
+            }
+            solved[index] = value / row[index];
+        }
+        final double[] weights = new double[size];
+        for (int index = size - 1; index >= 0; index--) {
+            double value = solved[index];
+            for (int next = index + 1; next < size; next++) {
+                value -= this.factor.get(next)[index] * weights[next];
+            }
+            weights[index] = value / this.factor.get(index)[index];
+        }
+        this.weights = weights;
+    }
+
+    /**
+     * Scales genes to the unit interval.
+     * @param genes The genes
+     * @return A new array
+     */
+    private double[] scale(final double[] genes) {
+        if (genes.length != this.lower.length) {
+            throw new IllegalArgumentException(
+                String.format("Expected %d genes but got %d", this.lower.length, genes.length)
+            );
+        }
+        final double[] point = new double[genes.length];
+        for (int index = 0; index < genes.length; index++) {
+            point[index] = (genes[index] - this.lower[index]) / this.width[index];
+        }
+        return point;
+    }
+
+    /**
+     * The Gaussian kernel between two scaled points.
+     * @param first The first point
+     * @param second The second point
+     * @return A number between 0 and 1
+     */
+    private double kernel(final double[] first, final double[] second) {
+        double distance = 0.0;
+        for (int index = 0; index < first.length; index++) {
+            final double difference = first[index] - second[index];
+            distance += difference * difference;
+        }
+        return Math.exp(-this.gamma * distance);
+    }
+
+    /**
+     * A predicted fitness value.
+     */
+    @Value
+    public static class Prediction {
+
+        /**
+         * The expected fitness value.
+         */
+        double mean;
+
+        /**
+         * The standard deviation of the prediction.
+         */
+        double deviation;
+
+    }
+
+}
@@ -0,0 +1,482 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.DoubleSummaryStatistics;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An append-only store of simulation records that keeps them on disk rather
+ * than in the heap. Records are buffered in a {@link RecordTable} and written
+ * in batches, each one a table in binary form; only the running statistics of
+ * the numeric columns are kept in memory. Records can be read back, batch by
+ * batch and in the order in which they were appended, while the sink is
+ * still open.
+ *
+ * <p>This class is thread-safe.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class RecordSink implements Iterable<RecordTable>, Closeable {
+
+    /**
+     * The extension of record files.
+     */
+    public static final String EXTENSION = ".records";
+
+    /**
+     * The default number of records per batch.
+     */
+    public static final int BATCH = 1024;
+
+    /**
+     * The path to the record file.
+     */
+    private final Path path;
+
+    /**
+     * Whether the file is deleted when the sink is closed.
+     */
+    private final boolean temporary;
+
+    /**
+     * The number of records per batch.
+     */
+    private final int batch;
+
+    /**
+     * The columns of the records.
+     */
+    private final RecordTable.Schema schema;
+
+    /**
+     * The records not yet written.
+     */
+    private final RecordTable buffer;
+
+    /**
+     * The statistics of the numeric columns, in column order.
+     */
+    private final Map<RecordTable.Column, DoubleSummaryStatistics> statistics;
+
+    /**
+     * The batches serialized but not yet written to the file.
+     */
+    private final ByteArrayOutputStream sealed;
+
+    /**
+     * The file output.
+     */
+    private final DataOutputStream output;
+
+    /**
+     * The length in bytes of the file once the sealed batches are written.
+     */
+    private long length;
+
+    /**
+     * The number of records written to the file.
+     */
+    private long written;
+
+    /**
+     * The number of batches written to the file.
+     */
+    private long batches;
+
+    /**
+     * Whether the sink is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Default constructor. Existing files are replaced.
+     * @param path The path to the record file
+     * @param schema The columns of the records
+     * @throws IOException If the file cannot be created
+     */
+    public RecordSink(final Path path, final RecordTable.Schema schema) throws IOException {
+        this(path, schema, RecordSink.BATCH, false, -1L);
+    }
+
+    /**
+     * Constructor.
+     * @param path The path to the record file
+     * @param schema The columns of the records
+     * @param batch The number of records per batch
+     * @param temporary Whether the file is deleted when the sink is closed
+     * @param length The length in bytes up to which an existing file is kept,
+     *  or a negative number to replace it
+     * @throws IOException If the file cannot be opened
+     */
+    private RecordSink(final Path path, final RecordTable.Schema schema, final int batch,
+        final boolean temporary, final long length) throws IOException {
+        if (batch < 1) {
+            throw new IllegalArgumentException(
+                String.format("Expected a positive batch size but got %d", batch)
+            );
+        }
+        this.path = path;
+        this.batch = batch;
+        this.temporary = temporary;
+        this.schema = schema;
+        this.buffer = new RecordTable(schema, batch);
+        this.statistics = new LinkedHashMap<>();
+        for (final RecordTable.Column column : schema.getColumns()) {
+            if (column.getType() != RecordTable.Type.STRING) {
+                this.statistics.put(column, new DoubleSummaryStatistics());
+            }
+        }
+        this.sealed = new ByteArrayOutputStream();
+        if (length < 0L) {
+            Files.deleteIfExists(path);
+        } else {
+            this.restore(length);
+            this.length = length;
+        }
+        this.output = new DataOutputStream(
+            new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+            )
+        );
+    }
+
+    /**
+     * Creates a sink backed by a temporary file.
+     * @param schema The columns of the records
+     * @return A new sink
+     * @throws IOException If the file cannot be created
+     */
+    public static RecordSink temporary(final RecordTable.Schema schema) throws IOException {
+        final Path path = Files.createTempFile("simulation", RecordSink.EXTENSION);
+        path.toFile().deleteOnExit();
+        return new RecordSink(path, schema, RecordSink.BATCH, true, -1L);
+    }
+
+    /**
+     * Reopens a record file, discarding the records written after a given
+     * length (e.g., after the last checkpoint).
+     * @param path The path to the record file
+     * @param schema The columns of the records
+     * @param length The length in bytes to keep
+     * @return A new sink
+     * @throws IOException If the file cannot be read or is shorter than the
+     *  length
+     */
+    public static RecordSink resume(final Path path, final RecordTable.Schema schema,
+        final long length) throws IOException {
+        return new RecordSink(path, schema, RecordSink.BATCH, false, length);
+    }
+
+    /**
+     * Appends records.
+     * @param records The records, with the columns of this sink
+     * @throws IOException If a batch cannot be written
+     */
+    public synchronized void append(final RecordTable records) throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("The record sink is closed");
+        }
+        this.buffer.append(records);
+        this.aggregate(records);
+        if (this.buffer.size() >= this.batch) {
+            this.write();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     * @return The length of the file in bytes
+     * @throws IOException If the records cannot be written
+     */
+    public synchronized long flush() throws IOException {
+        if (!this.closed) {
+            this.write();
+            this.output.flush();
+        }
+        return this.length;
+    }
+
+    /**
+     * Ends the current batch without writing it, so that the length of the
+     * file up to the records appended so far is known before they reach the
+     * file system (e.g., to take a checkpoint while evaluations continue).
+     * The records are written by the next call to {@link #flush()}.
+     * @return The length of the file in bytes once the records are written
+     * @throws IOException If the records cannot be serialized
+     */
+    public synchronized long mark() throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("The record sink is closed");
+        }
+        this.seal();
+        return this.length;
+    }
+
+    /**
+     * The number of appended records.
+     * @return A positive number, or zero
+     */
+    public synchronized long size() {
+        return this.written + this.buffer.size();
+    }
+
+    /**
+     * A copy of the statistics of a numeric column over the records appended
+     * so far.
+     * @param column A numeric column of this sink
+     * @return The statistics
+     */
+    public synchronized DoubleSummaryStatistics statistics(final RecordTable.Column column) {
+        final DoubleSummaryStatistics statistics = this.statistics.get(column);
+        if (statistics == null) {
+            throw new IllegalArgumentException(
+                String.format("Column %s is not a numeric column of this sink", column)
+            );
+        }
+        final DoubleSummaryStatistics copy = new DoubleSummaryStatistics();
+        copy.combine(statistics);
+        return copy;
+    }
+
+    /**
+     * Reads the batches of records appended so far. Records appended
+     * afterwards are not included. The reader closes itself once it is
+     * exhausted.
+     * @return A new reader
+     */
+    @Override
+    public RecordSink.Reader iterator() {
+        final long count;
+        try {
+            synchronized (this) {
+                this.flush();
+                count = this.batches;
+            }
+            return new RecordSink.Reader(this.path, this.schema, count);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Writes the buffered records and closes the file, deleting it if it is
+     * temporary. Records can no longer be read afterwards.
+     * @throws IOException If the records cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.write();
+            this.output.close();
+        } finally {
+            this.closed = true;
+            if (this.temporary) {
+                Files.deleteIfExists(this.path);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered records.
+     * @throws IOException If the records cannot be written
+     */
+    private void write() throws IOException {
+        this.seal();
+        this.sealed.writeTo(this.output);
+        this.sealed.reset();
+    }
+
+    /**
+     * Serializes the buffered records as a new batch, in memory.
+     * @throws IOException If the records cannot be serialized
+     */
+    private void seal() throws IOException {
+        if (this.buffer.size() > 0) {
+            final int start = this.sealed.size();
+            this.buffer.write(new DataOutputStream(this.sealed));
+            this.length += this.sealed.size() - start;
+            this.written += this.buffer.size();
+            this.batches++;
+            this.buffer.clear();
+        }
+    }
+
+    /**
+     * Updates the statistics with the numeric values of some records.
+     * @param records The records
+     */
+    private void aggregate(final RecordTable records) {
+        for (final Map.Entry<RecordTable.Column, DoubleSummaryStatistics> entry
+            : this.statistics.entrySet()) {
+            records.scan(entry.getKey()).forEach(entry.getValue());
+        }
+    }
+
+    /**
+     * Truncates the file to a given length and reads the remaining records to
+     * restore the counters and the statistics.
+     * @param length The length in bytes to keep
+     * @throws IOException If the file cannot be read or is too short
+     */
+    private void restore(final long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.WRITE)) {
+            if (channel.size() < length) {
+                throw new IOException(
+                    String.format(
+                        "Expected at least %d bytes in %s but found %d",
+                        length,
+                        this.path,
+                        channel.size()
+                    )
+                );
+            }
+            channel.truncate(length);
+        }
+        try (RecordSink.Counter counter = new RecordSink.Counter(this.path);
+            DataInputStream input = new DataInputStream(counter)) {
+            while (counter.position() < length) {
+                final RecordTable records = RecordTable.read(input, this.schema);
+                this.aggregate(records);
+                this.written += records.size();
+                this.batches++;
+            }
+        }
+    }
+
+    /**
+     * Reads the batches of a file, up to a given number of batches.
+     */
+    public static final class Reader implements Iterator<RecordTable>, Closeable {
+
+        /**
+         * The file input.
+         */
+        private final DataInputStream input;
+
+        /**
+         * The columns of the records.
+         */
+        private final RecordTable.Schema schema;
+
+        /**
+         * The number of batches left to read.
+         */
+        private long remaining;
+
+        /**
+         * Default constructor.
+         * @param path The path to the record file
+         * @param schema The columns of the records
+         * @param count The number of batches to read
+         * @throws IOException If the file cannot be opened
+         */
+        Reader(final Path path, final RecordTable.Schema schema, final long count)
+            throws IOException {
+            this.input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path))
+            );
+            this.schema = schema;
+            this.remaining = count;
+            if (count == 0L) {
+                this.input.close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0L;
+        }
+
+        @Override
+        public RecordTable next() {
+            if (this.remaining == 0L) {
+                throw new NoSuchElementException("There are no more records");
+            }
+            try {
+                final RecordTable records = RecordTable.read(this.input, this.schema);
+                this.remaining--;
+                if (this.remaining == 0L) {
+                    this.input.close();
+                }
+                return records;
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.remaining = 0L;
+            this.input.close();
+        }
+
+    }
+
+    /**
+     * A buffered file input that counts the bytes read.
+     */
+    private static final class Counter extends BufferedInputStream {
+
+        /**
+         * The number of bytes read.
+         */
+        private long count;
+
+        /**
+         * Default constructor.
+         * @param path The path to the file
+         * @throws IOException If the file cannot be opened
+         */
+        Counter(final Path path) throws IOException {
+            super(Files.newInputStream(path));
+        }
+
+        /**
+         * The number of bytes read.
+         * @return A positive number, or zero
+         */
+        long position() {
+            return this.count;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            final int value = super.read();
+            if (value >= 0) {
+                this.count++;
+            }
+            return value;
+        }
+
+        @Override
+        public synchronized int read(final byte[] bytes, final int offset, final int length)
+            throws IOException {
+            final int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                this.count += read;
+            }
+            return read;
+        }
+
+    }
+
+}
@@ -0,0 +1,287 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import io.jenetics.DoubleGene;
+import io.jenetics.Genotype;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Evaluator;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.Seq;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pre-screens the offspring of each generation with a {@link RbfSurrogate}.
+ * Only a fraction of the candidates is simulated: half of them are the ones
+ * with the best predicted fitness, and the rest the ones whose prediction is
+ * most uncertain. The other candidates get their predicted fitness. Until
+ * the surrogate has enough samples, every candidate is simulated.
+ *
+ * <p>Predicted fitness values only rank the candidates within a generation.
+ * The best candidate of each generation is always simulated, so a predicted
+ * value is never reported, and a candidate that survives with a predicted
+ * value is simulated in the next generation (fitness is maximized).</p>
+ *
+ * <p>The surrogate is not trained here: the fitness function adds a sample
+ * for every candidate that it simulates.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class SurrogateEvaluator implements Evaluator<DoubleGene, Double> {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SurrogateEvaluator.class);
+
+    /**
+     * The evaluator simulating the candidates.
+     */
+    private final Evaluator<DoubleGene, Double> delegate;
+
+    /**
+     * The metamodel of the fitness function.
+     */
+    private final RbfSurrogate surrogate;
+
+    /**
+     * Decodes the genes of a candidate.
+     */
+    private final Function<Genotype<DoubleGene>, double[]> genes;
+
+    /**
+     * The fraction of the candidates that is simulated.
+     */
+    private final double fraction;
+
+    /**
+     * The number of samples before the surrogate is used.
+     */
+    private final int warmup;
+
+    /**
+     * The candidates whose fitness is predicted, possibly shared with the
+     * evaluators of other populations that exchange individuals with this
+     * one.
+     */
+    private final Set<Genotype<DoubleGene>> predicted;
+
+    /**
+     * Secondary constructor.
+     * @param delegate The evaluator simulating the candidates
+     * @param surrogate The metamodel of the fitness function
+     * @param genes Decodes the genes of a candidate
+     * @param fraction The fraction of the candidates that is simulated, in
+     *  {@code (0, 1]}
+     * @param warmup The number of samples before the surrogate is used
+     */
+    public SurrogateEvaluator(final Evaluator<DoubleGene, Double> delegate,
+        final RbfSurrogate surrogate, final Function<Genotype<DoubleGene>, double[]> genes,
+        final double fraction, final int warmup) {
+        this(delegate, surrogate, genes, fraction, warmup, ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Default constructor.
+     * @param delegate The evaluator simulating the candidates
+     * @param surrogate The metamodel of the fitness function
+     * @param genes Decodes the genes of a candidate
+     * @param fraction The fraction of the candidates that is simulated, in
+     *  {@code (0, 1]}
+     * @param warmup The number of samples before the surrogate is used
+     * @param predicted The candidates whose fitness is predicted, a
+     *  thread-safe set shared by the evaluators whose populations exchange
+     *  individuals
+     */
+    public SurrogateEvaluator(final Evaluator<DoubleGene, Double> delegate,
+        final RbfSurrogate surrogate, final Function<Genotype<DoubleGene>, double[]> genes,
+        final double fraction, final int warmup, final Set<Genotype<DoubleGene>> predicted) {
+        if (fraction <= 0.0 || fraction > 1.0) {
+            throw new IllegalArgumentException(
+                String.format("Expected a fraction in (0, 1] but got %f", fraction)
+            );
+        }
+        this.delegate = delegate;
+        this.surrogate = surrogate;
+        this.genes = genes;
+        this.fraction = fraction;
+        this.warmup = warmup;
+        this.predicted = predicted;
+    }
+
+    @Override
+    public ISeq<Phenotype<DoubleGene, Double>> eval(
+        final Seq<Phenotype<DoubleGene, Double>> population) {
+        final List<Integer> pending = new ArrayList<>(population.size());
+        final List<Integer> survivors = new ArrayList<>();
+        for (int index = 0; index < population.size(); index++) {
+            final Phenotype<DoubleGene, Double> phenotype = population.get(index);
+            if (phenotype.nonEvaluated()) {
+                pending.add(index);
+            } else if (this.predicted.contains(phenotype.genotype())) {
+                survivors.add(index);
+            }
+        }
+        final MSeq<Phenotype<DoubleGene, Double>> evaluated = MSeq.of(population);
+        if (pending.isEmpty() && survivors.isEmpty()) {
+            return evaluated.toISeq();
+        }
+        final List<Integer> simulated;
+        if (this.surrogate.size() < this.warmup) {
+            simulated = new ArrayList<>(pending);
+        } else {
+            simulated = this.screen(evaluated, pending);
+        }
+        // Candidates that survived with a predicted fitness are simulated now
+        simulated.addAll(survivors);
+        final boolean[] estimated = new boolean[population.size()];
+        pending.forEach(index -> estimated[index] = true);
+        this.simulate(evaluated, simulated, estimated);
+        int best = SurrogateEvaluator.best(evaluated);
+        int extra = 0;
+        while (estimated[best]) {
+            this.simulate(evaluated, Collections.singletonList(best), estimated);
+            best = SurrogateEvaluator.best(evaluated);
+            extra++;
+        }
+        for (final int index : pending) {
+            if (estimated[index]) {
+                this.predicted.add(evaluated.get(index).genotype());
+            }
+        }
+        SurrogateEvaluator.LOGGER.info(
+            "Simulated {} out of {} candidates, {} of them survivors ({} surrogate samples)",
+            simulated.size() + extra,
+            pending.size() + survivors.size(),
+            survivors.size(),
+            this.surrogate.size()
+        );
+        return evaluated.toISeq();
+    }
+
+    /**
+     * Simulates the given candidates, discarding their predicted fitness.
+     * @param population The population, updated with the simulated fitness
+     * @param indices The indices of the candidates to simulate
+     * @param estimated Whether each candidate has a predicted fitness,
+     *  updated for the simulated candidates
+     */
+    private void simulate(final MSeq<Phenotype<DoubleGene, Double>> population,
+        final List<Integer> indices, final boolean... estimated) {
+        final ISeq<Phenotype<DoubleGene, Double>> results = this.delegate.eval(
+            indices.stream()
+                .map(population::get)
+                .map(phenotype -> Phenotype.<DoubleGene, Double>of(
+                    phenotype.genotype(),
+                    phenotype.generation()
+                ))
+                .collect(ISeq.toISeq())
+        );
+        for (int index = 0; index < indices.size(); index++) {
+            population.set(indices.get(index), results.get(index));
+            estimated[indices.get(index)] = false;
+            this.predicted.remove(results.get(index).genotype());
+        }
+    }
+
+    /**
+     * Finds the candidate with the highest fitness.
+     * @param population The evaluated population
+     * @return The index of the best candidate
+     */
+    private static int best(final Seq<Phenotype<DoubleGene, Double>> population) {
+        int best = 0;
+        for (int index = 1; index < population.size(); index++) {
+            if (population.get(index).fitness() > population.get(best).fitness()) {
+                best = index;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Assigns the predicted fitness to the candidates that are not simulated.
+     * @param population The population, updated with the predicted fitness
+     * @param pending The indices of the candidates to evaluate
+     * @return The indices of the candidates to simulate
+     */
+    private List<Integer> screen(final MSeq<Phenotype<DoubleGene, Double>> population,
+        final List<Integer> pending) {
+        final List<SurrogateEvaluator.Candidate> candidates = new ArrayList<>(pending.size());
+        for (final int index : pending) {
+            candidates.add(
+                new SurrogateEvaluator.Candidate(
+                    index,
+                    this.surrogate.predict(this.genes.apply(population.get(index).genotype()))
+                )
+            );
+        }
+        final int count = (int) Math.ceil(this.fraction * candidates.size());
+        final List<Integer> simulated = new ArrayList<>(count);
+        // The most promising candidates
+        candidates.sort(
+            Comparator.comparingDouble(
+                (SurrogateEvaluator.Candidate candidate) -> candidate.prediction.getMean()
+            ).reversed()
+        );
+        final int promising = (count + 1) / 2;
+        for (final SurrogateEvaluator.Candidate candidate : candidates.subList(0, promising)) {
+            simulated.add(candidate.index);
+        }
+        // The most uncertain candidates among the rest
+        final List<SurrogateEvaluator.Candidate> rest =
+            new ArrayList<>(candidates.subList(promising, candidates.size()));
+        rest.sort(
+            Comparator.comparingDouble(
+                (SurrogateEvaluator.Candidate candidate) -> candidate.prediction.getDeviation()
+            ).reversed()
+        );
+        for (final SurrogateEvaluator.Candidate candidate : rest.subList(0, count - promising)) {
+            simulated.add(candidate.index);
+        }
+        for (final SurrogateEvaluator.Candidate candidate
+            : rest.subList(count - promising, rest.size())) {
+            population.set(
+                candidate.index,
+                population.get(candidate.index).withFitness(candidate.prediction.getMean())
+            );
+        }
+        return simulated;
+    }
+
+    /**
+     * A candidate and its predicted fitness.
+     */
+    private static final class Candidate {
+
+        /**
+         * The index of the candidate in the population.
+         */
+        private final int index;
+
+        /**
+         * The predicted fitness.
+         */
+        private final RbfSurrogate.Prediction prediction;
+
+        /**
+         * Default constructor.
+         * @param index The index of the candidate in the population
+         * @param prediction The predicted fitness
+         */
+        Candidate(final int index, final RbfSurrogate.Prediction prediction) {
+            this.index = index;
+            this.prediction = prediction;
+        }
+
+    }
+
+}
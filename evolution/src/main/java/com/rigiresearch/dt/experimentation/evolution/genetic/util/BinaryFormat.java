@@ -0,0 +1,105 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic.util;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes rows in a length-prefixed binary format, readable with a
+ * {@link java.io.DataInputStream}. The header is the magic number
+ * {@value #MAGIC}, the format version, the number of columns and, for each
+ * column, its name (as an unsigned short length followed by UTF-8 bytes) and
+ * the ordinal of its {@link RecordTable.Type}. Each row is the number of bytes
+ * that follow, as an int, and then the values in column order: doubles and
+ * longs take eight bytes, integers four, and strings are written like column
+ * names, with a length of {@code 0xFFFF} for null.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class BinaryFormat implements RowFormat {
+
+    /**
+     * The extension of binary files.
+     */
+    public static final String EXTENSION = ".rows";
+
+    /**
+     * The first bytes of a binary file ("DTRW").
+     */
+    public static final int MAGIC = 0x44545257;
+
+    /**
+     * The format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The length of null strings.
+     */
+    public static final int NULL = 0xFFFF;
+
+    @Override
+    public void header(final RecordTable.Schema schema, final ByteBuffer buffer) {
+        buffer.putInt(BinaryFormat.MAGIC);
+        buffer.putInt(BinaryFormat.VERSION);
+        buffer.putShort((short) schema.getColumns().size());
+        for (final RecordTable.Column column : schema.getColumns()) {
+            BinaryFormat.put(column.getName(), buffer);
+            buffer.put((byte) column.getType().ordinal());
+        }
+    }
+
+    @Override
+    public void row(final RecordTable table, final int row, final ByteBuffer buffer) {
+        final int start = buffer.position();
+        buffer.putInt(0);
+        for (final RecordTable.Column column : table.getSchema().getColumns()) {
+            switch (column.getType()) {
+                case DOUBLE:
+                    buffer.putDouble(table.getDouble(row, column));
+                    break;
+                case INT:
+                    buffer.putInt(table.getInt(row, column));
+                    break;
+                case LONG:
+                    buffer.putLong(table.getLong(row, column));
+                    break;
+                default:
+                    BinaryFormat.put(table.getString(row, column), buffer);
+                    break;
+            }
+        }
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+    }
+
+    @Override
+    public String extension() {
+        return BinaryFormat.EXTENSION;
+    }
+
+    /**
+     * Encodes a string.
+     * @param value The string, or null
+     * @param buffer The output buffer
+     */
+    private static void put(final String value, final ByteBuffer buffer) {
+        if (value == null) {
+            buffer.putShort((short) BinaryFormat.NULL);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length >= BinaryFormat.NULL) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Expected at most %d bytes but got %d",
+                        BinaryFormat.NULL - 1,
+                        bytes.length
+                    )
+                );
+            }
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic.util;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes rows as comma-separated values, with the column names in the first
+ * line.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class CsvFormat implements RowFormat {
+
+    /**
+     * The extension of CSV files.
+     */
+    public static final String EXTENSION = ".csv";
+
+    @Override
+    public void header(final RecordTable.Schema schema, final ByteBuffer buffer) {
+        buffer.put(schema.header().concat("\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void row(final RecordTable table, final int row, final ByteBuffer buffer) {
+        buffer.put(table.asCsv(row).concat("\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String extension() {
+        return CsvFormat.EXTENSION;
+    }
+
+}
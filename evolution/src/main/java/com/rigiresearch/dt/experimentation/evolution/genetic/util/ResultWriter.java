@@ -0,0 +1,323 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic.util;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes records to a file as they are produced, so that results need not be
+ * kept in memory until the end of a run. Records are queued and encoded by a
+ * background thread into a direct buffer, which is written to the file when
+ * it is full and at least every {@value #FLUSH_INTERVAL} milliseconds.
+ * Producers block only if the queue is full.
+ *
+ * <p>This class is thread-safe.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class ResultWriter implements Closeable {
+
+    /**
+     * The extension of compressed files, after the format extension.
+     */
+    public static final String GZIP = ".gz";
+
+    /**
+     * The maximum time between writes to the file, in milliseconds.
+     */
+    public static final long FLUSH_INTERVAL = 1000L;
+
+    /**
+     * The size of the output buffer, in bytes.
+     */
+    private static final int CAPACITY = 1 << 20;
+
+    /**
+     * The number of tables that can be queued.
+     */
+    private static final int QUEUE = 64;
+
+    /**
+     * The size of the compression buffer, in bytes.
+     */
+    private static final int COMPRESSION_BUFFER = 1 << 16;
+
+    /**
+     * The columns of the records.
+     */
+    private final RecordTable.Schema schema;
+
+    /**
+     * The row format.
+     */
+    private final RowFormat format;
+
+    /**
+     * The file output.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * The compressed output, flushed along with the buffer, or null.
+     */
+    private final OutputStream compressed;
+
+    /**
+     * The encoded rows waiting to be written.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The records waiting to be encoded.
+     */
+    private final BlockingQueue<RecordTable> queue;
+
+    /**
+     * The marker queued when the writer is closed.
+     */
+    private final RecordTable end;
+
+    /**
+     * The first error of the background thread, or null.
+     */
+    private final AtomicReference<IOException> failure;
+
+    /**
+     * The thread encoding and writing the records.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether the writer is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Default constructor. Existing files are replaced.
+     * @param path The path to the output file
+     * @param schema The columns of the records
+     * @param format The row format
+     * @param compress Whether to compress the file with gzip
+     * @throws IOException If the file cannot be created
+     */
+    public ResultWriter(final Path path, final RecordTable.Schema schema,
+        final RowFormat format, final boolean compress) throws IOException {
+        this.schema = schema;
+        this.format = format;
+        if (compress) {
+            this.compressed = new GZIPOutputStream(
+                Files.newOutputStream(path),
+                ResultWriter.COMPRESSION_BUFFER,
+                true
+            );
+            this.channel = Channels.newChannel(this.compressed);
+        } else {
+            this.compressed = null;
+            this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            );
+        }
+        this.buffer = ByteBuffer.allocateDirect(ResultWriter.CAPACITY);
+        this.queue = new ArrayBlockingQueue<>(ResultWriter.QUEUE);
+        this.end = new RecordTable(schema, 1);
+        this.failure = new AtomicReference<>();
+        this.thread = new Thread(this::run, String.format("result-writer-%s", path));
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Opens a writer for the given file, in the binary format if the file
+     * name ends with {@value BinaryFormat#EXTENSION}, and in the CSV format
+     * otherwise. The file is compressed if its name ends with
+     * {@value #GZIP}.
+     * @param path The path to the output file
+     * @param schema The columns of the records
+     * @return A new writer
+     * @throws IOException If the file cannot be created
+     */
+    public static ResultWriter open(final Path path, final RecordTable.Schema schema)
+        throws IOException {
+        String name = path.getFileName().toString();
+        final boolean compress = name.endsWith(ResultWriter.GZIP);
+        if (compress) {
+            name = name.substring(0, name.length() - ResultWriter.GZIP.length());
+        }
+        final RowFormat format;
+        if (name.endsWith(BinaryFormat.EXTENSION)) {
+            format = new BinaryFormat();
+        } else {
+            format = new CsvFormat();
+        }
+        return new ResultWriter(path, schema, format, compress);
+    }
+
+    /**
+     * Queues records to be written. The records are copied, so the table can
+     * be reused afterwards.
+     * @param records The records, with the columns of this writer
+     * @throws IOException If a previous write failed, or if the thread was
+     *  interrupted while waiting for the queue
+     */
+    public void write(final RecordTable records) throws IOException {
+        this.check();
+        synchronized (this) {
+            if (this.closed) {
+                throw new IllegalStateException("The result writer is closed");
+            }
+        }
+        final RecordTable copy = new RecordTable(this.schema, records.size());
+        copy.append(records);
+        try {
+            this.queue.put(copy);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing records");
+        }
+    }
+
+    /**
+     * Writes the queued records and closes the file.
+     * @throws IOException If the records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        try {
+            this.queue.put(this.end);
+            this.thread.join();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the results");
+        } finally {
+            this.channel.close();
+        }
+        this.check();
+    }
+
+    /**
+     * Rethrows the error of the background thread, if any.
+     * @throws IOException If the background thread failed
+     */
+    private void check() throws IOException {
+        final IOException exception = this.failure.get();
+        if (exception != null) {
+            throw new IOException("Could not write the results", exception);
+        }
+    }
+
+    /**
+     * Encodes and writes the queued records until the writer is closed.
+     */
+    private void run() {
+        try {
+            this.format.header(this.schema, this.buffer);
+            RecordTable records = this.next();
+            while (records != this.end) {
+                if (records == null) {
+                    this.flush();
+                } else {
+                    this.encode(records);
+                }
+                records = this.next();
+            }
+            this.flush();
+        } catch (final IOException exception) {
+            this.failure.compareAndSet(null, exception);
+            this.discard();
+        }
+    }
+
+    /**
+     * Takes the next queued records, waiting up to the flush interval.
+     * @return The records, or null if the interval elapsed
+     */
+    private RecordTable next() {
+        RecordTable records;
+        try {
+            records = this.queue.poll(ResultWriter.FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            records = this.end;
+        }
+        return records;
+    }
+
+    /**
+     * Encodes records into the buffer, writing it whenever it is full.
+     * @param records The records
+     * @throws IOException If the buffer cannot be written
+     */
+    private void encode(final RecordTable records) throws IOException {
+        for (int row = 0; row < records.size(); row++) {
+            final int position = this.buffer.position();
+            try {
+                this.format.row(records, row, this.buffer);
+            } catch (final BufferOverflowException exception) {
+                this.buffer.position(position);
+                this.drain();
+                this.format.row(records, row, this.buffer);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffer to the file.
+     * @throws IOException If the buffer cannot be written
+     */
+    private void drain() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes the buffer and flushes the compressed output.
+     * @throws IOException If the buffer cannot be written
+     */
+    private void flush() throws IOException {
+        if (this.buffer.position() > 0) {
+            this.drain();
+            if (this.compressed != null) {
+                this.compressed.flush();
+            }
+        }
+    }
+
+    /**
+     * Empties the queue after a failure, so that producers do not block.
+     */
+    private void discard() {
+        RecordTable records = this.next();
+        while (records != this.end) {
+            records = this.next();
+        }
+    }
+
+}
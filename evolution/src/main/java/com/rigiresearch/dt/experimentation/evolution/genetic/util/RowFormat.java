@@ -0,0 +1,39 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic.util;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes the rows written by a {@link ResultWriter}. Encoding a row into a
+ * buffer that is too small throws a
+ * {@link java.nio.BufferOverflowException}; the writer then drains the buffer
+ * and encodes the row again, so implementations must not keep state across
+ * calls.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public interface RowFormat {
+
+    /**
+     * Encodes the header of the output.
+     * @param schema The columns of the rows
+     * @param buffer The output buffer
+     */
+    void header(RecordTable.Schema schema, ByteBuffer buffer);
+
+    /**
+     * Encodes a row.
+     * @param table The table containing the row
+     * @param row The row index
+     * @param buffer The output buffer
+     */
+    void row(RecordTable table, int row, ByteBuffer buffer);
+
+    /**
+     * The extension of the files in this format.
+     * @return A non-null extension, starting with a dot
+     */
+    String extension();
+
+}
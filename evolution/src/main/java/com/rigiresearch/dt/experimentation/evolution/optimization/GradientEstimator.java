@@ -0,0 +1,228 @@
+package com.rigiresearch.dt.experimentation.evolution.optimization;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A differentiable function whose gradient is estimated from evaluations of
+ * a {@link NoisyFunction}. All the points of a gradient estimate are
+ * evaluated in parallel and with the same seed (common random numbers), so
+ * that the noise cancels out in the differences. Each gradient estimate uses
+ * a new seed.
+ *
+ * <p>This is a building block only: neither the genetic algorithm nor the
+ * model identification use it yet. Refining the best evolved candidate, by
+ * running a {@link GradientDescent} over an {@link OptimizableFunction} of
+ * an estimator of {@link SimulationFunction#ofHeadways}, is left to the
+ * caller.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class GradientEstimator implements DifferentiableFunction, Closeable {
+
+    /**
+     * The estimated function.
+     */
+    private final NoisyFunction function;
+
+    /**
+     * The estimation method.
+     */
+    private final GradientEstimator.Method method;
+
+    /**
+     * The perturbation of each parameter.
+     */
+    private final double[] perturbation;
+
+    /**
+     * The number of simultaneous perturbations averaged per estimate.
+     */
+    private final int perturbations;
+
+    /**
+     * The executor evaluating the points in parallel.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The random number generator of simultaneous perturbations.
+     */
+    private final Random random;
+
+    /**
+     * The current seed.
+     */
+    private long seed;
+
+    /**
+     * Default constructor.
+     * @param function The estimated function
+     * @param method The estimation method
+     * @param perturbation The perturbation of each parameter
+     * @param perturbations The number of simultaneous perturbations averaged
+     *  per estimate (SPSA only)
+     * @param workers The number of evaluations running in parallel
+     * @param seed The initial seed
+     */
+    public GradientEstimator(final NoisyFunction function,
+        final GradientEstimator.Method method, final double[] perturbation,
+        final int perturbations, final int workers, final long seed) {
+        if (perturbations < 1) {
+            throw new IllegalArgumentException(
+                String.format("Expected at least one perturbation but got %d", perturbations)
+            );
+        }
+        this.function = function;
+        this.method = method;
+        this.perturbation = perturbation.clone();
+        this.perturbations = perturbations;
+        this.executor = Executors.newFixedThreadPool(workers);
+        this.random = new Random(seed);
+        this.seed = seed;
+    }
+
+    @Override
+    public double value(final double[] parameters) {
+        return this.function.value(parameters, this.seed);
+    }
+
+    @Override
+    public double[] gradient(final double[] parameters) {
+        this.seed++;
+        final double[] gradient;
+        switch (this.method) {
+            case CENTRAL:
+                gradient = this.central(parameters);
+                break;
+            case SPSA:
+                gradient = this.simultaneous(parameters);
+                break;
+            default:
+                throw new IllegalStateException(
+                    String.format("Unexpected value %s", this.method)
+                );
+        }
+        return gradient;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Estimates the gradient with central finite differences, perturbing one
+     * parameter at a time: {@code 2n} evaluations.
+     * @param parameters The parameters of the function
+     * @return The estimated gradient
+     */
+    private double[] central(final double[] parameters) {
+        final List<double[]> points = new ArrayList<>(parameters.length * 2);
+        for (int index = 0; index < parameters.length; index++) {
+            final double[] plus = parameters.clone();
+            plus[index] += this.perturbation[index];
+            final double[] minus = parameters.clone();
+            minus[index] -= this.perturbation[index];
+            points.add(plus);
+            points.add(minus);
+        }
+        final double[] values = this.evaluate(points);
+        final double[] gradient = new double[parameters.length];
+        for (int index = 0; index < parameters.length; index++) {
+            gradient[index] = (values[index * 2] - values[index * 2 + 1])
+                / (2.0 * this.perturbation[index]);
+        }
+        return gradient;
+    }
+
+    /**
+     * Estimates the gradient with simultaneous perturbations (SPSA),
+     * perturbing all parameters at once in random directions: two
+     * evaluations per perturbation, regardless of the number of parameters.
+     * @param parameters The parameters of the function
+     * @return The estimated gradient
+     */
+    private double[] simultaneous(final double[] parameters) {
+        final double[][] directions = new double[this.perturbations][parameters.length];
+        final List<double[]> points = new ArrayList<>(this.perturbations * 2);
+        for (final double[] direction : directions) {
+            final double[] plus = parameters.clone();
+            final double[] minus = parameters.clone();
+            for (int index = 0; index < parameters.length; index++) {
+                if (this.random.nextBoolean()) {
+                    direction[index] = 1.0;
+                } else {
+                    direction[index] = -1.0;
+                }
+                plus[index] += this.perturbation[index] * direction[index];
+                minus[index] -= this.perturbation[index] * direction[index];
+            }
+            points.add(plus);
+            points.add(minus);
+        }
+        final double[] values = this.evaluate(points);
+        final double[] gradient = new double[parameters.length];
+        for (int count = 0; count < this.perturbations; count++) {
+            final double difference = values[count * 2] - values[count * 2 + 1];
+            for (int index = 0; index < parameters.length; index++) {
+                gradient[index] += difference
+                    / (2.0 * this.perturbation[index] * directions[count][index])
+                    / this.perturbations;
+            }
+        }
+        return gradient;
+    }
+
+    /**
+     * Evaluates the given points in parallel, with the current seed.
+     * @param points The points
+     * @return The value of each point
+     */
+    private double[] evaluate(final List<double[]> points) {
+        final long current = this.seed;
+        final List<Callable<Double>> tasks = new ArrayList<>(points.size());
+        for (final double[] point : points) {
+            tasks.add(() -> this.function.value(point, current));
+        }
+        final double[] values = new double[points.size()];
+        try {
+            final List<Future<Double>> futures = this.executor.invokeAll(tasks);
+            for (int index = 0; index < values.length; index++) {
+                values[index] = futures.get(index).get();
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The gradient estimation was interrupted",
+                exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException("Could not evaluate a perturbed point",
+                exception.getCause());
+        }
+        return values;
+    }
+
+    /**
+     * The gradient estimation methods.
+     */
+    public enum Method {
+        /**
+         * Central finite differences.
+         */
+        CENTRAL,
+
+        /**
+         * Simultaneous perturbation stochastic approximation.
+         */
+        SPSA
+    }
+
+}
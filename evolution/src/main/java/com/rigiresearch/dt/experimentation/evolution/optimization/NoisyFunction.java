@@ -0,0 +1,22 @@
+package com.rigiresearch.dt.experimentation.evolution.optimization;
+
+/**
+ * A function whose evaluation is subject to sampling noise, such as a
+ * simulated objective. The noise is determined by a seed, so that evaluating
+ * different parameters with the same seed uses common random numbers.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@FunctionalInterface
+public interface NoisyFunction {
+
+    /**
+     * Computes f(x1, x2, ..., xn).
+     * @param parameters The parameters of this function
+     * @param seed The seed of the random number streams
+     * @return The function evaluated on the given parameters.
+     */
+    double value(double[] parameters, long seed);
+
+}
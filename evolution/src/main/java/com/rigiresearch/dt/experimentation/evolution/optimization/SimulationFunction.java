@@ -0,0 +1,146 @@
+package com.rigiresearch.dt.experimentation.evolution.optimization;
+
+import com.rigiresearch.dt.experimentation.evolution.FitnessValue;
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import com.rigiresearch.dt.experimentation.evolution.genetic.EvolvingProperties;
+import com.rigiresearch.dt.experimentation.evolution.genetic.GeneticAlgorithm;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.service.ModelCache;
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationJob;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationRunner;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * The simulated fitness, as a function of some continuous simulation
+ * parameters (e.g., the line headways). The function value is the negated
+ * fitness summed over the lines and averaged over the replications, so that
+ * minimizing it (e.g., with {@link GradientDescent}) maximizes the fitness.
+ *
+ * <p>Since it reads the graph and properties from files, it is meant for
+ * callers that have them at hand; no component of the pipeline creates it
+ * yet (see {@link GradientEstimator}).</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class SimulationFunction implements NoisyFunction {
+
+    /**
+     * The path to the input graph.
+     */
+    private final Path graph;
+
+    /**
+     * The path to the simulation properties.
+     */
+    private final Path config;
+
+    /**
+     * The configuration keys of the parameters.
+     */
+    private final List<String> parameters;
+
+    /**
+     * The number of replications per evaluation.
+     */
+    private final int replications;
+
+    /**
+     * The simulation engine.
+     */
+    private final SimulationJob.Engine engine;
+
+    /**
+     * The cached models.
+     */
+    private final ModelCache cache;
+
+    /**
+     * The runner of the simulations.
+     */
+    private final SimulationRunner runner;
+
+    /**
+     * Default constructor.
+     * @param graph The path to the input graph
+     * @param config The path to the simulation properties
+     * @param parameters The configuration keys of the parameters
+     * @param replications The number of replications per evaluation
+     * @param engine The simulation engine. Only the compiled engine derives
+     *  its random number streams from the seed
+     */
+    public SimulationFunction(final Path graph, final Path config,
+        final List<String> parameters, final int replications,
+        final SimulationJob.Engine engine) {
+        this.graph = graph;
+        this.config = config;
+        this.parameters = new ArrayList<>(parameters);
+        this.replications = replications;
+        this.engine = engine;
+        this.cache = new ModelCache();
+        this.runner = new SimulationRunner(this.cache);
+    }
+
+    /**
+     * Creates a function of the line headways, the continuous genes of the
+     * genetic algorithm.
+     * @param graph The path to the input graph
+     * @param config The path to the simulation properties
+     * @param lines The line names
+     * @param replications The number of replications per evaluation
+     * @return A non-null function
+     */
+    public static SimulationFunction ofHeadways(final Path graph, final Path config,
+        final List<String> lines, final int replications) {
+        return new SimulationFunction(
+            graph,
+            config,
+            lines.stream()
+                .map(line -> String.format("%s.%s", line, EvolvingProperties.HEADWAY.getId()))
+                .collect(Collectors.toList()),
+            replications,
+            SimulationJob.Engine.COMPILED
+        );
+    }
+
+    @Override
+    public double value(final double[] values, final long seed) {
+        final Map<String, String> overrides = new HashMap<>(values.length);
+        for (int index = 0; index < values.length; index++) {
+            overrides.put(this.parameters.get(index), Double.toString(values[index]));
+        }
+        final Configuration configuration = this.cache.config(this.config, overrides);
+        final Map<String, Line> lines = this.cache.graph(this.graph)
+            .getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .collect(Collectors.toMap(Line::getName, Function.identity()));
+        final List<ReplicationSummary> summaries = new ArrayList<>();
+        this.runner.run(
+            new SimulationJob(
+                this.graph,
+                this.config,
+                overrides,
+                this.replications,
+                GeneticAlgorithm.LENGTH_REPLICATION,
+                GeneticAlgorithm.LENGTH_WARM_UP,
+                this.engine,
+                seed
+            ),
+            summaries::add
+        );
+        final RecordTable records = new RecordTable(FitnessValue.SCHEMA, summaries.size());
+        FitnessValue.append(records, configuration, lines, summaries);
+        return -records.scan(FitnessValue.FITNESS).sum() / this.replications;
+    }
+
+}
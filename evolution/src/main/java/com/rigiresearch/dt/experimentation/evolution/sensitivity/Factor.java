@@ -0,0 +1,106 @@
+package com.rigiresearch.dt.experimentation.evolution.sensitivity;
+
+import com.rigiresearch.dt.experimentation.evolution.genetic.EvolvingProperties;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Value;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * A simulation parameter varied by the sensitivity analysis, within a range.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Value
+public class Factor {
+
+    /**
+     * Configuration key listing additional factors. Each factor is a
+     * configuration key, and its range is given by the {@code <key>.min} and
+     * {@code <key>.max} keys.
+     */
+    public static final String FACTORS = "sensitivity.factors";
+
+    /**
+     * The configuration key of the parameter.
+     */
+    String name;
+
+    /**
+     * The minimum value.
+     */
+    double min;
+
+    /**
+     * The maximum value.
+     */
+    double max;
+
+    /**
+     * Whether the parameter only takes integer values.
+     */
+    boolean discrete;
+
+    /**
+     * Finds the factors defined by the configuration. Like the encoding of the
+     * genetic algorithm, there are two factors per line: the headway, between
+     * {@code <line>.headway.min} and {@code <line>.headway.max}, and the number
+     * of buses, between one and {@code <line>.fleet}. Additional factors are
+     * listed by {@link #FACTORS}.
+     * @param config The simulation configuration
+     * @return A non-null, possibly empty list
+     */
+    public static List<Factor> from(final Configuration config) {
+        final List<Factor> factors = new ArrayList<>();
+        for (final String line : config.getList(String.class, "lines")) {
+            final String headway =
+                String.format("%s.%s", line, EvolvingProperties.HEADWAY.getId());
+            factors.add(
+                new Factor(
+                    headway,
+                    config.getDouble(String.format("%s.min", headway)),
+                    config.getDouble(String.format("%s.max", headway)),
+                    false
+                )
+            );
+            factors.add(
+                new Factor(
+                    String.format("%s.%s", line, EvolvingProperties.NUM_BUSES.getId()),
+                    1.0,
+                    config.getDouble(String.format("%s.fleet", line)),
+                    true
+                )
+            );
+        }
+        for (final String key : config.getList(String.class, Factor.FACTORS,
+            new ArrayList<>(0))) {
+            factors.add(
+                new Factor(
+                    key,
+                    config.getDouble(String.format("%s.min", key)),
+                    config.getDouble(String.format("%s.max", key)),
+                    false
+                )
+            );
+        }
+        return factors;
+    }
+
+    /**
+     * Scales a value from the unit interval to the range of this factor.
+     * @param unit A number between zero and one
+     * @return The parameter value, as a configuration value
+     */
+    public String value(final double unit) {
+        final double value = this.min + unit * (this.max - this.min);
+        final String text;
+        if (this.discrete) {
+            text = Long.toString(Math.round(value));
+        } else {
+            text = Double.toString(value);
+        }
+        return text;
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.rigiresearch.dt.experimentation.evolution.sensitivity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The elementary effects (Morris) screening method. Each group is a
+ * trajectory of {@code k + 1} points, changing one factor at a time by
+ * {@code p / (2 (p - 1))} on a grid of {@code p} levels. The indices are the
+ * mean of the absolute elementary effects ({@code mu*}), their mean
+ * ({@code mu}) and their standard deviation ({@code sigma}), in units of the
+ * factor ranges.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class MorrisMethod implements SensitivityMethod {
+
+    /**
+     * The trajectories.
+     */
+    private final double[][][] trajectories;
+
+    /**
+     * The number of elementary effects per output and factor.
+     */
+    private final long[][] counts;
+
+    /**
+     * The sum of absolute elementary effects per output and factor.
+     */
+    private final double[][] absolute;
+
+    /**
+     * The running mean of the elementary effects per output and factor.
+     */
+    private final double[][] means;
+
+    /**
+     * The running sum of squared deviations per output and factor.
+     */
+    private final double[][] deviations;
+
+    /**
+     * Default constructor.
+     * @param factors The number of factors
+     * @param outputs The number of outputs
+     * @param trajectories The number of trajectories
+     * @param levels The number of levels, an even number
+     * @param random The random number generator
+     */
+    public MorrisMethod(final int factors, final int outputs, final int trajectories,
+        final int levels, final Random random) {
+        if (levels < 2 || levels % 2 != 0) {
+            throw new IllegalArgumentException(
+                String.format("Expected an even number of levels but got %d", levels)
+            );
+        }
+        this.trajectories = new double[trajectories][][];
+        for (int index = 0; index < trajectories; index++) {
+            this.trajectories[index] = MorrisMethod.trajectory(factors, levels, random);
+        }
+        this.counts = new long[outputs][factors];
+        this.absolute = new double[outputs][factors];
+        this.means = new double[outputs][factors];
+        this.deviations = new double[outputs][factors];
+    }
+
+    @Override
+    public int groups() {
+        return this.trajectories.length;
+    }
+
+    @Override
+    public double[][] points(final int group) {
+        return this.trajectories[group];
+    }
+
+    @Override
+    public void update(final int group, final double[][] outputs) {
+        final double[][] points = this.trajectories[group];
+        for (int step = 1; step < points.length; step++) {
+            final int factor = MorrisMethod.changed(points[step - 1], points[step]);
+            final double delta = points[step][factor] - points[step - 1][factor];
+            for (int output = 0; output < this.counts.length; output++) {
+                final double effect =
+                    (outputs[step][output] - outputs[step - 1][output]) / delta;
+                final long count = ++this.counts[output][factor];
+                this.absolute[output][factor] += Math.abs(effect);
+                final double previous = this.means[output][factor];
+                this.means[output][factor] += (effect - previous) / count;
+                this.deviations[output][factor] +=
+                    (effect - previous) * (effect - this.means[output][factor]);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, double[]> indices(final int output) {
+        final int factors = this.counts[output].length;
+        final double[] star = new double[factors];
+        final double[] sigma = new double[factors];
+        for (int factor = 0; factor < factors; factor++) {
+            final long count = this.counts[output][factor];
+            star[factor] = this.absolute[output][factor] / count;
+            sigma[factor] = Math.sqrt(this.deviations[output][factor] / (count - 1L));
+        }
+        final Map<String, double[]> indices = new LinkedHashMap<>();
+        indices.put("mu*", star);
+        indices.put("mu", this.means[output].clone());
+        indices.put("sigma", sigma);
+        return indices;
+    }
+
+    /**
+     * Generates a random trajectory.
+     * @param factors The number of factors
+     * @param levels The number of levels
+     * @param random The random number generator
+     * @return An array of {@code factors + 1} points
+     */
+    private static double[][] trajectory(final int factors, final int levels,
+        final Random random) {
+        final double delta = levels / (2.0 * (levels - 1));
+        final double[][] points = new double[factors + 1][];
+        points[0] = new double[factors];
+        for (int factor = 0; factor < factors; factor++) {
+            // Only the lower half of the levels, so that adding delta stays in range
+            points[0][factor] = random.nextInt(levels / 2) / (double) (levels - 1);
+            if (random.nextBoolean()) {
+                points[0][factor] += delta;
+            }
+        }
+        final int[] order = new int[factors];
+        for (int index = 0; index < factors; index++) {
+            order[index] = index;
+        }
+        for (int index = factors - 1; index > 0; index--) {
+            final int other = random.nextInt(index + 1);
+            final int tmp = order[index];
+            order[index] = order[other];
+            order[other] = tmp;
+        }
+        for (int step = 0; step < factors; step++) {
+            final int factor = order[step];
+            points[step + 1] = points[step].clone();
+            if (points[step][factor] + delta <= 1.0 + 1e-12) {
+                points[step + 1][factor] += delta;
+            } else {
+                points[step + 1][factor] -= delta;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Finds the factor that changes between two consecutive points.
+     * @param previous The previous point
+     * @param next The next point
+     * @return The factor index
+     */
+    private static int changed(final double[] previous, final double[] next) {
+        int factor = 0;
+        while (previous[factor] == next[factor]) {
+            factor++;
+        }
+        return factor;
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.rigiresearch.dt.experimentation.evolution.sensitivity;
+
+import com.rigiresearch.dt.experimentation.evolution.genetic.GeneticAlgorithm;
+import com.rigiresearch.dt.experimentation.simulation.service.ModelCache;
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationJob;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationRunner;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.Value;
+import org.apache.commons.configuration2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Analyzes the sensitivity of the average excess waiting time ({@code ewt})
+ * and headway coefficient of variation ({@code hcv}) to the
+ * {@link Factor factors} defined by the simulation configuration.
+ *
+ * <p>The design points are simulated in parallel, each one with the same
+ * replications and seed, so that differences between points are not masked by
+ * sampling noise (common random numbers). Only the compiled engine derives its
+ * random number streams from the seed, so it is the default engine. The
+ * indices are updated as soon as each group of the design is evaluated.</p>
+ *
+ * <p>The analysis is configured with the following keys, in the simulation
+ * configuration: {@code sensitivity.method} ({@code morris} or
+ * {@code sobol}), {@code sensitivity.samples} (the number of trajectories or
+ * base samples), {@code sensitivity.levels} (Morris only),
+ * {@code sensitivity.replications}, {@code sensitivity.engine},
+ * {@code sensitivity.seed} and {@code sensitivity.workers}.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class SensitivityAnalysis {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(SensitivityAnalysis.class);
+
+    /**
+     * The names of the analyzed outputs.
+     */
+    public static final List<String> OUTPUTS =
+        Collections.unmodifiableList(Arrays.asList("ewt", "hcv"));
+
+    /**
+     * The prefix of the configuration keys.
+     */
+    private static final String PREFIX = "sensitivity.";
+
+    /**
+     * The path to the input graph.
+     */
+    private final Path graph;
+
+    /**
+     * The path to the simulation properties.
+     */
+    private final Path config;
+
+    /**
+     * The analyzed factors.
+     */
+    private final List<Factor> factors;
+
+    /**
+     * The sensitivity analysis method.
+     */
+    private final SensitivityMethod method;
+
+    /**
+     * The runner of the simulations.
+     */
+    private final SimulationRunner runner;
+
+    /**
+     * The number of replications per design point.
+     */
+    private final int replications;
+
+    /**
+     * The simulation engine.
+     */
+    private final SimulationJob.Engine engine;
+
+    /**
+     * The seed shared by all design points.
+     */
+    private final long seed;
+
+    /**
+     * The number of simulations running in parallel.
+     */
+    private final int workers;
+
+    /**
+     * Default constructor.
+     * @param graph The path to the input graph
+     * @param config The path to the simulation properties
+     */
+    public SensitivityAnalysis(final Path graph, final Path config) {
+        final ModelCache cache = new ModelCache();
+        final Configuration configuration = cache.config(config, Collections.emptyMap());
+        this.graph = graph;
+        this.config = config;
+        this.factors = Factor.from(configuration);
+        this.runner = new SimulationRunner(cache);
+        this.replications = configuration.getInt(SensitivityAnalysis.PREFIX + "replications", 3);
+        this.engine = SimulationJob.Engine.from(
+            configuration.getString(SensitivityAnalysis.PREFIX + "engine", "compiled")
+        );
+        this.seed = configuration.getLong(SensitivityAnalysis.PREFIX + "seed", 0L);
+        this.workers = configuration.getInt(
+            SensitivityAnalysis.PREFIX + "workers",
+            Runtime.getRuntime().availableProcessors()
+        );
+        this.method = SensitivityAnalysis.method(configuration, this.factors.size());
+    }
+
+    /**
+     * Runs the analysis.
+     * @param progress A consumer receiving the indices each time a group of
+     *  the design is evaluated
+     * @return The final indices
+     */
+    public SensitivityReport run(final Consumer<SensitivityReport> progress) {
+        final ExecutorService executor = Executors.newFixedThreadPool(this.workers);
+        final CompletionService<SensitivityAnalysis.Evaluation> service =
+            new ExecutorCompletionService<>(executor);
+        final int groups = this.method.groups();
+        final double[][][] outputs = new double[groups][][];
+        final int[] remaining = new int[groups];
+        int tasks = 0;
+        for (int group = 0; group < groups; group++) {
+            final double[][] points = this.method.points(group);
+            outputs[group] = new double[points.length][];
+            remaining[group] = points.length;
+            for (int point = 0; point < points.length; point++) {
+                final int g = group;
+                final int p = point;
+                service.submit(
+                    () -> new SensitivityAnalysis.Evaluation(g, p, this.evaluate(points[p]))
+                );
+                tasks++;
+            }
+        }
+        int completed = 0;
+        SensitivityReport report = null;
+        try {
+            for (int task = 0; task < tasks; task++) {
+                final SensitivityAnalysis.Evaluation evaluation = service.take().get();
+                final int group = evaluation.getGroup();
+                outputs[group][evaluation.getPoint()] = evaluation.getOutputs();
+                remaining[group]--;
+                if (remaining[group] == 0) {
+                    this.method.update(group, outputs[group]);
+                    outputs[group] = null;
+                    completed++;
+                    report = this.report(completed);
+                    progress.accept(report);
+                    SensitivityAnalysis.LOGGER.debug(
+                        "Evaluated {} of {} groups", completed, groups);
+                }
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The sensitivity analysis was interrupted",
+                exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException("Could not evaluate a design point",
+                exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    /**
+     * Simulates a design point.
+     * @param point The point, in the unit hypercube
+     * @return The value of each output
+     */
+    private double[] evaluate(final double[] point) {
+        final Map<String, String> overrides = new HashMap<>(this.factors.size());
+        for (int index = 0; index < point.length; index++) {
+            final Factor factor = this.factors.get(index);
+            overrides.put(factor.getName(), factor.value(point[index]));
+        }
+        final List<ReplicationSummary> summaries = new ArrayList<>();
+        this.runner.run(
+            new SimulationJob(
+                this.graph,
+                this.config,
+                overrides,
+                this.replications,
+                GeneticAlgorithm.LENGTH_REPLICATION,
+                GeneticAlgorithm.LENGTH_WARM_UP,
+                this.engine,
+                this.seed
+            ),
+            summaries::add
+        );
+        return new double[] {
+            summaries.stream().mapToDouble(ReplicationSummary::getEwtAverage).average()
+                .orElse(Double.NaN),
+            summaries.stream().mapToDouble(ReplicationSummary::getHcv).average()
+                .orElse(Double.NaN),
+        };
+    }
+
+    /**
+     * Creates a report of the current indices.
+     * @param groups The number of evaluated groups
+     * @return A non-null report
+     */
+    private SensitivityReport report(final int groups) {
+        final List<Map<String, double[]>> indices =
+            new ArrayList<>(SensitivityAnalysis.OUTPUTS.size());
+        for (int output = 0; output < SensitivityAnalysis.OUTPUTS.size(); output++) {
+            indices.add(this.method.indices(output));
+        }
+        return new SensitivityReport(
+            this.factors.stream().map(Factor::getName).collect(Collectors.toList()),
+            SensitivityAnalysis.OUTPUTS,
+            groups,
+            indices
+        );
+    }
+
+    /**
+     * Creates the configured sensitivity analysis method.
+     * @param config The simulation configuration
+     * @param factors The number of factors
+     * @return A non-null method
+     */
+    private static SensitivityMethod method(final Configuration config, final int factors) {
+        final String name = config.getString(SensitivityAnalysis.PREFIX + "method", "morris");
+        final int samples = config.getInt(SensitivityAnalysis.PREFIX + "samples", 20);
+        final Random random =
+            new Random(config.getLong(SensitivityAnalysis.PREFIX + "seed", 0L));
+        final SensitivityMethod method;
+        switch (name) {
+            case "morris":
+                method = new MorrisMethod(
+                    factors,
+                    SensitivityAnalysis.OUTPUTS.size(),
+                    samples,
+                    config.getInt(SensitivityAnalysis.PREFIX + "levels", 4),
+                    random
+                );
+                break;
+            case "sobol":
+                method = new SobolMethod(
+                    factors,
+                    SensitivityAnalysis.OUTPUTS.size(),
+                    samples,
+                    random
+                );
+                break;
+            default:
+                throw new IllegalArgumentException(
+                    String.format("Unknown sensitivity analysis method %s", name)
+                );
+        }
+        return method;
+    }
+
+    /**
+     * The outputs of a design point.
+     */
+    @Value
+    private static class Evaluation {
+
+        /**
+         * The group index.
+         */
+        int group;
+
+        /**
+         * The point index within the group.
+         */
+        int point;
+
+        /**
+         * The value of each output.
+         */
+        double[] outputs;
+
+    }
+
+}
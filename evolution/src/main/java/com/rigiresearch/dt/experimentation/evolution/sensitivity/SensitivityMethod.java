@@ -0,0 +1,44 @@
+package com.rigiresearch.dt.experimentation.evolution.sensitivity;
+
+import java.util.Map;
+
+/**
+ * A global sensitivity analysis method. The method defines a design of points
+ * in the unit hypercube, organized in groups, and updates its indices as soon
+ * as the outputs of all the points in a group are known. Groups can be
+ * evaluated in any order.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public interface SensitivityMethod {
+
+    /**
+     * The number of groups of the design.
+     * @return A positive number
+     */
+    int groups();
+
+    /**
+     * The points of a group.
+     * @param group The group index
+     * @return An array of points, each one with a coordinate per factor
+     */
+    double[][] points(int group);
+
+    /**
+     * Updates the indices with the outputs of a group.
+     * @param group The group index
+     * @param outputs The outputs of each point of the group, indexed by point
+     *  and output
+     */
+    void update(int group, double[][] outputs);
+
+    /**
+     * The current indices of an output.
+     * @param output The output index
+     * @return The value of each index per factor, by index name
+     */
+    Map<String, double[]> indices(int output);
+
+}
@@ -0,0 +1,75 @@
+package com.rigiresearch.dt.experimentation.evolution.sensitivity;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * The sensitivity indices computed so far.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Value
+public class SensitivityReport {
+
+    /**
+     * The factor names.
+     */
+    List<String> factors;
+
+    /**
+     * The output names.
+     */
+    List<String> outputs;
+
+    /**
+     * The number of evaluated groups.
+     */
+    int groups;
+
+    /**
+     * The indices of each output, in the same order as the output names.
+     */
+    List<Map<String, double[]>> indices;
+
+    /**
+     * The value of an index.
+     * @param output The output name
+     * @param index The index name
+     * @param factor The factor name
+     * @return The index value
+     */
+    public double index(final String output, final String index, final String factor) {
+        final double[] values = this.indices.get(this.outputs.indexOf(output)).get(index);
+        if (values == null) {
+            throw new IllegalArgumentException(String.format("Unknown index %s", index));
+        }
+        return values[this.factors.indexOf(factor)];
+    }
+
+    /**
+     * The indices as tab-separated values, with a row per output and factor.
+     * @return A non-null string
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("output\tfactor");
+        this.indices.get(0).keySet().forEach(name -> builder.append('\t').append(name));
+        builder.append('\n');
+        for (int output = 0; output < this.outputs.size(); output++) {
+            for (int factor = 0; factor < this.factors.size(); factor++) {
+                builder.append(this.outputs.get(output))
+                    .append('\t')
+                    .append(this.factors.get(factor));
+                for (final double[] values : this.indices.get(output).values()) {
+                    builder.append('\t').append(values[factor]);
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+}
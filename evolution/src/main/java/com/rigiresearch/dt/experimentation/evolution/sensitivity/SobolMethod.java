@@ -0,0 +1,143 @@
+package com.rigiresearch.dt.experimentation.evolution.sensitivity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Variance-based (Sobol) indices estimated with the Saltelli design. Each
+ * group is a row {@code j} of two independent sample matrices {@code A} and
+ * {@code B}, followed by the rows of {@code A} with column {@code i} taken
+ * from {@code B}, for each factor {@code i}: {@code k + 2} points. First-order
+ * indices ({@code S1}) use the Saltelli (2010) estimator and total-order
+ * indices ({@code ST}) use the Jansen estimator.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class SobolMethod implements SensitivityMethod {
+
+    /**
+     * The rows of the design.
+     */
+    private final double[][][] rows;
+
+    /**
+     * The number of evaluated rows.
+     */
+    private long count;
+
+    /**
+     * The running mean of the outputs of A and B, per output.
+     */
+    private final double[] means;
+
+    /**
+     * The running sum of squared deviations of the outputs of A and B, per
+     * output.
+     */
+    private final double[] deviations;
+
+    /**
+     * The sums of the first-order numerators per output and factor.
+     */
+    private final double[][] first;
+
+    /**
+     * The sums of the total-order numerators per output and factor.
+     */
+    private final double[][] total;
+
+    /**
+     * Default constructor.
+     * @param factors The number of factors
+     * @param outputs The number of outputs
+     * @param samples The number of rows of each sample matrix
+     * @param random The random number generator
+     */
+    public SobolMethod(final int factors, final int outputs, final int samples,
+        final Random random) {
+        this.rows = new double[samples][factors + 2][];
+        for (final double[][] row : this.rows) {
+            row[0] = SobolMethod.sample(factors, random);
+            row[1] = SobolMethod.sample(factors, random);
+            for (int factor = 0; factor < factors; factor++) {
+                row[factor + 2] = row[0].clone();
+                row[factor + 2][factor] = row[1][factor];
+            }
+        }
+        this.means = new double[outputs];
+        this.deviations = new double[outputs];
+        this.first = new double[outputs][factors];
+        this.total = new double[outputs][factors];
+    }
+
+    @Override
+    public int groups() {
+        return this.rows.length;
+    }
+
+    @Override
+    public double[][] points(final int group) {
+        return this.rows[group];
+    }
+
+    @Override
+    public void update(final int group, final double[][] outputs) {
+        this.count++;
+        for (int output = 0; output < this.means.length; output++) {
+            final double a = outputs[0][output];
+            final double b = outputs[1][output];
+            this.variance(output, a, 2L * this.count - 1L);
+            this.variance(output, b, 2L * this.count);
+            for (int factor = 0; factor < this.first[output].length; factor++) {
+                final double ab = outputs[factor + 2][output];
+                this.first[output][factor] += b * (ab - a);
+                this.total[output][factor] += (a - ab) * (a - ab) / 2.0;
+            }
+        }
+    }
+
+    @Override
+    public Map<String, double[]> indices(final int output) {
+        final double variance = this.deviations[output] / (2.0 * this.count - 1.0);
+        final int factors = this.first[output].length;
+        final double[] s1 = new double[factors];
+        final double[] st = new double[factors];
+        for (int factor = 0; factor < factors; factor++) {
+            s1[factor] = this.first[output][factor] / this.count / variance;
+            st[factor] = this.total[output][factor] / this.count / variance;
+        }
+        final Map<String, double[]> indices = new LinkedHashMap<>();
+        indices.put("S1", s1);
+        indices.put("ST", st);
+        return indices;
+    }
+
+    /**
+     * Updates the running variance of an output.
+     * @param output The output index
+     * @param value The output value
+     * @param samples The number of values, including this one
+     */
+    private void variance(final int output, final double value, final long samples) {
+        final double previous = this.means[output];
+        this.means[output] += (value - previous) / samples;
+        this.deviations[output] += (value - previous) * (value - this.means[output]);
+    }
+
+    /**
+     * Samples a point uniformly from the unit hypercube.
+     * @param factors The number of factors
+     * @param random The random number generator
+     * @return A new point
+     */
+    private static double[] sample(final int factors, final Random random) {
+        final double[] point = new double[factors];
+        for (int factor = 0; factor < factors; factor++) {
+            point[factor] = random.nextDouble();
+        }
+        return point;
+    }
+
+}
@@ -0,0 +1,6 @@
+/**
+ * Contains classes to analyze the sensitivity of the simulation metrics to
+ * the simulation parameters.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.evolution.sensitivity;
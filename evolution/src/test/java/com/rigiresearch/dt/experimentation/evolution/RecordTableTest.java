@@ -0,0 +1,123 @@
+package com.rigiresearch.dt.experimentation.evolution;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link RecordTable}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class RecordTableTest {
+
+    /**
+     * The columns of the test records.
+     */
+    private static final RecordTable.Schema SCHEMA = new RecordTable.Schema();
+
+    /**
+     * The line name.
+     */
+    private static final RecordTable.Column LINE = RecordTableTest.SCHEMA.strings("line");
+
+    /**
+     * The fitness value.
+     */
+    private static final RecordTable.Column FITNESS = RecordTableTest.SCHEMA.doubles("fitness");
+
+    /**
+     * The replica.
+     */
+    private static final RecordTable.Column REPLICA = RecordTableTest.SCHEMA.ints("replica");
+
+    /**
+     * The seed.
+     */
+    private static final RecordTable.Column SEED = RecordTableTest.SCHEMA.longs("seed");
+
+    @Test
+    void testItGroupsByLine() {
+        final RecordTable table = RecordTableTest.table(100);
+        Assertions.assertEquals(100, table.size());
+        final Map<String, DoubleSummaryStatistics> groups =
+            table.groupBy(RecordTableTest.LINE, RecordTableTest.FITNESS);
+        Assertions.assertArrayEquals(new Object[] {"T31s", "T32n"}, groups.keySet().toArray());
+        Assertions.assertEquals(50L, groups.get("T31s").getCount());
+        Assertions.assertEquals(0.98, groups.get("T31s").getMax(), 1e-9);
+        Assertions.assertEquals(0.99, groups.get("T32n").getMax(), 1e-9);
+        Assertions.assertEquals(4950.0, table.scan(RecordTableTest.REPLICA).sum(), 1e-9);
+    }
+
+    @Test
+    void testItWritesCsvInColumnOrder() {
+        final StringWriter writer = new StringWriter();
+        RecordTableTest.table(2).writeCsv(writer, true);
+        Assertions.assertEquals(
+            String.format("line,fitness,replica,seed%nT31s,0.0,0,7%nT32n,0.01,1,8%n"),
+            writer.toString()
+        );
+    }
+
+    @Test
+    void testItRoundTrips() throws IOException {
+        final RecordTable table = RecordTableTest.table(40);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.write(new DataOutputStream(bytes));
+        final RecordTable copy = RecordTable.read(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+            RecordTableTest.SCHEMA
+        );
+        Assertions.assertEquals(40, copy.size());
+        for (int row = 0; row < table.size(); row++) {
+            Assertions.assertEquals(table.asCsv(row), copy.asCsv(row));
+        }
+    }
+
+    @Test
+    void testItRejectsColumnsOfOtherSchemas() {
+        final RecordTable table = RecordTableTest.table(1);
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> table.getDouble(0, FitnessValue.FITNESS)
+        );
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> table.getInt(0, RecordTableTest.FITNESS)
+        );
+        Assertions.assertThrows(
+            IndexOutOfBoundsException.class,
+            () -> table.getDouble(1, RecordTableTest.FITNESS)
+        );
+    }
+
+    /**
+     * Creates a table alternating between two lines.
+     * @param rows The number of rows
+     * @return A new table
+     */
+    private static RecordTable table(final int rows) {
+        final RecordTable table = new RecordTable(RecordTableTest.SCHEMA);
+        for (int index = 0; index < rows; index++) {
+            final int row = table.append();
+            if (index % 2 == 0) {
+                table.set(row, RecordTableTest.LINE, "T31s");
+            } else {
+                table.set(row, RecordTableTest.LINE, "T32n");
+            }
+            table.set(row, RecordTableTest.FITNESS, index / 100.0);
+            table.set(row, RecordTableTest.REPLICA, index);
+            table.set(row, RecordTableTest.SEED, index + 7L);
+        }
+        return table;
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.rigiresearch.dt.experimentation.evolution.distributed;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.GraphParser;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link WorkerPool} with in-process workers that follow the
+ * {@link EvaluationProtocol} without simulating.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class WorkerPoolTest {
+
+    @Test
+    void testItSendsTheSetupAndGenes() throws IOException, JAXBException {
+        try (WorkerPool pool = WorkerPoolTest.pool()) {
+            WorkerPoolTest.start(pool, WorkerPoolTest.Failure.NONE);
+            final List<ReplicationSummary> summaries = pool.evaluate(420.0, 12.0);
+            Assertions.assertEquals(1, summaries.size());
+            Assertions.assertEquals("T31s", summaries.get(0).getLine());
+            Assertions.assertEquals(420.0, summaries.get(0).getHeadway(), 1e-9);
+            Assertions.assertEquals(12.0, summaries.get(0).getWaiting(), 1e-9);
+        }
+    }
+
+    @Test
+    void testItRunsARangeOfReplications() throws IOException, JAXBException {
+        try (WorkerPool pool = WorkerPoolTest.pool()) {
+            WorkerPoolTest.start(pool, WorkerPoolTest.Failure.NONE);
+            final List<ReplicationSummary> summaries = pool.evaluate(3, 2, 420.0, 12.0);
+            Assertions.assertEquals(2, summaries.size());
+            Assertions.assertEquals(3, summaries.get(0).getReplica());
+            Assertions.assertEquals(4, summaries.get(1).getReplica());
+        }
+    }
+
+    @Test
+    void testItRetriesWhenAWorkerCrashes() throws IOException, JAXBException {
+        try (WorkerPool pool = WorkerPoolTest.pool()) {
+            WorkerPoolTest.start(pool, WorkerPoolTest.Failure.CRASH);
+            final Thread healthy = WorkerPoolTest.start(pool, WorkerPoolTest.Failure.NONE);
+            Assertions.assertEquals(
+                300.0,
+                pool.evaluate(300.0, 5.0).get(0).getHeadway(),
+                1e-9
+            );
+            Assertions.assertTrue(healthy.isAlive());
+        }
+    }
+
+    @Test
+    void testItRetriesWhenAWorkerHangs() throws IOException, JAXBException {
+        try (WorkerPool pool = WorkerPoolTest.pool(200)) {
+            WorkerPoolTest.start(pool, WorkerPoolTest.Failure.HANG);
+            final Thread healthy = WorkerPoolTest.start(pool, WorkerPoolTest.Failure.NONE);
+            Assertions.assertEquals(
+                300.0,
+                pool.evaluate(300.0, 5.0).get(0).getHeadway(),
+                1e-9
+            );
+            Assertions.assertTrue(healthy.isAlive());
+        }
+    }
+
+    /**
+     * Creates a pool without local workers, with the default timeout.
+     * @return A new pool
+     * @throws IOException If the pool cannot listen
+     * @throws JAXBException If the graph cannot be loaded
+     */
+    private static WorkerPool pool() throws IOException, JAXBException {
+        return WorkerPoolTest.pool(WorkerPool.TIMEOUT);
+    }
+
+    /**
+     * Creates a pool without local workers.
+     * @param timeout The time, in milliseconds, a worker may take to answer
+     * @return A new pool
+     * @throws IOException If the pool cannot listen
+     * @throws JAXBException If the graph cannot be loaded
+     */
+    private static WorkerPool pool(final int timeout) throws IOException, JAXBException {
+        final Graph<Node> graph = new GraphParser()
+            .withBindings("bindings.xml")
+            .instance(
+                Objects.requireNonNull(
+                    Thread.currentThread()
+                        .getContextClassLoader()
+                        .getResourceAsStream("stations-graph.xml")
+                )
+            );
+        final PropertiesConfiguration config = new PropertiesConfiguration();
+        config.setListDelimiterHandler(new DefaultListDelimiterHandler(','));
+        config.addProperty("lines", "T31s,T32");
+        return new WorkerPool(
+            graph,
+            config,
+            1,
+            100.0,
+            10.0,
+            0,
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            timeout
+        );
+    }
+
+    /**
+     * Starts an in-process worker that answers each request with a summary
+     * whose headway and waiting time are the genes of the first line.
+     * @param pool The pool to connect to
+     * @param failure How the worker fails upon its first request
+     * @return The worker thread
+     */
+    private static Thread start(final WorkerPool pool, final WorkerPoolTest.Failure failure) {
+        final Thread thread = new Thread(() -> {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), pool.port())) {
+                final DataInputStream input =
+                    new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                final DataOutputStream output =
+                    new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                final EvaluationProtocol.Setup setup = EvaluationProtocol.readSetup(input);
+                final Configuration config = setup.config;
+                if (setup.graph.isEmpty() || config.getList("lines").size() != 2) {
+                    EvaluationProtocol.writeFailure(output, "Unexpected setup");
+                    return;
+                }
+                output.writeInt(EvaluationProtocol.READY);
+                output.flush();
+                while (true) {
+                    final EvaluationProtocol.Request request =
+                        EvaluationProtocol.readRequest(input);
+                    if (failure == WorkerPoolTest.Failure.CRASH) {
+                        return;
+                    }
+                    if (failure == WorkerPoolTest.Failure.HANG) {
+                        // Blocks until the pool gives up and closes the connection
+                        input.read();
+                        return;
+                    }
+                    final List<ReplicationSummary> summaries = new ArrayList<>(request.count);
+                    for (int replica = 0; replica < request.count; replica++) {
+                        summaries.add(
+                            new ReplicationSummary(
+                                request.first + replica,
+                                "T31s",
+                                request.genes[1],
+                                request.genes[0],
+                                0.0,
+                                0.0,
+                                0.0
+                            )
+                        );
+                    }
+                    EvaluationProtocol.writeResponse(output, summaries);
+                }
+            } catch (final IOException exception) {
+                // The pool closed the connection
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * How an in-process worker fails.
+     */
+    private enum Failure {
+        /**
+         * It answers every request.
+         */
+        NONE,
+
+        /**
+         * It disconnects upon its first request.
+         */
+        CRASH,
+
+        /**
+         * It never answers its first request.
+         */
+        HANG
+    }
+
+}
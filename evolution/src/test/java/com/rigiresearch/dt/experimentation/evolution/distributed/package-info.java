@@ -0,0 +1,5 @@
+/**
+ * Contains tests for the analogous Java package.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.evolution.distributed;
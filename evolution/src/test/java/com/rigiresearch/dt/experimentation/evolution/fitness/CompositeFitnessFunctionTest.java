@@ -1,5 +1,7 @@
 package com.rigiresearch.dt.experimentation.evolution.fitness;
 
+import java.util.Arrays;
+import java.util.Collections;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -93,6 +95,58 @@ class CompositeFitnessFunctionTest {
         System.out.println(value);
     }
 
+    @Test
+    void testCompiledFunction() {
+        final CompositeFitnessFunction function = new CompositeFitnessFunction()
+            .withFunction(new CubicFitnessFunction(0.0, 25.0, 50.0, "x"), 0.4)
+            .withFunction(new NormalizedFitnessFunction(0.0, 30.0, "y"), 0.3)
+            .withFunction(new LinearFitnessFunction(0.0, "z"), 0.3);
+        final FitnessFunction.Evaluator evaluator =
+            function.compile(Arrays.asList("z", "x", "y"));
+        final double[][] values = {
+            {1.0, 0.0, 0.0},
+            {2.0, 12.5, 10.0},
+            {0.5, 25.0, 15.0},
+            {3.0, 40.0, 30.0},
+            {1.0, 60.0, 40.0},
+        };
+        final double[] results = evaluator.evaluate(values);
+        for (int index = 0; index < values.length; index++) {
+            final double expected = function.evaluate(
+                new FitnessFunction.NamedArgument("x", values[index][1]),
+                new FitnessFunction.NamedArgument("y", values[index][2]),
+                new FitnessFunction.NamedArgument("z", values[index][0])
+            );
+            Assertions.assertEquals(
+                expected,
+                evaluator.evaluate(values[index]),
+                CompositeFitnessFunctionTest.EPSILON
+            );
+            Assertions.assertEquals(
+                expected,
+                results[index],
+                CompositeFitnessFunctionTest.EPSILON
+            );
+        }
+    }
+
+    @Test
+    void testCompiledFunctionWithoutAnArgument() {
+        final CompositeFitnessFunction function = new CompositeFitnessFunction()
+            .withFunction(new CubicFitnessFunction(0.0, 25.0, 50.0, "x"), 0.4)
+            .withFunction(new NormalizedFitnessFunction(0.0, 30.0, "y"), 0.6);
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> function.compile(Collections.singletonList("x"))
+        );
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new CompositeFitnessFunction()
+                .withFunction(new CubicFitnessFunction(0.0, 25.0, 50.0, "x"), 0.4)
+                .compile()
+        );
+    }
+
     @Test
     void testWithWrongWeights() {
         Assertions.assertThrows(IllegalStateException.class, () ->
@@ -0,0 +1,86 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link Checkpoint} and {@link CheckpointWriter}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class CheckpointTest {
+
+    @Test
+    void testItRoundTrips() throws IOException {
+        final Path path = Files.createTempDirectory("checkpoint").resolve("ga.bin");
+        final RecordTable frecords = new RecordTable(GeneticAlgorithm.GENERATIONS);
+        final int row = frecords.append();
+        frecords.set(row, GeneticAlgorithm.GENERATION, 3);
+        frecords.set(row, GeneticAlgorithm.BEST_FITNESS, 0.5);
+        new Checkpoint(
+            3,
+            4L,
+            40,
+            Arrays.asList(new double[] {420.0, 12.0}, new double[] {300.0, 8.0}),
+            new double[] {0.5, 0.75},
+            new long[] {1L, 3L},
+            128L,
+            frecords
+        ).write(path);
+        final Checkpoint checkpoint = Checkpoint.read(path);
+        Assertions.assertEquals(3, checkpoint.getGeneration());
+        Assertions.assertEquals(4L, checkpoint.getStart());
+        Assertions.assertEquals(40, checkpoint.getExecutions());
+        Assertions.assertEquals(2, checkpoint.getGenes().size());
+        Assertions.assertArrayEquals(
+            new double[] {300.0, 8.0}, checkpoint.getGenes().get(1), 1e-9);
+        Assertions.assertArrayEquals(new double[] {0.5, 0.75}, checkpoint.getFitness(), 1e-9);
+        Assertions.assertArrayEquals(new long[] {1L, 3L}, checkpoint.getBirths());
+        Assertions.assertEquals(128L, checkpoint.getRecords());
+        Assertions.assertEquals(1, checkpoint.getFrecords().size());
+        Assertions.assertEquals(
+            3, checkpoint.getFrecords().getInt(0, GeneticAlgorithm.GENERATION));
+        Assertions.assertEquals(
+            0.5, checkpoint.getFrecords().getDouble(0, GeneticAlgorithm.BEST_FITNESS), 1e-9);
+    }
+
+    @Test
+    void testItRejectsOtherFiles() throws IOException {
+        final Path path = Files.createTempFile("checkpoint", ".bin");
+        try (OutputStream output = Files.newOutputStream(path)) {
+            output.write(new byte[] {1, 2, 3, 4});
+        }
+        Assertions.assertThrows(IOException.class, () -> Checkpoint.read(path));
+    }
+
+    @Test
+    void testItWritesTheLatestCheckpoint() throws IOException {
+        final Path path = Files.createTempDirectory("checkpoint").resolve("ga.bin");
+        try (CheckpointWriter writer = new CheckpointWriter(path)) {
+            for (int generation = 1; generation <= 5; generation++) {
+                writer.save(
+                    new Checkpoint(
+                        generation,
+                        generation + 1L,
+                        generation * 10,
+                        Collections.emptyList(),
+                        new double[0],
+                        new long[0],
+                        0L,
+                        new RecordTable(GeneticAlgorithm.GENERATIONS)
+                    )
+                );
+            }
+        }
+        Assertions.assertEquals(5, Checkpoint.read(path).getGeneration());
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import io.jenetics.DoubleChromosome;
+import io.jenetics.DoubleGene;
+import io.jenetics.Genotype;
+import io.jenetics.Mutator;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.util.ISeq;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link Coevolution}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class CoevolutionTest {
+
+    @Test
+    void testItFindsTheMaximumOfASeparableFunction() {
+        final Coevolution coevolution = new Coevolution(
+            CoevolutionTest.encoding(),
+            Arrays.asList(new int[] {0}, new int[] {1, 2}),
+            CoevolutionTest.fitness(),
+            CoevolutionTest::builder
+        );
+        final AtomicInteger generations = new AtomicInteger();
+        final ISeq<EvolutionResult<DoubleGene, Double>> results =
+            coevolution.evolve(20L, result -> generations.incrementAndGet(), 5);
+        Assertions.assertEquals(20, generations.get());
+        Assertions.assertFalse(results.isEmpty());
+        for (int index = 1; index < results.size(); index++) {
+            Assertions.assertTrue(
+                results.get(index - 1).bestFitness() < results.get(index).bestFitness()
+            );
+        }
+        final Genotype<DoubleGene> best =
+            results.get(results.size() - 1).bestPhenotype().genotype();
+        Assertions.assertEquals(3, best.length());
+        Assertions.assertEquals(
+            0.0,
+            results.get(results.size() - 1).bestFitness(),
+            1.0,
+            "Expected the best candidate to be close to the maximum"
+        );
+    }
+
+    @Test
+    void testItRejectsOverlappingSpecies() {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new Coevolution(
+                CoevolutionTest.encoding(),
+                Arrays.asList(new int[] {0, 1}, new int[] {1, 2}),
+                CoevolutionTest.fitness(),
+                CoevolutionTest::builder
+            )
+        );
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new Coevolution(
+                CoevolutionTest.encoding(),
+                Arrays.asList(new int[] {0}, new int[] {1}),
+                CoevolutionTest.fitness(),
+                CoevolutionTest::builder
+            )
+        );
+    }
+
+    /**
+     * An encoding of three genes in {@code [0, 10]}.
+     * @return A new encoding
+     */
+    private static Genotype<DoubleGene> encoding() {
+        return Genotype.of(
+            DoubleChromosome.of(0.0, 10.0),
+            DoubleChromosome.of(0.0, 10.0),
+            DoubleChromosome.of(0.0, 10.0)
+        );
+    }
+
+    /**
+     * A function with its maximum at {@code (2, 5, 8)}.
+     * @return A new function
+     */
+    private static Function<Genotype<DoubleGene>, Double> fitness() {
+        final double[] target = {2.0, 5.0, 8.0};
+        return genotype -> {
+            double value = 0.0;
+            for (int index = 0; index < target.length; index++) {
+                final double gene = genotype.get(index).gene().doubleValue();
+                value -= (gene - target[index]) * (gene - target[index]);
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Creates the builder of a species.
+     * @param fitness The species' fitness function
+     * @param encoding The species' encoding
+     * @return A new builder
+     */
+    private static Engine.Builder<DoubleGene, Double> builder(
+        final Function<Genotype<DoubleGene>, Double> fitness,
+        final Genotype<DoubleGene> encoding) {
+        return Engine.builder(fitness, encoding)
+            .populationSize(20)
+            .maximizing()
+            .alterers(new Mutator<>(0.3))
+            .executor(Runnable::run);
+    }
+
+}
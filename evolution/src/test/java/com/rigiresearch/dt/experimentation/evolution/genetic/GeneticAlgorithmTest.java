@@ -1,6 +1,8 @@
 package com.rigiresearch.dt.experimentation.evolution.genetic;
 
-import com.rigiresearch.dt.experimentation.evolution.genetic.util.CSVUtil;
+import com.rigiresearch.dt.experimentation.evolution.FitnessValue;
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import com.rigiresearch.dt.experimentation.evolution.genetic.util.ResultWriter;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import com.rigiresearch.dt.experimentation.simulation.graph.Station;
 import com.rigiresearch.middleware.graph.Graph;
@@ -19,6 +21,7 @@ import org.junit.jupiter.api.Test;
 
 import javax.xml.bind.JAXBException;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -121,8 +124,16 @@ public class GeneticAlgorithmTest {
         System.out.println(results.getResults());
         System.out.println(results.getStatistics());
 
-        CSVUtil.writeCSV("sim-results.csv",results.getRecords());
-        CSVUtil.writeCSV("fitness-results.csv",results.getFrecords());
+        try (ResultWriter writer =
+            ResultWriter.open(Paths.get("sim-results.csv"), FitnessValue.SCHEMA)) {
+            for (final RecordTable records : results.getRecords()) {
+                writer.write(records);
+            }
+        }
+        try (ResultWriter writer =
+            ResultWriter.open(Paths.get("fitness-results.csv"), GeneticAlgorithm.GENERATIONS)) {
+            writer.write(results.getFrecords());
+        }
 
     }
 
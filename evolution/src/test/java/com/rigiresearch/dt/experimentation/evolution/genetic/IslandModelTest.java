@@ -0,0 +1,126 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import io.jenetics.DoubleChromosome;
+import io.jenetics.DoubleGene;
+import io.jenetics.Genotype;
+import io.jenetics.Mutator;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.util.ISeq;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link IslandModel}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class IslandModelTest {
+
+    @Test
+    void testItEvolvesEveryIsland() {
+        final IslandModel model = new IslandModel(
+            Arrays.asList(
+                IslandModelTest.builder(0.0, 10.0, 0.1),
+                IslandModelTest.builder(0.0, 10.0, 0.3),
+                IslandModelTest.builder(0.0, 10.0, 0.5)
+            ),
+            2,
+            1
+        );
+        final AtomicInteger generations = new AtomicInteger();
+        final ISeq<EvolutionResult<DoubleGene, Double>> results =
+            model.evolve(6L, result -> generations.incrementAndGet(), 3);
+        Assertions.assertEquals(18, generations.get());
+        Assertions.assertFalse(results.isEmpty());
+        Assertions.assertTrue(results.size() <= 3);
+        for (int index = 1; index < results.size(); index++) {
+            Assertions.assertTrue(
+                results.get(index - 1).bestFitness() <= results.get(index).bestFitness()
+            );
+        }
+    }
+
+    @Test
+    void testMigrantsReachTheNextIsland() {
+        // The islands' genes are in disjoint ranges, so only migrants can mix them
+        final IslandModel model = new IslandModel(
+            Arrays.asList(
+                IslandModelTest.builder(0.0, 1.0, 0.1),
+                IslandModelTest.builder(9.0, 10.0, 0.1)
+            ),
+            1,
+            2
+        );
+        final AtomicBoolean mixed = new AtomicBoolean();
+        model.evolve(
+            4L,
+            result -> {
+                final boolean low = result.population()
+                    .stream()
+                    .anyMatch(phenotype -> phenotype.genotype().gene().doubleValue() <= 1.0);
+                final boolean high = result.population()
+                    .stream()
+                    .anyMatch(phenotype -> phenotype.genotype().gene().doubleValue() >= 9.0);
+                if (low && high) {
+                    mixed.set(true);
+                }
+            },
+            1
+        );
+        Assertions.assertTrue(mixed.get(), "Expected migrants in a population");
+    }
+
+    @Test
+    void testTheCacheEvaluatesEachCandidateOnce() {
+        final FitnessCache cache = new FitnessCache();
+        final AtomicInteger evaluations = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        for (int index = 0; index < 4; index++) {
+            threads.add(
+                new Thread(() -> cache.get(new double[] {1.0, 2.0}, () -> {
+                    evaluations.incrementAndGet();
+                    return 3.0;
+                }))
+            );
+        }
+        threads.forEach(Thread::start);
+        threads.forEach(thread -> {
+            try {
+                thread.join();
+            } catch (final InterruptedException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+        Assertions.assertEquals(1, evaluations.get());
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(3L, cache.hits());
+        Assertions.assertEquals(3.0, cache.get(new double[] {1.0, 2.0}, () -> 0.0));
+    }
+
+    /**
+     * Creates the builder of an island that maximizes its only gene.
+     * @param min The gene's lower bound
+     * @param max The gene's upper bound
+     * @param mutation The mutation probability
+     * @return A new builder
+     */
+    private static Engine.Builder<DoubleGene, Double> builder(final double min,
+        final double max, final double mutation) {
+        return Engine.builder(
+            (Genotype<DoubleGene> genotype) -> genotype.gene().doubleValue(),
+            Genotype.of(DoubleChromosome.of(min, max))
+        )
+            .populationSize(10)
+            .maximizing()
+            .alterers(new Mutator<>(mutation))
+            .executor(Runnable::run);
+    }
+
+}
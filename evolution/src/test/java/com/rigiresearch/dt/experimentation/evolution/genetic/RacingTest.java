@@ -0,0 +1,52 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link Racing}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class RacingTest {
+
+    @Test
+    void testItStopsDominatedCandidates() {
+        final Racing racing = new Racing(10, 2, 0.05);
+        final double[] candidate = {1.0, 1.2, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0};
+        Assertions.assertFalse(
+            racing.dominated(candidate, 2),
+            "There is no incumbent to compare with"
+        );
+        racing.offer(new double[] {3.0, 3.1, 2.9, 3.0, 3.2, 2.8, 3.0, 3.1, 2.9, 3.0});
+        Assertions.assertFalse(racing.dominated(candidate, 1), "One replica is not enough");
+        Assertions.assertTrue(racing.dominated(candidate, 2));
+        Assertions.assertTrue(racing.conservative(candidate, 2) < 11.0);
+        final double[] close = {2.5, 3.5, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0};
+        Assertions.assertFalse(racing.dominated(close, 2));
+        Assertions.assertEquals(2, racing.next(6));
+        Assertions.assertEquals(0, racing.next(10));
+    }
+
+    @Test
+    void testItKeepsTheBestIncumbent() {
+        final Racing racing = new Racing(4, 1, 0.05);
+        racing.offer(new double[] {1.0, 1.0, 1.0, 1.0});
+        racing.offer(new double[] {0.0, 0.0, 0.0, 0.0});
+        Assertions.assertTrue(racing.dominated(new double[] {0.0, 0.01, 0.0, 0.0}, 2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Racing(4, 5, 0.05));
+    }
+
+    @Test
+    void testItKeepsUncertainCandidates() {
+        final Racing racing = new Racing(4, 1, 0.05);
+        racing.offer(new double[] {3.0, 3.0, 3.0, 3.0});
+        // A normal critical value would stop this candidate, but two
+        // replications leave a single degree of freedom
+        final double[] candidate = {1.0, 2.0, 0.0, 0.0};
+        Assertions.assertFalse(racing.dominated(candidate, 2));
+        Assertions.assertTrue(racing.conservative(candidate, 2) < 0.0);
+    }
+
+}
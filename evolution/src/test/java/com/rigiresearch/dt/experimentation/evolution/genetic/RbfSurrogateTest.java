@@ -0,0 +1,57 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link RbfSurrogate}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class RbfSurrogateTest {
+
+    @Test
+    void testItApproximatesASmoothFunction() {
+        final RbfSurrogate surrogate =
+            new RbfSurrogate(new double[] {0.0, 1.0}, new double[] {10.0, 21.0});
+        for (int x = 0; x <= 10; x++) {
+            for (int y = 1; y <= 21; y += 2) {
+                Assertions.assertTrue(
+                    surrogate.add(new double[] {x, y}, RbfSurrogateTest.value(x, y))
+                );
+            }
+        }
+        Assertions.assertEquals(121, surrogate.size());
+        final RbfSurrogate.Prediction prediction = surrogate.predict(new double[] {4.5, 12.0});
+        Assertions.assertEquals(RbfSurrogateTest.value(4.5, 12.0), prediction.getMean(), 0.05);
+        Assertions.assertTrue(
+            prediction.getDeviation()
+                < surrogate.predict(new double[] {40.0, 80.0}).getDeviation(),
+            "Expected predictions to be less certain far from the samples"
+        );
+    }
+
+    @Test
+    void testItAveragesRepeatedSamples() {
+        final RbfSurrogate surrogate = new RbfSurrogate(new double[] {0.0}, new double[] {1.0});
+        Assertions.assertTrue(Double.isInfinite(
+            surrogate.predict(new double[] {0.5}).getDeviation()));
+        surrogate.add(new double[] {0.5}, 1.0);
+        surrogate.add(new double[] {0.5}, 3.0);
+        surrogate.add(new double[] {0.0}, 0.0);
+        Assertions.assertEquals(3, surrogate.size());
+        Assertions.assertEquals(2.0, surrogate.predict(new double[] {0.5}).getMean(), 0.1);
+    }
+
+    /**
+     * A smooth test function with a maximum at (3, 15).
+     * @param x The first gene
+     * @param y The second gene
+     * @return The function value
+     */
+    private static double value(final double x, final double y) {
+        return -(x - 3.0) * (x - 3.0) / 10.0 - (y - 15.0) * (y - 15.0) / 40.0;
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link RecordSink}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class RecordSinkTest {
+
+    /**
+     * The columns of the test records.
+     */
+    private static final RecordTable.Schema SCHEMA = new RecordTable.Schema();
+
+    /**
+     * The line name.
+     */
+    private static final RecordTable.Column LINE = RecordSinkTest.SCHEMA.strings("line");
+
+    /**
+     * The execution number.
+     */
+    private static final RecordTable.Column NUMBER = RecordSinkTest.SCHEMA.ints("number");
+
+    /**
+     * The headway.
+     */
+    private static final RecordTable.Column HEADWAY = RecordSinkTest.SCHEMA.doubles("headway");
+
+    @Test
+    void testItReadsTheAppendedRecords() throws IOException {
+        try (RecordSink sink = RecordSink.temporary(RecordSinkTest.SCHEMA)) {
+            for (int number = 0; number < 3000; number++) {
+                sink.append(RecordSinkTest.records(number));
+            }
+            final List<Integer> numbers = new ArrayList<>();
+            for (final RecordTable records : sink) {
+                for (int row = 0; row < records.size(); row++) {
+                    Assertions.assertEquals("T31s", records.getString(row, RecordSinkTest.LINE));
+                    numbers.add(records.getInt(row, RecordSinkTest.NUMBER));
+                }
+            }
+            Assertions.assertEquals(3000L, sink.size());
+            Assertions.assertEquals(3000, numbers.size());
+            Assertions.assertEquals(2999, (int) numbers.get(2999));
+            Assertions.assertEquals(
+                3000L, sink.statistics(RecordSinkTest.HEADWAY).getCount());
+            Assertions.assertEquals(
+                2999.0, sink.statistics(RecordSinkTest.NUMBER).getMax(), 1e-9);
+        }
+    }
+
+    @Test
+    void testItDiscardsTheRecordsAfterALength() throws IOException {
+        final Path path = Files.createTempDirectory("records").resolve("ga.records");
+        final long length;
+        try (RecordSink sink = new RecordSink(path, RecordSinkTest.SCHEMA)) {
+            sink.append(RecordSinkTest.records(0));
+            sink.append(RecordSinkTest.records(1));
+            length = sink.flush();
+            sink.append(RecordSinkTest.records(2));
+        }
+        try (RecordSink sink = RecordSink.resume(path, RecordSinkTest.SCHEMA, length)) {
+            Assertions.assertEquals(2L, sink.size());
+            sink.append(RecordSinkTest.records(3));
+            final List<Integer> numbers = new ArrayList<>();
+            for (final RecordTable records : sink) {
+                for (int row = 0; row < records.size(); row++) {
+                    numbers.add(records.getInt(row, RecordSinkTest.NUMBER));
+                }
+            }
+            Assertions.assertEquals(Arrays.asList(0, 1, 3), numbers);
+            Assertions.assertEquals(
+                4.0, sink.statistics(RecordSinkTest.NUMBER).getSum(), 1e-9);
+        }
+    }
+
+    @Test
+    void testItMarksTheLengthBeforeWriting() throws IOException {
+        final Path path = Files.createTempDirectory("records").resolve("ga.records");
+        final long length;
+        try (RecordSink sink = new RecordSink(path, RecordSinkTest.SCHEMA)) {
+            sink.append(RecordSinkTest.records(0));
+            length = sink.mark();
+            Assertions.assertEquals(0L, Files.size(path), "Marking must not write");
+            sink.append(RecordSinkTest.records(1));
+            Assertions.assertTrue(sink.flush() > length);
+        }
+        try (RecordSink sink = RecordSink.resume(path, RecordSinkTest.SCHEMA, length)) {
+            Assertions.assertEquals(1L, sink.size());
+        }
+    }
+
+    /**
+     * Creates a table with a simulation record.
+     * @param number The execution number
+     * @return A new table
+     */
+    private static RecordTable records(final int number) {
+        final RecordTable records = new RecordTable(RecordSinkTest.SCHEMA);
+        final int row = records.append();
+        records.set(row, RecordSinkTest.LINE, "T31s");
+        records.set(row, RecordSinkTest.NUMBER, number);
+        records.set(row, RecordSinkTest.HEADWAY, 420.0 + number);
+        return records;
+    }
+
+}
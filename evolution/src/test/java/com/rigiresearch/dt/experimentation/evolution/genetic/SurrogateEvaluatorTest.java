@@ -0,0 +1,127 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic;
+
+import io.jenetics.DoubleChromosome;
+import io.jenetics.DoubleGene;
+import io.jenetics.Genotype;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Evaluators;
+import io.jenetics.util.ISeq;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link SurrogateEvaluator}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class SurrogateEvaluatorTest {
+
+    @Test
+    void testItSimulatesAFractionOfTheCandidates() {
+        final RbfSurrogate surrogate =
+            new RbfSurrogate(new double[] {0.0}, new double[] {10.0});
+        final AtomicInteger simulations = new AtomicInteger();
+        final Function<Genotype<DoubleGene>, Double> fitness = genotype -> {
+            simulations.incrementAndGet();
+            final double[] genes = GeneticAlgorithm.genes(genotype);
+            final double value = -(genes[0] - 7.0) * (genes[0] - 7.0);
+            surrogate.add(genes, value);
+            return value;
+        };
+        final SurrogateEvaluator evaluator = new SurrogateEvaluator(
+            Evaluators.serial(fitness),
+            surrogate,
+            GeneticAlgorithm::genes,
+            0.25,
+            10
+        );
+        final ISeq<Phenotype<DoubleGene, Double>> first =
+            evaluator.eval(SurrogateEvaluatorTest.population(0.0));
+        Assertions.assertEquals(20, simulations.get());
+        Assertions.assertTrue(first.forAll(Phenotype::isEvaluated));
+        final ISeq<Phenotype<DoubleGene, Double>> second =
+            evaluator.eval(SurrogateEvaluatorTest.population(0.25));
+        // A fraction of the offspring, and the best candidate if it was predicted
+        Assertions.assertTrue(simulations.get() >= 25 && simulations.get() <= 26);
+        Assertions.assertEquals(20, second.size());
+        Assertions.assertTrue(second.forAll(Phenotype::isEvaluated));
+        final Phenotype<DoubleGene, Double> best = second.stream()
+            .max((left, right) -> Double.compare(left.fitness(), right.fitness()))
+            .get();
+        Assertions.assertEquals(
+            7.0,
+            best.genotype().gene().doubleValue(),
+            0.5,
+            "Expected the best candidate to be close to the maximum"
+        );
+        Assertions.assertEquals(
+            fitness.apply(best.genotype()),
+            best.fitness(),
+            "Expected the best candidate to be simulated"
+        );
+    }
+
+    @Test
+    void testSurvivorsWithAPredictedFitnessAreSimulated() {
+        final RbfSurrogate surrogate =
+            new RbfSurrogate(new double[] {0.0}, new double[] {10.0});
+        final AtomicInteger simulations = new AtomicInteger();
+        final SurrogateEvaluator evaluator = new SurrogateEvaluator(
+            Evaluators.serial(
+                (Genotype<DoubleGene> genotype) -> {
+                    simulations.incrementAndGet();
+                    final double value = genotype.gene().doubleValue();
+                    surrogate.add(GeneticAlgorithm.genes(genotype), value);
+                    return value;
+                }
+            ),
+            surrogate,
+            GeneticAlgorithm::genes,
+            0.25,
+            10
+        );
+        evaluator.eval(SurrogateEvaluatorTest.population(0.0));
+        final ISeq<Phenotype<DoubleGene, Double>> second =
+            evaluator.eval(SurrogateEvaluatorTest.population(0.25));
+        final int predicted = 20 + 20 - simulations.get();
+        Assertions.assertTrue(predicted > 0);
+        // Every candidate survives: only those with a predicted fitness are simulated
+        simulations.set(0);
+        final ISeq<Phenotype<DoubleGene, Double>> third = evaluator.eval(second);
+        Assertions.assertEquals(predicted, simulations.get());
+        Assertions.assertTrue(
+            third.forAll(
+                phenotype -> phenotype.fitness() == phenotype.genotype().gene().doubleValue()
+            )
+        );
+        simulations.set(0);
+        evaluator.eval(third);
+        Assertions.assertEquals(0, simulations.get());
+    }
+
+    /**
+     * Creates a population of unevaluated candidates spread over the range.
+     * @param offset The offset of the first candidate
+     * @return A new population
+     */
+    private static ISeq<Phenotype<DoubleGene, Double>> population(final double offset) {
+        final List<Phenotype<DoubleGene, Double>> population = new ArrayList<>(20);
+        for (int index = 0; index < 20; index++) {
+            population.add(
+                Phenotype.of(
+                    Genotype.of(
+                        DoubleChromosome.of(DoubleGene.of(offset + index * 0.5, 0.0, 10.0))
+                    ),
+                    0L
+                )
+            );
+        }
+        return ISeq.of(population);
+    }
+
+}
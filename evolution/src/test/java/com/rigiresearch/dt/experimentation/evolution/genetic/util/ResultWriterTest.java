@@ -0,0 +1,129 @@
+package com.rigiresearch.dt.experimentation.evolution.genetic.util;
+
+import com.rigiresearch.dt.experimentation.evolution.RecordTable;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ResultWriter}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class ResultWriterTest {
+
+    /**
+     * The columns of the test records.
+     */
+    private static final RecordTable.Schema SCHEMA = new RecordTable.Schema();
+
+    /**
+     * The line name.
+     */
+    private static final RecordTable.Column LINE = ResultWriterTest.SCHEMA.strings("line");
+
+    /**
+     * The execution number.
+     */
+    private static final RecordTable.Column NUMBER = ResultWriterTest.SCHEMA.ints("number");
+
+    /**
+     * The headway.
+     */
+    private static final RecordTable.Column HEADWAY =
+        ResultWriterTest.SCHEMA.doubles("headway");
+
+    @Test
+    void testItWritesCompressedCsv() throws IOException {
+        final Path path = Files.createTempDirectory("results").resolve("ga.csv.gz");
+        try (ResultWriter writer = ResultWriter.open(path, ResultWriterTest.SCHEMA)) {
+            for (int number = 0; number < 3; number++) {
+                writer.write(ResultWriterTest.records(number, 1));
+            }
+        }
+        final List<String> lines;
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)),
+                StandardCharsets.UTF_8
+            ))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        Assertions.assertEquals(4, lines.size());
+        Assertions.assertEquals("line,number,headway", lines.get(0));
+        Assertions.assertEquals("T31s,2,4.0", lines.get(3));
+    }
+
+    @Test
+    void testItWritesBinaryRowsLargerThanTheBuffer() throws IOException {
+        final Path path = Files.createTempDirectory("results").resolve("ga.rows");
+        final int batches = 100;
+        final int rows = 1000;
+        try (ResultWriter writer = ResultWriter.open(path, ResultWriterTest.SCHEMA)) {
+            for (int number = 0; number < batches; number++) {
+                writer.write(ResultWriterTest.records(number, rows));
+            }
+        }
+        Assertions.assertTrue(Files.size(path) > 1 << 20, "Expected more than a buffer");
+        try (DataInputStream input = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(path)))) {
+            Assertions.assertEquals(BinaryFormat.MAGIC, input.readInt());
+            Assertions.assertEquals(BinaryFormat.VERSION, input.readInt());
+            Assertions.assertEquals(3, input.readShort());
+            for (final RecordTable.Column column : ResultWriterTest.SCHEMA.getColumns()) {
+                Assertions.assertEquals(column.getName(), ResultWriterTest.string(input));
+                Assertions.assertEquals(column.getType().ordinal(), input.readByte());
+            }
+            for (int number = 0; number < batches; number++) {
+                for (int row = 0; row < rows; row++) {
+                    Assertions.assertEquals(18, input.readInt());
+                    Assertions.assertEquals("T31s", ResultWriterTest.string(input));
+                    Assertions.assertEquals(number, input.readInt());
+                    Assertions.assertEquals(number * 2.0, input.readDouble(), 1e-9);
+                }
+            }
+            Assertions.assertEquals(-1, input.read());
+        }
+    }
+
+    /**
+     * Creates test records.
+     * @param number The execution number
+     * @param rows The number of rows
+     * @return A new table
+     */
+    private static RecordTable records(final int number, final int rows) {
+        final RecordTable records = new RecordTable(ResultWriterTest.SCHEMA, rows);
+        for (int index = 0; index < rows; index++) {
+            final int row = records.append();
+            records.set(row, ResultWriterTest.LINE, "T31s");
+            records.set(row, ResultWriterTest.NUMBER, number);
+            records.set(row, ResultWriterTest.HEADWAY, number * 2.0);
+        }
+        return records;
+    }
+
+    /**
+     * Reads a string in the binary format.
+     * @param input The input
+     * @return The string
+     * @throws IOException If the string cannot be read
+     */
+    private static String string(final DataInputStream input) throws IOException {
+        final byte[] bytes = new byte[input.readUnsignedShort()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
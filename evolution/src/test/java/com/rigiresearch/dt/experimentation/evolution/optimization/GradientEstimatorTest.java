@@ -0,0 +1,58 @@
+package com.rigiresearch.dt.experimentation.evolution.optimization;
+
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link GradientEstimator}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class GradientEstimatorTest {
+
+    /**
+     * A quadratic function with its minimum at (1, 2), plus noise that only
+     * depends on the seed, as with common random numbers.
+     */
+    private static final NoisyFunction FUNCTION = (parameters, seed) ->
+        Math.pow(parameters[0] - 1.0, 2.0)
+            + Math.pow(parameters[1] - 2.0, 2.0)
+            + new Random(seed).nextGaussian();
+
+    @Test
+    void testCentralDifferences() {
+        try (GradientEstimator estimator = new GradientEstimator(
+            GradientEstimatorTest.FUNCTION,
+            GradientEstimator.Method.CENTRAL,
+            new double[] {0.1, 0.1},
+            1,
+            2,
+            0L)) {
+            Assertions.assertArrayEquals(
+                new double[] {-2.0, -4.0},
+                estimator.gradient(new double[] {0.0, 0.0}),
+                1e-9
+            );
+        }
+    }
+
+    @Test
+    void testSimultaneousPerturbationsConverge() {
+        try (GradientEstimator estimator = new GradientEstimator(
+            GradientEstimatorTest.FUNCTION,
+            GradientEstimator.Method.SPSA,
+            new double[] {0.1, 0.1},
+            4,
+            2,
+            0L)) {
+            final OptimizableFunction function =
+                new OptimizableFunction(estimator, new double[] {5.0, -3.0});
+            new GradientDescent(function, 1e-6, 0.1).optimize(200);
+            Assertions.assertEquals(1.0, function.getParameter(0), 0.01);
+            Assertions.assertEquals(2.0, function.getParameter(1), 0.01);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.rigiresearch.dt.experimentation.evolution.sensitivity;
+
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link MorrisMethod} and {@link SobolMethod} on the linear function
+ * {@code 4 x0 + 2 x1}, whose third factor is inert.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class SensitivityMethodTest {
+
+    @Test
+    void testMorrisElementaryEffects() {
+        final SensitivityMethod method = new MorrisMethod(3, 1, 10, 4, new Random(7L));
+        SensitivityMethodTest.evaluate(method);
+        final double[] star = method.indices(0).get("mu*");
+        Assertions.assertArrayEquals(new double[] {4.0, 2.0, 0.0}, star, 1e-9);
+        Assertions.assertArrayEquals(
+            new double[] {0.0, 0.0, 0.0},
+            method.indices(0).get("sigma"),
+            1e-9
+        );
+    }
+
+    @Test
+    void testSobolIndices() {
+        final SensitivityMethod method = new SobolMethod(3, 1, 20000, new Random(7L));
+        SensitivityMethodTest.evaluate(method);
+        // The variance contributions are 16/12 and 4/12
+        Assertions.assertArrayEquals(
+            new double[] {0.8, 0.2, 0.0},
+            method.indices(0).get("S1"),
+            0.05
+        );
+        Assertions.assertArrayEquals(
+            new double[] {0.8, 0.2, 0.0},
+            method.indices(0).get("ST"),
+            0.05
+        );
+    }
+
+    /**
+     * Evaluates the design of a method, in reverse order.
+     * @param method The sensitivity analysis method
+     */
+    private static void evaluate(final SensitivityMethod method) {
+        for (int group = method.groups() - 1; group >= 0; group--) {
+            final double[][] points = method.points(group);
+            final double[][] outputs = new double[points.length][];
+            for (int point = 0; point < points.length; point++) {
+                outputs[point] = new double[] {4.0 * points[point][0] + 2.0 * points[point][1]};
+            }
+            method.update(group, outputs);
+        }
+    }
+
+}
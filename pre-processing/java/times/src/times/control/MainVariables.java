@@ -41,6 +41,7 @@ public class MainVariables {
 										 //AnalyzedStops.PASO_COMERCIO_B3.getStopId()
 										 };
 	private static final String FILENAME = PATH + "interarrivalTimes.csv";
+	private static final String EVENTS_FILENAME = PATH + "busEvents.csv";
 
 	public static HashMap<Long, SITMStop> stops; // HashMap with the stops
 	public static HashMap<Long, ArrayList<Datagram>> stopsBuses; // HashMap with the array of buses in one stop
@@ -51,12 +52,15 @@ public class MainVariables {
 	public static void main(String[] args) {
 		try {
 			ArrayList<String> interarrivalTimes = new ArrayList<String>();
+			ArrayList<String> events = new ArrayList<String>();
 			for(long stop : STOPS) {
 				init(131,PATH_STOPS,PATH_LINESTOPS);
 				readDatagrams(131, stop,PATH.concat("datagrams_generated.csv"));
 				postAnalysis(stop, interarrivalTimes);
+				collectEvents(131, stop, events);
 			}
 			saveResults(interarrivalTimes);
+			saveEvents(events);
 		} catch(Exception e) {
 			e.printStackTrace();
 		}
@@ -362,6 +366,23 @@ public class MainVariables {
 		}
 	}
 
+	/*
+	 * Collects the arrival (P) and departure (Q) times of each bus at the stop,
+	 * to be converted into a simulation trace (see TraceConverter in the
+	 * simulation project)
+	 */
+	private static void collectEvents(long lineId, long observerStop, ArrayList<String> events) {
+		for (Map.Entry<Long, ArrayList<Long[]>> entry : busesWaitingTimes.entrySet()) {
+
+			if (entry.getKey() == observerStop) {
+				for (Long[] data : entry.getValue()) {
+					events.add(lineId + "," + entry.getKey() + "," + data[0] + "," + data[1] + "," + data[2]);
+				}
+			}
+
+		}
+	}
+
 	public static void excess_Waiting_Time_at_Bus_stop() {
 
 		System.out.println("---------------------------------------------------------------------------------");
@@ -397,6 +418,21 @@ public class MainVariables {
 		}
 	}
 
+	private static void saveEvents(ArrayList<String> events) throws IOException {
+		if (events.isEmpty()) {
+			System.out.println("WARNING: bus events list is empty.");
+		} else {
+			final FileWriter writer = new FileWriter(new File(EVENTS_FILENAME));
+			writer.write("line_id,stop_id,bus_id,arrival,departure" + System.lineSeparator());
+			for (String str : events) {
+				writer.write(str + System.lineSeparator());
+			}
+			writer.flush();
+			writer.close();
+			System.out.println("LOG: " + EVENTS_FILENAME + " " + events.size() +  " entries saved.");
+		}
+	}
+
 	private static void saveResults(ArrayList<String> interarrivalTimes) throws IOException {
 		if (interarrivalTimes != null) {
 			if (interarrivalTimes.isEmpty()) {
@@ -0,0 +1,55 @@
+package com.rigiresearch.dt.experimentation.simulation.benchmarks;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmarks of the graph lookups performed while building and running
+ * the simulation. Each operation covers every line of the network.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+    /**
+     * Computes the journey of each line.
+     * @param network The network
+     * @param blackhole The JMH blackhole
+     */
+    @Benchmark
+    public void journey(final Network network, final Blackhole blackhole) {
+        for (final Line line : network.journeys().keySet()) {
+            blackhole.consume(line.journey());
+        }
+    }
+
+    /**
+     * Finds the segment of each line at each of its stops.
+     * @param network The network
+     * @param blackhole The JMH blackhole
+     */
+    @Benchmark
+    public void segment(final Network network, final Blackhole blackhole) {
+        network.journeys().forEach((line, stops) -> {
+            for (final Stop stop : stops) {
+                blackhole.consume(line.segment(stop));
+            }
+        });
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.rigiresearch.dt.experimentation.simulation.benchmarks;
+
+import com.rigiresearch.dt.experimentation.simulation.Bus;
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.LineStopSchedulingElement;
+import com.rigiresearch.dt.experimentation.simulation.StopSchedulingElement;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import java.util.concurrent.TimeUnit;
+import jsl.modeling.elements.entity.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the bus arrival and departure paths of the first stop
+ * of a line, outside of a running replication. Every operation creates a new
+ * bus, whose cost is measured on its own by {@link #bus()}.
+ *
+ * <p>Buses are never dequeued, so after the first operation of an iteration
+ * the arrival path is the one of a busy stop (i.e., the departure is not
+ * scheduled). The departure path boards the waiting passengers (none, since
+ * passengers only arrive during a replication) and schedules the arrival at
+ * the next stop. The model is constructed again every iteration.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HandlerBenchmark {
+
+    /**
+     * The capacity of the buses.
+     */
+    private static final int CAPACITY = 138;
+
+    /**
+     * The stop model.
+     */
+    private StopSchedulingElement stop;
+
+    /**
+     * The line-stop model.
+     */
+    private LineStopSchedulingElement model;
+
+    /**
+     * The line of the buses.
+     */
+    private Line line;
+
+    /**
+     * The number of buses created so far.
+     */
+    private long count;
+
+    /**
+     * Constructs a new simulation.
+     * @param network The network
+     */
+    @Setup(Level.Iteration)
+    public void setup(final Network network) {
+        final DtSimulation simulation = network.simulation();
+        this.line = network.line();
+        final Stop first = network.journeys().get(this.line).get(0);
+        this.stop = simulation.model(first.getStation())
+            .getStops()
+            .get(this.line);
+        this.model = this.stop.getModels().get(this.line);
+    }
+
+    /**
+     * Creates a bus.
+     * @return The bus
+     */
+    @Benchmark
+    public Bus bus() {
+        // Entity types are model elements, so their names must be unique
+        final String name = String.format("%s-bus-%d", this.line.getName(), this.count++);
+        return new Bus(new EntityType(this.stop, name), this.line, name, HandlerBenchmark.CAPACITY);
+    }
+
+    /**
+     * Enqueues a new bus at the stop.
+     */
+    @Benchmark
+    public void busArrival() {
+        this.stop.handleBusArrival(this.bus());
+    }
+
+    /**
+     * Boards passengers onto a new bus and sends it to the next stop.
+     */
+    @Benchmark
+    public void busDeparture() {
+        this.model.handleBusDeparture(this.bus());
+    }
+
+}
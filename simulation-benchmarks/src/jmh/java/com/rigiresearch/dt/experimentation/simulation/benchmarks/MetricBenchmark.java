@@ -0,0 +1,200 @@
+package com.rigiresearch.dt.experimentation.simulation.benchmarks;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.dt.experimentation.simulation.metrics.BusQueueLength;
+import com.rigiresearch.dt.experimentation.simulation.metrics.ExcessWaitingTime;
+import com.rigiresearch.dt.experimentation.simulation.metrics.HeadwayCoefficientOfVariation;
+import com.rigiresearch.dt.experimentation.simulation.metrics.ObservedLineHeadway;
+import com.rigiresearch.dt.experimentation.simulation.metrics.ObservedWaitingTime;
+import com.rigiresearch.dt.experimentation.simulation.metrics.PassengerQueueLength;
+import com.rigiresearch.dt.experimentation.simulation.metrics.SimulationMetric;
+import com.rigiresearch.dt.experimentation.simulation.observation.ObservationSink;
+import com.rigiresearch.dt.experimentation.simulation.observation.RecordedStatistics;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Microbenchmarks of each simulation metric, computed for every line of the
+ * network. The metrics are computed from statistics recorded from synthetic
+ * observations (as many waiting times per line-stop pair as passengers), so
+ * that they are measured independently of the simulation.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricBenchmark {
+
+    /**
+     * The number of headways observed per line-stop pair.
+     */
+    private static final int HEADWAYS = 50;
+
+    /**
+     * The statistics from which metrics are computed.
+     */
+    private RecordedStatistics statistics;
+
+    /**
+     * The designed headway of each line.
+     */
+    private Map<Line, Double> headways;
+
+    /**
+     * Records the synthetic observations.
+     * @param network The network
+     */
+    @Setup(Level.Trial)
+    public void setup(final Network network) {
+        final SplittableRandom random = new SplittableRandom(1L);
+        this.statistics = new RecordedStatistics(network.graph());
+        this.headways = new HashMap<>();
+        network.journeys().forEach((line, stops) -> {
+            final double headway = network.config()
+                .getDouble(String.format("%s.headway", line.getName()));
+            this.headways.put(line, headway);
+            for (final Stop stop : stops) {
+                for (int index = 0; index < network.passengers; index++) {
+                    this.statistics.observe(
+                        ObservationSink.Metric.WAITING_TIME,
+                        index,
+                        line,
+                        stop,
+                        random.nextDouble() * headway
+                    );
+                    this.statistics.observe(
+                        ObservationSink.Metric.PASSENGER_QUEUE,
+                        index,
+                        line,
+                        stop,
+                        random.nextInt(20)
+                    );
+                }
+                for (int index = 0; index < MetricBenchmark.HEADWAYS; index++) {
+                    final double time = index * headway;
+                    this.statistics.observe(
+                        ObservationSink.Metric.HEADWAY,
+                        time,
+                        line,
+                        stop,
+                        headway * (0.5 + random.nextDouble())
+                    );
+                    this.statistics.observe(
+                        ObservationSink.Metric.BUS_QUEUE,
+                        time,
+                        line,
+                        stop,
+                        random.nextInt(3)
+                    );
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes the observed waiting time.
+     * @param network The network
+     * @param blackhole The JMH blackhole
+     */
+    @Benchmark
+    public void observedWaitingTime(final Network network, final Blackhole blackhole) {
+        MetricBenchmark.compute(
+            new ObservedWaitingTime(this.statistics), network.journeys().keySet(), blackhole);
+    }
+
+    /**
+     * Computes the observed line headway.
+     * @param network The network
+     * @param blackhole The JMH blackhole
+     */
+    @Benchmark
+    public void observedLineHeadway(final Network network, final Blackhole blackhole) {
+        MetricBenchmark.compute(
+            new ObservedLineHeadway(this.statistics), network.journeys().keySet(), blackhole);
+    }
+
+    /**
+     * Computes the excess waiting time.
+     * @param network The network
+     * @param blackhole The JMH blackhole
+     */
+    @Benchmark
+    public void excessWaitingTime(final Network network, final Blackhole blackhole) {
+        MetricBenchmark.compute(
+            new ExcessWaitingTime(this.statistics, this.headways),
+            network.journeys().keySet(),
+            blackhole
+        );
+    }
+
+    /**
+     * Computes the headway coefficient of variation.
+     * @param network The network
+     * @param blackhole The JMH blackhole
+     */
+    @Benchmark
+    public void headwayCoefficientOfVariation(final Network network,
+        final Blackhole blackhole) {
+        MetricBenchmark.compute(
+            new HeadwayCoefficientOfVariation(this.statistics),
+            network.journeys().keySet(),
+            blackhole
+        );
+    }
+
+    /**
+     * Computes the passenger queue length.
+     * @param network The network
+     * @param blackhole The JMH blackhole
+     */
+    @Benchmark
+    public void passengerQueueLength(final Network network, final Blackhole blackhole) {
+        MetricBenchmark.compute(
+            new PassengerQueueLength(this.statistics), network.journeys().keySet(), blackhole);
+    }
+
+    /**
+     * Computes the bus queue length.
+     * @param network The network
+     * @param blackhole The JMH blackhole
+     */
+    @Benchmark
+    public void busQueueLength(final Network network, final Blackhole blackhole) {
+        MetricBenchmark.compute(
+            new BusQueueLength(this.statistics), network.journeys().keySet(), blackhole);
+    }
+
+    /**
+     * Computes a metric for each line.
+     * @param metric The metric
+     * @param lines The lines
+     * @param blackhole The JMH blackhole
+     */
+    private static void compute(final SimulationMetric<?> metric, final Iterable<Line> lines,
+        final Blackhole blackhole) {
+        for (final Line line : lines) {
+            blackhole.consume(metric.value(line));
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.rigiresearch.dt.experimentation.simulation.benchmarks;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Macrobenchmarks of the JSL simulation: constructing the model and running
+ * a full replication with the lengths used by the genetic algorithm.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModelBenchmark {
+
+    /**
+     * The length of each replication, as in the genetic algorithm.
+     */
+    private static final double LENGTH_REPLICATION = 15000.0;
+
+    /**
+     * The length of the warm-up period, as in the genetic algorithm.
+     */
+    private static final double LENGTH_WARM_UP = 100.0;
+
+    /**
+     * Constructs the simulation, including its scheduling elements, random
+     * variables and passenger entities.
+     * @param network The simulated network
+     * @return The simulation
+     */
+    @Benchmark
+    public DtSimulation construction(final Network network) {
+        return network.simulation();
+    }
+
+    /**
+     * Constructs the simulation and runs one replication.
+     * @param network The simulated network
+     * @return The simulation
+     */
+    @Benchmark
+    public DtSimulation replication(final Network network) {
+        final DtSimulation simulation = network.simulation();
+        simulation.setNumberOfReplications(1);
+        simulation.setLengthOfReplication(ModelBenchmark.LENGTH_REPLICATION);
+        simulation.setLengthOfWarmUp(ModelBenchmark.LENGTH_WARM_UP);
+        simulation.run();
+        return simulation;
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.rigiresearch.dt.experimentation.simulation.benchmarks;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.dt.experimentation.simulation.service.ModelCache;
+import com.rigiresearch.dt.experimentation.simulation.synthetic.NetworkGenerator;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.configuration2.Configuration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A synthetic network shared by the benchmarks, parameterized by its number
+ * of lines and passenger volume. Each network has four stations per line
+ * (at least ten), two stops per station, and lines of ten stations with an
+ * overlap of 0.3 (see {@link NetworkGenerator}).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@State(Scope.Benchmark)
+public class Network {
+
+    /**
+     * The number of lines.
+     */
+    @Param({"1", "8", "32"})
+    int lines;
+
+    /**
+     * The number of passengers per line-stop pair.
+     */
+    @Param({"1000", "10000"})
+    int passengers;
+
+    /**
+     * The directory containing the generated network.
+     */
+    private Path directory;
+
+    /**
+     * The graph of stations.
+     */
+    private Graph<Node> graph;
+
+    /**
+     * The simulation configuration.
+     */
+    private Configuration config;
+
+    /**
+     * The journey of each line, sorted by line name.
+     */
+    private Map<Line, List<Stop>> journeys;
+
+    /**
+     * Generates and loads the network.
+     * @throws IOException If the network cannot be generated
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("network");
+        new NetworkGenerator(Math.max(4 * this.lines, 10), 2, this.lines, 10, 0.3, 1L)
+            .write(this.directory);
+        final ModelCache cache = new ModelCache();
+        this.graph = cache.graph(this.directory.resolve(NetworkGenerator.GRAPH));
+        this.config = cache.config(
+            this.directory.resolve(NetworkGenerator.PROPERTIES),
+            Collections.singletonMap(
+                "simulation.params.passengers",
+                Integer.toString(this.passengers)
+            )
+        );
+        this.journeys = this.graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .sorted(Comparator.comparing(Line::getName))
+            .collect(
+                Collectors.toMap(
+                    line -> line,
+                    Line::journey,
+                    (first, second) -> first,
+                    LinkedHashMap::new
+                )
+            );
+    }
+
+    /**
+     * Deletes the generated network.
+     * @throws IOException If the files cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Collections.reverseOrder())
+                .forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Constructs a new simulation of this network.
+     * @return A simulation ready to run
+     */
+    public DtSimulation simulation() {
+        return new DtSimulation(this.graph, this.config);
+    }
+
+    /**
+     * The graph of stations.
+     * @return A non-null graph
+     */
+    public Graph<Node> graph() {
+        return this.graph;
+    }
+
+    /**
+     * The simulation configuration.
+     * @return A non-null configuration
+     */
+    public Configuration config() {
+        return this.config;
+    }
+
+    /**
+     * The journey of each line.
+     * @return A non-null map, sorted by line name
+     */
+    public Map<Line, List<Stop>> journeys() {
+        return this.journeys;
+    }
+
+    /**
+     * The first line, sorted by name.
+     * @return A non-null line
+     */
+    public Line line() {
+        return this.journeys.keySet().iterator().next();
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.rigiresearch.dt.experimentation.simulation.benchmarks;
+
+import com.rigiresearch.dt.experimentation.simulation.Distribution;
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.RandomVariableFactory;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import java.util.concurrent.TimeUnit;
+import jsl.modeling.elements.variable.RandomVariable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the creation of random variables from the simulation
+ * configuration, as done for every line-stop pair when the model is
+ * constructed. Variables are attached to a new model every iteration, so
+ * that the model does not grow without bounds.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RandomVariableBenchmark {
+
+    /**
+     * The simulation owning the variables.
+     */
+    private DtSimulation simulation;
+
+    /**
+     * The line of the variables.
+     */
+    private Line line;
+
+    /**
+     * The stop of the variables.
+     */
+    private Stop stop;
+
+    /**
+     * The number of variables created so far.
+     */
+    private long count;
+
+    /**
+     * Constructs a new simulation.
+     * @param network The network
+     */
+    @Setup(Level.Iteration)
+    public void setup(final Network network) {
+        this.simulation = network.simulation();
+        this.line = network.line();
+        this.stop = network.journeys().get(this.line).get(0);
+    }
+
+    /**
+     * Creates the passenger arrival variable of a line-stop pair.
+     * @param network The network
+     * @return The variable
+     */
+    @Benchmark
+    public RandomVariable passengerArrival(final Network network) {
+        return this.variable(
+            network,
+            String.format(
+                "%s.%s.%s.distribution",
+                this.line.getName(),
+                this.stop.getName(),
+                DtSimulation.VariableType.PASSENGER_ARRIVAL.getName()
+            )
+        );
+    }
+
+    /**
+     * Creates the service time variable of a line.
+     * @param network The network
+     * @return The variable
+     */
+    @Benchmark
+    public RandomVariable serviceTime(final Network network) {
+        return this.variable(
+            network,
+            String.format(
+                "%s.%s.distribution",
+                this.line.getName(),
+                DtSimulation.VariableType.SERVICE_TIME.getName()
+            )
+        );
+    }
+
+    /**
+     * Creates a variable as {@link RandomVariableFactory} does for lines and
+     * line-stop pairs, but with a unique name, as required by JSL.
+     * @param network The network
+     * @param key The configuration key of the distribution
+     * @return The variable
+     */
+    private RandomVariable variable(final Network network, final String key) {
+        return RandomVariableFactory.get(
+            Distribution.from(network.config().getString(key)),
+            network.config().subset(key),
+            String.format("RV-%d", this.count++)
+        ).apply(this.simulation.getModel());
+    }
+
+}
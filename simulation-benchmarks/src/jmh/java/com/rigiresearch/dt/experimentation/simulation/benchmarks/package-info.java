@@ -0,0 +1,5 @@
+/**
+ * Contains JMH benchmarks for the simulation engine.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.benchmarks;
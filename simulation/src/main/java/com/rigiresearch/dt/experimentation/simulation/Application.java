@@ -1,9 +1,15 @@
 package com.rigiresearch.dt.experimentation.simulation;
 
+import com.rigiresearch.dt.experimentation.simulation.batch.BatchRunner;
+import com.rigiresearch.dt.experimentation.simulation.observation.ColumnarObservationSink;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationServer;
+import com.rigiresearch.dt.experimentation.simulation.synthetic.ScalabilityHarness;
 import com.rigiresearch.middleware.graph.GraphParser;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import javax.xml.bind.JAXBException;
-import jsl.simulation.Simulation;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.FileBasedConfiguration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
@@ -37,21 +43,43 @@ public final class Application {
     }
 
     /**
-     * Main entry point.
+     * Main entry point. Use {@code serve [port] [workers] [store]} to start a
+     * {@link SimulationServer} instead of running a single simulation, or
+     * {@code scale <directory> [lines] [replications]} to run the
+     * {@link ScalabilityHarness} on synthetic networks, or
+     * {@code batch <job> <manifest> <results> [workers]} to run the scenarios
+     * of a manifest with the {@link BatchRunner}. An optional third
+     * argument exports the raw observations to a directory
+     * (see {@link ColumnarObservationSink}).
      * @param args The application arguments
      * @throws ConfigurationException In case there is a problem loading the
      *  properties file
      * @throws JAXBException In case there is a problem loading the input graph
+     * @throws IOException In case the server cannot be started or the
+     *  observations cannot be exported
+     * @throws InterruptedException If interrupted while running a batch
      */
     public static void main(final String... args)
-        throws ConfigurationException, JAXBException {
+        throws ConfigurationException, JAXBException, IOException, InterruptedException {
+        if (args.length > 0 && "serve".equals(args[0])) {
+            SimulationServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "scale".equals(args[0])) {
+            ScalabilityHarness.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "batch".equals(args[0])) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         if (args.length < 2) {
             throw new IllegalArgumentException(
                 "Expected two arguments: a path to the input graph, and a path"
                     + " to the properties file"
             );
         }
-        final Simulation simulation = new DtSimulation(
+        final DtSimulation simulation = new DtSimulation(
             new GraphParser()
                 .withBindings("bindings.xml")
                 .instance(new File(args[0])),
@@ -61,7 +89,15 @@ public final class Application {
         // simulation.setLengthOfReplication(200000.0);
         // simulation.setLengthOfWarmUp(50000.0);
         // run the simulation
-        simulation.run();
+        if (args.length > 2) {
+            try (ColumnarObservationSink sink =
+                new ColumnarObservationSink(Paths.get(args[2]))) {
+                simulation.setObservations(sink);
+                simulation.run();
+            }
+        } else {
+            simulation.run();
+        }
         simulation.printHalfWidthSummaryReport();
     }
 
@@ -7,6 +7,7 @@ import java.util.List;
 import jsl.modeling.elements.entity.Entity;
 import jsl.modeling.elements.entity.EntityType;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * A queue object representing a simulated bus.
@@ -32,6 +33,13 @@ public final class Bus extends Entity {
      */
     private List<Passenger> passengers;
 
+    /**
+     * The index of the observed trip this bus replays, or a negative number
+     * if its operation is sampled.
+     */
+    @Setter
+    private int trip;
+
     /**
      * Default constructor.
      * @param type The type associated with this entity
@@ -45,6 +53,7 @@ public final class Bus extends Entity {
         this.line = line;
         this.capacity = capacity;
         this.passengers = new ArrayList<>(capacity);
+        this.trip = -1;
     }
 
     /**
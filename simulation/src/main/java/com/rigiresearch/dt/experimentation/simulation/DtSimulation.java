@@ -3,18 +3,29 @@ package com.rigiresearch.dt.experimentation.simulation;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import com.rigiresearch.dt.experimentation.simulation.graph.Station;
 import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.dt.experimentation.simulation.metrics.SimulationStatistics;
+import com.rigiresearch.dt.experimentation.simulation.metrics.TimeWeightedStatistic;
+import com.rigiresearch.dt.experimentation.simulation.observation.ObservationSink;
+import com.rigiresearch.dt.experimentation.simulation.profiling.EventProfile;
+import com.rigiresearch.dt.experimentation.simulation.profiling.EventProfiles;
+import com.rigiresearch.dt.experimentation.simulation.trace.BusTrace;
 import com.rigiresearch.middleware.graph.Graph;
 import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import jsl.simulation.ModelElement;
 import jsl.simulation.Simulation;
 import jsl.utilities.statistic.Statistic;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.apache.commons.configuration2.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,7 +36,7 @@ import org.slf4j.LoggerFactory;
  * @version $Id$
  * @since 0.1.0
  */
-public final class DtSimulation extends Simulation {
+public final class DtSimulation extends Simulation implements SimulationStatistics {
 
     /**
      * The logger.
@@ -38,6 +49,25 @@ public final class DtSimulation extends Simulation {
      */
     public static final Double[] EMPTY_ARRAY = new Double[0];
 
+    /**
+     * The configuration key pointing to a bus trace file. When present, bus
+     * arrivals and service times are replayed from the trace instead of being
+     * sampled.
+     */
+    public static final String TRACE_KEY = "simulation.params.trace";
+
+    /**
+     * The configuration key of the interval at which queue lengths are
+     * downsampled into a time series. The time series is disabled by default.
+     */
+    public static final String QUEUE_INTERVAL_KEY = "simulation.params.queue.interval";
+
+    /**
+     * Serializes the instantiation of simulations, which draw their random
+     * number streams from a shared factory.
+     */
+    private static final Object LOCK = new Object();
+
     /**
      * Map of station-models.
      */
@@ -49,6 +79,23 @@ public final class DtSimulation extends Simulation {
     @Getter
     private final Graph<Node> graph;
 
+    /**
+     * The observed bus operations to replay, if any.
+     */
+    private final BusTrace trace;
+
+    /**
+     * The sink receiving every raw observation.
+     */
+    @Setter
+    private ObservationSink observations;
+
+    /**
+     * The profile of the handled events.
+     */
+    @Getter
+    private final EventProfile profile;
+
     /**
      * Default constructor.
      * @param graph The input graph
@@ -57,6 +104,11 @@ public final class DtSimulation extends Simulation {
     public DtSimulation(final Graph<Node> graph, final Configuration config) {
         super("DT Simulation");
         this.graph = graph;
+        this.trace = DtSimulation.trace(config);
+        this.observations = ObservationSink.NONE;
+        final int sampling =
+            config.getInt(EventProfile.SAMPLING_KEY, EventProfile.DEFAULT_SAMPLING);
+        this.profile = new EventProfile(sampling);
         this.models = new HashMap<>(graph.getNodes().size());
         graph.getNodes()
             .stream()
@@ -69,37 +121,89 @@ public final class DtSimulation extends Simulation {
                 this.models.put(station, model);
             });
         this.models.values().forEach(StationSchedulingElement::updateLinks);
+        if (sampling > 0) {
+            // Concurrent replications would otherwise contend on the shared profiles
+            new DtSimulation.Profiler(this);
+        }
     }
 
     /**
-     * Returns the passenger waiting times per line.
-     * @return A non-null, possibly empty map
+     * Instantiates a simulation. Unlike the constructor, this method can be
+     * called from several threads at once: JSL draws the random number
+     * streams of every model element from a shared factory, which is not
+     * thread-safe. Once instantiated, simulations can run concurrently.
+     * @param graph The input graph
+     * @param config The configuration options
+     * @return A new simulation
      */
-    public Map<Line, List<Statistic>> waitingTimes() {
-        return this.modelToMap(StationSchedulingElement::observedWaitingTimes);
+    public static DtSimulation create(final Graph<Node> graph, final Configuration config) {
+        synchronized (DtSimulation.LOCK) {
+            return new DtSimulation(graph, config);
+        }
     }
 
     /**
-     * Returns the observed headway times per line.
-     * @return A non-null, possibly empty map
+     * Opens the configured bus trace.
+     * @param config The configuration options
+     * @return The trace or null, if there is no trace configured
      */
-    public Map<Line, List<Statistic>> observedHeadways() {
-        return this.modelToMap(StationSchedulingElement::observedHeadways);
+    private static BusTrace trace(final Configuration config) {
+        final BusTrace trace;
+        if (config.containsKey(DtSimulation.TRACE_KEY)) {
+            final String path = config.getString(DtSimulation.TRACE_KEY);
+            try {
+                trace = BusTrace.open(Paths.get(path));
+            } catch (final IOException exception) {
+                throw new IllegalStateException(
+                    String.format("Could not open the bus trace %s", path),
+                    exception
+                );
+            }
+            DtSimulation.LOGGER.debug("Replaying {} streams from {}", trace.size(), path);
+        } else {
+            trace = null;
+        }
+        return trace;
     }
 
     /**
-     * Returns the passenger queue lengths per line.
-     * @return A non-null, possibly empty map
+     * The observed bus operations replayed by this simulation.
+     * @return The trace, or empty if bus operations are sampled
      */
-    public Map<Line, List<Statistic>> passengerQueueLengths() {
-        return this.modelToMap(StationSchedulingElement::passengerQueueLength);
+    public Optional<BusTrace> trace() {
+        return Optional.ofNullable(this.trace);
     }
 
     /**
-     * Returns the bus queue lengths per stop.
-     * @return A non-null, possibly empty map
+     * Forwards a raw observation to the configured sink.
+     * @param metric The observed metric
+     * @param time The simulation time
+     * @param line The line
+     * @param stop The stop
+     * @param value The observed value
      */
-    public Map<Stop, Statistic> busQueueLengths() {
+    public void observe(final ObservationSink.Metric metric, final double time,
+        final Line line, final Stop stop, final double value) {
+        this.observations.observe(metric, time, line, stop, value);
+    }
+
+    @Override
+    public Map<Line, List<Statistic>> waitingTimes() {
+        return this.modelToMap(StationSchedulingElement::observedWaitingTimes);
+    }
+
+    @Override
+    public Map<Line, List<Statistic>> observedHeadways() {
+        return this.modelToMap(StationSchedulingElement::observedHeadways);
+    }
+
+    @Override
+    public Map<Line, List<TimeWeightedStatistic>> passengerQueueLengths() {
+        return this.modelToMap(StationSchedulingElement::passengerQueueLength);
+    }
+
+    @Override
+    public Map<Stop, TimeWeightedStatistic> busQueueLengths() {
         return this.models.values()
             .stream()
             .map(StationSchedulingElement::busQueueLengths)
@@ -115,13 +219,14 @@ public final class DtSimulation extends Simulation {
     /**
      * Returns the statistics collected from lines passing through each model.
      * @param function The function mapping from model to statistics per line
+     * @param <T> The type of statistic
      * @return A non-null, possibly empty map
      */
-    private Map<Line, List<Statistic>> modelToMap(
-        Function<StationSchedulingElement, Map<Line, Statistic>> function) {
-        final Map<Line, List<Statistic>> statistics = new HashMap<>(this.models.size());
+    private <T> Map<Line, List<T>> modelToMap(
+        Function<StationSchedulingElement, Map<Line, T>> function) {
+        final Map<Line, List<T>> statistics = new HashMap<>(this.models.size());
         this.models.values().forEach(model -> {
-            final Map<Line, Statistic> map = function.apply(model);
+            final Map<Line, T> map = function.apply(model);
             map.forEach((line, statistic) -> {
                 statistics.putIfAbsent(line, new ArrayList<>());
                 statistics.get(line).add(statistic);
@@ -183,6 +288,42 @@ public final class DtSimulation extends Simulation {
         );
     }
 
+    /**
+     * Adds the profile of each replication to the {@link EventProfiles}. Only
+     * created when profiling is enabled.
+     */
+    private static final class Profiler extends ModelElement {
+
+        /**
+         * The profile of the simulation.
+         */
+        private final EventProfile profile;
+
+        /**
+         * A copy of the profile at the end of the previous replication.
+         */
+        private EventProfile previous;
+
+        /**
+         * Default constructor.
+         * @param simulation The profiled simulation
+         */
+        Profiler(final DtSimulation simulation) {
+            super(simulation.getModel(), "Profiler");
+            this.profile = simulation.profile;
+            this.previous = new EventProfile(0);
+        }
+
+        @Override
+        public void replicationEnded() {
+            this.profile.replicationEnded(this.getTime());
+            final EventProfile current = this.profile.copy();
+            EventProfiles.instance().add(current.since(this.previous));
+            this.previous = current;
+        }
+
+    }
+
     /**
      * Constants for the configured variables.
      */
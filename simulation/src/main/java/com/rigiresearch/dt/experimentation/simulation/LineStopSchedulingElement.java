@@ -1,6 +1,9 @@
 package com.rigiresearch.dt.experimentation.simulation;
 
 import com.rigiresearch.dt.experimentation.simulation.graph.Segment;
+import com.rigiresearch.dt.experimentation.simulation.metrics.TimeWeightedStatistic;
+import com.rigiresearch.dt.experimentation.simulation.observation.ObservationSink;
+import com.rigiresearch.dt.experimentation.simulation.profiling.EventProfile;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,10 +41,17 @@ public final class LineStopSchedulingElement extends SchedulingElement {
     private final LinkedList<Passenger> passengers;
 
     /**
-     * Variable following the distribution of passenger arrival times.
+     * Variable following the distribution of passenger arrival times. If there
+     * is a rate profile, this is a unit exponential variable instead.
      */
     private final RandomVariable passenger;
 
+    /**
+     * The time-varying passenger arrival rate, or null if arrival times follow
+     * a stationary distribution.
+     */
+    private final RateProfile profile;
+
     /**
      * Variable following the distribution of bus transportation times.
      */
@@ -59,10 +69,15 @@ public final class LineStopSchedulingElement extends SchedulingElement {
     private final Statistic wt;
 
     /**
-     * Passenger queue length statistic.
+     * Time-weighted passenger queue length statistic.
      */
     @Getter
-    private final Statistic ql;
+    private final TimeWeightedStatistic ql;
+
+    /**
+     * The profile of the handled events.
+     */
+    private final EventProfile events;
 
     /**
      * The graph node.
@@ -101,12 +116,33 @@ public final class LineStopSchedulingElement extends SchedulingElement {
         );
         this.parent = parent;
         this.node = segment;
-        this.passenger = RandomVariableFactory.get(
-            segment.getLine(),
-            segment.getFrom(),
-            DtSimulation.VariableType.PASSENGER_ARRIVAL.getName(),
-            config
-        ).apply(this);
+        this.events = parent.getParent().getParent().getProfile();
+        this.profile = RateProfile.from(
+            config,
+            String.format(
+                "%s.%s.%s",
+                segment.getLine().getName(),
+                segment.getFrom().getName(),
+                DtSimulation.VariableType.PASSENGER_ARRIVAL.getName()
+            )
+        );
+        if (this.profile == null) {
+            this.passenger = RandomVariableFactory.get(
+                segment.getLine(),
+                segment.getFrom(),
+                DtSimulation.VariableType.PASSENGER_ARRIVAL.getName(),
+                config
+            ).apply(this);
+        } else {
+            this.passenger = RandomVariableFactory.unitExponential(
+                String.format(
+                    "RV-%s-%s-%s",
+                    DtSimulation.VariableType.PASSENGER_ARRIVAL.getName(),
+                    segment.getLine().getName(),
+                    segment.getFrom().getName()
+                )
+            ).apply(this);
+        }
         this.transportation = RandomVariableFactory.get(
             segment.getLine(),
             segment.getFrom(),
@@ -126,8 +162,10 @@ public final class LineStopSchedulingElement extends SchedulingElement {
             segment.getFrom().getName(),
             segment.getLine().getName()
         );
-        this.ql = new Statistic(qlname);
-        this.ql.setSaveOption(true);
+        this.ql = new TimeWeightedStatistic(
+            qlname,
+            config.getDouble(DtSimulation.QUEUE_INTERVAL_KEY, 0.0)
+        );
         this.passengers = this.createPassengers(
             config.getInt("simulation.params.passengers")
         );
@@ -135,25 +173,53 @@ public final class LineStopSchedulingElement extends SchedulingElement {
 
     @Override
     public void initialize() {
+        this.ql.restart();
         this.schedulePassenger();
     }
 
+    @Override
+    public void replicationEnded() {
+        // Account for the time elapsed since the last change
+        this.updateQueueLength();
+    }
+
     /**
      * Handles a passenger arrival.
      * @param event The JSL event
      */
     private void passengerArrival(final JSLEvent<Passenger> event) {
-        this.wait.enqueue(event.getMessage());
-        this.schedulePassenger();
+        final long start = this.events.start(EventProfile.Handler.PASSENGER_ARRIVAL);
+        try {
+            this.wait.enqueue(event.getMessage());
+            this.updateQueueLength();
+            this.schedulePassenger();
+        } finally {
+            this.events.stop(EventProfile.Handler.PASSENGER_ARRIVAL, start);
+        }
     }
 
     /**
      * Schedules a passenger.
      */
     private void schedulePassenger() {
+        if (this.profile == null) {
+            this.events.scheduled();
+            this.scheduleEvent(
+                this::passengerArrival,
+                this.passenger,
+                this.passengers.remove()
+            );
+            return;
+        }
+        final double next = this.profile.next(this.getTime(), this.passenger.getValue());
+        if (Double.isInfinite(next)) {
+            // The arrival rate remains zero from now on
+            return;
+        }
+        this.events.scheduled();
         this.scheduleEvent(
             this::passengerArrival,
-            this.passenger,
+            next - this.getTime(),
             this.passengers.remove()
         );
     }
@@ -164,9 +230,10 @@ public final class LineStopSchedulingElement extends SchedulingElement {
      * @param bus The simulated bus
      */
     public void handleBusDeparture(final Bus bus) {
-        // Collect the queue length when a bus arrives
-        this.ql.collect((double) this.wait.size());
         final List<Passenger> boarding = this.nextPassengers(bus.availableSeats());
+        if (!boarding.isEmpty()) {
+            this.updateQueueLength();
+        }
         bus.updateOccupation(boarding);
         DtSimulation.log(
             LineStopSchedulingElement.LOGGER,
@@ -188,6 +255,7 @@ public final class LineStopSchedulingElement extends SchedulingElement {
             "Bus %s is ready to depart",
             bus.getName()
         );
+        this.events.scheduled();
         this.scheduleEvent(
             this::handleBusArrivalAtNextStop,
             this.transportation,
@@ -208,11 +276,31 @@ public final class LineStopSchedulingElement extends SchedulingElement {
             }
             final Passenger passenger = this.wait.removeNext();
             this.wt.collect(passenger.getTimeInQueue());
+            this.observe(ObservationSink.Metric.WAITING_TIME, passenger.getTimeInQueue());
             next.add(passenger);
         }
         return next;
     }
 
+    /**
+     * Updates the queue length statistic after the passenger queue changes.
+     */
+    private void updateQueueLength() {
+        this.ql.update(this.getTime(), this.wait.size());
+        this.observe(ObservationSink.Metric.PASSENGER_QUEUE, this.wait.size());
+    }
+
+    /**
+     * Forwards a raw observation of this line/stop to the simulation.
+     * @param metric The observed metric
+     * @param value The observed value
+     */
+    private void observe(final ObservationSink.Metric metric, final double value) {
+        this.parent.getParent()
+            .getParent()
+            .observe(metric, this.getTime(), this.node.getLine(), this.node.getFrom(), value);
+    }
+
     /**
      * Creates passengers for this line/stop.
      * @param n The number of passengers to create
@@ -238,22 +326,27 @@ public final class LineStopSchedulingElement extends SchedulingElement {
      * @param event The event containing the simulated bus
      */
     private void handleBusArrivalAtNextStop(final JSLEvent<Bus> event) {
-        final Bus bus = event.getMessage();
-        if (this.next == null) {
-            DtSimulation.log(
-                LineStopSchedulingElement.LOGGER,
-                this.getTime(),
-                bus.getLine(),
-                this.node.getFrom().getStation(),
-                this.node.getFrom(),
-                "Bus %s finished its journey",
-                bus.getName()
-            );
-            event.getMessage().disposePassengers();
-            event.getMessage().dispose();
-        } else {
-            // Send the bus to the next station
-            this.next.handleBusArrival(bus);
+        final long start = this.events.start(EventProfile.Handler.BUS_ARRIVAL_AT_NEXT_STOP);
+        try {
+            final Bus bus = event.getMessage();
+            if (this.next == null) {
+                DtSimulation.log(
+                    LineStopSchedulingElement.LOGGER,
+                    this.getTime(),
+                    bus.getLine(),
+                    this.node.getFrom().getStation(),
+                    this.node.getFrom(),
+                    "Bus %s finished its journey",
+                    bus.getName()
+                );
+                event.getMessage().disposePassengers();
+                event.getMessage().dispose();
+            } else {
+                // Send the bus to the next station
+                this.next.handleBusArrival(bus);
+            }
+        } finally {
+            this.events.stop(EventProfile.Handler.BUS_ARRIVAL_AT_NEXT_STOP, start);
         }
     }
 
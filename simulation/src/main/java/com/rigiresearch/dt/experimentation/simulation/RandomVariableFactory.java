@@ -75,6 +75,18 @@ public final class RandomVariableFactory {
         );
     }
 
+    /**
+     * Creates an exponential random variable with mean 1, to be used in
+     * conjunction with a {@link RateProfile}.
+     * @param name The variable name
+     * @return A function that will instantiate the variable based on a given
+     *  model element
+     */
+    public static Function<ModelElement, RandomVariable> unitExponential(
+        final String name) {
+        return element -> new RandomVariable(element, new ExponentialRV(1.0), name);
+    }
+
     /**
      * Creates a random variable based on the specified distribution.
      * @param distribution The distribution to use
@@ -0,0 +1,395 @@
+package com.rigiresearch.dt.experimentation.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * A piecewise-constant arrival rate, used to sample non-homogeneous Poisson
+ * arrivals by inversion of the cumulative rate function.
+ *
+ * <p>A profile is configured as a list of {@code start:rate} pairs, where
+ * {@code start} is the simulation time at which the rate takes effect and
+ * {@code rate} is the number of arrivals per time unit. For example,
+ * {@code T31s.PCA2.passenger.profile=0:0.01,3600:0.05,10800:0.02}. The first
+ * period must start at 0. The last rate is kept indefinitely, unless a period
+ * is configured (e.g., {@code T31s.PCA2.passenger.profile.period=86400}), in
+ * which case the profile repeats itself.</p>
+ *
+ * <p>Rate and cumulative-rate lookups use precomputed uniform grids over the
+ * time and the cumulative-rate axes, so sampling the next arrival takes
+ * constant time regardless of the number of periods.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class RateProfile {
+
+    /**
+     * The suffix of the configuration key defining a profile.
+     */
+    public static final String SUFFIX = "profile";
+
+    /**
+     * The maximum number of cells per lookup grid.
+     */
+    private static final int MAX_CELLS = 1 << 16;
+
+    /**
+     * The time at which each period starts.
+     */
+    private final double[] starts;
+
+    /**
+     * The arrival rate of each period.
+     */
+    private final double[] rates;
+
+    /**
+     * The cumulative rate at the start of each period, plus the cumulative
+     * rate at the end of the horizon.
+     */
+    private final double[] cumulative;
+
+    /**
+     * The length of the cycle, or 0 if the profile does not repeat.
+     */
+    private final double period;
+
+    /**
+     * The end of the finite part of the profile.
+     */
+    private final double horizon;
+
+    /**
+     * The time-axis grid.
+     */
+    private final RateProfile.Grid times;
+
+    /**
+     * The cumulative-rate-axis grid.
+     */
+    private final RateProfile.Grid masses;
+
+    /**
+     * Default constructor.
+     * @param starts The time at which each period starts, in ascending order
+     * @param rates The arrival rate of each period
+     * @param period The length of the cycle, or 0 if the profile does not
+     *  repeat
+     */
+    public RateProfile(final double[] starts, final double[] rates, final double period) {
+        RateProfile.validate(starts, rates, period);
+        this.starts = starts.clone();
+        this.rates = rates.clone();
+        this.period = period;
+        final int size = starts.length;
+        if (period > 0.0) {
+            this.horizon = period;
+        } else {
+            this.horizon = starts[size - 1];
+        }
+        this.cumulative = new double[size + 1];
+        for (int index = 0; index < size; index++) {
+            final double end;
+            if (index + 1 < size) {
+                end = starts[index + 1];
+            } else {
+                end = this.horizon;
+            }
+            this.cumulative[index + 1] = this.cumulative[index]
+                + rates[index] * (end - starts[index]);
+        }
+        this.times = new RateProfile.Grid(this.starts, size, this.horizon);
+        this.masses = new RateProfile.Grid(this.cumulative, size, this.cumulative[size]);
+    }
+
+    /**
+     * Reads a profile from the configuration, if defined.
+     * @param config The configuration options
+     * @param prefix The variable's key (e.g., {@code T31s.PCA2.passenger})
+     * @return The profile, or null if there is no profile for the variable
+     */
+    public static RateProfile from(final Configuration config, final String prefix) {
+        final String key = String.format("%s.%s", prefix, RateProfile.SUFFIX);
+        final RateProfile profile;
+        if (config.containsKey(key)) {
+            final List<String> pairs = new ArrayList<>();
+            // Support configurations with and without list delimiters
+            Arrays.stream(config.getStringArray(key))
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .forEach(pairs::add);
+            final double[] starts = new double[pairs.size()];
+            final double[] rates = new double[pairs.size()];
+            for (int index = 0; index < pairs.size(); index++) {
+                final String[] pair = pairs.get(index).split(":");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException(
+                        String.format("Expected a start:rate pair in %s", key)
+                    );
+                }
+                starts[index] = Double.parseDouble(pair[0].trim());
+                rates[index] = Double.parseDouble(pair[1].trim());
+            }
+            profile = new RateProfile(
+                starts,
+                rates,
+                config.getDouble(String.format("%s.period", key), 0.0)
+            );
+        } else {
+            profile = null;
+        }
+        return profile;
+    }
+
+    /**
+     * The arrival rate at the given time.
+     * @param time The simulation time
+     * @return A positive number, or zero
+     */
+    public double rate(final double time) {
+        return this.rates[this.segment(this.local(time))];
+    }
+
+    /**
+     * The expected number of arrivals between time 0 and the given time.
+     * @param time The simulation time
+     * @return A positive number, or zero
+     */
+    public double cumulative(final double time) {
+        final double local = this.local(time);
+        final int segment = this.segment(local);
+        final double mass = this.cumulative[segment]
+            + this.rates[segment] * (local - this.starts[segment]);
+        return this.cycles(time) * this.cumulative[this.starts.length] + mass;
+    }
+
+    /**
+     * Computes the time at which the cumulative rate reaches the given value.
+     * @param mass The cumulative rate
+     * @return The simulation time, or positive infinity if the value is never
+     *  reached
+     */
+    public double inverse(final double mass) {
+        final int size = this.starts.length;
+        final double total = this.cumulative[size];
+        final double time;
+        if (this.period > 0.0) {
+            if (total <= 0.0) {
+                time = Double.POSITIVE_INFINITY;
+            } else {
+                final double cycles = Math.floor(mass / total);
+                time = cycles * this.period + this.local(mass - cycles * total, total);
+            }
+        } else if (mass >= total) {
+            // Beyond the last period start, the last rate holds indefinitely
+            final double rate = this.rates[size - 1];
+            if (rate > 0.0) {
+                time = this.starts[size - 1] + (mass - total) / rate;
+            } else {
+                time = Double.POSITIVE_INFINITY;
+            }
+        } else {
+            time = this.local(mass, total);
+        }
+        return time;
+    }
+
+    /**
+     * Samples the next arrival time.
+     * @param time The current simulation time
+     * @param exponential A sample from an exponential distribution with mean 1
+     * @return The next arrival time, or positive infinity if there are no more
+     *  arrivals
+     */
+    public double next(final double time, final double exponential) {
+        return this.inverse(this.cumulative(time) + exponential);
+    }
+
+    /**
+     * Inverts the cumulative rate within the finite part of the profile.
+     * @param mass The cumulative rate, less than the total
+     * @param total The cumulative rate at the end of the horizon
+     * @return The corresponding time
+     */
+    private double local(final double mass, final double total) {
+        // Zero-rate periods are skipped because their mass is zero
+        int segment = this.masses.lookup(Math.min(mass, total));
+        while (this.rates[segment] <= 0.0 && segment + 1 < this.starts.length) {
+            segment++;
+        }
+        return this.starts[segment] + (mass - this.cumulative[segment]) / this.rates[segment];
+    }
+
+    /**
+     * Translates a time into the profile's first cycle.
+     * @param time The simulation time
+     * @return A time within the first cycle
+     */
+    private double local(final double time) {
+        final double local;
+        if (this.period > 0.0) {
+            local = time - this.cycles(time) * this.period;
+        } else {
+            local = time;
+        }
+        return local;
+    }
+
+    /**
+     * The number of full cycles before the given time.
+     * @param time The simulation time
+     * @return A positive number, or zero
+     */
+    private double cycles(final double time) {
+        final double cycles;
+        if (this.period > 0.0) {
+            cycles = Math.floor(time / this.period);
+        } else {
+            cycles = 0.0;
+        }
+        return cycles;
+    }
+
+    /**
+     * Finds the period containing the given time.
+     * @param time A time within the first cycle
+     * @return The index of the period
+     */
+    private int segment(final double time) {
+        final int segment;
+        if (time >= this.horizon && this.period <= 0.0) {
+            segment = this.starts.length - 1;
+        } else {
+            segment = this.times.lookup(time);
+        }
+        return segment;
+    }
+
+    /**
+     * Checks the profile's preconditions.
+     * @param starts The time at which each period starts
+     * @param rates The arrival rate of each period
+     * @param period The length of the cycle
+     */
+    private static void validate(final double[] starts, final double[] rates,
+        final double period) {
+        if (starts.length == 0 || starts.length != rates.length) {
+            throw new IllegalArgumentException(
+                "Expected the same non-zero number of starts and rates"
+            );
+        }
+        if (starts[0] != 0.0) {
+            throw new IllegalArgumentException("The first period must start at 0");
+        }
+        for (int index = 0; index < starts.length; index++) {
+            if (rates[index] < 0.0) {
+                throw new IllegalArgumentException(
+                    String.format("Negative rate %f", rates[index])
+                );
+            }
+            if (index > 0 && starts[index] <= starts[index - 1]) {
+                throw new IllegalArgumentException(
+                    "Period starts must be in strictly ascending order"
+                );
+            }
+        }
+        if (period > 0.0 && period <= starts[starts.length - 1]) {
+            throw new IllegalArgumentException(
+                "The period must be greater than the last period start"
+            );
+        }
+    }
+
+    /**
+     * A uniform grid mapping values to the interval that contains them.
+     */
+    private static final class Grid {
+
+        /**
+         * The (non-decreasing) lower bound of each interval.
+         */
+        private final double[] bounds;
+
+        /**
+         * The number of intervals.
+         */
+        private final int size;
+
+        /**
+         * The width of each cell.
+         */
+        private final double width;
+
+        /**
+         * The first interval overlapping each cell.
+         */
+        private final int[] index;
+
+        /**
+         * Default constructor.
+         * @param bounds The lower bound of each interval
+         * @param size The number of intervals
+         * @param end The upper bound of the last interval
+         */
+        Grid(final double[] bounds, final int size, final double end) {
+            this.bounds = bounds;
+            this.size = size;
+            double min = Double.POSITIVE_INFINITY;
+            for (int count = 0; count < size; count++) {
+                final double upper;
+                if (count + 1 < size) {
+                    upper = bounds[count + 1];
+                } else {
+                    upper = end;
+                }
+                final double length = upper - bounds[count];
+                if (length > 0.0) {
+                    min = Math.min(min, length);
+                }
+            }
+            if (Double.isInfinite(min) || end <= 0.0) {
+                this.width = 1.0;
+                this.index = new int[] {0};
+            } else {
+                final int cells = (int) Math.min(
+                    RateProfile.MAX_CELLS,
+                    Math.ceil(end / min) + 1
+                );
+                this.width = end / (cells - 1);
+                this.index = new int[cells];
+                int interval = 0;
+                for (int cell = 0; cell < cells; cell++) {
+                    final double value = cell * this.width;
+                    while (interval + 1 < size && bounds[interval + 1] <= value) {
+                        interval++;
+                    }
+                    this.index[cell] = interval;
+                }
+            }
+        }
+
+        /**
+         * Finds the interval containing the given value.
+         * @param value A value between 0 and the upper bound
+         * @return The index of the interval
+         */
+        int lookup(final double value) {
+            final int cell = Math.max(
+                0,
+                Math.min((int) (value / this.width), this.index.length - 1)
+            );
+            int interval = this.index[cell];
+            // Unless the grid was capped, this loops at most once
+            while (interval + 1 < this.size && this.bounds[interval + 1] <= value) {
+                interval++;
+            }
+            return interval;
+        }
+
+    }
+
+}
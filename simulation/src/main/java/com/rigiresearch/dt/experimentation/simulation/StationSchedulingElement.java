@@ -4,6 +4,10 @@ import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import com.rigiresearch.dt.experimentation.simulation.graph.Segment;
 import com.rigiresearch.dt.experimentation.simulation.graph.Station;
 import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.dt.experimentation.simulation.metrics.TimeWeightedStatistic;
+import com.rigiresearch.dt.experimentation.simulation.profiling.EventProfile;
+import com.rigiresearch.dt.experimentation.simulation.trace.BusTrace;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
@@ -12,6 +16,7 @@ import java.util.stream.Collectors;
 import jsl.modeling.elements.entity.EntityType;
 import jsl.modeling.elements.variable.RandomVariable;
 import jsl.simulation.JSLEvent;
+import jsl.simulation.ModelElement;
 import jsl.simulation.SchedulingElement;
 import jsl.utilities.statistic.Statistic;
 import lombok.Getter;
@@ -44,6 +49,18 @@ public final class StationSchedulingElement extends SchedulingElement {
      */
     private final Map<Line, RandomVariable> arrivals;
 
+    /**
+     * Time-varying arrival rates for the lines that define a rate profile. For
+     * these lines, the arrival variable is a unit exponential variable.
+     */
+    private final Map<Line, RateProfile> profiles;
+
+    /**
+     * Observed arrival times for the lines starting at this station, if the
+     * simulation replays a bus trace.
+     */
+    private final Map<Line, BusTrace.Cursor> traced;
+
     /**
      * Buses available per line.
      */
@@ -65,6 +82,11 @@ public final class StationSchedulingElement extends SchedulingElement {
     @Getter
     private final DtSimulation parent;
 
+    /**
+     * The profile of the handled events.
+     */
+    private final EventProfile events;
+
     /**
      * Default constructor.
      * @param parent The parent model
@@ -77,6 +99,7 @@ public final class StationSchedulingElement extends SchedulingElement {
         this.parent = parent;
         this.config = config;
         this.node = station;
+        this.events = parent.getProfile();
         final Set<Segment> segments = station.getMetadata()
             .stream()
             .filter(Segment.class::isInstance)
@@ -90,20 +113,34 @@ public final class StationSchedulingElement extends SchedulingElement {
                         new StopSchedulingElement(this, segment.getFrom(), config)
                 )
             );
+        this.profiles = new HashMap<>(segments.size());
+        segments.forEach(segment -> {
+            final RateProfile profile = RateProfile.from(
+                config,
+                String.format(
+                    "%s.%s",
+                    segment.getLine().getName(),
+                    DtSimulation.VariableType.BUS_ARRIVAL.getName()
+                )
+            );
+            if (profile != null) {
+                this.profiles.put(segment.getLine(), profile);
+            }
+        });
         this.arrivals = segments.stream()
             .collect(
                 Collectors.toMap(
                     Segment::getLine,
-                    segment -> RandomVariableFactory
-                        .get(
-                            segment.getLine(),
-                            DtSimulation.VariableType.BUS_ARRIVAL.getName(),
-                            config,
-                            this.node.getName()
-                        )
-                        .apply(this)
+                    segment -> this.arrivalVariable(segment.getLine(), config)
                 )
             );
+        this.traced = new HashMap<>(segments.size());
+        parent.trace().ifPresent(trace ->
+            segments.forEach(segment ->
+                trace.stream(segment.getLine().getName(), segment.getFrom().getName())
+                    .ifPresent(stream -> this.traced.put(segment.getLine(), stream.cursor()))
+            )
+        );
         this.buses = segments.stream()
             // Create buses only if the line starts in this station
             .filter(tmp -> tmp.getLine().getFrom().equals(this.node))
@@ -128,28 +165,7 @@ public final class StationSchedulingElement extends SchedulingElement {
                         );
                         final LinkedList<Bus> list = new LinkedList<>();
                         for (int count = 1; count <= fleet; count++) {
-                            final String name = String.format(
-                                "%s-bus-%d",
-                                segment.getLine().getName(),
-                                count
-                            );
-                            list.add(
-                                new Bus(
-                                    new EntityType(
-                                        this,
-                                        name
-                                    ),
-                                    segment.getLine(),
-                                    name,
-                                    this.config.getInt(
-                                        String.format(
-                                            "%s.%s",
-                                            segment.getLine().getName(),
-                                            DtSimulation.VariableType.CAPACITY.getName()
-                                        )
-                                    )
-                                )
-                            );
+                            list.add(this.bus(segment.getLine(), count));
                         }
                         return list;
                     }
@@ -157,6 +173,56 @@ public final class StationSchedulingElement extends SchedulingElement {
             );
     }
 
+    /**
+     * Creates a bus for the given line.
+     * @param line The line
+     * @param number The bus number, unique within the line
+     * @return A non-null bus
+     */
+    private Bus bus(final Line line, final int number) {
+        final String name = String.format("%s-bus-%d", line.getName(), number);
+        return new Bus(
+            new EntityType(this, name),
+            line,
+            name,
+            this.config.getInt(
+                String.format(
+                    "%s.%s",
+                    line.getName(),
+                    DtSimulation.VariableType.CAPACITY.getName()
+                )
+            )
+        );
+    }
+
+    /**
+     * Creates the arrival variable for the given line.
+     * @param line The line
+     * @param config The simulation configuration
+     * @return A non-null random variable
+     */
+    private RandomVariable arrivalVariable(final Line line, final Configuration config) {
+        final Function<ModelElement, RandomVariable> function;
+        if (this.profiles.containsKey(line)) {
+            function = RandomVariableFactory.unitExponential(
+                String.format(
+                    "RV-%s-%s-%s",
+                    DtSimulation.VariableType.BUS_ARRIVAL.getName(),
+                    line.getName(),
+                    this.node.getName()
+                )
+            );
+        } else {
+            function = RandomVariableFactory.get(
+                line,
+                DtSimulation.VariableType.BUS_ARRIVAL.getName(),
+                config,
+                this.node.getName()
+            );
+        }
+        return function.apply(this);
+    }
+
     /**
      * Updates the links of each stop.
      */
@@ -170,6 +236,7 @@ public final class StationSchedulingElement extends SchedulingElement {
      */
     @Override
     public void initialize() {
+        this.traced.values().forEach(BusTrace.Cursor::reset);
         this.stops.forEach(
             (line, stop) -> {
                 // Schedule buses only if the line starts at this station
@@ -189,15 +256,67 @@ public final class StationSchedulingElement extends SchedulingElement {
     }
 
     /**
-     * Schedules a bus for a particular line.
+     * Schedules a bus for a particular line. Lines replaying a bus trace
+     * schedule every observed arrival, regardless of the configured fleet,
+     * and each bus carries the index of its observed trip.
      * @param line The line
      */
     private void scheduleBus(final Line line) {
-        this.scheduleEvent(
-            this::handleBusArrival,
-            this.arrivals.get(line).getValue(),
-            this.buses.get(line).poll()
-        );
+        final BusTrace.Cursor cursor = this.traced.get(line);
+        final RateProfile profile = this.profiles.get(line);
+        final double delay;
+        final Bus bus;
+        if (cursor == null && profile == null) {
+            delay = this.arrivals.get(line).getValue();
+            bus = this.buses.get(line).poll();
+        } else if (cursor == null) {
+            final double next = profile.next(this.getTime(), this.arrivals.get(line).getValue());
+            if (Double.isInfinite(next)) {
+                DtSimulation.log(
+                    StationSchedulingElement.LOGGER,
+                    this.getTime(),
+                    line,
+                    this.node,
+                    "The arrival rate remains zero from now on"
+                );
+                return;
+            }
+            delay = next - this.getTime();
+            bus = this.buses.get(line).poll();
+        } else if (cursor.hasNextArrival()) {
+            final int trip = cursor.position();
+            // Observed arrivals are absolute, and buses may have been delayed
+            delay = Math.max(0.0, cursor.nextArrival() - this.getTime());
+            bus = this.replayedBus(line, trip);
+        } else {
+            DtSimulation.log(
+                StationSchedulingElement.LOGGER,
+                this.getTime(),
+                line,
+                this.node,
+                "No more observed arrivals"
+            );
+            return;
+        }
+        this.events.scheduled();
+        this.scheduleEvent(this::handleBusArrival, delay, bus);
+    }
+
+    /**
+     * Takes a bus from the fleet to replay an observed trip, or creates a new
+     * one if the whole fleet is on the road.
+     * @param line The line
+     * @param trip The index of the observed trip
+     * @return A non-null bus
+     */
+    private Bus replayedBus(final Line line, final int trip) {
+        Bus bus = this.buses.get(line).poll();
+        if (bus == null) {
+            // Buses are numbered from 1, and trips before this one used a bus each
+            bus = this.bus(line, trip + 1);
+        }
+        bus.setTrip(trip);
+        return bus;
     }
 
     /**
@@ -206,10 +325,16 @@ public final class StationSchedulingElement extends SchedulingElement {
      * @param event The event containing the bus arriving at this station
      */
     private void handleBusArrival(final JSLEvent<Bus> event) {
-        final Bus bus = event.getMessage();
-        this.handleBusArrival(bus);
-        if (!this.buses.get(bus.getLine()).isEmpty()) {
-            this.scheduleBus(bus.getLine());
+        final long start = this.events.start(EventProfile.Handler.BUS_ARRIVAL);
+        try {
+            final Bus bus = event.getMessage();
+            final Line line = bus.getLine();
+            this.handleBusArrival(bus);
+            if (this.traced.containsKey(line) || !this.buses.get(line).isEmpty()) {
+                this.scheduleBus(line);
+            }
+        } finally {
+            this.events.stop(EventProfile.Handler.BUS_ARRIVAL, start);
         }
     }
 
@@ -252,7 +377,7 @@ public final class StationSchedulingElement extends SchedulingElement {
      * station.
      * @return A non-null, possibly empty map
      */
-    public Map<Stop, Statistic> busQueueLengths() {
+    public Map<Stop, TimeWeightedStatistic> busQueueLengths() {
         return this.stops.values()
             .stream()
             .collect(
@@ -268,7 +393,7 @@ public final class StationSchedulingElement extends SchedulingElement {
      * through this station.
      * @return A non-null, possibly empty map
      */
-    public Map<Line, Statistic> passengerQueueLength() {
+    public Map<Line, TimeWeightedStatistic> passengerQueueLength() {
         return this.statisticsPerLine(StopSchedulingElement::passengerQueueLengths);
     }
 
@@ -293,10 +418,11 @@ public final class StationSchedulingElement extends SchedulingElement {
     /**
      * Returns statistics for each line passing through this station.
      * @param method The method reference to obtain the statistic
+     * @param <T> The type of statistic
      * @return A non-null, possibly empty map
      */
-    public Map<Line, Statistic> statisticsPerLine(
-        final Function<StopSchedulingElement, Map<Line, Statistic>> method) {
+    public <T> Map<Line, T> statisticsPerLine(
+        final Function<StopSchedulingElement, Map<Line, T>> method) {
         return this.stops.values()
             .stream()
             .map(method)
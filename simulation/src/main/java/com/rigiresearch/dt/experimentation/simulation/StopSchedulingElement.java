@@ -3,8 +3,13 @@ package com.rigiresearch.dt.experimentation.simulation;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import com.rigiresearch.dt.experimentation.simulation.graph.Segment;
 import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.dt.experimentation.simulation.metrics.TimeWeightedStatistic;
+import com.rigiresearch.dt.experimentation.simulation.observation.ObservationSink;
+import com.rigiresearch.dt.experimentation.simulation.profiling.EventProfile;
+import com.rigiresearch.dt.experimentation.simulation.trace.BusTrace;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -54,6 +59,7 @@ public final class StopSchedulingElement extends SchedulingElement {
     /**
      * Line-Stop models encapsulated in this stop model.
      */
+    @Getter
     private final Map<Line, LineStopSchedulingElement> models;
 
     /**
@@ -61,6 +67,11 @@ public final class StopSchedulingElement extends SchedulingElement {
      */
     private final Map<Line, RandomVariable> services;
 
+    /**
+     * Observed service times per line, if the simulation replays a bus trace.
+     */
+    private final Map<Line, BusTrace.Stream> traced;
+
     /**
      * The parent model.
      */
@@ -78,10 +89,15 @@ public final class StopSchedulingElement extends SchedulingElement {
     private Map<Line, Statistic> headways;
 
     /**
-     * Bus queue length statistic.
+     * Time-weighted bus queue length statistic.
      */
     @Getter
-    private final Statistic ql;
+    private final TimeWeightedStatistic ql;
+
+    /**
+     * The profile of the handled events.
+     */
+    private final EventProfile events;
 
     /**
      * Default constructor.
@@ -95,11 +111,14 @@ public final class StopSchedulingElement extends SchedulingElement {
         this.parent = parent;
         this.config = config;
         this.node = stop;
+        this.events = parent.getParent().getProfile();
         this.service =
             new Queue<>(this, String.format("ST-%s", stop.getName()));
         this.service.setInitialDiscipline(Queue.Discipline.FIFO);
-        this.ql = new Statistic(String.format("BQL-%s", stop.getName()));
-        this.ql.setSaveOption(true);
+        this.ql = new TimeWeightedStatistic(
+            String.format("BQL-%s", stop.getName()),
+            config.getDouble(DtSimulation.QUEUE_INTERVAL_KEY, 0.0)
+        );
         // First, find lines stopping at this stop
         final Set<Line> lines = stop.getStation()
             .getMetadata()
@@ -111,6 +130,13 @@ public final class StopSchedulingElement extends SchedulingElement {
             .collect(Collectors.toSet());
         this.models = this.initializeModels(lines);
         this.services = this.initializeServiceTimeVars(lines);
+        this.traced = new HashMap<>(lines.size());
+        parent.getParent().trace().ifPresent(trace ->
+            lines.forEach(line ->
+                trace.stream(line.getName(), stop.getName())
+                    .ifPresent(stream -> this.traced.put(line, stream))
+            )
+        );
         this.times = lines.stream()
             .collect(
                 Collectors.toMap(
@@ -165,15 +191,29 @@ public final class StopSchedulingElement extends SchedulingElement {
         }
     }
 
+    @Override
+    public void initialize() {
+        this.ql.restart();
+    }
+
+    @Override
+    public void replicationEnded() {
+        // Account for the time elapsed since the last change. Any line
+        // serves to report the queue length of this stop
+        this.models.keySet()
+            .stream()
+            .findFirst()
+            .ifPresent(this::updateQueueLength);
+    }
+
     /**
      * Enqueues a bus arriving at this stop.
      * @param bus The arriving bus
      */
     public void handleBusArrival(final Bus bus) {
-        // Collect the queue length when a bus arrives
-        this.ql.collect((double) this.service.size());
         final boolean empty = this.service.isEmpty();
         this.service.enqueue(bus);
+        this.updateQueueLength(bus.getLine());
         this.computeObservedHeadway(bus.getLine());
         if (empty) {
             DtSimulation.log(
@@ -185,14 +225,48 @@ public final class StopSchedulingElement extends SchedulingElement {
                 "Bus %s is ready to onboard passengers",
                 bus.getName()
             );
+            this.events.scheduled();
             this.scheduleEvent(
                 this::handleBusDeparture,
-                this.services.get(bus.getLine()),
+                this.serviceTime(bus),
                 bus
             );
         }
     }
 
+    /**
+     * Determines the service time of the given bus, either from its observed
+     * trip or from the configured distribution. Trips that were not observed
+     * at this stop are sampled as well.
+     * @param bus The bus
+     * @return A positive number, or zero
+     */
+    private double serviceTime(final Bus bus) {
+        final BusTrace.Stream stream = this.traced.get(bus.getLine());
+        final double time;
+        if (stream != null && bus.getTrip() >= 0 && bus.getTrip() < stream.size()) {
+            time = stream.service(bus.getTrip());
+        } else {
+            time = this.services.get(bus.getLine()).getValue();
+        }
+        return time;
+    }
+
+    /**
+     * Updates the queue length statistic after the service queue changes.
+     * @param line The line of the bus that caused the change
+     */
+    private void updateQueueLength(final Line line) {
+        this.ql.update(this.getTime(), this.service.size());
+        this.parent.getParent().observe(
+            ObservationSink.Metric.BUS_QUEUE,
+            this.getTime(),
+            line,
+            this.node,
+            this.service.size()
+        );
+    }
+
     /**
      * Computes the observed headway based on the last registered time for the
      * current bus's line.
@@ -203,6 +277,13 @@ public final class StopSchedulingElement extends SchedulingElement {
         final Double now = this.getTime();
         this.headways.get(line)
             .collect(now - last);
+        this.parent.getParent().observe(
+            ObservationSink.Metric.HEADWAY,
+            now,
+            line,
+            this.node,
+            now - last
+        );
         this.times.put(line, now);
     }
 
@@ -211,46 +292,53 @@ public final class StopSchedulingElement extends SchedulingElement {
      * @param event The event containing the bus departing from this stop
      */
     public void handleBusDeparture(final JSLEvent<Bus> event) {
-        final Bus bus = event.getMessage();
-        if (this.service.isNotEmpty()) {
-            final Bus next = this.service.removeFirst();
-            if (bus.equals(next)) {
-                this.models.get(bus.getLine())
-                    .handleBusDeparture(bus);
-                if (this.service.isNotEmpty()) {
-                    DtSimulation.log(
-                        StopSchedulingElement.LOGGER,
-                        this.getTime(),
-                        this.service.peekFirst().getLine(),
-                        this.node.getStation(),
-                        this.node,
-                        "Bus %s is ready to onboard passengers",
-                        this.service.peekFirst().getName()
-                    );
-                    this.scheduleEvent(
-                        this::handleBusDeparture,
-                        this.services.get(this.service.peekFirst().getLine()),
-                        this.service.peekFirst()
+        final long start = this.events.start(EventProfile.Handler.BUS_DEPARTURE);
+        try {
+            final Bus bus = event.getMessage();
+            if (this.service.isNotEmpty()) {
+                final Bus next = this.service.removeFirst();
+                this.updateQueueLength(next.getLine());
+                if (bus.equals(next)) {
+                    this.models.get(bus.getLine())
+                        .handleBusDeparture(bus);
+                    if (this.service.isNotEmpty()) {
+                        DtSimulation.log(
+                            StopSchedulingElement.LOGGER,
+                            this.getTime(),
+                            this.service.peekFirst().getLine(),
+                            this.node.getStation(),
+                            this.node,
+                            "Bus %s is ready to onboard passengers",
+                            this.service.peekFirst().getName()
+                        );
+                        this.events.scheduled();
+                        this.scheduleEvent(
+                            this::handleBusDeparture,
+                            this.serviceTime(this.service.peekFirst()),
+                            this.service.peekFirst()
+                        );
+                    }
+                } else {
+                    throw new IllegalStateException(
+                        String.format(
+                            "Object mismatch at stop %s. The bus leaving the stop "
+                                + "was %s, but bus %s was at the front of the queue.",
+                            this.getName(),
+                            bus.getName(),
+                            next.getName()
+                        )
                     );
                 }
             } else {
                 throw new IllegalStateException(
                     String.format(
-                        "Object mismatch at stop %s. The bus leaving the stop "
-                            + "was %s, but bus %s was at the front of the queue.",
-                        this.getName(),
-                        bus.getName(),
-                        next.getName()
+                        "Bus %s arrived but the service queue was empty",
+                        bus
                     )
                 );
             }
-        } else {
-            throw new IllegalStateException(
-                String.format(
-                    "Bus %s arrived but the service queue was empty",
-                    bus
-                )
-            );
+        } finally {
+            this.events.stop(EventProfile.Handler.BUS_DEPARTURE, start);
         }
     }
 
@@ -305,17 +393,18 @@ public final class StopSchedulingElement extends SchedulingElement {
      * through this stop.
      * @return A non-null, possibly empty map
      */
-    public Map<Line, Statistic> passengerQueueLengths() {
+    public Map<Line, TimeWeightedStatistic> passengerQueueLengths() {
         return this.statisticsPerLine(LineStopSchedulingElement::getQl);
     }
 
     /**
      * Returns statistics for each line passing through this stop.
      * @param method The method reference to obtain the statistic
+     * @param <T> The type of statistic
      * @return A non-null, possibly empty map
      */
-    private Map<Line, Statistic> statisticsPerLine(
-        final Function<LineStopSchedulingElement, Statistic> method) {
+    private <T> Map<Line, T> statisticsPerLine(
+        final Function<LineStopSchedulingElement, T> method) {
         return this.models.entrySet()
             .stream()
             .collect(
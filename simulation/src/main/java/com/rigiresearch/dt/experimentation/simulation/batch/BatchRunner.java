@@ -0,0 +1,186 @@
+package com.rigiresearch.dt.experimentation.simulation.batch;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ModelCache;
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationJob;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationRunner;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs every replication of every scenario of a manifest across a pool of
+ * workers, and writes the summaries of each run as soon as it completes.
+ *
+ * <p>Each run is a single replication of a scenario, so that the
+ * replications of a scenario also run concurrently. Scenarios are read
+ * lazily and at most {@link #QUEUE_PER_WORKER} runs per worker are pending
+ * at any time, so memory does not grow with the size of the manifest. The
+ * first failed run stops the batch.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class BatchRunner {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchRunner.class);
+
+    /**
+     * The number of runs that may wait for a worker, per worker.
+     */
+    private static final int QUEUE_PER_WORKER = 4;
+
+    /**
+     * The job runner.
+     */
+    private final SimulationRunner runner;
+
+    /**
+     * The number of concurrent runs.
+     */
+    private final int workers;
+
+    /**
+     * Default constructor.
+     * @param runner The job runner
+     * @param workers The number of concurrent runs
+     */
+    public BatchRunner(final SimulationRunner runner, final int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException(
+                String.format("Expected at least one worker but got %d", workers)
+            );
+        }
+        this.runner = runner;
+        this.workers = workers;
+    }
+
+    /**
+     * Main entry point. Use
+     * {@code <job> <manifest> <results> [workers]}, where the job is a
+     * {@link SimulationJob} in the properties format, the manifest is read by
+     * {@link ScenarioReader}, and the results are written in the format
+     * chosen by {@link SummaryWriter#open(Path)}.
+     * @param args The application arguments
+     * @throws IOException If the files cannot be read or written
+     * @throws InterruptedException If interrupted while waiting for the runs
+     */
+    public static void main(final String... args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException(
+                "Expected three arguments: a path to the job properties, a path to"
+                    + " the manifest, and a path to the results file"
+            );
+        }
+        final int workers;
+        if (args.length > 3) {
+            workers = Integer.parseInt(args[3]);
+        } else {
+            workers = Runtime.getRuntime().availableProcessors();
+        }
+        final SimulationJob job;
+        try (InputStream input = Files.newInputStream(Paths.get(args[0]))) {
+            job = SimulationJob.parse(input);
+        }
+        final long runs;
+        try (ScenarioReader scenarios = new ScenarioReader(Paths.get(args[1]));
+            SummaryWriter writer = SummaryWriter.open(Paths.get(args[2]))) {
+            runs = new BatchRunner(new SimulationRunner(new ModelCache()), workers)
+                .run(job, scenarios, writer);
+        }
+        BatchRunner.LOGGER.info("Completed {} runs", runs);
+    }
+
+    /**
+     * Runs the replications of each scenario.
+     * @param job The base job, whose overrides apply to every scenario
+     * @param scenarios The scenarios
+     * @param writer The writer receiving the summaries of each run
+     * @return The number of completed runs
+     * @throws InterruptedException If interrupted while waiting for the runs
+     */
+    public long run(final SimulationJob job, final Iterator<Scenario> scenarios,
+        final SummaryWriter writer) throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(this.workers);
+        final Semaphore permits = new Semaphore(this.workers * BatchRunner.QUEUE_PER_WORKER);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong completed = new AtomicLong();
+        try {
+            while (scenarios.hasNext() && failure.get() == null) {
+                final Scenario scenario = scenarios.next();
+                final SimulationJob variant = BatchRunner.variant(job, scenario);
+                for (int replica = 1; replica <= job.getReplications(); replica++) {
+                    permits.acquire();
+                    if (failure.get() != null) {
+                        break;
+                    }
+                    final int number = replica;
+                    executor.execute(() -> {
+                        try {
+                            final List<ReplicationSummary> summaries = new ArrayList<>();
+                            this.runner.run(variant, number, summaries::add);
+                            synchronized (writer) {
+                                writer.write(scenario.getName(), summaries);
+                            }
+                            completed.incrementAndGet();
+                        } catch (final IOException | RuntimeException exception) {
+                            failure.compareAndSet(null, exception);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException(
+                String.format("The batch stopped after %d runs", completed.get()),
+                failure.get()
+            );
+        }
+        return completed.get();
+    }
+
+    /**
+     * Creates the job of a scenario.
+     * @param job The base job
+     * @param scenario The scenario
+     * @return A new job
+     */
+    private static SimulationJob variant(final SimulationJob job, final Scenario scenario) {
+        final Map<String, String> overrides = new HashMap<>(job.getOverrides());
+        overrides.putAll(scenario.getOverrides());
+        return new SimulationJob(
+            job.getGraph(),
+            job.getConfig(),
+            overrides,
+            job.getReplications(),
+            job.getLength(),
+            job.getWarmUp(),
+            job.getEngine(),
+            job.getSeed()
+        );
+    }
+
+}
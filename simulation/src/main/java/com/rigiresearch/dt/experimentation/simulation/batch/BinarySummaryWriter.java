@@ -0,0 +1,73 @@
+package com.rigiresearch.dt.experimentation.simulation.batch;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes replication summaries in a compact binary format, readable with a
+ * {@link java.io.DataInputStream}. The file starts with the magic number
+ * {@link #MAGIC}, followed by one record per scenario, replication and line:
+ * the scenario name and the line name (as modified UTF-8 strings), the
+ * replication number (an int), and the waiting time, headway, headway
+ * coefficient of variation, and average and variance of the excess waiting
+ * time (as doubles), all in big-endian order.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class BinarySummaryWriter implements SummaryWriter {
+
+    /**
+     * The extension of binary results files.
+     */
+    public static final String EXTENSION = ".bin";
+
+    /**
+     * The first bytes of a binary results file ("DTRS").
+     */
+    public static final int MAGIC = 0x44545253;
+
+    /**
+     * The file output.
+     */
+    private final DataOutputStream output;
+
+    /**
+     * Default constructor.
+     * @param path The path to the results file
+     * @throws IOException If the file cannot be created
+     */
+    public BinarySummaryWriter(final Path path) throws IOException {
+        this.output = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(path))
+        );
+        this.output.writeInt(BinarySummaryWriter.MAGIC);
+    }
+
+    @Override
+    public void write(final String scenario, final List<ReplicationSummary> summaries)
+        throws IOException {
+        for (final ReplicationSummary summary : summaries) {
+            this.output.writeUTF(scenario);
+            this.output.writeUTF(summary.getLine());
+            this.output.writeInt(summary.getReplica());
+            this.output.writeDouble(summary.getWaiting());
+            this.output.writeDouble(summary.getHeadway());
+            this.output.writeDouble(summary.getHcv());
+            this.output.writeDouble(summary.getEwtAverage());
+            this.output.writeDouble(summary.getEwtVariance());
+        }
+        this.output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.output.close();
+    }
+
+}
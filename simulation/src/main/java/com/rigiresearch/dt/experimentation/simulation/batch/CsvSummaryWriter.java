@@ -0,0 +1,71 @@
+package com.rigiresearch.dt.experimentation.simulation.batch;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes replication summaries as comma-separated values, one row per
+ * scenario, replication and line.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class CsvSummaryWriter implements SummaryWriter {
+
+    /**
+     * The column names.
+     */
+    public static final String HEADER =
+        "scenario,replica,line,waiting,headway,hcv,ewt.a,ewt.v";
+
+    /**
+     * The file writer.
+     */
+    private final BufferedWriter writer;
+
+    /**
+     * Default constructor.
+     * @param path The path to the results file
+     * @throws IOException If the file cannot be created
+     */
+    public CsvSummaryWriter(final Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        this.writer.write(CsvSummaryWriter.HEADER);
+        this.writer.newLine();
+    }
+
+    @Override
+    public void write(final String scenario, final List<ReplicationSummary> summaries)
+        throws IOException {
+        for (final ReplicationSummary summary : summaries) {
+            this.writer.write(
+                String.format(
+                    Locale.ROOT,
+                    "%s,%d,%s,%f,%f,%f,%f,%f",
+                    scenario,
+                    summary.getReplica(),
+                    summary.getLine(),
+                    summary.getWaiting(),
+                    summary.getHeadway(),
+                    summary.getHcv(),
+                    summary.getEwtAverage(),
+                    summary.getEwtVariance()
+                )
+            );
+            this.writer.newLine();
+        }
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+}
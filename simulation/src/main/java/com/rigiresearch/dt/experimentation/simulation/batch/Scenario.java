@@ -0,0 +1,26 @@
+package com.rigiresearch.dt.experimentation.simulation.batch;
+
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * A variant of a simulation job, described by the simulation properties it
+ * replaces.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Value
+public class Scenario {
+
+    /**
+     * The scenario name.
+     */
+    String name;
+
+    /**
+     * Simulation properties that replace the ones of the base job.
+     */
+    Map<String, String> overrides;
+
+}
@@ -0,0 +1,165 @@
+package com.rigiresearch.dt.experimentation.simulation.batch;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the scenarios of a manifest one at a time, so that manifests of any
+ * size can be run without loading them.
+ *
+ * <p>A manifest is a comma-separated file whose first row names the
+ * simulation properties to replace, and whose other rows are the values of
+ * each scenario. A column named {@value #NAME} gives the scenario name;
+ * otherwise, scenarios are named after their row number. Blank rows and rows
+ * starting with {@code #} are ignored. For example:</p>
+ * <pre>
+ * scenario,T31s.headway,T31s.fleet
+ * slow,600,4
+ * fast,300,8
+ * </pre>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class ScenarioReader implements Iterator<Scenario>, Closeable {
+
+    /**
+     * The name of the column containing the scenario names.
+     */
+    public static final String NAME = "scenario";
+
+    /**
+     * The manifest reader.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * The column names.
+     */
+    private final String[] columns;
+
+    /**
+     * The number of rows read so far, including the header.
+     */
+    private int row;
+
+    /**
+     * The next scenario, or null.
+     */
+    private Scenario next;
+
+    /**
+     * Default constructor.
+     * @param manifest The path to the manifest
+     * @throws IOException If the manifest cannot be read
+     */
+    public ScenarioReader(final Path manifest) throws IOException {
+        this.reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8);
+        final String header = this.line();
+        if (header == null) {
+            this.reader.close();
+            throw new IllegalArgumentException(
+                String.format("The manifest %s has no header", manifest)
+            );
+        }
+        this.columns = ScenarioReader.split(header);
+        this.next = this.read();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.next != null;
+    }
+
+    @Override
+    public Scenario next() {
+        if (this.next == null) {
+            throw new NoSuchElementException("There are no more scenarios");
+        }
+        final Scenario current = this.next;
+        this.next = this.read();
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    /**
+     * Reads the next scenario.
+     * @return A scenario, or null if there are no more rows
+     */
+    private Scenario read() {
+        final String line;
+        try {
+            line = this.line();
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        if (line == null) {
+            return null;
+        }
+        final String[] values = ScenarioReader.split(line);
+        if (values.length != this.columns.length) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Expected %d values in row %d but got %d",
+                    this.columns.length,
+                    this.row,
+                    values.length
+                )
+            );
+        }
+        String name = Integer.toString(this.row - 1);
+        final Map<String, String> overrides = new HashMap<>(values.length);
+        for (int index = 0; index < values.length; index++) {
+            if (ScenarioReader.NAME.equals(this.columns[index])) {
+                name = values[index];
+            } else {
+                overrides.put(this.columns[index], values[index]);
+            }
+        }
+        return new Scenario(name, Collections.unmodifiableMap(overrides));
+    }
+
+    /**
+     * Reads the next row that is neither blank nor a comment.
+     * @return The row, or null if the manifest ended
+     * @throws IOException If the manifest cannot be read
+     */
+    private String line() throws IOException {
+        String line = this.reader.readLine();
+        while (line != null && (line.trim().isEmpty() || line.startsWith("#"))) {
+            line = this.reader.readLine();
+        }
+        if (line != null) {
+            this.row++;
+        }
+        return line;
+    }
+
+    /**
+     * Splits a row into its trimmed values.
+     * @param line The row
+     * @return The values
+     */
+    private static String[] split(final String line) {
+        final String[] values = line.split(",", -1);
+        for (int index = 0; index < values.length; index++) {
+            values[index] = values[index].trim();
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.rigiresearch.dt.experimentation.simulation.batch;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes the replication summaries of a batch as soon as each run completes.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public interface SummaryWriter extends Closeable {
+
+    /**
+     * Writes the summaries of a run. Implementations need not be thread-safe.
+     * @param scenario The scenario name
+     * @param summaries The summary of each line
+     * @throws IOException If the summaries cannot be written
+     */
+    void write(String scenario, List<ReplicationSummary> summaries) throws IOException;
+
+    /**
+     * Opens a writer for the given file, in the binary format if the file
+     * name ends with {@value BinarySummaryWriter#EXTENSION}, and in the CSV
+     * format otherwise.
+     * @param path The path to the results file
+     * @return A new writer
+     * @throws IOException If the file cannot be created
+     */
+    static SummaryWriter open(final Path path) throws IOException {
+        final SummaryWriter writer;
+        if (path.getFileName().toString().endsWith(BinarySummaryWriter.EXTENSION)) {
+            writer = new BinarySummaryWriter(path);
+        } else {
+            writer = new CsvSummaryWriter(path);
+        }
+        return writer;
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains classes to run many simulation scenarios in batch.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.batch;
@@ -0,0 +1,205 @@
+package com.rigiresearch.dt.experimentation.simulation.codegen;
+
+import java.util.Arrays;
+
+/**
+ * Statistics collected by a generated simulation for each line-stop pair.
+ * These correspond to the statistics collected by the line-stop and stop
+ * scheduling elements.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class CompiledResult {
+
+    /**
+     * Passenger waiting times.
+     */
+    public static final int WAITING_TIME = 0;
+
+    /**
+     * Observed headways.
+     */
+    public static final int HEADWAY = 1;
+
+    /**
+     * Passenger queue lengths, collected when a bus departs.
+     */
+    public static final int PASSENGER_QUEUE = 2;
+
+    /**
+     * Bus queue lengths, collected when a bus arrives.
+     */
+    public static final int BUS_QUEUE = 3;
+
+    /**
+     * The number of statistics per line-stop pair.
+     */
+    private static final int STATISTICS = 4;
+
+    /**
+     * The line of each line-stop pair.
+     */
+    private final String[] lines;
+
+    /**
+     * The stop of each line-stop pair.
+     */
+    private final String[] stops;
+
+    /**
+     * The number of observations per statistic and line-stop pair.
+     */
+    private final long[][] counts;
+
+    /**
+     * The running average per statistic and line-stop pair.
+     */
+    private final double[][] averages;
+
+    /**
+     * The running sum of squared differences from the average per statistic
+     * and line-stop pair.
+     */
+    private final double[][] squares;
+
+    /**
+     * The number of events processed by the replication.
+     */
+    private long events;
+
+    /**
+     * Default constructor.
+     * @param lines The line of each line-stop pair
+     * @param stops The stop of each line-stop pair
+     */
+    public CompiledResult(final String[] lines, final String[] stops) {
+        this.lines = lines;
+        this.stops = stops;
+        this.counts = new long[CompiledResult.STATISTICS][lines.length];
+        this.averages = new double[CompiledResult.STATISTICS][lines.length];
+        this.squares = new double[CompiledResult.STATISTICS][lines.length];
+    }
+
+    /**
+     * Collects an observation (Welford's algorithm).
+     * @param statistic The statistic
+     * @param pair The line-stop pair
+     * @param value The observed value
+     */
+    public void collect(final int statistic, final int pair, final double value) {
+        final long count = ++this.counts[statistic][pair];
+        final double delta = value - this.averages[statistic][pair];
+        this.averages[statistic][pair] += delta / count;
+        this.squares[statistic][pair] += delta * (value - this.averages[statistic][pair]);
+    }
+
+    /**
+     * Discards the observations collected so far, e.g., at the end of the
+     * warm-up period.
+     */
+    public void reset() {
+        for (int statistic = 0; statistic < CompiledResult.STATISTICS; statistic++) {
+            Arrays.fill(this.counts[statistic], 0L);
+            Arrays.fill(this.averages[statistic], 0.0);
+            Arrays.fill(this.squares[statistic], 0.0);
+        }
+    }
+
+    /**
+     * The number of events processed by the replication.
+     * @return A positive number, or zero
+     */
+    public long getEvents() {
+        return this.events;
+    }
+
+    /**
+     * Sets the number of events processed by the replication.
+     * @param events A positive number, or zero
+     */
+    public void setEvents(final long events) {
+        this.events = events;
+    }
+
+    /**
+     * The number of line-stop pairs.
+     * @return A positive number
+     */
+    public int size() {
+        return this.lines.length;
+    }
+
+    /**
+     * The line of the given line-stop pair.
+     * @param pair The line-stop pair
+     * @return The line name
+     */
+    public String line(final int pair) {
+        return this.lines[pair];
+    }
+
+    /**
+     * The stop of the given line-stop pair.
+     * @param pair The line-stop pair
+     * @return The stop name
+     */
+    public String stop(final int pair) {
+        return this.stops[pair];
+    }
+
+    /**
+     * The number of observations.
+     * @param statistic The statistic
+     * @param pair The line-stop pair
+     * @return A positive number, or zero
+     */
+    public long count(final int statistic, final int pair) {
+        return this.counts[statistic][pair];
+    }
+
+    /**
+     * The average of the observations.
+     * @param statistic The statistic
+     * @param pair The line-stop pair
+     * @return The average, or NaN if there are no observations
+     */
+    public double average(final int statistic, final int pair) {
+        final double average;
+        if (this.counts[statistic][pair] > 0L) {
+            average = this.averages[statistic][pair];
+        } else {
+            average = Double.NaN;
+        }
+        return average;
+    }
+
+    /**
+     * The sample variance of the observations.
+     * @param statistic The statistic
+     * @param pair The line-stop pair
+     * @return The variance, or NaN if there are less than two observations
+     */
+    public double variance(final int statistic, final int pair) {
+        final double variance;
+        if (this.counts[statistic][pair] > 1L) {
+            variance = this.squares[statistic][pair] / (this.counts[statistic][pair] - 1L);
+        } else {
+            variance = Double.NaN;
+        }
+        return variance;
+    }
+
+    /**
+     * The excess waiting time at the given line-stop pair, as computed by
+     * {@code ExcessWaitingTime}. Given the waiting time W and the designed
+     * headway H, the metric reduces to {@code Var(W) / (2H)}.
+     * @param pair The line-stop pair
+     * @param headway The designed headway
+     * @return A positive number, or NaN if there are not enough observations
+     */
+    public double excessWaitingTime(final int pair, final double headway) {
+        return this.variance(CompiledResult.WAITING_TIME, pair) / (2.0 * headway);
+    }
+
+}
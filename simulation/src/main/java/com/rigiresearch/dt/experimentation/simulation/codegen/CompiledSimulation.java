@@ -0,0 +1,61 @@
+package com.rigiresearch.dt.experimentation.simulation.codegen;
+
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * A simulation specialized for a particular graph, generated by
+ * {@link SimulationGenerator}. The graph structure and the type of each
+ * distribution are hardwired, whereas parameter values are read at run time
+ * following the schema given by {@link #parameters()}. Therefore, a single
+ * instance can evaluate many configurations of the same network.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public interface CompiledSimulation {
+
+    /**
+     * The configuration keys of the parameters expected by
+     * {@link #run(double[], long, double, double)}, in order.
+     * @return A non-null array
+     */
+    String[] parameters();
+
+    /**
+     * Runs one replication, collecting statistics from the start.
+     * @param values The parameter values, following the parameter schema
+     * @param seed The seed of the random number generator
+     * @param length The length of the replication
+     * @return The collected statistics
+     */
+    default CompiledResult run(final double[] values, final long seed, final double length) {
+        return this.run(values, seed, length, 0.0);
+    }
+
+    /**
+     * Runs one replication. As in JSL, the warm-up period is part of the
+     * replication's length, and the statistics collected during the warm-up
+     * period are discarded.
+     * @param values The parameter values, following the parameter schema
+     * @param seed The seed of the random number generator
+     * @param length The length of the replication
+     * @param warmUp The length of the warm-up period
+     * @return The statistics collected after the warm-up period
+     */
+    CompiledResult run(double[] values, long seed, double length, double warmUp);
+
+    /**
+     * Reads the parameter values from the given configuration.
+     * @param config The simulation configuration
+     * @return A non-null array, following the parameter schema
+     */
+    default double[] values(final Configuration config) {
+        final String[] keys = this.parameters();
+        final double[] values = new double[keys.length];
+        for (int index = 0; index < keys.length; index++) {
+            values[index] = config.getDouble(keys[index]);
+        }
+        return values;
+    }
+
+}
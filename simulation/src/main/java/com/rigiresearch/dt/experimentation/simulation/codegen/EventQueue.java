@@ -0,0 +1,233 @@
+package com.rigiresearch.dt.experimentation.simulation.codegen;
+
+import java.util.Arrays;
+
+/**
+ * A binary heap of events backed by primitive arrays. Events scheduled for
+ * the same time are processed in scheduling order, as in JSL.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class EventQueue {
+
+    /**
+     * The initial capacity.
+     */
+    private static final int CAPACITY = 64;
+
+    /**
+     * The time of each event.
+     */
+    private double[] times;
+
+    /**
+     * The scheduling order of each event.
+     */
+    private long[] orders;
+
+    /**
+     * The type of each event.
+     */
+    private int[] types;
+
+    /**
+     * The subject of each event (e.g., a bus).
+     */
+    private int[] subjects;
+
+    /**
+     * The number of events in the queue.
+     */
+    private int size;
+
+    /**
+     * The number of scheduled events.
+     */
+    private long scheduled;
+
+    /**
+     * The number of removed events.
+     */
+    private long processed;
+
+    /**
+     * The time of the last removed event.
+     */
+    private double now;
+
+    /**
+     * The type of the last removed event.
+     */
+    private int type;
+
+    /**
+     * The subject of the last removed event.
+     */
+    private int subject;
+
+    /**
+     * Default constructor.
+     */
+    public EventQueue() {
+        this.times = new double[EventQueue.CAPACITY];
+        this.orders = new long[EventQueue.CAPACITY];
+        this.types = new int[EventQueue.CAPACITY];
+        this.subjects = new int[EventQueue.CAPACITY];
+    }
+
+    /**
+     * Schedules an event.
+     * @param delay The time from now until the event occurs
+     * @param event The type of event
+     * @param target The subject of the event
+     */
+    public void schedule(final double delay, final int event, final int target) {
+        if (this.size == this.times.length) {
+            final int capacity = this.size * 2;
+            this.times = Arrays.copyOf(this.times, capacity);
+            this.orders = Arrays.copyOf(this.orders, capacity);
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.subjects = Arrays.copyOf(this.subjects, capacity);
+        }
+        final double time = this.now + delay;
+        final long order = this.scheduled++;
+        int index = this.size++;
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!this.before(time, order, parent)) {
+                break;
+            }
+            this.move(parent, index);
+            index = parent;
+        }
+        this.set(index, time, order, event, target);
+    }
+
+    /**
+     * Removes the next event, making it the current one.
+     * @param until The time after which events are ignored
+     * @return Whether there was an event before the given time
+     */
+    public boolean next(final double until) {
+        if (this.size == 0 || this.times[0] > until) {
+            return false;
+        }
+        this.processed++;
+        this.now = this.times[0];
+        this.type = this.types[0];
+        this.subject = this.subjects[0];
+        final int last = --this.size;
+        final double time = this.times[last];
+        final long order = this.orders[last];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= last) {
+                break;
+            }
+            if (child + 1 < last && this.before(child + 1, child)) {
+                child++;
+            }
+            if (!this.before(child, time, order)) {
+                break;
+            }
+            this.move(child, index);
+            index = child;
+        }
+        this.set(index, time, order, this.types[last], this.subjects[last]);
+        return true;
+    }
+
+    /**
+     * The current simulation time.
+     * @return A positive number, or zero
+     */
+    public double now() {
+        return this.now;
+    }
+
+    /**
+     * The number of events removed so far.
+     * @return A positive number, or zero
+     */
+    public long processed() {
+        return this.processed;
+    }
+
+    /**
+     * The type of the current event.
+     * @return The event type
+     */
+    public int type() {
+        return this.type;
+    }
+
+    /**
+     * The subject of the current event.
+     * @return The event subject
+     */
+    public int subject() {
+        return this.subject;
+    }
+
+    /**
+     * Compares a new event with an event in the queue.
+     * @param time The time of the new event
+     * @param order The order of the new event
+     * @param index The index of the queued event
+     * @return Whether the new event comes first
+     */
+    private boolean before(final double time, final long order, final int index) {
+        return time < this.times[index]
+            || time == this.times[index] && order < this.orders[index];
+    }
+
+    /**
+     * Compares a queued event with a new event.
+     * @param index The index of the queued event
+     * @param time The time of the new event
+     * @param order The order of the new event
+     * @return Whether the queued event comes first
+     */
+    private boolean before(final int index, final double time, final long order) {
+        return this.times[index] < time
+            || this.times[index] == time && this.orders[index] < order;
+    }
+
+    /**
+     * Compares two queued events.
+     * @param first The index of the first event
+     * @param second The index of the second event
+     * @return Whether the first event comes first
+     */
+    private boolean before(final int first, final int second) {
+        return this.before(first, this.times[second], this.orders[second]);
+    }
+
+    /**
+     * Moves an event within the heap.
+     * @param from The current index
+     * @param to The target index
+     */
+    private void move(final int from, final int to) {
+        this.set(to, this.times[from], this.orders[from], this.types[from], this.subjects[from]);
+    }
+
+    /**
+     * Sets an event within the heap.
+     * @param index The index
+     * @param time The event time
+     * @param order The event order
+     * @param event The event type
+     * @param target The event subject
+     */
+    private void set(final int index, final double time, final long order, final int event,
+        final int target) {
+        this.times[index] = time;
+        this.orders[index] = order;
+        this.types[index] = event;
+        this.subjects[index] = target;
+    }
+
+}
@@ -0,0 +1,342 @@
+package com.rigiresearch.dt.experimentation.simulation.codegen;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random variate generators used by generated simulations. Parameters follow
+ * the same conventions as {@code RandomVariableFactory}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class Samplers {
+
+    /**
+     * Mean above which Poisson variates are generated by transformed
+     * rejection instead of inversion.
+     */
+    private static final double POISSON_INVERSION = 30.0;
+
+    /**
+     * Lanczos approximation coefficients (g = 7, n = 9).
+     */
+    private static final double[] LANCZOS = {
+        0.99999999999980993,
+        676.5203681218851,
+        -1259.1392167224028,
+        771.32342877765313,
+        -176.61502916214059,
+        12.507343278686905,
+        -0.13857109526572012,
+        9.9843695780195716e-6,
+        1.5056327351493116e-7,
+    };
+
+    /**
+     * Utility class.
+     */
+    private Samplers() {
+    }
+
+    /**
+     * A uniform variate in (0, 1].
+     * @param random The random number generator
+     * @return A positive number
+     */
+    public static double uniform(final SplittableRandom random) {
+        return 1.0 - random.nextDouble();
+    }
+
+    /**
+     * A standard normal variate (Marsaglia's polar method).
+     * @param random The random number generator
+     * @return A number
+     */
+    public static double normal(final SplittableRandom random) {
+        double first;
+        double sum;
+        do {
+            first = 2.0 * random.nextDouble() - 1.0;
+            final double second = 2.0 * random.nextDouble() - 1.0;
+            sum = first * first + second * second;
+        } while (sum >= 1.0 || sum == 0.0);
+        return first * Math.sqrt(-2.0 * Math.log(sum) / sum);
+    }
+
+    /**
+     * A Bernoulli variate.
+     * @param random The random number generator
+     * @param prob The probability of success
+     * @return Either 0 or 1
+     */
+    public static double bernoulli(final SplittableRandom random, final double prob) {
+        final double value;
+        if (random.nextDouble() < prob) {
+            value = 1.0;
+        } else {
+            value = 0.0;
+        }
+        return value;
+    }
+
+    /**
+     * A beta variate.
+     * @param random The random number generator
+     * @param alpha1 The first shape parameter
+     * @param alpha2 The second shape parameter
+     * @return A number between 0 and 1
+     */
+    public static double beta(final SplittableRandom random, final double alpha1,
+        final double alpha2) {
+        final double first = Samplers.gamma(random, alpha1, 1.0);
+        return first / (first + Samplers.gamma(random, alpha2, 1.0));
+    }
+
+    /**
+     * A binomial variate.
+     * @param random The random number generator
+     * @param prob The probability of success
+     * @param trials The number of trials
+     * @return A non-negative integer value
+     */
+    public static double binomial(final SplittableRandom random, final double prob,
+        final double trials) {
+        double successes = 0.0;
+        for (int trial = 0; trial < (int) trials; trial++) {
+            successes += Samplers.bernoulli(random, prob);
+        }
+        return successes;
+    }
+
+    /**
+     * A constant value.
+     * @param value The value
+     * @return The value
+     */
+    public static double constant(final double value) {
+        return value;
+    }
+
+    /**
+     * An exponential variate.
+     * @param random The random number generator
+     * @param mean The mean
+     * @return A positive number
+     */
+    public static double exponential(final SplittableRandom random, final double mean) {
+        return -mean * Math.log(Samplers.uniform(random));
+    }
+
+    /**
+     * A gamma variate (Marsaglia and Tsang's method).
+     * @param random The random number generator
+     * @param shape The shape parameter
+     * @param scale The scale parameter
+     * @return A positive number
+     */
+    public static double gamma(final SplittableRandom random, final double shape,
+        final double scale) {
+        final double value;
+        if (shape < 1.0) {
+            value = Samplers.gamma(random, shape + 1.0, scale)
+                * Math.pow(Samplers.uniform(random), 1.0 / shape);
+        } else {
+            final double shift = shape - 1.0 / 3.0;
+            final double factor = 1.0 / Math.sqrt(9.0 * shift);
+            double result = 0.0;
+            boolean accepted = false;
+            while (!accepted) {
+                final double normal = Samplers.normal(random);
+                final double base = 1.0 + factor * normal;
+                if (base > 0.0) {
+                    final double cube = base * base * base;
+                    final double uniform = Samplers.uniform(random);
+                    accepted = Math.log(uniform) < normal * normal / 2.0
+                        + shift - shift * cube + shift * Math.log(cube);
+                    result = shift * cube;
+                }
+            }
+            value = result * scale;
+        }
+        return value;
+    }
+
+    /**
+     * A geometric variate, counting the failures before the first success.
+     * @param random The random number generator
+     * @param prob The probability of success
+     * @return A non-negative integer value
+     */
+    public static double geometric(final SplittableRandom random, final double prob) {
+        return Math.floor(Math.log(Samplers.uniform(random)) / Math.log(1.0 - prob));
+    }
+
+    /**
+     * A Johnson SB variate.
+     * @param random The random number generator
+     * @param alpha1 The first shape parameter
+     * @param alpha2 The second shape parameter
+     * @param min The lower bound
+     * @param max The upper bound
+     * @return A number between the bounds
+     */
+    public static double johnson(final SplittableRandom random, final double alpha1,
+        final double alpha2, final double min, final double max) {
+        final double exp = Math.exp((Samplers.normal(random) - alpha1) / alpha2);
+        return (min + max * exp) / (1.0 + exp);
+    }
+
+    /**
+     * A Laplace variate.
+     * @param random The random number generator
+     * @param mean The location parameter
+     * @param scale The scale parameter
+     * @return A number
+     */
+    public static double laplace(final SplittableRandom random, final double mean,
+        final double scale) {
+        final double uniform = random.nextDouble() - 0.5;
+        return mean - scale * Math.signum(uniform)
+            * Math.log(1.0 - 2.0 * Math.abs(uniform));
+    }
+
+    /**
+     * A log-logistic variate.
+     * @param random The random number generator
+     * @param shape The shape parameter
+     * @param scale The scale parameter
+     * @return A positive number
+     */
+    public static double logLogistic(final SplittableRandom random, final double shape,
+        final double scale) {
+        final double uniform = Samplers.uniform(random);
+        return scale * Math.pow(uniform / (1.0 - uniform + Double.MIN_VALUE), 1.0 / shape);
+    }
+
+    /**
+     * A negative binomial variate, counting the failures before the given
+     * number of successes (generated as a gamma-Poisson mixture).
+     * @param random The random number generator
+     * @param prob The probability of success
+     * @param successes The number of successes
+     * @return A non-negative integer value
+     */
+    public static double negativeBinomial(final SplittableRandom random, final double prob,
+        final double successes) {
+        return Samplers.poisson(
+            random,
+            Samplers.gamma(random, successes, (1.0 - prob) / prob)
+        );
+    }
+
+    /**
+     * A Poisson variate, generated by inversion for small means and by
+     * Hörmann's transformed rejection (PTRS) otherwise.
+     * @param random The random number generator
+     * @param mean The mean
+     * @return A non-negative integer value
+     */
+    public static double poisson(final SplittableRandom random, final double mean) {
+        final double value;
+        if (mean < Samplers.POISSON_INVERSION) {
+            double count = 0.0;
+            double prob = Math.exp(-mean);
+            double cumulative = prob;
+            final double uniform = random.nextDouble();
+            while (uniform > cumulative && prob > 0.0) {
+                count += 1.0;
+                prob *= mean / count;
+                cumulative += prob;
+            }
+            value = count;
+        } else {
+            value = Samplers.rejection(random, mean);
+        }
+        return value;
+    }
+
+    /**
+     * A geometric variate, counting the trials until the first success.
+     * @param random The random number generator
+     * @param prob The probability of success
+     * @return A positive integer value
+     */
+    public static double shiftedGeometric(final SplittableRandom random,
+        final double prob) {
+        return 1.0 + Samplers.geometric(random, prob);
+    }
+
+    /**
+     * A discrete uniform variate.
+     * @param random The random number generator
+     * @param minimum The lower bound
+     * @param maximum The upper bound (inclusive)
+     * @return An integer value between the bounds
+     */
+    public static double discreteUniform(final SplittableRandom random,
+        final double minimum, final double maximum) {
+        return minimum + random.nextInt((int) (maximum - minimum) + 1);
+    }
+
+    /**
+     * A Weibull variate.
+     * @param random The random number generator
+     * @param shape The shape parameter
+     * @param scale The scale parameter
+     * @return A positive number
+     */
+    public static double weibull(final SplittableRandom random, final double shape,
+        final double scale) {
+        return scale * Math.pow(-Math.log(Samplers.uniform(random)), 1.0 / shape);
+    }
+
+    /**
+     * Generates a Poisson variate for large means (PTRS).
+     * @param random The random number generator
+     * @param mean The mean
+     * @return A non-negative integer value
+     */
+    private static double rejection(final SplittableRandom random, final double mean) {
+        final double root = Math.sqrt(mean);
+        final double log = Math.log(mean);
+        final double bound = 0.931 + 2.53 * root;
+        final double factor = -0.059 + 0.02483 * bound;
+        final double alpha = 1.1239 + 1.1328 / (bound - 3.4);
+        final double ratio = 0.9277 - 3.6224 / (bound - 2.0);
+        double result = -1.0;
+        while (result < 0.0) {
+            final double first = random.nextDouble() - 0.5;
+            final double second = random.nextDouble();
+            final double distance = 0.5 - Math.abs(first);
+            final double count = Math.floor(
+                (2.0 * factor / distance + bound) * first + mean + 0.43
+            );
+            if (distance >= 0.07 && second <= ratio) {
+                result = count;
+            } else if (count >= 0.0 && (distance >= 0.013 || second <= distance)
+                && Math.log(second) + Math.log(alpha)
+                - Math.log(factor / (distance * distance) + bound)
+                <= -mean + count * log - Samplers.logGamma(count + 1.0)) {
+                result = count;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The logarithm of the gamma function (Lanczos approximation).
+     * @param value A positive number
+     * @return The logarithm of the gamma function at the given value
+     */
+    private static double logGamma(final double value) {
+        final double shifted = value - 1.0;
+        double sum = Samplers.LANCZOS[0];
+        for (int index = 1; index < Samplers.LANCZOS.length; index++) {
+            sum += Samplers.LANCZOS[index] / (shifted + index);
+        }
+        final double base = shifted + Samplers.LANCZOS.length - 1.5;
+        return 0.5 * Math.log(2.0 * Math.PI) + (shifted + 0.5) * Math.log(base)
+            - base + Math.log(sum);
+    }
+
+}
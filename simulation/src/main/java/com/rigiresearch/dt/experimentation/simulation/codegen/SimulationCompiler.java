@@ -0,0 +1,276 @@
+package com.rigiresearch.dt.experimentation.simulation.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.apache.commons.configuration2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles generated simulations in memory, and loads them in a dedicated
+ * class loader. This requires a JDK at run time.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class SimulationCompiler {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(SimulationCompiler.class);
+
+    /**
+     * Compiles the given source code and instantiates the resulting class.
+     * @param name The fully qualified name of the class
+     * @param source The Java source code
+     * @return A new instance of the compiled class
+     */
+    public CompiledSimulation instantiate(final String name, final String source) {
+        try {
+            return this.compile(name, source)
+                .asSubclass(CompiledSimulation.class)
+                .getDeclaredConstructor()
+                .newInstance();
+        } catch (final ReflectiveOperationException exception) {
+            throw new IllegalStateException(
+                String.format("Could not instantiate %s", name),
+                exception
+            );
+        }
+    }
+
+    /**
+     * Compiles the given source code.
+     * @param name The fully qualified name of the class
+     * @param source The Java source code
+     * @return The loaded class
+     * @throws ClassNotFoundException If the compiled class cannot be loaded
+     */
+    public Class<?> compile(final String name, final String source)
+        throws ClassNotFoundException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException(
+                "Compiling simulations requires a JDK, but no Java compiler was found"
+            );
+        }
+        final long start = System.nanoTime();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        final StandardJavaFileManager standard =
+            compiler.getStandardFileManager(diagnostics, null, null);
+        final JavaFileManager manager = new SimulationCompiler.MemoryManager(standard, classes);
+        final List<String> options = Arrays.asList(
+            "-classpath",
+            SimulationCompiler.classpath(),
+            "-proc:none",
+            "-nowarn"
+        );
+        final boolean success = compiler.getTask(
+            null,
+            manager,
+            diagnostics,
+            options,
+            null,
+            Collections.singletonList(new SimulationCompiler.Source(name, source))
+        ).call();
+        if (!success) {
+            throw new IllegalStateException(
+                String.format(
+                    "Could not compile %s:%n%s",
+                    name,
+                    diagnostics.getDiagnostics()
+                        .stream()
+                        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                        .map(diagnostic -> String.format(
+                            "line %d: %s",
+                            diagnostic.getLineNumber(),
+                            diagnostic.getMessage(null)
+                        ))
+                        .collect(Collectors.joining(System.lineSeparator()))
+                )
+            );
+        }
+        SimulationCompiler.LOGGER.debug(
+            "Compiled {} in {} ms",
+            name,
+            (System.nanoTime() - start) / 1_000_000L
+        );
+        return new SimulationCompiler.MemoryLoader(classes).loadClass(name);
+    }
+
+    /**
+     * Builds the compilation class path, including the locations of the
+     * runtime classes referenced by generated code.
+     * @return The class path
+     */
+    private static String classpath() {
+        final Set<String> entries = new LinkedHashSet<>(
+            Arrays.asList(System.getProperty("java.class.path").split(File.pathSeparator))
+        );
+        for (final Class<?> type : Arrays.asList(CompiledSimulation.class, Configuration.class)) {
+            final CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source != null) {
+                try {
+                    entries.add(Paths.get(source.getLocation().toURI()).toString());
+                } catch (final URISyntaxException exception) {
+                    throw new IllegalStateException(exception);
+                }
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * A source file held in memory.
+     */
+    private static final class Source extends SimpleJavaFileObject {
+
+        /**
+         * The Java source code.
+         */
+        private final String code;
+
+        /**
+         * Default constructor.
+         * @param name The fully qualified class name
+         * @param code The Java source code
+         */
+        Source(final String name, final String code) {
+            super(
+                URI.create(
+                    String.format("string:///%s%s", name.replace('.', '/'), Kind.SOURCE.extension)
+                ),
+                Kind.SOURCE
+            );
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(final boolean ignore) {
+            return this.code;
+        }
+
+    }
+
+    /**
+     * A class file held in memory.
+     */
+    private static final class Bytecode extends SimpleJavaFileObject {
+
+        /**
+         * The bytecode.
+         */
+        private final ByteArrayOutputStream bytes;
+
+        /**
+         * Default constructor.
+         * @param name The fully qualified class name
+         * @param bytes The bytecode
+         */
+        Bytecode(final String name, final ByteArrayOutputStream bytes) {
+            super(
+                URI.create(
+                    String.format("bytes:///%s%s", name.replace('.', '/'), Kind.CLASS.extension)
+                ),
+                Kind.CLASS
+            );
+            this.bytes = bytes;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return this.bytes;
+        }
+
+    }
+
+    /**
+     * A file manager that writes class files to memory.
+     */
+    private static final class MemoryManager
+        extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        /**
+         * The compiled classes.
+         */
+        private final Map<String, ByteArrayOutputStream> classes;
+
+        /**
+         * Default constructor.
+         * @param manager The standard file manager
+         * @param classes The compiled classes
+         */
+        MemoryManager(final StandardJavaFileManager manager,
+            final Map<String, ByteArrayOutputStream> classes) {
+            super(manager);
+            this.classes = classes;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(final Location location,
+            final String name, final JavaFileObject.Kind kind, final FileObject sibling) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            this.classes.put(name, bytes);
+            return new SimulationCompiler.Bytecode(name, bytes);
+        }
+
+    }
+
+    /**
+     * A class loader for classes compiled in memory.
+     */
+    private static final class MemoryLoader extends ClassLoader {
+
+        /**
+         * The compiled classes.
+         */
+        private final Map<String, ByteArrayOutputStream> classes;
+
+        /**
+         * Default constructor.
+         * @param classes The compiled classes
+         */
+        MemoryLoader(final Map<String, ByteArrayOutputStream> classes) {
+            super(CompiledSimulation.class.getClassLoader());
+            this.classes = new HashMap<>(classes);
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException {
+            final ByteArrayOutputStream bytes = this.classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            final byte[] code = bytes.toByteArray();
+            return this.defineClass(name, code, 0, code.length);
+        }
+
+    }
+
+}
@@ -0,0 +1,661 @@
+package com.rigiresearch.dt.experimentation.simulation.codegen;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.Distribution;
+import com.rigiresearch.dt.experimentation.simulation.RateProfile;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * Generates the source code of a {@link CompiledSimulation} specialized for a
+ * given graph. The generated class follows the same semantics as
+ * {@link DtSimulation}, but the stops and lines are hardwired as array
+ * indexes, each event handler is a small method with constant indexes, and
+ * the events are dispatched with a switch statement. The type of each
+ * distribution is taken from the configuration at generation time, whereas
+ * the distribution parameters, capacities, fleets and number of passengers
+ * are read at run time (see {@link CompiledSimulation#parameters()}).
+ *
+ * <p>Bus traces and rate profiles are not supported.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class SimulationGenerator {
+
+    /**
+     * The package of the generated classes.
+     */
+    public static final String PACKAGE =
+        "com.rigiresearch.dt.experimentation.simulation.codegen.generated";
+
+    /**
+     * The indentation unit.
+     */
+    private static final String INDENT = "    ";
+
+    /**
+     * The graph of stations.
+     */
+    private final Graph<Node> graph;
+
+    /**
+     * The simulation configuration.
+     */
+    private final Configuration config;
+
+    /**
+     * The parameter schema, mapping configuration keys to their index.
+     */
+    private final Map<String, Integer> parameters;
+
+    /**
+     * The source code being generated.
+     */
+    private final StringBuilder builder;
+
+    /**
+     * Default constructor.
+     * @param graph The graph of stations
+     * @param config The simulation configuration, used to determine the type
+     *  of each distribution
+     */
+    public SimulationGenerator(final Graph<Node> graph, final Configuration config) {
+        this.graph = graph;
+        this.config = config;
+        this.parameters = new LinkedHashMap<>();
+        this.builder = new StringBuilder();
+    }
+
+    /**
+     * Generates and compiles the specialized simulation.
+     * @param name The simple name of the generated class
+     * @return A new instance of the generated class
+     */
+    public CompiledSimulation compile(final String name) {
+        return new SimulationCompiler().instantiate(
+            String.format("%s.%s", SimulationGenerator.PACKAGE, name),
+            this.source(name)
+        );
+    }
+
+    /**
+     * Generates the source code of the specialized simulation.
+     * @param name The simple name of the generated class
+     * @return The Java source code
+     */
+    public String source(final String name) {
+        if (this.config.containsKey(DtSimulation.TRACE_KEY)) {
+            throw new IllegalArgumentException(
+                "Compiled simulations do not support bus traces"
+            );
+        }
+        this.parameters.clear();
+        this.builder.setLength(0);
+        final List<Line> lines = this.graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .sorted(Comparator.comparing(Line::getName))
+            .collect(Collectors.toList());
+        final List<SimulationGenerator.Pair> pairs = new ArrayList<>();
+        final int[] first = new int[lines.size()];
+        for (int index = 0; index < lines.size(); index++) {
+            final LinkedList<Stop> journey = lines.get(index).journey();
+            // Buses are not served at the last stop
+            journey.removeLast();
+            first[index] = pairs.size();
+            for (int position = 0; position < journey.size(); position++) {
+                final int next;
+                if (position + 1 < journey.size()) {
+                    next = pairs.size() + 1;
+                } else {
+                    next = -1;
+                }
+                pairs.add(
+                    new SimulationGenerator.Pair(
+                        index,
+                        lines.get(index),
+                        journey.get(position),
+                        next
+                    )
+                );
+            }
+        }
+        // Generate the body first to collect the parameter schema
+        final StringBuilder header = new StringBuilder();
+        this.replication(lines, pairs, first);
+        final String body = this.builder.toString();
+        this.builder.setLength(0);
+        this.header(name, lines, pairs);
+        header.append(this.builder);
+        header.append(body);
+        header.append("}\n");
+        return header.toString();
+    }
+
+    /**
+     * Generates the class header, constants and public methods.
+     * @param name The simple name of the class
+     * @param lines The lines
+     * @param pairs The line-stop pairs
+     */
+    private void header(final String name, final List<Line> lines,
+        final List<SimulationGenerator.Pair> pairs) {
+        this.line(0, "package %s;", SimulationGenerator.PACKAGE);
+        this.line(0, "");
+        this.line(0, "import %s;", CompiledResult.class.getName());
+        this.line(0, "import %s;", CompiledSimulation.class.getName());
+        this.line(0, "import %s;", EventQueue.class.getName());
+        this.line(0, "import %s;", Samplers.class.getName());
+        this.line(0, "import java.util.SplittableRandom;");
+        this.line(0, "");
+        this.line(0, "/**");
+        this.line(0, " * Simulation generated for %d lines and %d line-stop pairs.", lines.size(),
+            pairs.size());
+        this.line(0, " * Generated by %s. Do not edit.", SimulationGenerator.class.getName());
+        this.line(0, " */");
+        this.line(0, "public final class %s implements CompiledSimulation {", name);
+        this.line(0, "");
+        this.line(1, "private static final String[] PARAMETERS = {");
+        this.parameters.keySet()
+            .forEach(key -> this.line(2, "%s,", SimulationGenerator.literal(key)));
+        this.line(1, "};");
+        this.line(0, "");
+        this.line(1, "private static final String[] LINES = {");
+        pairs.forEach(pair ->
+            this.line(2, "%s,", SimulationGenerator.literal(pair.line.getName()))
+        );
+        this.line(1, "};");
+        this.line(0, "");
+        this.line(1, "private static final String[] STOPS = {");
+        pairs.forEach(pair ->
+            this.line(2, "%s,", SimulationGenerator.literal(pair.stop.getName()))
+        );
+        this.line(1, "};");
+        this.line(0, "");
+        this.line(1, "@Override");
+        this.line(1, "public String[] parameters() {");
+        this.line(2, "return %s.PARAMETERS.clone();", name);
+        this.line(1, "}");
+        this.line(0, "");
+        this.line(1, "@Override");
+        this.line(1, "public CompiledResult run(final double[] values, final long seed,");
+        this.line(2, "final double length, final double warmUp) {");
+        this.line(2, "if (values.length != %s.PARAMETERS.length) {", name);
+        this.line(3, "throw new IllegalArgumentException(");
+        this.line(4, "String.format(\"Expected %%d parameters\", %s.PARAMETERS.length)", name);
+        this.line(3, ");");
+        this.line(2, "}");
+        this.line(2, "return new Replication(values, seed, new CompiledResult(%s.LINES, %s.STOPS))",
+            name, name);
+        this.line(3, ".run(length, warmUp);");
+        this.line(1, "}");
+        this.line(0, "");
+    }
+
+    /**
+     * Generates the replication class, containing the state and the event
+     * handlers.
+     * @param lines The lines
+     * @param pairs The line-stop pairs
+     * @param first The first line-stop pair of each line
+     */
+    private void replication(final List<Line> lines,
+        final List<SimulationGenerator.Pair> pairs, final int... first) {
+        final int size = pairs.size();
+        final int passenger = lines.size();
+        final int departure = passenger + size;
+        final int arrival = departure + size;
+        this.line(1, "private static final class Replication {");
+        this.line(0, "");
+        this.line(2, "private final double[] p;");
+        this.line(2, "private final SplittableRandom random;");
+        this.line(2, "private final EventQueue events = new EventQueue();");
+        this.line(2, "private final CompiledResult result;");
+        this.line(2, "private final int passengers;");
+        this.line(2, "private final int[] fleet = new int[%d];", lines.size());
+        this.line(2, "private final int[] dispatched = new int[%d];", lines.size());
+        this.line(2, "private final int[] occupation;");
+        this.line(2, "private final int[][] buses = new int[%d][];", size);
+        this.line(2, "private final int[] busHead = new int[%d];", size);
+        this.line(2, "private final int[] busTail = new int[%d];", size);
+        this.line(2, "private final double[][] waiting = new double[%d][];", size);
+        this.line(2, "private final int[] waitHead = new int[%d];", size);
+        this.line(2, "private final int[] waitTail = new int[%d];", size);
+        this.line(2, "private final double[] last = new double[%d];", size);
+        this.line(0, "");
+        this.line(
+            2,
+            "Replication(final double[] p, final long seed, final CompiledResult result) {"
+        );
+        this.line(3, "this.p = p;");
+        this.line(3, "this.random = new SplittableRandom(seed);");
+        this.line(3, "this.result = result;");
+        this.line(3, "this.passengers = (int) %s;", this.parameter("simulation.params.passengers"));
+        for (int index = 0; index < lines.size(); index++) {
+            this.line(
+                3,
+                "this.fleet[%d] = (int) %s;",
+                index,
+                this.parameter(this.key(lines.get(index), DtSimulation.VariableType.FLEET))
+            );
+        }
+        this.line(3, "this.occupation = new int[%s];", SimulationGenerator.base(lines.size()));
+        for (int index = 0; index < size; index++) {
+            this.line(
+                3,
+                "this.buses[%d] = new int[this.fleet[%d]];",
+                index,
+                pairs.get(index).index
+            );
+            this.line(3, "this.waiting[%d] = new double[this.passengers];", index);
+        }
+        this.line(2, "}");
+        this.line(0, "");
+        this.line(2, "CompiledResult run(final double length, final double warmUp) {");
+        for (int index = 0; index < lines.size(); index++) {
+            if (first[index] < size && pairs.get(first[index]).index == index) {
+                this.line(3, "if (this.fleet[%d] > 0) {", index);
+                this.line(
+                    4,
+                    "this.events.schedule(%s, %d, %s);",
+                    this.sampler(this.key(lines.get(index), DtSimulation.VariableType.BUS_ARRIVAL)),
+                    index,
+                    SimulationGenerator.base(index)
+                );
+                this.line(3, "}");
+            }
+        }
+        this.line(3, "if (this.passengers > 0) {");
+        for (int index = 0; index < size; index++) {
+            this.line(
+                4,
+                "this.events.schedule(%s, %d, -1);",
+                this.passengerSampler(pairs.get(index)),
+                passenger + index
+            );
+        }
+        this.line(3, "}");
+        this.line(3, "// Statistics collected during the warm-up period are discarded");
+        this.line(3, "if (warmUp > 0.0) {");
+        this.line(4, "while (this.events.next(Math.min(warmUp, length))) {");
+        this.line(5, "this.handle();");
+        this.line(4, "}");
+        this.line(4, "this.result.reset();");
+        this.line(3, "}");
+        this.line(3, "while (this.events.next(length)) {");
+        this.line(4, "this.handle();");
+        this.line(3, "}");
+        this.line(3, "this.result.setEvents(this.events.processed());");
+        this.line(3, "return this.result;");
+        this.line(2, "}");
+        this.line(0, "");
+        this.line(2, "private void handle() {");
+        this.line(3, "final int subject = this.events.subject();");
+        this.line(3, "switch (this.events.type()) {");
+        for (int index = 0; index < lines.size(); index++) {
+            this.line(4, "case %d:", index);
+            this.line(5, "this.dispatch%d(subject);", index);
+            this.line(5, "break;");
+        }
+        for (int index = 0; index < size; index++) {
+            this.line(4, "case %d:", passenger + index);
+            this.line(5, "this.passenger%d();", index);
+            this.line(5, "break;");
+        }
+        for (int index = 0; index < size; index++) {
+            this.line(4, "case %d:", departure + index);
+            this.line(5, "this.departure%d();", index);
+            this.line(5, "break;");
+        }
+        for (int index = 0; index < size; index++) {
+            this.line(4, "case %d:", arrival + index);
+            this.line(5, "this.arrival%d(subject);", index);
+            this.line(5, "break;");
+        }
+        this.line(4, "default:");
+        this.line(5, "throw new IllegalStateException(\"Unknown event type\");");
+        this.line(3, "}");
+        this.line(2, "}");
+        for (int index = 0; index < lines.size(); index++) {
+            this.dispatch(lines.get(index), index, first[index], pairs);
+        }
+        for (int index = 0; index < size; index++) {
+            this.handlers(pairs.get(index), index, passenger, departure, arrival);
+        }
+        this.line(0, "");
+        this.line(1, "}");
+        this.line(0, "");
+    }
+
+    /**
+     * Generates the handler of bus dispatches at the line's origin.
+     * @param line The line
+     * @param index The line index
+     * @param first The line's first line-stop pair
+     * @param pairs The line-stop pairs
+     */
+    private void dispatch(final Line line, final int index, final int first,
+        final List<SimulationGenerator.Pair> pairs) {
+        this.line(0, "");
+        this.line(2, "// %s: a bus arrives at the origin", line.getName());
+        this.line(2, "private void dispatch%d(final int bus) {", index);
+        if (first < pairs.size() && pairs.get(first).index == index) {
+            this.line(3, "this.arrival%d(bus);", first);
+            this.line(3, "if (++this.dispatched[%d] < this.fleet[%d]) {", index, index);
+            this.line(
+                4,
+                "this.events.schedule(%s, %d, %s + this.dispatched[%d]);",
+                this.sampler(this.key(line, DtSimulation.VariableType.BUS_ARRIVAL)),
+                index,
+                SimulationGenerator.base(index),
+                index
+            );
+            this.line(3, "}");
+        }
+        this.line(2, "}");
+    }
+
+    /**
+     * Generates the handlers of a line-stop pair.
+     * @param pair The line-stop pair
+     * @param index The pair index
+     * @param passenger The first passenger arrival event type
+     * @param departure The first departure event type
+     * @param arrival The first arrival event type
+     */
+    private void handlers(final SimulationGenerator.Pair pair, final int index,
+        final int passenger, final int departure, final int arrival) {
+        final String name = String.format("%s-%s", pair.line.getName(), pair.stop.getName());
+        final String service = this.sampler(
+            this.key(pair.line, DtSimulation.VariableType.SERVICE_TIME)
+        );
+        this.line(0, "");
+        this.line(2, "// %s: a passenger arrives", name);
+        this.line(2, "private void passenger%d() {", index);
+        this.line(3, "this.waiting[%d][this.waitTail[%d]++] = this.events.now();", index, index);
+        this.line(3, "if (this.waitTail[%d] < this.passengers) {", index);
+        this.line(4, "this.events.schedule(%s, %d, -1);", this.passengerSampler(pair),
+            passenger + index);
+        this.line(3, "}");
+        this.line(2, "}");
+        this.line(0, "");
+        this.line(2, "// %s: a bus arrives", name);
+        this.line(2, "private void arrival%d(final int bus) {", index);
+        this.line(3, "final double now = this.events.now();");
+        this.line(3, "final int queued = this.busTail[%d] - this.busHead[%d];", index, index);
+        this.line(3, "this.result.collect(CompiledResult.BUS_QUEUE, %d, queued);", index);
+        this.line(3, "this.buses[%d][this.busTail[%d]++] = bus;", index, index);
+        this.line(3, "this.result.collect(CompiledResult.HEADWAY, %d, now - this.last[%d]);",
+            index, index);
+        this.line(3, "this.last[%d] = now;", index);
+        this.line(3, "if (queued == 0) {");
+        this.line(4, "this.events.schedule(%s, %d, bus);", service, departure + index);
+        this.line(3, "}");
+        this.line(2, "}");
+        this.line(0, "");
+        this.line(2, "// %s: a bus departs", name);
+        this.line(2, "private void departure%d() {", index);
+        this.line(3, "final double now = this.events.now();");
+        this.line(3, "final int bus = this.buses[%d][this.busHead[%d]++];", index, index);
+        this.line(3, "final int waiting = this.waitTail[%d] - this.waitHead[%d];", index, index);
+        this.line(3, "this.result.collect(CompiledResult.PASSENGER_QUEUE, %d, waiting);", index);
+        this.line(
+            3,
+            "final int boarding = Math.max(0, Math.min((int) %s - this.occupation[bus], waiting));",
+            this.parameter(this.key(pair.line, DtSimulation.VariableType.CAPACITY))
+        );
+        this.line(3, "for (int count = 0; count < boarding; count++) {");
+        this.line(4, "this.result.collect(");
+        this.line(5, "CompiledResult.WAITING_TIME,");
+        this.line(5, "%d,", index);
+        this.line(5, "now - this.waiting[%d][this.waitHead[%d]++]", index, index);
+        this.line(4, ");");
+        this.line(3, "}");
+        this.line(3, "this.occupation[bus] += boarding;");
+        if (pair.next >= 0) {
+            this.line(
+                3,
+                "this.events.schedule(%s, %d, bus);",
+                this.sampler(this.key(pair, DtSimulation.VariableType.TRANSPORTATION_TIME)),
+                arrival + pair.next
+            );
+        }
+        this.line(3, "if (this.busTail[%d] > this.busHead[%d]) {", index, index);
+        this.line(
+            4,
+            "this.events.schedule(%s, %d, this.buses[%d][this.busHead[%d]]);",
+            service,
+            departure + index,
+            index,
+            index
+        );
+        this.line(3, "}");
+        this.line(2, "}");
+    }
+
+    /**
+     * The sampler expression of a line-stop pair's passenger arrivals.
+     * @param pair The line-stop pair
+     * @return A Java expression
+     */
+    private String passengerSampler(final SimulationGenerator.Pair pair) {
+        return this.sampler(this.key(pair, DtSimulation.VariableType.PASSENGER_ARRIVAL));
+    }
+
+    /**
+     * The configuration key of a line variable.
+     * @param line The line
+     * @param type The variable type
+     * @return The key
+     */
+    private String key(final Line line, final DtSimulation.VariableType type) {
+        return String.format("%s.%s", line.getName(), type.getName());
+    }
+
+    /**
+     * The configuration key of a line-stop variable.
+     * @param pair The line-stop pair
+     * @param type The variable type
+     * @return The key
+     */
+    private String key(final SimulationGenerator.Pair pair,
+        final DtSimulation.VariableType type) {
+        return String.format("%s.%s.%s", pair.line.getName(), pair.stop.getName(),
+            type.getName());
+    }
+
+    /**
+     * Generates a sampler expression for the given variable.
+     * @param variable The variable's key (e.g., {@code T31s.PCA2.passenger})
+     * @return A Java expression
+     */
+    private String sampler(final String variable) {
+        if (this.config.containsKey(String.format("%s.%s", variable, RateProfile.SUFFIX))) {
+            throw new IllegalArgumentException(
+                String.format("Compiled simulations do not support rate profiles (%s)", variable)
+            );
+        }
+        final String key = String.format("%s.distribution", variable);
+        if (!this.config.containsKey(key)) {
+            throw new IllegalArgumentException(String.format("Missing distribution %s", key));
+        }
+        final Distribution distribution = Distribution.from(this.config.getString(key));
+        final String expression;
+        switch (distribution) {
+            case BERNOULLI:
+                expression = this.call("bernoulli", key, "prob");
+                break;
+            case BETA:
+                expression = this.call("beta", key, "alpha1", "alpha2");
+                break;
+            case BINOMIAL:
+                expression = this.call("binomial", key, "prob", "numTrials");
+                break;
+            case CONSTANT:
+            case UPDATABLE_CONSTANT:
+                expression = String.format(
+                    "Samplers.constant(%s)",
+                    this.parameter(String.format("%s.value", key))
+                );
+                break;
+            case EXPONENTIAL:
+                expression = this.call("exponential", key, "mean");
+                break;
+            case GAMMA:
+                expression = this.call("gamma", key, "shape", "scale");
+                break;
+            case JOHNSON:
+                expression = this.call("johnson", key, "alpha1", "alpha2", "min", "max");
+                break;
+            case LAPLACE:
+                expression = this.call("laplace", key, "mean", "scale");
+                break;
+            case LOG_LOGISTIC:
+                expression = this.call("logLogistic", key, "shape", "scale");
+                break;
+            case UNIFORM:
+                expression = this.call("discreteUniform", key, "minimum", "maximum");
+                break;
+            case GEOMETRIC:
+                expression = this.call("geometric", key, "prob");
+                break;
+            case NEGATIVE_BINOMIAL:
+                expression = this.call("negativeBinomial", key, "prob", "numSuccess");
+                break;
+            case POISSON:
+                expression = this.call("poisson", key, "mean");
+                break;
+            case SHIFTED_GEOMETRIC:
+                expression = this.call("shiftedGeometric", key, "prob");
+                break;
+            case WEIBULL:
+                expression = this.call("weibull", key, "shape", "scale");
+                break;
+            default:
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Compiled simulations do not support distribution %s (%s)",
+                        distribution,
+                        key
+                    )
+                );
+        }
+        return expression;
+    }
+
+    /**
+     * Generates a call to a random sampler.
+     * @param method The name of the method in {@link Samplers}
+     * @param key The distribution key
+     * @param arguments The names of the distribution parameters
+     * @return A Java expression
+     */
+    private String call(final String method, final String key, final String... arguments) {
+        final StringBuilder call = new StringBuilder();
+        call.append("Samplers.").append(method).append("(this.random");
+        for (final String argument : arguments) {
+            call.append(", ").append(this.parameter(String.format("%s.%s", key, argument)));
+        }
+        call.append(')');
+        return call.toString();
+    }
+
+    /**
+     * Registers a parameter in the schema.
+     * @param key The configuration key
+     * @return The Java expression to access the parameter value
+     */
+    private String parameter(final String key) {
+        final int index = this.parameters.computeIfAbsent(key, tmp -> this.parameters.size());
+        return String.format("this.p[%d]", index);
+    }
+
+    /**
+     * The Java expression of a line's first bus index.
+     * @param line The line index
+     * @return A Java expression
+     */
+    private static String base(final int line) {
+        final StringBuilder base = new StringBuilder("0");
+        for (int index = 0; index < line; index++) {
+            base.append(String.format(" + this.fleet[%d]", index));
+        }
+        return base.toString();
+    }
+
+    /**
+     * Escapes a string as a Java literal.
+     * @param value The string
+     * @return The Java literal
+     */
+    private static String literal(final String value) {
+        return String.format("\"%s\"", value.replace("\\", "\\\\").replace("\"", "\\\""));
+    }
+
+    /**
+     * Appends a line of code.
+     * @param indent The indentation level
+     * @param format The code format
+     * @param args The format arguments
+     */
+    private void line(final int indent, final String format, final Object... args) {
+        for (int level = 0; level < indent; level++) {
+            this.builder.append(SimulationGenerator.INDENT);
+        }
+        this.builder.append(String.format(format, args)).append('\n');
+    }
+
+    /**
+     * A line-stop pair, where buses are served and passengers board.
+     */
+    private static final class Pair {
+
+        /**
+         * The index of the line.
+         */
+        private final int index;
+
+        /**
+         * The line.
+         */
+        private final Line line;
+
+        /**
+         * The stop.
+         */
+        private final Stop stop;
+
+        /**
+         * The index of the next pair, or -1 if this is the line's last pair.
+         */
+        private final int next;
+
+        /**
+         * Default constructor.
+         * @param index The index of the line
+         * @param line The line
+         * @param stop The stop
+         * @param next The index of the next pair
+         */
+        Pair(final int index, final Line line, final Stop stop, final int next) {
+            this.index = index;
+            this.line = line;
+            this.stop = stop;
+            this.next = next;
+        }
+
+    }
+
+}
@@ -0,0 +1,6 @@
+/**
+ * Contains a code generator that specializes the simulation for a given
+ * graph, as well as the runtime support used by the generated code.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.codegen;
@@ -0,0 +1,144 @@
+package com.rigiresearch.dt.experimentation.simulation.fluid;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The approximated steady-state performance of a line, per stop. Stops are
+ * ordered according to the line's journey, excluding the last stop.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Getter
+public final class FluidEstimate {
+
+    /**
+     * The line.
+     */
+    private final Line line;
+
+    /**
+     * The stops served by the line.
+     */
+    private final List<Stop> stops;
+
+    /**
+     * The mean headway.
+     */
+    private final double headway;
+
+    /**
+     * The variance of the departure headways at each stop.
+     */
+    private final double[] headways;
+
+    /**
+     * The mean passenger waiting time at each stop.
+     */
+    private final double[] waitingTimes;
+
+    /**
+     * The variance of the passenger waiting time at each stop.
+     */
+    private final double[] waitingVariances;
+
+    /**
+     * The mean number of passengers on board after leaving each stop.
+     */
+    private final double[] loads;
+
+    /**
+     * Default constructor.
+     * @param line The line
+     * @param stops The stops served by the line
+     * @param headway The mean headway
+     * @param headways The variance of the departure headways at each stop
+     * @param waiting The mean and variance of the passenger waiting time at
+     *  each stop
+     * @param loads The mean number of passengers on board after each stop
+     */
+    public FluidEstimate(final Line line, final List<Stop> stops, final double headway,
+        final double[] headways, final double[][] waiting, final double[] loads) {
+        this.line = line;
+        this.stops = stops;
+        this.headway = headway;
+        this.headways = headways;
+        this.waitingTimes = waiting[0];
+        this.waitingVariances = waiting[1];
+        this.loads = loads;
+    }
+
+    /**
+     * The excess waiting time at each stop, computed as in
+     * {@code ExcessWaitingTime}. Given the waiting time W and the headway H,
+     * the metric reduces to {@code Var(W) / (2H)}.
+     * @return An array with one value per stop
+     */
+    public double[] excessWaitingTimes() {
+        final double[] values = new double[this.waitingVariances.length];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = this.waitingVariances[index] / (2.0 * this.headway);
+        }
+        return values;
+    }
+
+    /**
+     * The average excess waiting time across stops.
+     * @return A positive number, or zero
+     */
+    public double excessWaitingTimeAverage() {
+        return FluidEstimate.average(this.excessWaitingTimes());
+    }
+
+    /**
+     * The sample variance of the excess waiting time across stops.
+     * @return A positive number, or zero
+     */
+    public double excessWaitingTimeVariance() {
+        final double[] values = this.excessWaitingTimes();
+        final double average = FluidEstimate.average(values);
+        double sum = 0.0;
+        for (final double value : values) {
+            sum += (value - average) * (value - average);
+        }
+        final double variance;
+        if (values.length > 1) {
+            variance = sum / (values.length - 1);
+        } else {
+            variance = 0.0;
+        }
+        return variance;
+    }
+
+    /**
+     * The headway coefficient of variation, pooling the headways observed at
+     * all stops (all of them have the same mean).
+     * @return A positive number, or zero
+     */
+    public double headwayCoefficientOfVariation() {
+        return Math.sqrt(FluidEstimate.average(this.headways)) / this.headway;
+    }
+
+    /**
+     * Computes the average of the given values.
+     * @param values The values
+     * @return The average, or zero if there are no values
+     */
+    private static double average(final double... values) {
+        double sum = 0.0;
+        for (final double value : values) {
+            sum += value;
+        }
+        final double average;
+        if (values.length > 0) {
+            average = sum / values.length;
+        } else {
+            average = 0.0;
+        }
+        return average;
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.rigiresearch.dt.experimentation.simulation.fluid;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.Distribution;
+import com.rigiresearch.dt.experimentation.simulation.RateProfile;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * A mean-value approximation of {@link DtSimulation}, built from the same
+ * graph and configuration. It is meant to screen candidate configurations in
+ * microseconds, before running full replications.
+ *
+ * <p>The model propagates the headway deterministically along each line:
+ * the mean headway is the mean dispatch time, whereas the headway variance
+ * grows with the variance of the delays accumulated at each stop (bus queueing,
+ * service and transportation times), up to the variance of a Poisson process
+ * once buses start overtaking each other. Bus queueing at each stop uses Kingman's
+ * G/G/1 approximation over the buses of all lines sharing the stop. Passenger
+ * waiting times follow from random incidence on the departure headways,
+ * assuming gamma-distributed headways. Boarding is limited by the bus
+ * capacity; passengers who cannot board accumulate as a fluid backlog over the
+ * period in which the fleet operates.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class FluidModel {
+
+    /**
+     * The graph of stations.
+     */
+    private final Graph<Node> graph;
+
+    /**
+     * The simulation configuration.
+     */
+    private final Configuration config;
+
+    /**
+     * The length of the simulated period.
+     */
+    private final double length;
+
+    /**
+     * Default constructor.
+     * @param graph The graph of stations
+     * @param config The simulation configuration
+     * @param length The length of the simulated period (i.e., the length of a
+     *  replication)
+     */
+    public FluidModel(final Graph<Node> graph, final Configuration config,
+        final double length) {
+        this.graph = graph;
+        this.config = config;
+        this.length = length;
+    }
+
+    /**
+     * Approximates the performance of all lines.
+     * @return A non-null map
+     */
+    public Map<Line, FluidEstimate> estimates() {
+        final List<Line> lines = this.graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .collect(Collectors.toList());
+        final Map<Line, Moments> dispatch = lines.stream()
+            .collect(
+                Collectors.toMap(
+                    Function.identity(),
+                    line -> this.moments(
+                        String.format(
+                            "%s.%s",
+                            line.getName(),
+                            DtSimulation.VariableType.BUS_ARRIVAL.getName()
+                        )
+                    )
+                )
+            );
+        final Map<Line, Moments> service = lines.stream()
+            .collect(
+                Collectors.toMap(
+                    Function.identity(),
+                    line -> this.moments(
+                        String.format(
+                            "%s.%s",
+                            line.getName(),
+                            DtSimulation.VariableType.SERVICE_TIME.getName()
+                        )
+                    )
+                )
+            );
+        // Bus arrival rate, and first and second service moments weighted by
+        // the arrival rate, per stop
+        final Map<Stop, double[]> offered = new HashMap<>();
+        final Map<Line, List<Stop>> journeys = new HashMap<>(lines.size());
+        for (final Line line : lines) {
+            final LinkedList<Stop> journey = line.journey();
+            // Buses are not served at the last stop
+            journey.removeLast();
+            journeys.put(line, journey);
+            final double rate = 1.0 / dispatch.get(line).getMean();
+            for (final Stop stop : journey) {
+                final double[] sums = offered.computeIfAbsent(stop, key -> new double[3]);
+                sums[0] += rate;
+                sums[1] += rate * service.get(line).getMean();
+                sums[2] += rate * service.get(line).second();
+            }
+        }
+        return lines.stream()
+            .collect(
+                Collectors.toMap(
+                    Function.identity(),
+                    line -> this.estimate(
+                        line,
+                        journeys.get(line),
+                        dispatch.get(line),
+                        service.get(line),
+                        offered
+                    )
+                )
+            );
+    }
+
+    /**
+     * Approximates the performance of a line.
+     * @param line The line
+     * @param journey The stops served by the line
+     * @param dispatch The moments of the dispatch headway
+     * @param service The moments of the service time
+     * @param offered The bus arrival rate and service moments per stop
+     * @return A non-null estimate
+     */
+    private FluidEstimate estimate(final Line line, final List<Stop> journey,
+        final Moments dispatch, final Moments service, final Map<Stop, double[]> offered) {
+        final double headway = dispatch.getMean();
+        final double fleet = this.config.getDouble(
+            String.format("%s.%s", line.getName(), DtSimulation.VariableType.FLEET.getName())
+        );
+        final double capacity = this.config.getDouble(
+            String.format("%s.%s", line.getName(), DtSimulation.VariableType.CAPACITY.getName())
+        );
+        // Buses are dispatched until the fleet runs out
+        final double window = Math.min(this.length, fleet * headway);
+        final int size = journey.size();
+        final double[] headways = new double[size];
+        final double[][] waiting = new double[2][size];
+        final double[] loads = new double[size];
+        double variance = dispatch.getVariance();
+        double onboard = 0.0;
+        for (int index = 0; index < size; index++) {
+            final Stop stop = journey.get(index);
+            final double queueing = FluidModel.queueing(
+                offered.get(stop),
+                FluidModel.observed(variance / (headway * headway)),
+                window
+            );
+            // Two independent delays add their variance twice to the headway
+            variance += 2.0 * (service.getVariance() + queueing * queueing);
+            final double scv = FluidModel.observed(variance / (headway * headway));
+            headways[index] = scv * headway * headway;
+            double mean = headway / 2.0 * (1.0 + scv);
+            final double second = headway * headway / 3.0 * (1.0 + scv) * (1.0 + 2.0 * scv);
+            double spread = Math.max(0.0, second - mean * mean);
+            final String prefix = String.format("%s.%s", line.getName(), stop.getName());
+            final double demand = headway / this.moments(
+                String.format(
+                    "%s.%s",
+                    prefix,
+                    DtSimulation.VariableType.PASSENGER_ARRIVAL.getName()
+                )
+            ).getMean();
+            final double available = Math.max(0.0, capacity - onboard);
+            if (demand > available) {
+                final double backlog = (1.0 - available / demand) * window / 2.0;
+                mean += backlog;
+                spread += backlog * backlog / 3.0;
+                onboard += available;
+            } else {
+                onboard += demand;
+            }
+            waiting[0][index] = mean;
+            waiting[1][index] = spread;
+            loads[index] = onboard;
+            variance += 2.0 * this.moments(
+                String.format(
+                    "%s.%s",
+                    prefix,
+                    DtSimulation.VariableType.TRANSPORTATION_TIME.getName()
+                )
+            ).getVariance();
+        }
+        return new FluidEstimate(line, journey, headway, headways, waiting, loads);
+    }
+
+    /**
+     * Approximates the squared coefficient of variation of the observed
+     * headways. Buses overtake each other once their accumulated delays exceed
+     * the headway, so the observed departures tend to a Poisson process
+     * (i.e., a coefficient of variation of 1) rather than growing unbounded.
+     * @param displacement The accumulated delay variance, relative to the
+     *  squared headway
+     * @return A number between 0 and 1
+     */
+    private static double observed(final double displacement) {
+        return displacement / (1.0 + displacement);
+    }
+
+    /**
+     * Approximates the time buses wait to be served at a stop, using Kingman's
+     * formula.
+     * @param offered The bus arrival rate and service moments at the stop
+     * @param arrival The squared coefficient of variation of the headway
+     * @param window The period in which buses are dispatched
+     * @return A positive number, or zero
+     */
+    private static double queueing(final double[] offered, final double arrival,
+        final double window) {
+        final double utilization = offered[1];
+        final double mean = offered[1] / offered[0];
+        final double scv = offered[2] / offered[0] / (mean * mean) - 1.0;
+        final double time;
+        if (utilization < 1.0) {
+            time = utilization / (1.0 - utilization) * (arrival + scv) / 2.0 * mean;
+        } else {
+            // The bus queue grows during the whole period
+            time = (1.0 - 1.0 / utilization) * window / 2.0;
+        }
+        return time;
+    }
+
+    /**
+     * Computes the moments of a configured variable. Variables following a
+     * rate profile are approximated by a Poisson process with the average rate
+     * over the simulated period.
+     * @param variable The variable's key (e.g., {@code T31s.PCA2.passenger})
+     * @return The moments
+     */
+    private Moments moments(final String variable) {
+        final RateProfile profile = RateProfile.from(this.config, variable);
+        final Moments moments;
+        if (profile == null) {
+            final String key = String.format("%s.distribution", variable);
+            moments = Moments.of(
+                Distribution.from(this.config.getString(key)),
+                this.config.subset(key)
+            );
+        } else {
+            final double mean = this.length / profile.cumulative(this.length);
+            moments = new Moments(mean, mean * mean);
+        }
+        return moments;
+    }
+
+}
@@ -0,0 +1,303 @@
+package com.rigiresearch.dt.experimentation.simulation.fluid;
+
+import com.rigiresearch.dt.experimentation.simulation.Distribution;
+import lombok.Value;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * The first two moments of a random variable.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Value
+public class Moments {
+
+    /**
+     * Number of standard deviations covered by the numerical integration.
+     */
+    private static final double BOUND = 8.0;
+
+    /**
+     * Number of (even) intervals used by the numerical integration.
+     */
+    private static final int INTERVALS = 256;
+
+    /**
+     * Lanczos approximation coefficients (g = 7, n = 9).
+     */
+    private static final double[] LANCZOS = {
+        0.99999999999980993,
+        676.5203681218851,
+        -1259.1392167224028,
+        771.32342877765313,
+        -176.61502916214059,
+        12.507343278686905,
+        -0.13857109526572012,
+        9.9843695780195716e-6,
+        1.5056327351493116e-7,
+    };
+
+    /**
+     * The expected value.
+     */
+    double mean;
+
+    /**
+     * The variance.
+     */
+    double variance;
+
+    /**
+     * The second raw moment.
+     * @return A positive number
+     */
+    public double second() {
+        return this.variance + this.mean * this.mean;
+    }
+
+    /**
+     * The squared coefficient of variation.
+     * @return A positive number, or zero
+     */
+    public double scv() {
+        return this.variance / (this.mean * this.mean);
+    }
+
+    /**
+     * Computes the moments of the given distribution. The parameters are the
+     * same used by {@code RandomVariableFactory}.
+     * @param distribution The distribution
+     * @param config The arguments of the distribution
+     * @return The moments; the variance is infinite if undefined
+     */
+    public static Moments of(final Distribution distribution, final Configuration config) {
+        final Moments moments;
+        switch (distribution) {
+            case BERNOULLI:
+                moments = Moments.bernoulli(config.getDouble("prob"), 1.0);
+                break;
+            case BETA:
+                moments = Moments.beta(
+                    config.getDouble("alpha1"),
+                    config.getDouble("alpha2")
+                );
+                break;
+            case BINOMIAL:
+                moments = Moments.bernoulli(
+                    config.getDouble("prob"),
+                    config.getInt("numTrials")
+                );
+                break;
+            case CONSTANT:
+            case UPDATABLE_CONSTANT:
+                moments = new Moments(config.getDouble("value"), 0.0);
+                break;
+            case EMPIRICAL:
+                moments = Moments.empirical(
+                    (double[]) config.getArray(double.class, "value"),
+                    (double[]) config.getArray(double.class, "cdf")
+                );
+                break;
+            case EXPONENTIAL:
+                final double mean = config.getDouble("mean");
+                moments = new Moments(mean, mean * mean);
+                break;
+            case GAMMA:
+                final double shape = config.getDouble("shape");
+                final double scale = config.getDouble("scale");
+                moments = new Moments(shape * scale, shape * scale * scale);
+                break;
+            case JOHNSON:
+                moments = Moments.johnson(
+                    config.getDouble("alpha1"),
+                    config.getDouble("alpha2"),
+                    config.getDouble("min"),
+                    config.getDouble("max")
+                );
+                break;
+            case LAPLACE:
+                final double laplace = config.getDouble("scale");
+                moments = new Moments(config.getDouble("mean"), 2.0 * laplace * laplace);
+                break;
+            case LOG_LOGISTIC:
+                moments = Moments.logLogistic(
+                    config.getDouble("shape"),
+                    config.getDouble("scale")
+                );
+                break;
+            case UNIFORM:
+                final double min = config.getInt("minimum");
+                final double max = config.getInt("maximum");
+                final double range = max - min + 1.0;
+                moments = new Moments((min + max) / 2.0, (range * range - 1.0) / 12.0);
+                break;
+            case GEOMETRIC:
+                final double prob = config.getDouble("prob");
+                moments = new Moments((1.0 - prob) / prob, (1.0 - prob) / (prob * prob));
+                break;
+            case SHIFTED_GEOMETRIC:
+                final double shifted = config.getDouble("prob");
+                moments = new Moments(1.0 / shifted, (1.0 - shifted) / (shifted * shifted));
+                break;
+            case NEGATIVE_BINOMIAL:
+                final double success = config.getDouble("prob");
+                final double trials = config.getDouble("numSuccess");
+                moments = new Moments(
+                    trials * (1.0 - success) / success,
+                    trials * (1.0 - success) / (success * success)
+                );
+                break;
+            case POISSON:
+                final double poisson = config.getDouble("mean");
+                moments = new Moments(poisson, poisson);
+                break;
+            case WEIBULL:
+                moments = Moments.weibull(
+                    config.getDouble("shape"),
+                    config.getDouble("scale")
+                );
+                break;
+            default:
+                throw new IllegalArgumentException(
+                    String.format("Unsupported distribution %s", distribution)
+                );
+        }
+        return moments;
+    }
+
+    /**
+     * The moments of a binomial distribution.
+     * @param prob The probability of success
+     * @param trials The number of trials
+     * @return The moments
+     */
+    private static Moments bernoulli(final double prob, final double trials) {
+        return new Moments(trials * prob, trials * prob * (1.0 - prob));
+    }
+
+    /**
+     * The moments of a beta distribution.
+     * @param alpha The first shape parameter
+     * @param beta The second shape parameter
+     * @return The moments
+     */
+    private static Moments beta(final double alpha, final double beta) {
+        final double sum = alpha + beta;
+        return new Moments(alpha / sum, alpha * beta / (sum * sum * (sum + 1.0)));
+    }
+
+    /**
+     * The moments of a discrete empirical distribution.
+     * @param values The possible values
+     * @param cdf The cumulative probability of each value
+     * @return The moments
+     */
+    private static Moments empirical(final double[] values, final double[] cdf) {
+        double first = 0.0;
+        double second = 0.0;
+        double previous = 0.0;
+        for (int index = 0; index < values.length; index++) {
+            final double prob = cdf[index] - previous;
+            first += prob * values[index];
+            second += prob * values[index] * values[index];
+            previous = cdf[index];
+        }
+        return new Moments(first, second - first * first);
+    }
+
+    /**
+     * The moments of a Johnson SB distribution, computed by integrating over
+     * the underlying standard normal variable with Simpson's rule.
+     * @param alpha1 The first shape parameter
+     * @param alpha2 The second shape parameter
+     * @param min The lower bound
+     * @param max The upper bound
+     * @return The moments
+     */
+    private static Moments johnson(final double alpha1, final double alpha2,
+        final double min, final double max) {
+        final double step = 2.0 * Moments.BOUND / Moments.INTERVALS;
+        double first = 0.0;
+        double second = 0.0;
+        for (int index = 0; index <= Moments.INTERVALS; index++) {
+            final double normal = -Moments.BOUND + index * step;
+            final double weight;
+            if (index == 0 || index == Moments.INTERVALS) {
+                weight = 1.0;
+            } else if (index % 2 == 1) {
+                weight = 4.0;
+            } else {
+                weight = 2.0;
+            }
+            final double density = Math.exp(-normal * normal / 2.0) / Math.sqrt(2.0 * Math.PI);
+            final double exp = Math.exp((normal - alpha1) / alpha2);
+            final double value = (min + max * exp) / (1.0 + exp);
+            first += weight * density * value;
+            second += weight * density * value * value;
+        }
+        first *= step / 3.0;
+        second *= step / 3.0;
+        return new Moments(first, Math.max(0.0, second - first * first));
+    }
+
+    /**
+     * The moments of a log-logistic distribution.
+     * @param shape The shape parameter
+     * @param scale The scale parameter
+     * @return The moments; the variance is infinite if the shape is less than
+     *  or equal to 2
+     */
+    private static Moments logLogistic(final double shape, final double scale) {
+        final double angle = Math.PI / shape;
+        final double mean;
+        if (shape > 1.0) {
+            mean = scale * angle / Math.sin(angle);
+        } else {
+            mean = Double.POSITIVE_INFINITY;
+        }
+        final double variance;
+        if (shape > 2.0) {
+            variance = scale * scale * (2.0 * angle / Math.sin(2.0 * angle))
+                - mean * mean;
+        } else {
+            variance = Double.POSITIVE_INFINITY;
+        }
+        return new Moments(mean, variance);
+    }
+
+    /**
+     * The moments of a Weibull distribution.
+     * @param shape The shape parameter
+     * @param scale The scale parameter
+     * @return The moments
+     */
+    private static Moments weibull(final double shape, final double scale) {
+        final double first = Moments.gamma(1.0 + 1.0 / shape);
+        final double second = Moments.gamma(1.0 + 2.0 / shape);
+        return new Moments(scale * first, scale * scale * (second - first * first));
+    }
+
+    /**
+     * The gamma function, computed with the Lanczos approximation.
+     * @param value A positive number
+     * @return The gamma function evaluated at the given value
+     */
+    private static double gamma(final double value) {
+        final double result;
+        if (value < 0.5) {
+            result = Math.PI / (Math.sin(Math.PI * value) * Moments.gamma(1.0 - value));
+        } else {
+            final double shifted = value - 1.0;
+            double sum = Moments.LANCZOS[0];
+            for (int index = 1; index < Moments.LANCZOS.length; index++) {
+                sum += Moments.LANCZOS[index] / (shifted + index);
+            }
+            final double base = shifted + Moments.LANCZOS.length - 1.5;
+            result = Math.sqrt(2.0 * Math.PI) * Math.pow(base, shifted + 0.5)
+                * Math.exp(-base) * sum;
+        }
+        return result;
+    }
+
+}
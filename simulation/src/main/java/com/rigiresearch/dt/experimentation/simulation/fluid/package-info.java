@@ -0,0 +1,6 @@
+/**
+ * Contains a mean-value (fluid) approximation of the simulation, used to
+ * screen candidate configurations before running full replications.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.fluid;
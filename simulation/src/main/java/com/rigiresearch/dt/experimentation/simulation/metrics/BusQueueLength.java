@@ -1,51 +1,45 @@
 package com.rigiresearch.dt.experimentation.simulation.metrics;
 
-import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
-import jsl.utilities.statistic.Statistic;
 import lombok.RequiredArgsConstructor;
 
 /**
- * Bus queue length per stop.
+ * Time-weighted bus queue length per stop.
  * @author Miguel Jimenez (miguel@uvic.ca)
  * @version $Id$
  * @since 0.1.0
  */
 @RequiredArgsConstructor
-public final class BusQueueLength implements SimulationMetric<Statistic> {
+public final class BusQueueLength implements SimulationMetric<TimeWeightedStatistic> {
 
     /**
      * The simulation from which this metric is computed.
      */
-    private final DtSimulation simulation;
+    private final SimulationStatistics simulation;
 
     /**
      * Statistic for a particular stop.
      * @param stop The stop of interest
      * @return A non-null statistic, unless it is an isolated stop
      */
-    public Statistic value(final Stop stop) {
+    public TimeWeightedStatistic value(final Stop stop) {
         return this.simulation.busQueueLengths().get(stop);
     }
 
     @Override
-    public Statistic value(final Line line) {
-        final Statistic tmp = new Statistic();
-        tmp.setSaveOption(true);
-        line.journey()
-            .forEach(stop -> tmp.collect(this.value(stop).getSavedData()));
-        return tmp;
+    public TimeWeightedStatistic value(final Line line) {
+        return TimeWeightedStatistic.consolidated(this.values(line));
     }
 
     @Override
-    public List<Statistic> values(final Line line) {
+    public List<TimeWeightedStatistic> values(final Line line) {
         final Deque<Stop> journey = line.journey();
-        final List<Statistic> list = new ArrayList<>(journey.size());
+        final List<TimeWeightedStatistic> list = new ArrayList<>(journey.size());
         journey.forEach(stop -> list.add(this.value(stop)));
         return list;
     }
@@ -65,8 +59,8 @@ public final class BusQueueLength implements SimulationMetric<Statistic> {
                 builder.append("Standard deviation: ");
                 builder.append(statistic.getStandardDeviation());
                 builder.append('\n');
-                builder.append("Samples: ");
-                builder.append(Arrays.toString(statistic.getSavedData()));
+                builder.append("Time series: ");
+                builder.append(Arrays.toString(statistic.series()));
                 builder.append('\n');
                 builder.append('\n');
             });
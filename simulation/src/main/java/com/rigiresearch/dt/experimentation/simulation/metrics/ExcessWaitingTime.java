@@ -1,6 +1,5 @@
 package com.rigiresearch.dt.experimentation.simulation.metrics;
 
-import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import java.util.Arrays;
 import java.util.List;
@@ -18,7 +17,7 @@ public final class ExcessWaitingTime implements SimulationMetric<Statistic> {
     /**
      * The simulation from which this metric is computed.
      */
-    private final DtSimulation simulation;
+    private final SimulationStatistics simulation;
 
     /**
      * The headway designs.
@@ -35,7 +34,7 @@ public final class ExcessWaitingTime implements SimulationMetric<Statistic> {
      * @param simulation The simulation from which this metric is computed
      * @param headways The headway designs
      */
-    public ExcessWaitingTime(final DtSimulation simulation,
+    public ExcessWaitingTime(final SimulationStatistics simulation,
         final Map<Line, Double> headways) {
         this.simulation = simulation;
         this.headways = headways;
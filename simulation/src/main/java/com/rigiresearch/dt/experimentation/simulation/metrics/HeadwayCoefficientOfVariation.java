@@ -1,6 +1,5 @@
 package com.rigiresearch.dt.experimentation.simulation.metrics;
 
-import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import java.util.List;
 import jsl.utilities.statistic.Statistic;
@@ -17,7 +16,7 @@ public final class HeadwayCoefficientOfVariation
     /**
      * The simulation from which this metric is computed.
      */
-    private final DtSimulation simulation;
+    private final SimulationStatistics simulation;
 
     /**
      * The observed line headways.
@@ -28,7 +27,7 @@ public final class HeadwayCoefficientOfVariation
      * Default constructor.
      * @param simulation The simulation from which this metric is computed
      */
-    public HeadwayCoefficientOfVariation(final DtSimulation simulation) {
+    public HeadwayCoefficientOfVariation(final SimulationStatistics simulation) {
         this.simulation = simulation;
         this.observed = new ObservedLineHeadway(this.simulation);
     }
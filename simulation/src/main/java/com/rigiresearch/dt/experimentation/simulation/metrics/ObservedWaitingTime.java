@@ -1,6 +1,5 @@
 package com.rigiresearch.dt.experimentation.simulation.metrics;
 
-import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
 import java.util.Arrays;
 import java.util.List;
@@ -19,7 +18,7 @@ public final class ObservedWaitingTime implements SimulationMetric<Statistic> {
     /**
      * The simulation from which this metric is computed.
      */
-    private final DtSimulation simulation;
+    private final SimulationStatistics simulation;
 
     @Override
     public Statistic value(final Line line) {
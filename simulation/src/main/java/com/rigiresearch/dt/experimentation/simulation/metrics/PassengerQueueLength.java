@@ -1,35 +1,32 @@
 package com.rigiresearch.dt.experimentation.simulation.metrics;
 
-import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
 import com.rigiresearch.dt.experimentation.simulation.graph.Line;
-import java.util.Arrays;
 import java.util.List;
-import jsl.utilities.statistic.Statistic;
 import lombok.RequiredArgsConstructor;
 
 /**
- * The passenger queue length per line.
+ * The time-weighted passenger queue length per line.
  * @author Miguel Jimenez (miguel@uvic.ca)
  * @version $Id$
  * @since 0.1.0
  */
 @RequiredArgsConstructor
-public final class PassengerQueueLength implements SimulationMetric<Statistic> {
+public final class PassengerQueueLength implements SimulationMetric<TimeWeightedStatistic> {
 
     /**
      * The simulation from which this metric is computed.
      */
-    private final DtSimulation simulation;
+    private final SimulationStatistics simulation;
 
     @Override
-    public Statistic value(final Line line) {
-        return SimulationMetric.consolidated(
+    public TimeWeightedStatistic value(final Line line) {
+        return TimeWeightedStatistic.consolidated(
             this.simulation.passengerQueueLengths().get(line)
         );
     }
 
     @Override
-    public List<Statistic> values(final Line line) {
+    public List<TimeWeightedStatistic> values(final Line line) {
         return this.simulation.passengerQueueLengths().get(line);
     }
 
@@ -44,7 +41,7 @@ public final class PassengerQueueLength implements SimulationMetric<Statistic> {
             .filter(Line.class::isInstance)
             .map(Line.class::cast)
             .forEach(line -> {
-                final Statistic statistic = this.value(line);
+                final TimeWeightedStatistic statistic = this.value(line);
                 builder.append(line.getName());
                 builder.append('\n');
                 builder.append("Average: ");
@@ -53,8 +50,8 @@ public final class PassengerQueueLength implements SimulationMetric<Statistic> {
                 builder.append("Standard deviation: ");
                 builder.append(statistic.getStandardDeviation());
                 builder.append('\n');
-                builder.append("Samples: ");
-                builder.append(Arrays.toString(statistic.getSavedData()));
+                builder.append("Maximum: ");
+                builder.append(statistic.getMax());
                 builder.append('\n');
                 builder.append('\n');
             });
@@ -0,0 +1,52 @@
+package com.rigiresearch.dt.experimentation.simulation.metrics;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.util.List;
+import java.util.Map;
+import jsl.utilities.statistic.Statistic;
+
+/**
+ * The statistics collected by a simulation run, from which the simulation
+ * metrics are computed. They are either collected by a running simulation
+ * or re-derived from recorded observations.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public interface SimulationStatistics {
+
+    /**
+     * The graph on which the simulation is based.
+     * @return A non-null graph
+     */
+    Graph<Node> getGraph();
+
+    /**
+     * Returns the passenger waiting times per line, with a statistic per stop.
+     * @return A non-null, possibly empty map
+     */
+    Map<Line, List<Statistic>> waitingTimes();
+
+    /**
+     * Returns the observed headway times per line, with a statistic per stop.
+     * @return A non-null, possibly empty map
+     */
+    Map<Line, List<Statistic>> observedHeadways();
+
+    /**
+     * Returns the time-weighted passenger queue lengths per line, with a
+     * statistic per stop.
+     * @return A non-null, possibly empty map
+     */
+    Map<Line, List<TimeWeightedStatistic>> passengerQueueLengths();
+
+    /**
+     * Returns the time-weighted bus queue lengths per stop.
+     * @return A non-null, possibly empty map
+     */
+    Map<Stop, TimeWeightedStatistic> busQueueLengths();
+
+}
@@ -0,0 +1,243 @@
+package com.rigiresearch.dt.experimentation.simulation.metrics;
+
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * A time-weighted statistic of a piecewise-constant variable, such as a queue
+ * length. Each value is weighted by the time it is held, and only the running
+ * sums are kept, so memory does not grow with the length of the simulation.
+ * Optionally, it also keeps the average of each fixed interval of observed
+ * time, as a downsampled time series.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class TimeWeightedStatistic {
+
+    /**
+     * The name of this statistic.
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * The length of the time series intervals, or zero if the time series is
+     * disabled.
+     */
+    private final double interval;
+
+    /**
+     * The time of the last update.
+     */
+    @Getter
+    private double time;
+
+    /**
+     * The current value.
+     */
+    @Getter
+    private double value;
+
+    /**
+     * The total observed time.
+     */
+    @Getter
+    private double duration;
+
+    /**
+     * The integral of the value over time.
+     */
+    private double area;
+
+    /**
+     * The integral of the squared value over time.
+     */
+    private double squares;
+
+    /**
+     * The minimum value.
+     */
+    @Getter
+    private double min;
+
+    /**
+     * The maximum value.
+     */
+    @Getter
+    private double max;
+
+    /**
+     * The time elapsed in the current interval.
+     */
+    private double elapsed;
+
+    /**
+     * The integral of the value over the current interval.
+     */
+    private double partial;
+
+    /**
+     * The averages of the completed intervals.
+     */
+    private double[] series;
+
+    /**
+     * The number of completed intervals.
+     */
+    private int intervals;
+
+    /**
+     * Secondary constructor.
+     * @param name The name of this statistic
+     */
+    public TimeWeightedStatistic(final String name) {
+        this(name, 0.0);
+    }
+
+    /**
+     * Default constructor.
+     * @param name The name of this statistic
+     * @param interval The length of the time series intervals, or zero to
+     *  disable the time series
+     */
+    public TimeWeightedStatistic(final String name, final double interval) {
+        if (interval < 0.0) {
+            throw new IllegalArgumentException(
+                String.format("Expected a non-negative interval but got %f", interval)
+            );
+        }
+        this.name = name;
+        this.interval = interval;
+        this.min = Double.POSITIVE_INFINITY;
+        this.max = Double.NEGATIVE_INFINITY;
+        this.series = new double[0];
+        this.restart();
+    }
+
+    /**
+     * Combines the given statistics, as if their observed periods were
+     * consecutive. The time series is not combined.
+     * @param statistics The statistics to combine
+     * @return A new statistic
+     */
+    public static TimeWeightedStatistic consolidated(
+        final Iterable<TimeWeightedStatistic> statistics) {
+        final TimeWeightedStatistic result = new TimeWeightedStatistic("consolidated");
+        statistics.forEach(statistic -> {
+            result.duration += statistic.duration;
+            result.area += statistic.area;
+            result.squares += statistic.squares;
+            result.min = Math.min(result.min, statistic.min);
+            result.max = Math.max(result.max, statistic.max);
+        });
+        return result;
+    }
+
+    /**
+     * Starts a new observation period at time zero, with a value of zero
+     * (e.g., an empty queue at the beginning of a replication). The sums
+     * accumulated so far are kept.
+     */
+    public void restart() {
+        this.time = 0.0;
+        this.value = 0.0;
+        this.min = Math.min(this.min, 0.0);
+        this.max = Math.max(this.max, 0.0);
+    }
+
+    /**
+     * Updates the value of the variable.
+     * @param now The current time
+     * @param next The new value
+     */
+    public void update(final double now, final double next) {
+        if (now < this.time) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Statistic %s was last updated at %f, after %f",
+                    this.name,
+                    this.time,
+                    now
+                )
+            );
+        }
+        this.accumulate(now - this.time);
+        this.time = now;
+        this.value = next;
+        this.min = Math.min(this.min, next);
+        this.max = Math.max(this.max, next);
+    }
+
+    /**
+     * The time-weighted average.
+     * @return The average, or NaN if no time has been observed
+     */
+    public double getAverage() {
+        return this.area / this.duration;
+    }
+
+    /**
+     * The time-weighted variance.
+     * @return A positive number, zero, or NaN if no time has been observed
+     */
+    public double getVariance() {
+        final double average = this.getAverage();
+        return Math.max(0.0, this.squares / this.duration - average * average);
+    }
+
+    /**
+     * The time-weighted standard deviation.
+     * @return A positive number, zero, or NaN if no time has been observed
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(this.getVariance());
+    }
+
+    /**
+     * The average of each completed interval of observed time.
+     * @return A non-null, possibly empty array
+     */
+    public double[] series() {
+        return Arrays.copyOf(this.series, this.intervals);
+    }
+
+    /**
+     * Accumulates the current value over a period of time.
+     * @param period The length of the period
+     */
+    private void accumulate(final double period) {
+        this.duration += period;
+        this.area += this.value * period;
+        this.squares += this.value * this.value * period;
+        if (this.interval > 0.0) {
+            double remaining = period;
+            while (remaining > 0.0) {
+                final double room = this.interval - this.elapsed;
+                if (remaining < room) {
+                    this.elapsed += remaining;
+                    this.partial += this.value * remaining;
+                    remaining = 0.0;
+                } else {
+                    this.partial += this.value * room;
+                    remaining -= room;
+                    this.complete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes the current interval of the time series.
+     */
+    private void complete() {
+        if (this.intervals == this.series.length) {
+            this.series = Arrays.copyOf(this.series, Math.max(16, this.intervals * 2));
+        }
+        this.series[this.intervals] = this.partial / this.interval;
+        this.intervals++;
+        this.elapsed = 0.0;
+        this.partial = 0.0;
+    }
+
+}
@@ -0,0 +1,386 @@
+package com.rigiresearch.dt.experimentation.simulation.observation;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An observation sink that appends fixed-width, little-endian records to one
+ * memory-mapped file per metric and column. For each metric, there are four
+ * columns: {@code <metric>.time.f64}, {@code <metric>.line.i32},
+ * {@code <metric>.stop.i32} and {@code <metric>.value.f64}.
+ *
+ * <p>Each column file starts with a {@value #HEADER_BYTES}-byte header: the
+ * magic {@code DTCOLUMN}, the format version, the column type, the width of
+ * each value and, at offset 24, the number of values. The values follow the
+ * header, so that R ({@code readBin}) and python ({@code numpy.memmap}) can
+ * read them without parsing. A {@code schema.properties} file describes the
+ * columns and maps line and stop identifiers to their names.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class ColumnarObservationSink implements ObservationSink, Closeable {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(ColumnarObservationSink.class);
+
+    /**
+     * The number of bytes preceding the values of a column.
+     */
+    public static final int HEADER_BYTES = 64;
+
+    /**
+     * The offset of the number of values within the header.
+     */
+    public static final int COUNT_OFFSET = 24;
+
+    /**
+     * The name of the schema file.
+     */
+    public static final String SCHEMA = "schema.properties";
+
+    /**
+     * The magic bytes identifying a column file.
+     */
+    static final byte[] MAGIC = "DTCOLUMN".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The format version.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The number of values mapped at once.
+     */
+    private static final int CHUNK = 1 << 16;
+
+    /**
+     * The output directory.
+     */
+    private final Path directory;
+
+    /**
+     * The columns of each metric.
+     */
+    private final Map<ObservationSink.Metric, ColumnarObservationSink.Column[]> columns;
+
+    /**
+     * The identifiers of the observed lines.
+     */
+    private final Map<String, Integer> lines;
+
+    /**
+     * The identifiers of the observed stops.
+     */
+    private final Map<String, Integer> stops;
+
+    /**
+     * Default constructor.
+     * @param directory The output directory
+     * @throws IOException If the column files cannot be created
+     */
+    public ColumnarObservationSink(final Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.columns = new EnumMap<>(ObservationSink.Metric.class);
+        this.lines = new HashMap<>();
+        this.stops = new HashMap<>();
+        for (final ObservationSink.Metric metric : ObservationSink.Metric.values()) {
+            this.columns.put(
+                metric,
+                new ColumnarObservationSink.Column[] {
+                    this.column(metric, "time", ColumnarObservationSink.Type.F64),
+                    this.column(metric, "line", ColumnarObservationSink.Type.I32),
+                    this.column(metric, "stop", ColumnarObservationSink.Type.I32),
+                    this.column(metric, "value", ColumnarObservationSink.Type.F64),
+                }
+            );
+        }
+    }
+
+    @Override
+    public void observe(final ObservationSink.Metric metric, final double time,
+        final Line line, final Stop stop, final double value) {
+        final ColumnarObservationSink.Column[] array = this.columns.get(metric);
+        try {
+            array[0].reserve().putDouble(time);
+            array[1].reserve().putInt(ColumnarObservationSink.id(this.lines, line.getName()));
+            array[2].reserve().putInt(ColumnarObservationSink.id(this.stops, stop.getName()));
+            array[3].reserve().putDouble(value);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(
+                String.format("Could not export a %s observation", metric.getName()),
+                exception
+            );
+        }
+    }
+
+    /**
+     * The number of observations exported for a metric.
+     * @param metric The metric
+     * @return A positive number, or zero
+     */
+    public long count(final ObservationSink.Metric metric) {
+        return this.columns.get(metric)[0].count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        final Properties schema = new Properties();
+        schema.setProperty("format", new String(ColumnarObservationSink.MAGIC,
+            StandardCharsets.US_ASCII));
+        schema.setProperty("version", Integer.toString(ColumnarObservationSink.VERSION));
+        schema.setProperty("byte-order", "little-endian");
+        schema.setProperty("header", Integer.toString(ColumnarObservationSink.HEADER_BYTES));
+        final List<String> metrics = new ArrayList<>(this.columns.size());
+        for (final Map.Entry<ObservationSink.Metric, ColumnarObservationSink.Column[]> entry
+            : this.columns.entrySet()) {
+            metrics.add(entry.getKey().getName());
+            for (final ColumnarObservationSink.Column column : entry.getValue()) {
+                column.close();
+                final String prefix = column.file.getFileName().toString();
+                schema.setProperty(
+                    String.format("%s.type", prefix),
+                    column.type.getName()
+                );
+                schema.setProperty(
+                    String.format("%s.count", prefix),
+                    Long.toString(column.count)
+                );
+            }
+        }
+        schema.setProperty("metrics", String.join(",", metrics));
+        schema.setProperty("lines", ColumnarObservationSink.names(this.lines));
+        schema.setProperty("stops", ColumnarObservationSink.names(this.stops));
+        try (Writer writer = Files.newBufferedWriter(
+            this.directory.resolve(ColumnarObservationSink.SCHEMA),
+            StandardCharsets.UTF_8)) {
+            schema.store(writer, "Columnar simulation observations");
+        }
+        ColumnarObservationSink.LOGGER.debug("Exported observations to {}", this.directory);
+    }
+
+    /**
+     * Creates a column file.
+     * @param metric The metric
+     * @param name The column name
+     * @param type The column type
+     * @return A non-null column
+     * @throws IOException If the file cannot be created
+     */
+    private ColumnarObservationSink.Column column(final ObservationSink.Metric metric,
+        final String name, final ColumnarObservationSink.Type type) throws IOException {
+        return new ColumnarObservationSink.Column(
+            ColumnarObservationSink.file(this.directory, metric, name, type),
+            type
+        );
+    }
+
+    /**
+     * The path of a column file.
+     * @param directory The output directory
+     * @param metric The metric
+     * @param name The column name
+     * @param type The column type
+     * @return A non-null path
+     */
+    static Path file(final Path directory, final ObservationSink.Metric metric,
+        final String name, final ColumnarObservationSink.Type type) {
+        return directory.resolve(
+            String.format("%s.%s.%s", metric.getName(), name, type.getName())
+        );
+    }
+
+    /**
+     * Finds or assigns the identifier of a name.
+     * @param ids The identifiers assigned so far
+     * @param name The name
+     * @return A positive number, or zero
+     */
+    private static int id(final Map<String, Integer> ids, final String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.size();
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Lists the names of a dictionary, ordered by identifier.
+     * @param ids The identifiers
+     * @return A comma-separated list of names
+     */
+    private static String names(final Map<String, Integer> ids) {
+        final String[] names = new String[ids.size()];
+        ids.forEach((name, id) -> names[id] = name);
+        return String.join(",", names);
+    }
+
+    /**
+     * The column types.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Type {
+        /**
+         * 64-bit IEEE 754 floating point numbers.
+         */
+        F64("f64", 1, Double.BYTES),
+
+        /**
+         * 32-bit signed integers.
+         */
+        I32("i32", 2, Integer.BYTES);
+
+        /**
+         * The type name, used as file extension.
+         */
+        private final String name;
+
+        /**
+         * The type code stored in the header.
+         */
+        private final int code;
+
+        /**
+         * The number of bytes of each value.
+         */
+        private final int width;
+    }
+
+    /**
+     * A column file, mapped in chunks of {@value #CHUNK} values.
+     */
+    private static final class Column {
+
+        /**
+         * The column file.
+         */
+        private final Path file;
+
+        /**
+         * The column type.
+         */
+        private final ColumnarObservationSink.Type type;
+
+        /**
+         * The file channel.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The current chunk.
+         */
+        private MappedByteBuffer buffer;
+
+        /**
+         * The number of values written.
+         */
+        private long count;
+
+        /**
+         * Default constructor.
+         * @param file The column file
+         * @param type The column type
+         * @throws IOException If the file cannot be created
+         */
+        Column(final Path file, final ColumnarObservationSink.Type type)
+            throws IOException {
+            this.file = file;
+            this.type = type;
+            this.channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            );
+            final ByteBuffer header = ByteBuffer.allocate(ColumnarObservationSink.HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            header.put(ColumnarObservationSink.MAGIC)
+                .putInt(ColumnarObservationSink.VERSION)
+                .putInt(type.getCode())
+                .putInt(type.getWidth());
+            header.putLong(ColumnarObservationSink.COUNT_OFFSET, 0L);
+            header.rewind();
+            this.channel.write(header, 0L);
+        }
+
+        /**
+         * Makes room for one more value and counts it.
+         * @return The buffer to write the value to
+         * @throws IOException If the next chunk cannot be mapped
+         */
+        ByteBuffer reserve() throws IOException {
+            if (this.buffer == null || !this.buffer.hasRemaining()) {
+                this.buffer = this.channel.map(
+                    FileChannel.MapMode.READ_WRITE,
+                    this.offset(),
+                    (long) ColumnarObservationSink.CHUNK * this.type.getWidth()
+                );
+                this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            this.count++;
+            return this.buffer;
+        }
+
+        /**
+         * Records the number of values, trims the unused part of the last
+         * chunk and closes the file.
+         * @throws IOException If the header cannot be updated
+         */
+        void close() throws IOException {
+            if (this.buffer != null) {
+                this.buffer.force();
+            }
+            final ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(0, this.count);
+            this.channel.write(bytes, ColumnarObservationSink.COUNT_OFFSET);
+            try {
+                this.channel.truncate(this.offset());
+            } catch (final IOException exception) {
+                // Some platforms do not truncate mapped files; readers rely
+                // on the count anyway
+                ColumnarObservationSink.LOGGER.debug(
+                    "Could not trim {}", this.file, exception);
+            }
+            this.channel.close();
+        }
+
+        /**
+         * The file offset following the last value written.
+         * @return A positive number
+         */
+        private long offset() {
+            return ColumnarObservationSink.HEADER_BYTES + this.count * this.type.getWidth();
+        }
+
+    }
+
+}
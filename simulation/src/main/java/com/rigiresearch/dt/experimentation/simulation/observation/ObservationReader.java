@@ -0,0 +1,261 @@
+package com.rigiresearch.dt.experimentation.simulation.observation;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays the observations exported by a {@link ColumnarObservationSink}, so
+ * that metrics can be re-derived without re-running the simulation.
+ *
+ * <p>Observations are replayed metric by metric, each one in the order in
+ * which it was observed. Column files are mapped in chunks, so traces larger
+ * than the available memory are read at disk speed.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class ObservationReader {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(ObservationReader.class);
+
+    /**
+     * The number of values mapped at once.
+     */
+    private static final int CHUNK = 1 << 20;
+
+    /**
+     * The directory containing the column files.
+     */
+    private final Path directory;
+
+    /**
+     * The schema of the exported observations.
+     */
+    private final Properties schema;
+
+    /**
+     * Default constructor.
+     * @param directory The directory containing the column files
+     * @throws IOException If the schema cannot be read
+     */
+    public ObservationReader(final Path directory) throws IOException {
+        this.directory = directory;
+        this.schema = new Properties();
+        try (Reader reader = Files.newBufferedReader(
+            directory.resolve(ColumnarObservationSink.SCHEMA), StandardCharsets.UTF_8)) {
+            this.schema.load(reader);
+        }
+        final String version = Integer.toString(ColumnarObservationSink.VERSION);
+        if (!version.equals(this.schema.getProperty("version"))) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Unsupported observation format version %s in %s",
+                    this.schema.getProperty("version"),
+                    directory
+                )
+            );
+        }
+    }
+
+    /**
+     * Replays the observations to a sink.
+     * @param graph The graph on which the simulation was based, used to
+     *  resolve the observed lines and stops
+     * @param sink The sink receiving the observations
+     * @throws IOException If a column file cannot be read
+     */
+    public void replay(final Graph<Node> graph, final ObservationSink sink)
+        throws IOException {
+        final Map<String, Line> lines = new HashMap<>();
+        final Map<String, Stop> stops = new HashMap<>();
+        graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .forEach(line -> {
+                lines.put(line.getName(), line);
+                line.journey().forEach(stop -> stops.put(stop.getName(), stop));
+            });
+        final List<Line> ids = this.dictionary("lines", Line.class, lines::get);
+        final List<Stop> names = this.dictionary("stops", Stop.class, stops::get);
+        final List<String> metrics = Arrays.asList(this.list("metrics"));
+        for (final ObservationSink.Metric metric : ObservationSink.Metric.values()) {
+            if (metrics.contains(metric.getName())) {
+                this.replay(metric, ids, names, sink);
+            }
+        }
+    }
+
+    /**
+     * Replays the observations of a metric.
+     * @param metric The metric
+     * @param lines The lines, indexed by identifier
+     * @param stops The stops, indexed by identifier
+     * @param sink The sink receiving the observations
+     * @throws IOException If a column file cannot be read
+     */
+    private void replay(final ObservationSink.Metric metric, final List<Line> lines,
+        final List<Stop> stops, final ObservationSink sink) throws IOException {
+        try (FileChannel time = this.open(metric, "time", ColumnarObservationSink.Type.F64);
+             FileChannel line = this.open(metric, "line", ColumnarObservationSink.Type.I32);
+             FileChannel stop = this.open(metric, "stop", ColumnarObservationSink.Type.I32);
+             FileChannel value = this.open(metric, "value", ColumnarObservationSink.Type.F64)) {
+            final long count = ObservationReader.count(time);
+            for (long start = 0L; start < count; start += ObservationReader.CHUNK) {
+                final int length = (int) Math.min(ObservationReader.CHUNK, count - start);
+                final ByteBuffer times = ObservationReader.map(
+                    time, ColumnarObservationSink.Type.F64, start, length);
+                final ByteBuffer lineIds = ObservationReader.map(
+                    line, ColumnarObservationSink.Type.I32, start, length);
+                final ByteBuffer stopIds = ObservationReader.map(
+                    stop, ColumnarObservationSink.Type.I32, start, length);
+                final ByteBuffer values = ObservationReader.map(
+                    value, ColumnarObservationSink.Type.F64, start, length);
+                for (int index = 0; index < length; index++) {
+                    sink.observe(
+                        metric,
+                        times.getDouble(),
+                        lines.get(lineIds.getInt()),
+                        stops.get(stopIds.getInt()),
+                        values.getDouble()
+                    );
+                }
+            }
+            ObservationReader.LOGGER.debug(
+                "Replayed {} {} observations", count, metric.getName());
+        }
+    }
+
+    /**
+     * Opens a column file and validates its header.
+     * @param metric The metric
+     * @param name The column name
+     * @param type The expected column type
+     * @return An open channel
+     * @throws IOException If the file cannot be read
+     */
+    private FileChannel open(final ObservationSink.Metric metric, final String name,
+        final ColumnarObservationSink.Type type) throws IOException {
+        final Path file = ColumnarObservationSink.file(this.directory, metric, name, type);
+        final FileChannel channel = FileChannel.open(file);
+        final ByteBuffer header = ByteBuffer.allocate(ColumnarObservationSink.HEADER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // Keep reading
+        }
+        header.flip();
+        final byte[] magic = new byte[ColumnarObservationSink.MAGIC.length];
+        if (header.remaining() == ColumnarObservationSink.HEADER_BYTES) {
+            header.get(magic);
+        }
+        if (!Arrays.equals(ColumnarObservationSink.MAGIC, magic)
+            || header.getInt() != ColumnarObservationSink.VERSION
+            || header.getInt() != type.getCode()) {
+            channel.close();
+            throw new IllegalArgumentException(
+                String.format("%s is not a %s column file", file, type.getName())
+            );
+        }
+        return channel;
+    }
+
+    /**
+     * Reads the number of values of a column.
+     * @param channel The column file
+     * @return A positive number, or zero
+     * @throws IOException If the header cannot be read
+     */
+    private static long count(final FileChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        final long offset = ColumnarObservationSink.COUNT_OFFSET;
+        while (buffer.hasRemaining()
+            && channel.read(buffer, offset + buffer.position()) >= 0) {
+            // Keep reading
+        }
+        return buffer.getLong(0);
+    }
+
+    /**
+     * Maps a chunk of a column.
+     * @param channel The column file
+     * @param type The column type
+     * @param start The index of the first value
+     * @param length The number of values
+     * @return A little-endian buffer
+     * @throws IOException If the chunk cannot be mapped
+     */
+    private static ByteBuffer map(final FileChannel channel,
+        final ColumnarObservationSink.Type type, final long start, final int length)
+        throws IOException {
+        return channel.map(
+            FileChannel.MapMode.READ_ONLY,
+            ColumnarObservationSink.HEADER_BYTES + start * type.getWidth(),
+            (long) length * type.getWidth()
+        ).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Resolves a dictionary of the schema.
+     * @param key The schema key
+     * @param type The type of the resolved nodes
+     * @param function A function resolving a name
+     * @param <T> The type of the resolved nodes
+     * @return The resolved nodes, indexed by identifier
+     */
+    private <T> List<T> dictionary(final String key, final Class<T> type,
+        final Function<String, T> function) {
+        final String[] names = this.list(key);
+        final List<T> nodes = new ArrayList<>(names.length);
+        for (final String name : names) {
+            final T node = function.apply(name);
+            if (node == null) {
+                throw new IllegalArgumentException(
+                    String.format("%s %s is not part of the graph", type.getSimpleName(), name)
+                );
+            }
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Reads a comma-separated list from the schema.
+     * @param key The schema key
+     * @return A non-null, possibly empty array
+     */
+    private String[] list(final String key) {
+        final String value = this.schema.getProperty(key, "");
+        final String[] array;
+        if (value.isEmpty()) {
+            array = new String[0];
+        } else {
+            array = value.split(",");
+        }
+        return array;
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.rigiresearch.dt.experimentation.simulation.observation;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Receives every observation collected by the simulation, in addition to
+ * the statistics kept by each model element.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@FunctionalInterface
+public interface ObservationSink {
+
+    /**
+     * A sink that discards all observations.
+     */
+    ObservationSink NONE = (metric, time, line, stop, value) -> { };
+
+    /**
+     * Receives an observation.
+     * @param metric The observed metric
+     * @param time The simulation time
+     * @param line The line
+     * @param stop The stop
+     * @param value The observed value
+     */
+    void observe(ObservationSink.Metric metric, double time, Line line, Stop stop,
+        double value);
+
+    /**
+     * The observed metrics.
+     */
+    @RequiredArgsConstructor
+    enum Metric {
+        /**
+         * The time a passenger waited before boarding a bus.
+         */
+        WAITING_TIME("waiting-time"),
+
+        /**
+         * The time elapsed since the previous bus of the same line arrived.
+         */
+        HEADWAY("headway"),
+
+        /**
+         * The number of passengers waiting, observed whenever it changes and
+         * at the end of each replication.
+         */
+        PASSENGER_QUEUE("passenger-queue"),
+
+        /**
+         * The number of buses at a stop, observed whenever it changes and at
+         * the end of each replication.
+         */
+        BUS_QUEUE("bus-queue");
+
+        /**
+         * The metric name, used to name the exported files.
+         */
+        @Getter
+        private final String name;
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.rigiresearch.dt.experimentation.simulation.observation;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.dt.experimentation.simulation.metrics.SimulationStatistics;
+import com.rigiresearch.dt.experimentation.simulation.metrics.TimeWeightedStatistic;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jsl.utilities.statistic.Statistic;
+import lombok.Getter;
+
+/**
+ * Simulation statistics re-derived from recorded observations. Since the
+ * simulation metrics and the fitness value are computed from
+ * {@link SimulationStatistics}, they can be re-computed, or computed under a
+ * new definition, without re-running the simulation.
+ *
+ * <p>Like the statistics kept by the simulation, there is a statistic per line
+ * and stop (or per stop, for bus queues). Pairs without observations have no
+ * statistic. Queue lengths are observed whenever they change, so their
+ * time-weighted statistics are rebuilt exactly; an observation earlier than
+ * the previous one marks the start of a new replication.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class RecordedStatistics implements ObservationSink, SimulationStatistics {
+
+    /**
+     * The graph on which the simulation was based.
+     */
+    @Getter
+    private final Graph<Node> graph;
+
+    /**
+     * The waiting times per line and stop.
+     */
+    private final Map<Line, Map<Stop, Statistic>> waiting;
+
+    /**
+     * The observed headways per line and stop.
+     */
+    private final Map<Line, Map<Stop, Statistic>> headways;
+
+    /**
+     * The passenger queue lengths per line and stop.
+     */
+    private final Map<Line, Map<Stop, TimeWeightedStatistic>> passengers;
+
+    /**
+     * The bus queue lengths per stop.
+     */
+    private final Map<Stop, TimeWeightedStatistic> buses;
+
+    /**
+     * Default constructor.
+     * @param graph The graph on which the simulation was based
+     */
+    public RecordedStatistics(final Graph<Node> graph) {
+        this.graph = graph;
+        this.waiting = new HashMap<>();
+        this.headways = new HashMap<>();
+        this.passengers = new HashMap<>();
+        this.buses = new HashMap<>();
+    }
+
+    /**
+     * Re-derives the statistics from the observations exported by a
+     * {@link ColumnarObservationSink}.
+     * @param directory The directory containing the column files
+     * @param graph The graph on which the simulation was based
+     * @return The re-derived statistics
+     * @throws IOException If the observations cannot be read
+     */
+    public static RecordedStatistics of(final Path directory, final Graph<Node> graph)
+        throws IOException {
+        final RecordedStatistics statistics = new RecordedStatistics(graph);
+        new ObservationReader(directory).replay(graph, statistics);
+        return statistics;
+    }
+
+    @Override
+    public void observe(final ObservationSink.Metric metric, final double time,
+        final Line line, final Stop stop, final double value) {
+        switch (metric) {
+            case WAITING_TIME:
+                RecordedStatistics.statistic(this.waiting, line, stop).collect(value);
+                break;
+            case HEADWAY:
+                RecordedStatistics.statistic(this.headways, line, stop).collect(value);
+                break;
+            case PASSENGER_QUEUE:
+                RecordedStatistics.update(
+                    this.passengers.computeIfAbsent(line, key -> new HashMap<>())
+                        .computeIfAbsent(stop, RecordedStatistics::weighted),
+                    time,
+                    value
+                );
+                break;
+            case BUS_QUEUE:
+                RecordedStatistics.update(
+                    this.buses.computeIfAbsent(stop, RecordedStatistics::weighted),
+                    time,
+                    value
+                );
+                break;
+            default:
+                throw new IllegalStateException(
+                    String.format("Unexpected value %s", metric)
+                );
+        }
+    }
+
+    @Override
+    public Map<Line, List<Statistic>> waitingTimes() {
+        return RecordedStatistics.perLine(this.waiting);
+    }
+
+    @Override
+    public Map<Line, List<Statistic>> observedHeadways() {
+        return RecordedStatistics.perLine(this.headways);
+    }
+
+    @Override
+    public Map<Line, List<TimeWeightedStatistic>> passengerQueueLengths() {
+        return RecordedStatistics.perLine(this.passengers);
+    }
+
+    @Override
+    public Map<Stop, TimeWeightedStatistic> busQueueLengths() {
+        return Collections.unmodifiableMap(this.buses);
+    }
+
+    /**
+     * Finds or creates the statistic of a line and stop.
+     * @param statistics The statistics per line and stop
+     * @param line The line
+     * @param stop The stop
+     * @return A non-null statistic
+     */
+    private static Statistic statistic(final Map<Line, Map<Stop, Statistic>> statistics,
+        final Line line, final Stop stop) {
+        return statistics.computeIfAbsent(line, key -> new HashMap<>())
+            .computeIfAbsent(stop, RecordedStatistics::statistic);
+    }
+
+    /**
+     * Creates a statistic that saves its data, as the simulation does.
+     * @param stop The observed stop
+     * @return A non-null statistic
+     */
+    private static Statistic statistic(final Stop stop) {
+        final Statistic statistic = new Statistic(stop.getName());
+        statistic.setSaveOption(true);
+        return statistic;
+    }
+
+    /**
+     * Creates a time-weighted statistic.
+     * @param stop The observed stop
+     * @return A non-null statistic
+     */
+    private static TimeWeightedStatistic weighted(final Stop stop) {
+        return new TimeWeightedStatistic(stop.getName());
+    }
+
+    /**
+     * Updates a time-weighted statistic, restarting it if the observation
+     * belongs to a new replication.
+     * @param statistic The statistic
+     * @param time The observation time
+     * @param value The observed value
+     */
+    private static void update(final TimeWeightedStatistic statistic, final double time,
+        final double value) {
+        if (time < statistic.getTime()) {
+            statistic.restart();
+        }
+        statistic.update(time, value);
+    }
+
+    /**
+     * Lists the statistics of each line.
+     * @param statistics The statistics per line and stop
+     * @param <T> The type of statistic
+     * @return A non-null, possibly empty map
+     */
+    private static <T> Map<Line, List<T>> perLine(final Map<Line, Map<Stop, T>> statistics) {
+        final Map<Line, List<T>> map = new HashMap<>(statistics.size());
+        statistics.forEach((line, stops) -> map.put(line, new ArrayList<>(stops.values())));
+        return map;
+    }
+
+}
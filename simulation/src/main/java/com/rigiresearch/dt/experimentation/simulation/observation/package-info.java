@@ -0,0 +1,5 @@
+/**
+ * Contains classes to export raw simulation observations.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.observation;
@@ -0,0 +1,276 @@
+package com.rigiresearch.dt.experimentation.simulation.profiling;
+
+import java.util.Arrays;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Counters of the events handled by a simulation: the number of events per
+ * handler, their wall time, the high-water mark of the pending events, and
+ * the events per simulated time unit.
+ *
+ * <p>Counting is always on. Wall time is sampled, one event out of a
+ * configurable period, and then extrapolated to every event, so that
+ * instrumented handlers only pay for a counter update in most events. A
+ * profile is updated by the thread running the simulation only; use
+ * {@link EventProfiles} to read profiles from other threads.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class EventProfile {
+
+    /**
+     * The configuration key of the sampling period (i.e., one out of how many
+     * events is timed). Zero disables timing, and simulations then no longer
+     * add their profiles to the {@link EventProfiles}.
+     */
+    public static final String SAMPLING_KEY = "simulation.params.profile.sampling";
+
+    /**
+     * The default sampling period.
+     */
+    public static final int DEFAULT_SAMPLING = 16;
+
+    /**
+     * The sampling period.
+     */
+    private final int sampling;
+
+    /**
+     * The number of events until the next timed event.
+     */
+    private int countdown;
+
+    /**
+     * The number of events per handler.
+     */
+    private final long[] counts;
+
+    /**
+     * The number of timed events per handler.
+     */
+    private final long[] samples;
+
+    /**
+     * The wall time of the timed events per handler, in nanoseconds.
+     */
+    private final long[] nanos;
+
+    /**
+     * The number of events scheduled and not yet handled in the current
+     * replication.
+     */
+    private long pending;
+
+    /**
+     * The maximum number of pending events.
+     */
+    @Getter
+    private long calendarHighWaterMark;
+
+    /**
+     * The number of completed replications.
+     */
+    @Getter
+    private int replications;
+
+    /**
+     * The simulated time of the completed replications.
+     */
+    @Getter
+    private double simulatedTime;
+
+    /**
+     * Default constructor.
+     * @param sampling The sampling period, or zero to disable timing
+     */
+    public EventProfile(final int sampling) {
+        if (sampling < 0) {
+            throw new IllegalArgumentException(
+                String.format("Expected a non-negative sampling period but got %d", sampling)
+            );
+        }
+        final int handlers = EventProfile.Handler.values().length;
+        this.sampling = sampling;
+        this.countdown = sampling;
+        this.counts = new long[handlers];
+        this.samples = new long[handlers];
+        this.nanos = new long[handlers];
+    }
+
+    /**
+     * Records the start of an event.
+     * @param handler The handler of the event
+     * @return The start time to pass to {@link #stop(Handler, long)}, or a
+     *  negative number if the event is not timed
+     */
+    public long start(final EventProfile.Handler handler) {
+        this.counts[handler.ordinal()]++;
+        this.pending--;
+        long start = -1L;
+        if (this.sampling > 0 && --this.countdown == 0) {
+            this.countdown = this.sampling;
+            start = System.nanoTime();
+        }
+        return start;
+    }
+
+    /**
+     * Records the end of an event.
+     * @param handler The handler of the event
+     * @param start The value returned by {@link #start(Handler)}
+     */
+    public void stop(final EventProfile.Handler handler, final long start) {
+        if (start >= 0L) {
+            this.nanos[handler.ordinal()] += System.nanoTime() - start;
+            this.samples[handler.ordinal()]++;
+        }
+    }
+
+    /**
+     * Records that an event was scheduled.
+     */
+    public void scheduled() {
+        this.pending++;
+        if (this.pending > this.calendarHighWaterMark) {
+            this.calendarHighWaterMark = this.pending;
+        }
+    }
+
+    /**
+     * Records the end of a replication. Pending events are discarded.
+     * @param time The simulated time at which the replication ended
+     */
+    public void replicationEnded(final double time) {
+        this.pending = 0L;
+        this.replications++;
+        this.simulatedTime += time;
+    }
+
+    /**
+     * The number of handled events.
+     * @param handler The handler of the events
+     * @return A positive number, or zero
+     */
+    public long count(final EventProfile.Handler handler) {
+        return this.counts[handler.ordinal()];
+    }
+
+    /**
+     * The estimated cumulative wall time of the handled events, extrapolated
+     * from the timed events.
+     * @param handler The handler of the events
+     * @return The time in nanoseconds, or NaN if no event was timed
+     */
+    public double time(final EventProfile.Handler handler) {
+        final int index = handler.ordinal();
+        final double time;
+        if (this.samples[index] > 0L) {
+            time = (double) this.nanos[index] * this.counts[index] / this.samples[index];
+        } else {
+            time = Double.NaN;
+        }
+        return time;
+    }
+
+    /**
+     * The total number of handled events.
+     * @return A positive number, or zero
+     */
+    public long getEvents() {
+        return Arrays.stream(this.counts).sum();
+    }
+
+    /**
+     * The number of handled events per simulated time unit over the
+     * completed replications.
+     * @return A positive number, or NaN if no replication has completed
+     */
+    public double getEventsPerTimeUnit() {
+        final double rate;
+        if (this.simulatedTime > 0.0) {
+            rate = this.getEvents() / this.simulatedTime;
+        } else {
+            rate = Double.NaN;
+        }
+        return rate;
+    }
+
+    /**
+     * Creates a copy of this profile.
+     * @return A new profile
+     */
+    public EventProfile copy() {
+        final EventProfile copy = new EventProfile(this.sampling);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * The events recorded since a previous copy of this profile. The
+     * high-water mark is the one of this profile.
+     * @param previous A previous copy of this profile
+     * @return A new profile
+     */
+    public EventProfile since(final EventProfile previous) {
+        final EventProfile delta = this.copy();
+        for (int index = 0; index < this.counts.length; index++) {
+            delta.counts[index] -= previous.counts[index];
+            delta.samples[index] -= previous.samples[index];
+            delta.nanos[index] -= previous.nanos[index];
+        }
+        delta.replications -= previous.replications;
+        delta.simulatedTime -= previous.simulatedTime;
+        return delta;
+    }
+
+    /**
+     * Adds the events recorded by another profile to this one.
+     * @param other The other profile
+     */
+    void merge(final EventProfile other) {
+        for (int index = 0; index < this.counts.length; index++) {
+            this.counts[index] += other.counts[index];
+            this.samples[index] += other.samples[index];
+            this.nanos[index] += other.nanos[index];
+        }
+        this.calendarHighWaterMark =
+            Math.max(this.calendarHighWaterMark, other.calendarHighWaterMark);
+        this.replications += other.replications;
+        this.simulatedTime += other.simulatedTime;
+    }
+
+    /**
+     * The instrumented event handlers.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Handler {
+        /**
+         * A passenger arrives at a line-stop.
+         */
+        PASSENGER_ARRIVAL("passengerArrival"),
+
+        /**
+         * A bus arrives at the first station of its line.
+         */
+        BUS_ARRIVAL("handleBusArrival"),
+
+        /**
+         * A bus departs from a stop after its service time.
+         */
+        BUS_DEPARTURE("handleBusDeparture"),
+
+        /**
+         * A bus arrives at the next station of its journey.
+         */
+        BUS_ARRIVAL_AT_NEXT_STOP("handleBusArrivalAtNextStop");
+
+        /**
+         * The name of the handler method.
+         */
+        private final String name;
+    }
+
+}
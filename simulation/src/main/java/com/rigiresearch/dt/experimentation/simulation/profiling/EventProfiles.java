@@ -0,0 +1,133 @@
+package com.rigiresearch.dt.experimentation.simulation.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The profile of every replication run in this JVM, exposed through JMX
+ * under {@link #OBJECT_NAME}. Simulations add the profile of each replication
+ * when it ends, so reading it never interferes with running simulations.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class EventProfiles implements EventProfilesMXBean {
+
+    /**
+     * The name under which the profiles are registered.
+     */
+    public static final String OBJECT_NAME =
+        "com.rigiresearch.dt.experimentation.simulation:type=EventProfiles";
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventProfiles.class);
+
+    /**
+     * The number of nanoseconds per millisecond.
+     */
+    private static final double MILLISECOND = 1.0e6;
+
+    /**
+     * The registered instance.
+     */
+    private static EventProfiles instance;
+
+    /**
+     * The accumulated profile.
+     */
+    private EventProfile total;
+
+    /**
+     * Default constructor.
+     */
+    private EventProfiles() {
+        this.total = new EventProfile(0);
+    }
+
+    /**
+     * The profiles of this JVM, registering them on first use.
+     * @return A non-null instance
+     */
+    public static synchronized EventProfiles instance() {
+        if (EventProfiles.instance == null) {
+            EventProfiles.instance = new EventProfiles();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    EventProfiles.instance,
+                    new ObjectName(EventProfiles.OBJECT_NAME)
+                );
+            } catch (final JMException exception) {
+                EventProfiles.LOGGER.warn(
+                    "Could not register the event profiles", exception);
+            }
+        }
+        return EventProfiles.instance;
+    }
+
+    /**
+     * Adds the events recorded by a profile.
+     * @param profile The profile
+     */
+    public synchronized void add(final EventProfile profile) {
+        this.total.merge(profile);
+    }
+
+    /**
+     * A copy of the accumulated profile.
+     * @return A new profile
+     */
+    public synchronized EventProfile snapshot() {
+        return this.total.copy();
+    }
+
+    @Override
+    public synchronized Map<String, Long> getCounts() {
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        for (final EventProfile.Handler handler : EventProfile.Handler.values()) {
+            counts.put(handler.getName(), this.total.count(handler));
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized Map<String, Double> getTimes() {
+        final Map<String, Double> times = new LinkedHashMap<>();
+        for (final EventProfile.Handler handler : EventProfile.Handler.values()) {
+            times.put(handler.getName(), this.total.time(handler) / EventProfiles.MILLISECOND);
+        }
+        return times;
+    }
+
+    @Override
+    public synchronized long getEvents() {
+        return this.total.getEvents();
+    }
+
+    @Override
+    public synchronized long getCalendarHighWaterMark() {
+        return this.total.getCalendarHighWaterMark();
+    }
+
+    @Override
+    public synchronized int getReplications() {
+        return this.total.getReplications();
+    }
+
+    @Override
+    public synchronized double getEventsPerTimeUnit() {
+        return this.total.getEventsPerTimeUnit();
+    }
+
+    @Override
+    public synchronized void reset() {
+        this.total = new EventProfile(0);
+    }
+
+}
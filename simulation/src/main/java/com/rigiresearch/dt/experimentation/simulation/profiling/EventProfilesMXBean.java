@@ -0,0 +1,54 @@
+package com.rigiresearch.dt.experimentation.simulation.profiling;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link EventProfiles}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public interface EventProfilesMXBean {
+
+    /**
+     * The number of handled events per handler.
+     * @return A non-null map
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * The estimated cumulative wall time per handler, in milliseconds.
+     * @return A non-null map
+     */
+    Map<String, Double> getTimes();
+
+    /**
+     * The total number of handled events.
+     * @return A positive number, or zero
+     */
+    long getEvents();
+
+    /**
+     * The maximum number of pending events of any replication.
+     * @return A positive number, or zero
+     */
+    long getCalendarHighWaterMark();
+
+    /**
+     * The number of completed replications.
+     * @return A positive number, or zero
+     */
+    int getReplications();
+
+    /**
+     * The number of handled events per simulated time unit.
+     * @return A positive number, or NaN if no replication has completed
+     */
+    double getEventsPerTimeUnit();
+
+    /**
+     * Discards the profiles recorded so far.
+     */
+    void reset();
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains classes to profile the events handled by the simulation.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.profiling;
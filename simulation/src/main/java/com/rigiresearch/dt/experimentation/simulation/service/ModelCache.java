@@ -0,0 +1,215 @@
+package com.rigiresearch.dt.experimentation.simulation.service;
+
+import com.rigiresearch.dt.experimentation.simulation.codegen.CompiledSimulation;
+import com.rigiresearch.dt.experimentation.simulation.codegen.SimulationCompiler;
+import com.rigiresearch.dt.experimentation.simulation.codegen.SimulationGenerator;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.GraphParser;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.FileBasedConfiguration;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
+import org.apache.commons.configuration2.builder.fluent.Parameters;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps parsed graphs, loaded configurations and compiled simulations across
+ * jobs. Files are reloaded when their modification time changes.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class ModelCache {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelCache.class);
+
+    /**
+     * The simple name of the compiled simulations.
+     */
+    private static final String CLASS_NAME = "ServiceSimulation";
+
+    /**
+     * Parsed graphs per file.
+     */
+    private final Map<Path, ModelCache.Entry<Graph<Node>>> graphs;
+
+    /**
+     * Loaded configurations per file.
+     */
+    private final Map<Path, ModelCache.Entry<Configuration>> configs;
+
+    /**
+     * Compiled simulations per generated source code.
+     */
+    private final Map<String, CompiledSimulation> simulations;
+
+    /**
+     * Default constructor.
+     */
+    public ModelCache() {
+        this.graphs = new ConcurrentHashMap<>();
+        this.configs = new ConcurrentHashMap<>();
+        this.simulations = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the graph stored in the given file, parsing it if necessary.
+     * @param path The path to the graph file
+     * @return A non-null graph
+     */
+    public Graph<Node> graph(final Path path) {
+        return this.load(this.graphs, path, file -> {
+            try {
+                return new GraphParser()
+                    .withBindings("bindings.xml")
+                    .instance(file.toFile());
+            } catch (final JAXBException exception) {
+                throw new IllegalArgumentException(
+                    String.format("Could not parse the graph %s", file),
+                    exception
+                );
+            }
+        });
+    }
+
+    /**
+     * Returns a private copy of the configuration stored in the given file,
+     * with the given properties replaced.
+     * @param path The path to the properties file
+     * @param overrides The properties to replace
+     * @return A non-null configuration that can be modified by the caller
+     */
+    public Configuration config(final Path path, final Map<String, String> overrides) {
+        final Configuration base = this.load(this.configs, path, file -> {
+            try {
+                return new FileBasedConfigurationBuilder<FileBasedConfiguration>(
+                    PropertiesConfiguration.class
+                ).configure(
+                    new Parameters()
+                        .fileBased()
+                        .setFile(file.toFile())
+                ).getConfiguration();
+            } catch (final ConfigurationException exception) {
+                throw new IllegalArgumentException(
+                    String.format("Could not load the properties %s", file),
+                    exception
+                );
+            }
+        });
+        final PropertiesConfiguration copy = new PropertiesConfiguration();
+        synchronized (base) {
+            copy.copy(base);
+        }
+        overrides.forEach(copy::setProperty);
+        return copy;
+    }
+
+    /**
+     * Returns a simulation compiled for the given graph and configuration.
+     * Configurations that only differ in their parameter values share the
+     * same compiled simulation.
+     * @param graph The graph of stations
+     * @param config The simulation configuration
+     * @return A non-null simulation
+     */
+    public CompiledSimulation compiled(final Graph<Node> graph, final Configuration config) {
+        final String source = new SimulationGenerator(graph, config)
+            .source(ModelCache.CLASS_NAME);
+        return this.simulations.computeIfAbsent(source, key -> {
+            ModelCache.LOGGER.info("Compiling a new simulation");
+            return new SimulationCompiler().instantiate(
+                String.format("%s.%s", SimulationGenerator.PACKAGE, ModelCache.CLASS_NAME),
+                key
+            );
+        });
+    }
+
+    /**
+     * Returns the cached value for the given file, or loads it if the file
+     * changed since it was last loaded.
+     * @param cache The cache
+     * @param path The path to the file
+     * @param loader The function loading the file
+     * @param <T> The type of value
+     * @return A non-null value
+     */
+    private <T> T load(final Map<Path, ModelCache.Entry<T>> cache, final Path path,
+        final ModelCache.Loader<T> loader) {
+        final Path key = path.toAbsolutePath().normalize();
+        final long modified;
+        try {
+            modified = Files.getLastModifiedTime(key).toMillis();
+        } catch (final IOException exception) {
+            throw new IllegalArgumentException(
+                String.format("Could not read %s", key),
+                exception
+            );
+        }
+        return cache.compute(key, (file, entry) -> {
+            final ModelCache.Entry<T> result;
+            if (entry == null || entry.modified != modified) {
+                ModelCache.LOGGER.info("Loading {}", file);
+                result = new ModelCache.Entry<>(loader.load(file), modified);
+            } else {
+                result = entry;
+            }
+            return result;
+        }).value;
+    }
+
+    /**
+     * Loads a value from a file.
+     * @param <T> The type of value
+     */
+    @FunctionalInterface
+    private interface Loader<T> {
+
+        /**
+         * Loads the file.
+         * @param path The path to the file
+         * @return A non-null value
+         */
+        T load(Path path);
+    }
+
+    /**
+     * A cached value.
+     * @param <T> The type of value
+     */
+    private static final class Entry<T> {
+
+        /**
+         * The loaded value.
+         */
+        private final T value;
+
+        /**
+         * The modification time of the file when it was loaded.
+         */
+        private final long modified;
+
+        /**
+         * Default constructor.
+         * @param value The loaded value
+         * @param modified The modification time of the file
+         */
+        Entry(final T value, final long modified) {
+            this.value = value;
+            this.modified = modified;
+        }
+
+    }
+
+}
@@ -0,0 +1,213 @@
+package com.rigiresearch.dt.experimentation.simulation.service;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.codegen.CompiledResult;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.metrics.ExcessWaitingTime;
+import com.rigiresearch.dt.experimentation.simulation.metrics.ObservedLineHeadway;
+import com.rigiresearch.dt.experimentation.simulation.metrics.ObservedWaitingTime;
+import java.util.Collections;
+import java.util.Locale;
+import jsl.utilities.statistic.Statistic;
+import lombok.Value;
+
+/**
+ * The metrics of a line computed from a single replication.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Value
+public class ReplicationSummary {
+
+    /**
+     * The column names, in the order used by {@link #toString()}.
+     */
+    public static final String HEADER =
+        "replica\tline\twaiting\theadway\thcv\tewt.a\tewt.v";
+
+    /**
+     * The replication number, starting at 1.
+     */
+    int replica;
+
+    /**
+     * The line name.
+     */
+    String line;
+
+    /**
+     * The average passenger waiting time.
+     */
+    double waiting;
+
+    /**
+     * The average observed headway.
+     */
+    double headway;
+
+    /**
+     * The headway coefficient of variation.
+     */
+    double hcv;
+
+    /**
+     * The average excess waiting time over the line's stops.
+     */
+    double ewtAverage;
+
+    /**
+     * The variance of the excess waiting time over the line's stops.
+     */
+    double ewtVariance;
+
+    /**
+     * Computes the summary of a line from a JSL simulation.
+     * @param replica The replication number
+     * @param simulation The simulation, after it ran
+     * @param line The line of interest
+     * @param headway The designed headway of the line
+     * @return A non-null summary
+     */
+    public static ReplicationSummary of(final int replica, final DtSimulation simulation,
+        final Line line, final double headway) {
+        final Statistic headways = new ObservedLineHeadway(simulation).value(line);
+        final Statistic ewt = new ExcessWaitingTime(
+            simulation,
+            Collections.singletonMap(line, headway)
+        ).value(line);
+        return new ReplicationSummary(
+            replica,
+            line.getName(),
+            new ObservedWaitingTime(simulation).value(line).getAverage(),
+            headways.getAverage(),
+            headways.getStandardDeviation() / headways.getAverage(),
+            ewt.getAverage(),
+            ewt.getVariance()
+        );
+    }
+
+    /**
+     * Computes the summary of a line from a compiled simulation.
+     * @param replica The replication number
+     * @param result The statistics collected by the simulation
+     * @param line The line name
+     * @param headway The designed headway of the line
+     * @return A non-null summary
+     */
+    public static ReplicationSummary of(final int replica, final CompiledResult result,
+        final String line, final double headway) {
+        final ReplicationSummary.Pooled waiting = new ReplicationSummary.Pooled();
+        final ReplicationSummary.Pooled headways = new ReplicationSummary.Pooled();
+        final Statistic ewt = new Statistic();
+        for (int pair = 0; pair < result.size(); pair++) {
+            if (result.line(pair).equals(line)) {
+                waiting.add(result, CompiledResult.WAITING_TIME, pair);
+                headways.add(result, CompiledResult.HEADWAY, pair);
+                ewt.collect(result.excessWaitingTime(pair, headway));
+            }
+        }
+        return new ReplicationSummary(
+            replica,
+            line,
+            waiting.average(),
+            headways.average(),
+            Math.sqrt(headways.variance()) / headways.average(),
+            ewt.getAverage(),
+            ewt.getVariance()
+        );
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT,
+            "%d\t%s\t%f\t%f\t%f\t%f\t%f",
+            this.replica,
+            this.line,
+            this.waiting,
+            this.headway,
+            this.hcv,
+            this.ewtAverage,
+            this.ewtVariance
+        );
+    }
+
+    /**
+     * Pools the observations of several line-stop pairs, as if they had been
+     * collected by a single statistic.
+     */
+    private static final class Pooled {
+
+        /**
+         * The number of observations.
+         */
+        private long count;
+
+        /**
+         * The sum of the observations.
+         */
+        private double sum;
+
+        /**
+         * The pooled sum of squared deviations from each pair's average.
+         */
+        private double within;
+
+        /**
+         * The sum of each pair's squared average, weighted by its count.
+         */
+        private double squares;
+
+        /**
+         * Adds the observations of a line-stop pair.
+         * @param result The collected statistics
+         * @param statistic The statistic
+         * @param pair The line-stop pair
+         */
+        void add(final CompiledResult result, final int statistic, final int pair) {
+            final long size = result.count(statistic, pair);
+            if (size == 0L) {
+                return;
+            }
+            final double average = result.average(statistic, pair);
+            this.count += size;
+            this.sum += size * average;
+            this.squares += size * average * average;
+            if (size > 1L) {
+                this.within += (size - 1L) * result.variance(statistic, pair);
+            }
+        }
+
+        /**
+         * The pooled average.
+         * @return The average, or NaN if there are no observations
+         */
+        double average() {
+            final double average;
+            if (this.count > 0L) {
+                average = this.sum / this.count;
+            } else {
+                average = Double.NaN;
+            }
+            return average;
+        }
+
+        /**
+         * The pooled sample variance.
+         * @return The variance, or NaN if there are less than two observations
+         */
+        double variance() {
+            final double variance;
+            if (this.count > 1L) {
+                final double between = this.squares - this.sum * this.sum / this.count;
+                variance = (this.within + between) / (this.count - 1L);
+            } else {
+                variance = Double.NaN;
+            }
+            return variance;
+        }
+
+    }
+
+}
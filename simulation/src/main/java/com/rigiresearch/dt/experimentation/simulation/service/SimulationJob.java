@@ -0,0 +1,178 @@
+package com.rigiresearch.dt.experimentation.simulation.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import lombok.Value;
+
+/**
+ * A simulation job submitted to the {@link SimulationServer}.
+ *
+ * <p>Jobs are written in the properties format. Keys prefixed with
+ * {@code job.} describe the job itself, whereas any other key overrides the
+ * corresponding simulation property. For example:</p>
+ * <pre>
+ * job.graph=/data/stations-graph.xml
+ * job.config=/data/simulation.properties
+ * job.replications=10
+ * T31s.headway=420
+ * </pre>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Value
+public class SimulationJob {
+
+    /**
+     * The prefix of the job keys.
+     */
+    private static final String PREFIX = "job.";
+
+    /**
+     * The path to the input graph.
+     */
+    Path graph;
+
+    /**
+     * The path to the simulation properties.
+     */
+    Path config;
+
+    /**
+     * Simulation properties that replace the ones in the properties file.
+     */
+    Map<String, String> overrides;
+
+    /**
+     * The number of replications.
+     */
+    int replications;
+
+    /**
+     * The length of each replication.
+     */
+    double length;
+
+    /**
+     * The length of the warm-up period of each replication.
+     */
+    double warmUp;
+
+    /**
+     * The simulation engine.
+     */
+    SimulationJob.Engine engine;
+
+    /**
+     * The seed from which the seed of each replication is derived. Only the
+     * compiled engine is seeded: JSL draws its random number streams from its
+     * own default factory, so its stored results are not keyed by this seed.
+     */
+    long seed;
+
+    /**
+     * Reads a job from the given input.
+     * @param input The job in the properties format
+     * @return A non-null job
+     * @throws IOException If there is a problem reading the input
+     */
+    public static SimulationJob parse(final InputStream input) throws IOException {
+        final Properties properties = new Properties();
+        properties.load(new InputStreamReader(input, StandardCharsets.UTF_8));
+        final Map<String, String> overrides = new HashMap<>();
+        properties.stringPropertyNames()
+            .stream()
+            .filter(key -> !key.startsWith(SimulationJob.PREFIX))
+            .forEach(key -> overrides.put(key, properties.getProperty(key)));
+        final SimulationJob job = new SimulationJob(
+            Paths.get(SimulationJob.required(properties, "graph")),
+            Paths.get(SimulationJob.required(properties, "config")),
+            Collections.unmodifiableMap(overrides),
+            Integer.parseInt(SimulationJob.optional(properties, "replications", "1")),
+            Double.parseDouble(SimulationJob.optional(properties, "length", "15000")),
+            Double.parseDouble(SimulationJob.optional(properties, "warmup", "100")),
+            SimulationJob.Engine.from(SimulationJob.optional(properties, "engine", "jsl")),
+            Long.parseLong(SimulationJob.optional(properties, "seed", "0"))
+        );
+        if (job.replications < 1 || job.length <= 0.0 || job.warmUp < 0.0) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Invalid job: %d replications of length %f with warm-up %f",
+                    job.replications,
+                    job.length,
+                    job.warmUp
+                )
+            );
+        }
+        return job;
+    }
+
+    /**
+     * Reads a required job property.
+     * @param properties The job properties
+     * @param name The property name, without prefix
+     * @return A non-null value
+     */
+    private static String required(final Properties properties, final String name) {
+        final String key = SimulationJob.PREFIX + name;
+        final String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException(
+                String.format("Missing job property %s", key)
+            );
+        }
+        return value.trim();
+    }
+
+    /**
+     * Reads an optional job property.
+     * @param properties The job properties
+     * @param name The property name, without prefix
+     * @param value The default value
+     * @return A non-null value
+     */
+    private static String optional(final Properties properties, final String name,
+        final String value) {
+        return properties.getProperty(SimulationJob.PREFIX + name, value).trim();
+    }
+
+    /**
+     * The engine running the replications.
+     */
+    public enum Engine {
+        /**
+         * The JSL-based {@code DtSimulation}.
+         */
+        JSL,
+
+        /**
+         * A simulation generated for the job's graph.
+         */
+        COMPILED;
+
+        /**
+         * Finds an engine by its name.
+         * @param name The case-insensitive name
+         * @return A non-null engine
+         */
+        public static SimulationJob.Engine from(final String name) {
+            for (final SimulationJob.Engine engine : SimulationJob.Engine.values()) {
+                if (engine.name().equalsIgnoreCase(name)) {
+                    return engine;
+                }
+            }
+            throw new IllegalArgumentException(
+                String.format("Unknown simulation engine %s", name)
+            );
+        }
+    }
+
+}
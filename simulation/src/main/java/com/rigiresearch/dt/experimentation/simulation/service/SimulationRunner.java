@@ -0,0 +1,268 @@
+package com.rigiresearch.dt.experimentation.simulation.service;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.codegen.CompiledResult;
+import com.rigiresearch.dt.experimentation.simulation.codegen.CompiledSimulation;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.store.ResultKey;
+import com.rigiresearch.dt.experimentation.simulation.store.ResultStore;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * Runs the replications of a {@link SimulationJob}, reusing the models kept
+ * by a {@link ModelCache} and, if available, the results kept by a
+ * {@link ResultStore}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class SimulationRunner {
+
+    /**
+     * The cached models.
+     */
+    private final ModelCache cache;
+
+    /**
+     * The stored results, or null.
+     */
+    private final ResultStore store;
+
+    /**
+     * Secondary constructor.
+     * @param cache The cached models
+     */
+    public SimulationRunner(final ModelCache cache) {
+        this(cache, null);
+    }
+
+    /**
+     * Default constructor.
+     * @param cache The cached models
+     * @param store The stored results, or null to always simulate
+     */
+    public SimulationRunner(final ModelCache cache, final ResultStore store) {
+        this.cache = cache;
+        this.store = store;
+    }
+
+    /**
+     * Runs the given job.
+     * @param job The simulation job
+     * @param consumer A consumer receiving the summary of each line as soon
+     *  as each replication completes
+     */
+    public void run(final SimulationJob job, final Consumer<ReplicationSummary> consumer) {
+        final Graph<Node> graph = this.cache.graph(job.getGraph());
+        final Configuration config = this.cache.config(job.getConfig(), job.getOverrides());
+        final IntFunction<List<ReplicationSummary>> function =
+            this.function(job, graph, config);
+        for (int replica = 1; replica <= job.getReplications(); replica++) {
+            this.replicate(job, graph, config, function, replica)
+                .forEach(consumer);
+        }
+    }
+
+    /**
+     * Runs a single replication of the given job, so that the replications of
+     * a job can run concurrently.
+     * @param job The simulation job
+     * @param replica The replication number, starting at 1
+     * @param consumer A consumer receiving the summary of each line
+     */
+    public void run(final SimulationJob job, final int replica,
+        final Consumer<ReplicationSummary> consumer) {
+        final Graph<Node> graph = this.cache.graph(job.getGraph());
+        final Configuration config = this.cache.config(job.getConfig(), job.getOverrides());
+        this.replicate(job, graph, config, this.function(job, graph, config), replica)
+            .forEach(consumer);
+    }
+
+    /**
+     * Prepares the function running the replications of the given job.
+     * @param job The simulation job
+     * @param graph The graph of stations
+     * @param config The simulation configuration
+     * @return A function running a replication given its number
+     */
+    private IntFunction<List<ReplicationSummary>> function(final SimulationJob job,
+        final Graph<Node> graph, final Configuration config) {
+        final List<Line> lines = graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .sorted(Comparator.comparing(Line::getName))
+            .collect(Collectors.toList());
+        final IntFunction<List<ReplicationSummary>> function;
+        switch (job.getEngine()) {
+            case JSL:
+                function = replica -> SimulationRunner.simulate(job, graph, config, lines, replica);
+                break;
+            case COMPILED:
+                function = this.compiled(job, graph, config, lines);
+                break;
+            default:
+                throw new IllegalStateException(
+                    String.format("Unexpected value %s", job.getEngine())
+                );
+        }
+        return function;
+    }
+
+    /**
+     * Runs a replication, or finds its results in the store.
+     * @param job The simulation job
+     * @param graph The graph of stations
+     * @param config The simulation configuration
+     * @param function The function running a replication given its number
+     * @param replica The replication number
+     * @return The summary of each line
+     */
+    private List<ReplicationSummary> replicate(final SimulationJob job,
+        final Graph<Node> graph, final Configuration config,
+        final IntFunction<List<ReplicationSummary>> function, final int replica) {
+        final List<ReplicationSummary> summaries;
+        // JSL draws its streams from its own factory, so its results do not depend on the seed
+        final long seed;
+        if (job.getEngine() == SimulationJob.Engine.COMPILED) {
+            seed = job.getSeed();
+        } else {
+            seed = ResultKey.UNSEEDED;
+        }
+        if (this.store == null) {
+            summaries = function.apply(replica);
+        } else {
+            summaries = this.store.computeIfAbsent(
+                ResultKey.of(
+                    graph,
+                    config,
+                    job.getEngine().name().toLowerCase(Locale.ROOT),
+                    seed,
+                    replica,
+                    job.getLength(),
+                    job.getWarmUp()
+                ),
+                () -> function.apply(replica)
+            );
+        }
+        return summaries;
+    }
+
+    /**
+     * Prepares a compiled simulation for the given job.
+     * @param job The simulation job
+     * @param graph The graph of stations
+     * @param config The simulation configuration
+     * @param lines The lines to summarize
+     * @return A function running a replication given its number
+     */
+    private IntFunction<List<ReplicationSummary>> compiled(final SimulationJob job,
+        final Graph<Node> graph, final Configuration config, final List<Line> lines) {
+        final CompiledSimulation simulation = this.cache.compiled(graph, config);
+        final double[] values = simulation.values(config);
+        return replica ->
+            SimulationRunner.execute(job, simulation, values, config, lines, replica);
+    }
+
+    /**
+     * Runs a replication on the JSL simulation.
+     * @param job The simulation job
+     * @param graph The graph of stations
+     * @param config The simulation configuration
+     * @param lines The lines to summarize
+     * @param replica The replication number
+     * @return The summary of each line
+     */
+    private static List<ReplicationSummary> simulate(final SimulationJob job,
+        final Graph<Node> graph, final Configuration config, final List<Line> lines,
+        final int replica) {
+        final DtSimulation simulation = DtSimulation.create(graph, config);
+        simulation.setLengthOfReplication(job.getLength());
+        simulation.setLengthOfWarmUp(job.getWarmUp());
+        simulation.run();
+        final List<ReplicationSummary> summaries = new ArrayList<>(lines.size());
+        for (final Line line : lines) {
+            summaries.add(
+                ReplicationSummary.of(
+                    replica,
+                    simulation,
+                    line,
+                    SimulationRunner.headway(config, line.getName())
+                )
+            );
+        }
+        return summaries;
+    }
+
+    /**
+     * Runs a replication on a compiled simulation.
+     * @param job The simulation job
+     * @param simulation The compiled simulation
+     * @param values The parameter values of the simulation
+     * @param config The simulation configuration
+     * @param lines The lines to summarize
+     * @param replica The replication number
+     * @return The summary of each line
+     */
+    private static List<ReplicationSummary> execute(final SimulationJob job,
+        final CompiledSimulation simulation, final double[] values,
+        final Configuration config, final List<Line> lines, final int replica) {
+        final CompiledResult result = simulation.run(
+            values,
+            SimulationRunner.seed(job.getSeed(), replica),
+            job.getLength(),
+            job.getWarmUp()
+        );
+        final List<ReplicationSummary> summaries = new ArrayList<>(lines.size());
+        for (final Line line : lines) {
+            summaries.add(
+                ReplicationSummary.of(
+                    replica,
+                    result,
+                    line.getName(),
+                    SimulationRunner.headway(config, line.getName())
+                )
+            );
+        }
+        return summaries;
+    }
+
+    /**
+     * Derives the seed of a replication from both the job's seed and the
+     * replication number. Each replication takes its own split of the job's
+     * generator, so the replications of jobs with nearby seeds (e.g., seed 1,
+     * replication 2 and seed 2, replication 1) do not share a random stream.
+     * @param seed The job's seed
+     * @param replica The replication number, starting at 1
+     * @return The replication's seed
+     */
+    static long seed(final long seed, final int replica) {
+        final SplittableRandom random = new SplittableRandom(seed);
+        SplittableRandom stream = random;
+        for (int index = 0; index < replica; index++) {
+            stream = random.split();
+        }
+        return stream.nextLong();
+    }
+
+    /**
+     * The designed headway of a line.
+     * @param config The simulation configuration
+     * @param line The line name
+     * @return The headway
+     */
+    private static double headway(final Configuration config, final String line) {
+        return config.getDouble(String.format("%s.headway", line));
+    }
+
+}
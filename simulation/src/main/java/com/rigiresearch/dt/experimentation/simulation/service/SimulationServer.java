@@ -0,0 +1,353 @@
+package com.rigiresearch.dt.experimentation.simulation.service;
+
+import com.rigiresearch.dt.experimentation.simulation.store.ResultStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long-lived local service running simulation jobs. Keeping the JVM alive
+ * across jobs avoids parsing the same graphs and properties over and over,
+ * and lets the JIT compiler optimize the simulation code once.
+ *
+ * <p>The service listens on the loopback interface and exposes two
+ * endpoints:</p>
+ * <ul>
+ *  <li>{@code POST /jobs} runs the {@link SimulationJob} in the request body
+ *  and streams back one tab-separated {@link ReplicationSummary} per line and
+ *  replication, as soon as each replication completes.</li>
+ *  <li>{@code GET /status} reports the number of active, queued and completed
+ *  jobs.</li>
+ * </ul>
+ * <p>For example:
+ * {@code curl --data-binary @job.properties http://localhost:8642/jobs}.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class SimulationServer {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimulationServer.class);
+
+    /**
+     * The default port.
+     */
+    public static final int DEFAULT_PORT = 8642;
+
+    /**
+     * The number of jobs that may wait for a worker, per worker.
+     */
+    private static final int QUEUE_PER_WORKER = 4;
+
+    /**
+     * The response content type.
+     */
+    private static final String CONTENT_TYPE = "text/tab-separated-values; charset=utf-8";
+
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * The threads handling HTTP exchanges, which mostly wait for the workers.
+     */
+    private final ExecutorService exchanges;
+
+    /**
+     * The bounded pool running the jobs.
+     */
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * The job runner.
+     */
+    private final SimulationRunner runner;
+
+    /**
+     * Secondary constructor.
+     * @param port The port to listen on, or 0 to use any free port
+     * @param workers The number of jobs to run concurrently
+     * @throws IOException If the server cannot be bound to the port
+     */
+    public SimulationServer(final int port, final int workers) throws IOException {
+        this(port, workers, null);
+    }
+
+    /**
+     * Default constructor.
+     * @param port The port to listen on, or 0 to use any free port
+     * @param workers The number of jobs to run concurrently
+     * @param store The store of results to consult before simulating, or null
+     * @throws IOException If the server cannot be bound to the port
+     */
+    public SimulationServer(final int port, final int workers, final ResultStore store)
+        throws IOException {
+        this.runner = new SimulationRunner(new ModelCache(), store);
+        this.workers = new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers * SimulationServer.QUEUE_PER_WORKER)
+        );
+        this.exchanges = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+            0
+        );
+        this.server.setExecutor(this.exchanges);
+        this.server.createContext("/jobs", this::handleJob);
+        this.server.createContext("/status", this::handleStatus);
+    }
+
+    /**
+     * Main entry point.
+     * @param args The port, the number of workers and the result store
+     *  directory (all optional)
+     * @throws IOException If the server cannot be bound to the port
+     */
+    public static void main(final String... args) throws IOException {
+        final int port;
+        if (args.length > 0) {
+            port = Integer.parseInt(args[0]);
+        } else {
+            port = SimulationServer.DEFAULT_PORT;
+        }
+        final int workers;
+        if (args.length > 1) {
+            workers = Integer.parseInt(args[1]);
+        } else {
+            workers = Runtime.getRuntime().availableProcessors();
+        }
+        final ResultStore store;
+        if (args.length > 2) {
+            store = ResultStore.open(Paths.get(args[2]));
+        } else {
+            store = null;
+        }
+        final SimulationServer server = new SimulationServer(port, workers, store);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+    }
+
+    /**
+     * Starts accepting jobs.
+     */
+    public void start() {
+        this.server.start();
+        SimulationServer.LOGGER.info(
+            "Listening on port {} with {} workers",
+            this.port(),
+            this.workers.getCorePoolSize()
+        );
+    }
+
+    /**
+     * Stops accepting jobs and waits for the running ones to complete.
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.workers.shutdown();
+        try {
+            this.workers.awaitTermination(1L, TimeUnit.MINUTES);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        this.exchanges.shutdownNow();
+    }
+
+    /**
+     * The port this server is listening on.
+     * @return A port number
+     */
+    public int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Handles a job submission.
+     * @param exchange The HTTP exchange
+     * @throws IOException If there is a problem writing the response
+     */
+    private void handleJob(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                SimulationServer.respond(exchange, 405, "Expected a POST request");
+                return;
+            }
+            final SimulationJob job;
+            try {
+                job = SimulationJob.parse(exchange.getRequestBody());
+            } catch (final IllegalArgumentException exception) {
+                SimulationServer.respond(exchange, 400, exception.getMessage());
+                return;
+            }
+            final SimulationServer.Stream stream = new SimulationServer.Stream(exchange);
+            try {
+                this.workers.submit(() -> this.runner.run(job, stream::write)).get();
+                stream.close();
+            } catch (final RejectedExecutionException exception) {
+                SimulationServer.respond(exchange, 503, "Too many pending jobs");
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                stream.fail(exception);
+            } catch (final ExecutionException exception) {
+                SimulationServer.LOGGER.error("Job failed", exception.getCause());
+                stream.fail(exception.getCause());
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handles a status request.
+     * @param exchange The HTTP exchange
+     * @throws IOException If there is a problem writing the response
+     */
+    private void handleStatus(final HttpExchange exchange) throws IOException {
+        try {
+            SimulationServer.respond(
+                exchange,
+                200,
+                String.format(
+                    "active\tqueued\tcompleted\n%d\t%d\t%d",
+                    this.workers.getActiveCount(),
+                    this.workers.getQueue().size(),
+                    this.workers.getCompletedTaskCount()
+                )
+            );
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sends a complete response.
+     * @param exchange The HTTP exchange
+     * @param status The HTTP status code
+     * @param message The response body
+     * @throws IOException If there is a problem writing the response
+     */
+    private static void respond(final HttpExchange exchange, final int status,
+        final String message) throws IOException {
+        final byte[] bytes = String.format("%s\n", message).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", SimulationServer.CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * A chunked response streaming replication summaries. The response starts
+     * with the first summary, so that errors found while loading the models
+     * can still be reported with an error status.
+     */
+    private static final class Stream {
+
+        /**
+         * The HTTP exchange.
+         */
+        private final HttpExchange exchange;
+
+        /**
+         * Whether the response headers have been sent.
+         */
+        private boolean started;
+
+        /**
+         * Default constructor.
+         * @param exchange The HTTP exchange
+         */
+        Stream(final HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        /**
+         * Writes a summary and flushes it to the client.
+         * @param summary The replication summary
+         */
+        synchronized void write(final ReplicationSummary summary) {
+            try {
+                this.start();
+                this.print(summary.toString());
+            } catch (final IOException exception) {
+                throw new IllegalStateException("Could not stream the job results", exception);
+            }
+        }
+
+        /**
+         * Completes the response.
+         * @throws IOException If there is a problem writing the response
+         */
+        synchronized void close() throws IOException {
+            this.start();
+            this.exchange.getResponseBody().close();
+        }
+
+        /**
+         * Reports a failure, either as an error status or, if the response
+         * already started, as a trailing comment line.
+         * @param cause The cause of the failure
+         * @throws IOException If there is a problem writing the response
+         */
+        synchronized void fail(final Throwable cause) throws IOException {
+            final String message = String.valueOf(cause.getMessage());
+            if (this.started) {
+                this.print(String.format("# Job failed: %s", message));
+                this.exchange.getResponseBody().close();
+            } else if (cause instanceof IllegalArgumentException) {
+                SimulationServer.respond(this.exchange, 400, message);
+            } else {
+                SimulationServer.respond(this.exchange, 500, message);
+            }
+        }
+
+        /**
+         * Sends the response headers and the column names, if not sent yet.
+         * @throws IOException If there is a problem writing the response
+         */
+        private void start() throws IOException {
+            if (!this.started) {
+                this.started = true;
+                this.exchange.getResponseHeaders()
+                    .set("Content-Type", SimulationServer.CONTENT_TYPE);
+                // A zero length enables chunked encoding
+                this.exchange.sendResponseHeaders(200, 0L);
+                this.print(ReplicationSummary.HEADER);
+            }
+        }
+
+        /**
+         * Writes a line and flushes it.
+         * @param line The line to write
+         * @throws IOException If there is a problem writing the response
+         */
+        private void print(final String line) throws IOException {
+            final OutputStream output = this.exchange.getResponseBody();
+            output.write(String.format("%s\n", line).getBytes(StandardCharsets.UTF_8));
+            output.flush();
+        }
+
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains classes to run simulations from a long-lived local service.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.service;
@@ -0,0 +1,232 @@
+package com.rigiresearch.dt.experimentation.simulation.store;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.commons.configuration2.Configuration;
+
+/**
+ * A stable identifier of a simulation replication: the SHA-256 hash of the
+ * network topology, the resolved simulation parameters and the random number
+ * stream assignment. The bus trace is identified by its contents rather than
+ * its path, so that replacing the file invalidates the stored results.
+ *
+ * <p>With the compiled engine, the same key always yields the same results.
+ * The JSL engine draws its streams from a process-wide factory, so the stream
+ * assignment only identifies the replication; the stored results are the
+ * first realization computed for it, which is still a valid sample.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class ResultKey {
+
+    /**
+     * The number of bytes of a key.
+     */
+    public static final int SIZE = 32;
+
+    /**
+     * The seed of the replications of engines whose random number streams
+     * are not seeded by the job (i.e., JSL).
+     */
+    public static final long UNSEEDED = 0L;
+
+    /**
+     * Prefixes of configuration keys that do not affect simulation results.
+     */
+    private static final List<String> IGNORED = Collections.unmodifiableList(
+        Arrays.asList("fitness.", ResultStore.KEY)
+    );
+
+    /**
+     * The size of the buffer to hash files.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Hexadecimal digits.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * The hash bytes.
+     */
+    private final byte[] bytes;
+
+    /**
+     * Default constructor.
+     * @param bytes The hash bytes
+     */
+    public ResultKey(final byte[] bytes) {
+        if (bytes.length != ResultKey.SIZE) {
+            throw new IllegalArgumentException(
+                String.format("Expected %d bytes but got %d", ResultKey.SIZE, bytes.length)
+            );
+        }
+        this.bytes = bytes.clone();
+    }
+
+    /**
+     * Computes the key of a replication.
+     * @param graph The graph of stations
+     * @param config The simulation configuration
+     * @param engine The simulation engine (e.g., {@code jsl})
+     * @param seed The seed of the random number streams, or
+     *  {@link #UNSEEDED} if the engine is not seeded
+     * @param replica The replication number
+     * @param length The length of the replication
+     * @param warmUp The length of the warm-up period
+     * @return A non-null key
+     */
+    public static ResultKey of(final Graph<Node> graph, final Configuration config,
+        final String engine, final long seed, final int replica, final double length,
+        final double warmUp) {
+        final MessageDigest digest = ResultKey.digest();
+        graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .sorted(Comparator.comparing(Line::getName))
+            .forEach(line -> {
+                ResultKey.update(digest, "line", line.getName());
+                for (final Stop stop : line.journey()) {
+                    ResultKey.update(digest, stop.getStation().getName(), stop.getName());
+                }
+            });
+        final List<String> keys = new ArrayList<>();
+        config.getKeys().forEachRemaining(keys::add);
+        Collections.sort(keys);
+        for (final String key : keys) {
+            if (DtSimulation.TRACE_KEY.equals(key)) {
+                ResultKey.update(digest, key, ResultKey.contents(config.getString(key)));
+            } else if (ResultKey.IGNORED.stream().noneMatch(key::startsWith)) {
+                ResultKey.update(digest, key, String.valueOf(config.getProperty(key)));
+            }
+        }
+        ResultKey.update(digest, "engine", engine);
+        ResultKey.update(digest, "seed", Long.toString(seed));
+        ResultKey.update(digest, "replica", Integer.toString(replica));
+        ResultKey.update(digest, "length", Double.toString(length));
+        ResultKey.update(digest, "warm-up", Double.toString(warmUp));
+        return new ResultKey(digest.digest());
+    }
+
+    /**
+     * The hash bytes.
+     * @return A copy of the bytes
+     */
+    public byte[] bytes() {
+        return this.bytes.clone();
+    }
+
+    /**
+     * Compares this key with the bytes at a given position of a buffer.
+     * @param other The bytes of another key
+     * @return Whether both keys are equal
+     */
+    boolean matches(final byte[] other) {
+        return Arrays.equals(this.bytes, other);
+    }
+
+    /**
+     * The first bytes of this key, as an integer.
+     * @return Any integer
+     */
+    int prefix() {
+        return (this.bytes[0] & 0xff) << 24
+            | (this.bytes[1] & 0xff) << 16
+            | (this.bytes[2] & 0xff) << 8
+            | this.bytes[3] & 0xff;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        return object instanceof ResultKey
+            && Arrays.equals(this.bytes, ((ResultKey) object).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.prefix();
+    }
+
+    /**
+     * The hexadecimal representation of this key.
+     * @return A non-null string
+     */
+    @Override
+    public String toString() {
+        final char[] chars = new char[this.bytes.length * 2];
+        for (int index = 0; index < this.bytes.length; index++) {
+            chars[index * 2] = ResultKey.HEX[(this.bytes[index] & 0xf0) >>> 4];
+            chars[index * 2 + 1] = ResultKey.HEX[this.bytes[index] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     * @return A non-null digest
+     */
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+
+    /**
+     * Hashes the contents of a file.
+     * @param path The path to the file
+     * @return The hexadecimal SHA-256 hash of the file
+     */
+    private static String contents(final String path) {
+        final MessageDigest digest = ResultKey.digest();
+        try (InputStream input = Files.newInputStream(Paths.get(path))) {
+            final byte[] buffer = new byte[ResultKey.BUFFER_SIZE];
+            int read = input.read(buffer);
+            while (read >= 0) {
+                digest.update(buffer, 0, read);
+                read = input.read(buffer);
+            }
+        } catch (final IOException exception) {
+            throw new IllegalStateException(
+                String.format("Could not read the bus trace %s", path),
+                exception
+            );
+        }
+        return new ResultKey(digest.digest()).toString();
+    }
+
+    /**
+     * Adds a name-value pair to the digest. Both strings are terminated so
+     * that different pairs cannot produce the same input.
+     * @param digest The digest
+     * @param name The name
+     * @param value The value
+     */
+    private static void update(final MessageDigest digest, final String name,
+        final String value) {
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+}
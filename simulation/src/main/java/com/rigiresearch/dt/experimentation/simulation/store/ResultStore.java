@@ -0,0 +1,659 @@
+package com.rigiresearch.dt.experimentation.simulation.store;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.apache.commons.configuration2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An on-disk, content-addressed store of simulation results. Each entry maps
+ * a {@link ResultKey} to the per-line summaries of a replication.
+ *
+ * <p>Entries are kept as individual files under {@code objects/}, named after
+ * their key. The index is an open-addressing hash table in a memory-mapped
+ * file, recording the size and the last access of each entry. When the
+ * entries exceed the configured size, or the table fills up, the least
+ * recently used entries are evicted. A store can only be opened by one
+ * process at a time, and replications missing from the store are only
+ * computed once, even if several threads ask for them at once.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class ResultStore implements Closeable {
+
+    /**
+     * The configuration key pointing to the store directory.
+     */
+    public static final String KEY = "simulation.params.store";
+
+    /**
+     * The configuration key of the maximum size of the store, in bytes.
+     */
+    public static final String SIZE_KEY = "simulation.params.store.size";
+
+    /**
+     * The default maximum size of the store, in bytes.
+     */
+    public static final long DEFAULT_CAPACITY = 1L << 30;
+
+    /**
+     * The default number of index slots.
+     */
+    public static final int DEFAULT_SLOTS = 1 << 16;
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultStore.class);
+
+    /**
+     * Identifies index files.
+     */
+    private static final int MAGIC = 0x44545253;
+
+    /**
+     * Identifies summary files.
+     */
+    private static final int SUMMARY_MAGIC = 0x44545353;
+
+    /**
+     * The index format version.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the index header: magic, version, slots, live and deleted
+     * entries, the access clock and the total size of the entries.
+     */
+    private static final int HEADER = 40;
+
+    /**
+     * The size of an index slot: state, key, last access and size.
+     */
+    private static final int SLOT = 56;
+
+    /**
+     * The state of a slot that has never been used.
+     */
+    private static final byte EMPTY = 0;
+
+    /**
+     * The state of a slot holding an entry.
+     */
+    private static final byte LIVE = 1;
+
+    /**
+     * The state of a slot whose entry was removed.
+     */
+    private static final byte DELETED = 2;
+
+    /**
+     * The extension of summary files.
+     */
+    private static final String SUMMARIES = ".sum";
+
+    /**
+     * The store directory.
+     */
+    private final Path directory;
+
+    /**
+     * The maximum size of the entries, in bytes.
+     */
+    private final long capacity;
+
+    /**
+     * The index file channel.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The lock preventing other processes from opening this store.
+     */
+    private final FileLock lock;
+
+    /**
+     * The memory-mapped index.
+     */
+    private final MappedByteBuffer index;
+
+    /**
+     * The number of index slots.
+     */
+    private final int slots;
+
+    /**
+     * The replications being computed, by key.
+     */
+    private final ConcurrentMap<ResultKey, CompletableFuture<List<ReplicationSummary>>> running;
+
+    /**
+     * Opens a store with the default limits.
+     * @param directory The store directory, created if necessary
+     * @return A non-null store
+     * @throws IOException If the store cannot be opened
+     */
+    public static ResultStore open(final Path directory) throws IOException {
+        return new ResultStore(
+            directory,
+            ResultStore.DEFAULT_CAPACITY,
+            ResultStore.DEFAULT_SLOTS
+        );
+    }
+
+    /**
+     * Opens the store configured in the given configuration, if any.
+     * @param config The simulation configuration
+     * @return The store, or empty if the configuration does not define one
+     */
+    public static Optional<ResultStore> from(final Configuration config) {
+        final Optional<ResultStore> store;
+        if (config.containsKey(ResultStore.KEY)) {
+            final Path path = Paths.get(config.getString(ResultStore.KEY));
+            try {
+                store = Optional.of(
+                    new ResultStore(
+                        path,
+                        config.getLong(ResultStore.SIZE_KEY, ResultStore.DEFAULT_CAPACITY),
+                        ResultStore.DEFAULT_SLOTS
+                    )
+                );
+            } catch (final IOException exception) {
+                throw new IllegalStateException(
+                    String.format("Could not open the result store %s", path),
+                    exception
+                );
+            }
+        } else {
+            store = Optional.empty();
+        }
+        return store;
+    }
+
+    /**
+     * Default constructor.
+     * @param directory The store directory, created if necessary
+     * @param capacity The maximum size of the entries, in bytes
+     * @param slots The number of index slots for a new store, a power of two
+     * @throws IOException If the store cannot be opened
+     */
+    public ResultStore(final Path directory, final long capacity, final int slots)
+        throws IOException {
+        if (slots <= 0 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException(
+                String.format("The number of slots must be a power of two, got %d", slots)
+            );
+        }
+        this.directory = directory;
+        this.capacity = capacity;
+        this.running = new ConcurrentHashMap<>();
+        Files.createDirectories(directory.resolve("objects"));
+        this.channel = FileChannel.open(
+            directory.resolve("index"),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+        FileLock acquired;
+        try {
+            acquired = this.channel.tryLock();
+        } catch (final OverlappingFileLockException exception) {
+            acquired = null;
+        }
+        this.lock = acquired;
+        if (this.lock == null) {
+            this.channel.close();
+            throw new IllegalStateException(
+                String.format("The result store %s is used by another process", directory)
+            );
+        }
+        final boolean exists = this.channel.size() >= ResultStore.HEADER;
+        final int size;
+        if (exists) {
+            final MappedByteBuffer header = this.channel.map(
+                FileChannel.MapMode.READ_ONLY, 0L, ResultStore.HEADER
+            );
+            if (header.getInt(0) != ResultStore.MAGIC
+                || header.getInt(4) != ResultStore.VERSION) {
+                this.close();
+                throw new IllegalStateException(
+                    String.format("Unknown index format in %s", directory)
+                );
+            }
+            size = header.getInt(8);
+        } else {
+            size = slots;
+        }
+        this.slots = size;
+        this.index = this.channel.map(
+            FileChannel.MapMode.READ_WRITE,
+            0L,
+            ResultStore.HEADER + (long) size * ResultStore.SLOT
+        );
+        if (!exists) {
+            this.index.putInt(0, ResultStore.MAGIC);
+            this.index.putInt(4, ResultStore.VERSION);
+            this.index.putInt(8, size);
+        }
+    }
+
+    /**
+     * Finds the summaries of a replication.
+     * @param key The replication key
+     * @return The summaries, or empty if the store does not contain them
+     */
+    public synchronized Optional<List<ReplicationSummary>> get(final ResultKey key) {
+        final int slot = this.find(key);
+        Optional<List<ReplicationSummary>> result = Optional.empty();
+        if (slot >= 0) {
+            try {
+                result = Optional.of(
+                    ResultStore.decode(Files.readAllBytes(this.path(key, ResultStore.SUMMARIES)))
+                );
+                this.touch(slot);
+            } catch (final IOException exception) {
+                ResultStore.LOGGER.warn("Dropping unreadable entry {}", key, exception);
+                this.remove(slot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores the summaries of a replication.
+     * @param key The replication key
+     * @param summaries The summary of each line
+     */
+    public synchronized void put(final ResultKey key, final List<ReplicationSummary> summaries) {
+        final long size;
+        try {
+            size = ResultStore.write(
+                this.path(key, ResultStore.SUMMARIES),
+                ResultStore.encode(summaries)
+            );
+        } catch (final IOException exception) {
+            throw new IllegalStateException(
+                String.format("Could not store entry %s", key),
+                exception
+            );
+        }
+        int slot = this.find(key);
+        if (slot >= 0) {
+            this.setBytes(this.bytes() - this.index.getLong(this.offset(slot) + 48) + size);
+        } else {
+            this.reserve();
+            slot = this.insert(key);
+            this.setBytes(this.bytes() + size);
+        }
+        this.index.putLong(this.offset(slot) + 48, size);
+        this.touch(slot);
+        while (this.bytes() > this.capacity && this.live() > 1) {
+            this.remove(this.leastRecentlyUsed(slot));
+        }
+    }
+
+    /**
+     * Returns the stored summaries of a replication, or computes and stores
+     * them. Threads asking for a replication that another thread is computing
+     * wait for its results instead of computing it again.
+     * @param key The replication key
+     * @param supplier The function running the replication
+     * @return The summary of each line
+     */
+    public List<ReplicationSummary> computeIfAbsent(final ResultKey key,
+        final Supplier<List<ReplicationSummary>> supplier) {
+        final CompletableFuture<List<ReplicationSummary>> future = new CompletableFuture<>();
+        final CompletableFuture<List<ReplicationSummary>> other =
+            this.running.putIfAbsent(key, future);
+        final List<ReplicationSummary> summaries;
+        if (other == null) {
+            try {
+                final Optional<List<ReplicationSummary>> stored = this.get(key);
+                if (stored.isPresent()) {
+                    summaries = stored.get();
+                } else {
+                    summaries = supplier.get();
+                    this.put(key, summaries);
+                }
+                future.complete(summaries);
+            } catch (final RuntimeException exception) {
+                future.completeExceptionally(exception);
+                throw exception;
+            } finally {
+                this.running.remove(key, future);
+            }
+        } else {
+            summaries = other.join();
+        }
+        return summaries;
+    }
+
+    /**
+     * The number of stored entries.
+     * @return A positive number, or zero
+     */
+    public synchronized int size() {
+        return this.live();
+    }
+
+    /**
+     * The total size of the stored entries.
+     * @return A number of bytes
+     */
+    public synchronized long bytes() {
+        return this.index.getLong(32);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.index != null) {
+            this.index.force();
+        }
+        if (this.lock != null && this.lock.isValid()) {
+            this.lock.release();
+        }
+        this.channel.close();
+    }
+
+    /**
+     * Finds the slot of a key.
+     * @param key The key
+     * @return The slot, or -1 if the key is not in the index
+     */
+    private int find(final ResultKey key) {
+        final int mask = this.slots - 1;
+        final byte[] bytes = new byte[ResultKey.SIZE];
+        int result = -1;
+        boolean searching = true;
+        for (int probe = 0, slot = key.prefix() & mask; searching && probe < this.slots;
+            probe++, slot = slot + 1 & mask) {
+            final int offset = this.offset(slot);
+            final byte state = this.index.get(offset);
+            if (state == ResultStore.EMPTY) {
+                searching = false;
+            } else if (state == ResultStore.LIVE) {
+                this.read(offset + 8, bytes);
+                if (key.matches(bytes)) {
+                    result = slot;
+                    searching = false;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Inserts a key that is not in the index.
+     * @param key The key
+     * @return The slot
+     */
+    private int insert(final ResultKey key) {
+        final int mask = this.slots - 1;
+        int slot = key.prefix() & mask;
+        while (this.index.get(this.offset(slot)) == ResultStore.LIVE) {
+            slot = slot + 1 & mask;
+        }
+        final int offset = this.offset(slot);
+        if (this.index.get(offset) == ResultStore.DELETED) {
+            this.index.putInt(16, this.deleted() - 1);
+        }
+        this.index.put(offset, ResultStore.LIVE);
+        final byte[] bytes = key.bytes();
+        for (int index = 0; index < bytes.length; index++) {
+            this.index.put(offset + 8 + index, bytes[index]);
+        }
+        this.index.putInt(12, this.live() + 1);
+        return slot;
+    }
+
+    /**
+     * Makes room for a new entry, keeping the table at most three quarters
+     * full.
+     */
+    private void reserve() {
+        final int limit = this.slots / 4 * 3;
+        if (this.live() + this.deleted() < limit) {
+            return;
+        }
+        if (this.live() >= limit) {
+            this.remove(this.leastRecentlyUsed(-1));
+        }
+        if (this.live() + this.deleted() >= limit) {
+            this.rehash();
+        }
+    }
+
+    /**
+     * Reinserts all live entries, dropping the deleted slots.
+     */
+    private void rehash() {
+        final List<byte[]> entries = new ArrayList<>(this.live());
+        for (int slot = 0; slot < this.slots; slot++) {
+            final int offset = this.offset(slot);
+            if (this.index.get(offset) == ResultStore.LIVE) {
+                final byte[] entry = new byte[ResultStore.SLOT];
+                this.read(offset, entry);
+                entries.add(entry);
+            }
+            for (int index = 0; index < ResultStore.SLOT; index++) {
+                this.index.put(offset + index, (byte) 0);
+            }
+        }
+        this.index.putInt(12, 0);
+        this.index.putInt(16, 0);
+        final byte[] bytes = new byte[ResultKey.SIZE];
+        for (final byte[] entry : entries) {
+            System.arraycopy(entry, 8, bytes, 0, ResultKey.SIZE);
+            final int offset = this.offset(this.insert(new ResultKey(bytes)));
+            for (int index = 40; index < ResultStore.SLOT; index++) {
+                this.index.put(offset + index, entry[index]);
+            }
+        }
+    }
+
+    /**
+     * Removes an entry and its files.
+     * @param slot The slot of the entry
+     */
+    private void remove(final int slot) {
+        final int offset = this.offset(slot);
+        final byte[] bytes = new byte[ResultKey.SIZE];
+        this.read(offset + 8, bytes);
+        final ResultKey key = new ResultKey(bytes);
+        try {
+            Files.deleteIfExists(this.path(key, ResultStore.SUMMARIES));
+        } catch (final IOException exception) {
+            ResultStore.LOGGER.warn("Could not delete entry {}", key, exception);
+        }
+        this.setBytes(this.bytes() - this.index.getLong(offset + 48));
+        this.index.put(offset, ResultStore.DELETED);
+        this.index.putInt(12, this.live() - 1);
+        this.index.putInt(16, this.deleted() + 1);
+    }
+
+    /**
+     * Finds the least recently used entry.
+     * @param exclude A slot to ignore, or -1
+     * @return The slot
+     */
+    private int leastRecentlyUsed(final int exclude) {
+        int result = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int slot = 0; slot < this.slots; slot++) {
+            final int offset = this.offset(slot);
+            if (slot != exclude && this.index.get(offset) == ResultStore.LIVE
+                && this.index.getLong(offset + 40) < oldest) {
+                oldest = this.index.getLong(offset + 40);
+                result = slot;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records an access to an entry.
+     * @param slot The slot of the entry
+     */
+    private void touch(final int slot) {
+        final long clock = this.index.getLong(20) + 1L;
+        this.index.putLong(20, clock);
+        this.index.putLong(this.offset(slot) + 40, clock);
+    }
+
+    /**
+     * The number of live entries.
+     * @return A positive number, or zero
+     */
+    private int live() {
+        return this.index.getInt(12);
+    }
+
+    /**
+     * The number of deleted slots.
+     * @return A positive number, or zero
+     */
+    private int deleted() {
+        return this.index.getInt(16);
+    }
+
+    /**
+     * Updates the total size of the entries.
+     * @param bytes The new size
+     */
+    private void setBytes(final long bytes) {
+        this.index.putLong(32, bytes);
+    }
+
+    /**
+     * The position of a slot in the index.
+     * @param slot The slot
+     * @return A position in the index buffer
+     */
+    private int offset(final int slot) {
+        return ResultStore.HEADER + slot * ResultStore.SLOT;
+    }
+
+    /**
+     * Reads bytes from the index.
+     * @param offset The position in the index buffer
+     * @param bytes The target array
+     */
+    private void read(final int offset, final byte[] bytes) {
+        for (int index = 0; index < bytes.length; index++) {
+            bytes[index] = this.index.get(offset + index);
+        }
+    }
+
+    /**
+     * The path to one of the files of an entry.
+     * @param key The entry key
+     * @param extension The file extension
+     * @return A non-null path
+     */
+    private Path path(final ResultKey key, final String extension) {
+        final String name = key.toString();
+        return this.directory.resolve("objects")
+            .resolve(name.substring(0, 2))
+            .resolve(name + extension);
+    }
+
+    /**
+     * Writes a file atomically.
+     * @param path The target path
+     * @param bytes The file contents
+     * @return The number of bytes written
+     * @throws IOException If the file cannot be written
+     */
+    private static long write(final Path path, final byte[] bytes) throws IOException {
+        Files.createDirectories(path.getParent());
+        final Path temporary = Files.createTempFile(path.getParent(), "entry", ".tmp");
+        Files.write(temporary, bytes);
+        Files.move(
+            temporary,
+            path,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE
+        );
+        return bytes.length;
+    }
+
+    /**
+     * Encodes a list of summaries.
+     * @param summaries The summaries
+     * @return The binary representation
+     */
+    private static byte[] encode(final List<ReplicationSummary> summaries) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(ResultStore.SUMMARY_MAGIC);
+            output.writeInt(summaries.size());
+            for (final ReplicationSummary summary : summaries) {
+                output.writeInt(summary.getReplica());
+                output.writeUTF(summary.getLine());
+                output.writeDouble(summary.getWaiting());
+                output.writeDouble(summary.getHeadway());
+                output.writeDouble(summary.getHcv());
+                output.writeDouble(summary.getEwtAverage());
+                output.writeDouble(summary.getEwtVariance());
+            }
+        } catch (final IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a list of summaries.
+     * @param bytes The binary representation
+     * @return A non-null list
+     * @throws IOException If the bytes are not a valid list of summaries
+     */
+    private static List<ReplicationSummary> decode(final byte[] bytes) throws IOException {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (input.readInt() != ResultStore.SUMMARY_MAGIC) {
+                throw new IOException("Not a summary file");
+            }
+            final int size = input.readInt();
+            final List<ReplicationSummary> summaries = new ArrayList<>(size);
+            for (int count = 0; count < size; count++) {
+                summaries.add(
+                    new ReplicationSummary(
+                        input.readInt(),
+                        input.readUTF(),
+                        input.readDouble(),
+                        input.readDouble(),
+                        input.readDouble(),
+                        input.readDouble(),
+                        input.readDouble()
+                    )
+                );
+            }
+            return Collections.unmodifiableList(summaries);
+        }
+    }
+
+}
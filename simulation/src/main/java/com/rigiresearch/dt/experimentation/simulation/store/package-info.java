@@ -0,0 +1,5 @@
+/**
+ * Contains classes to persist simulation results across runs.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.store;
@@ -0,0 +1,380 @@
+package com.rigiresearch.dt.experimentation.simulation.synthetic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.Getter;
+
+/**
+ * Generates synthetic networks of arbitrary size, together with a matching
+ * simulation configuration, to measure how the simulation and the genetic
+ * algorithm scale beyond the hand-written test graphs.
+ *
+ * <p>Stations are named {@code S<i>}, their stops {@code S<i>P<j>}, and lines
+ * {@code L<i>}. Each line visits a number of distinct stations, stopping at
+ * one stop of each. The overlap is the probability that a line visits a
+ * station already visited by another line, so that lines compete for the
+ * same stops. The generated graph follows the format parsed by
+ * {@code GraphParser}, and the configuration follows the format of the
+ * hand-written {@code simulation.properties} files, including the bounds used
+ * by the genetic algorithm.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class NetworkGenerator {
+
+    /**
+     * The name of the generated graph file.
+     */
+    public static final String GRAPH = "graph.xml";
+
+    /**
+     * The name of the generated properties file.
+     */
+    public static final String PROPERTIES = "simulation.properties";
+
+    /**
+     * The namespace of the graph format.
+     */
+    private static final String NAMESPACE =
+        "http://www.rigiresearch.com/middleware/graph/1.0.0";
+
+    /**
+     * The number of stations.
+     */
+    @Getter
+    private final int stations;
+
+    /**
+     * The number of stops per station.
+     */
+    @Getter
+    private final int stops;
+
+    /**
+     * The number of lines.
+     */
+    @Getter
+    private final int lines;
+
+    /**
+     * The number of stations visited by each line.
+     */
+    @Getter
+    private final int length;
+
+    /**
+     * The probability that a line visits a station already visited by
+     * another line.
+     */
+    @Getter
+    private final double overlap;
+
+    /**
+     * The seed of the random number generator.
+     */
+    private final long seed;
+
+    /**
+     * Default constructor.
+     * @param stations The number of stations
+     * @param stops The number of stops per station
+     * @param lines The number of lines
+     * @param length The number of stations visited by each line
+     * @param overlap The probability that a line visits a station already
+     *  visited by another line
+     * @param seed The seed of the random number generator
+     */
+    public NetworkGenerator(final int stations, final int stops, final int lines,
+        final int length, final double overlap, final long seed) {
+        if (stations < 2 || stops < 1 || lines < 1) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Expected at least 2 stations, 1 stop and 1 line but got %d, %d and %d",
+                    stations,
+                    stops,
+                    lines
+                )
+            );
+        }
+        if (length < 2 || length > stations) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Expected lines visiting between 2 and %d stations but got %d",
+                    stations,
+                    length
+                )
+            );
+        }
+        if (overlap < 0.0 || overlap > 1.0) {
+            throw new IllegalArgumentException(
+                String.format("Expected an overlap between 0 and 1 but got %f", overlap)
+            );
+        }
+        this.stations = stations;
+        this.stops = stops;
+        this.lines = lines;
+        this.length = length;
+        this.overlap = overlap;
+        this.seed = seed;
+    }
+
+    /**
+     * Generates the network and writes the graph and the configuration to
+     * the given directory (see {@link #GRAPH} and {@link #PROPERTIES}). The
+     * same generator always generates the same network.
+     * @param directory The output directory
+     * @throws IOException If the files cannot be written
+     */
+    public void write(final Path directory) throws IOException {
+        final List<List<Integer>> routes = this.routes();
+        Files.createDirectories(directory);
+        Files.write(
+            directory.resolve(NetworkGenerator.GRAPH),
+            this.graph(routes).getBytes(StandardCharsets.UTF_8)
+        );
+        Files.write(
+            directory.resolve(NetworkGenerator.PROPERTIES),
+            this.properties(routes).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Generates the route of each line as a sequence of stops, each one
+     * encoded as {@code station * stops + stop}.
+     * @return A non-null list with one route per line
+     */
+    private List<List<Integer>> routes() {
+        final Random random = new Random(this.seed);
+        final Set<Integer> visited = new LinkedHashSet<>();
+        final List<List<Integer>> routes = new ArrayList<>(this.lines);
+        for (int line = 0; line < this.lines; line++) {
+            final List<Integer> shared = new ArrayList<>(visited);
+            final Set<Integer> route = new LinkedHashSet<>();
+            while (route.size() < this.length) {
+                final int station;
+                if (!shared.isEmpty() && random.nextDouble() < this.overlap) {
+                    station = shared.remove(random.nextInt(shared.size()));
+                } else {
+                    station = random.nextInt(this.stations);
+                }
+                route.add(station);
+            }
+            visited.addAll(route);
+            routes.add(
+                route.stream()
+                    .map(station -> station * this.stops + random.nextInt(this.stops))
+                    .collect(Collectors.toList())
+            );
+        }
+        return routes;
+    }
+
+    /**
+     * Generates the graph in XML.
+     * @param routes The route of each line
+     * @return The graph document
+     */
+    private String graph(final List<List<Integer>> routes) {
+        final List<List<String>> segments = IntStream.range(0, this.stations)
+            .mapToObj(station -> new ArrayList<String>())
+            .collect(Collectors.toList());
+        for (int line = 0; line < routes.size(); line++) {
+            final List<Integer> route = routes.get(line);
+            for (int index = 0; index < route.size() - 1; index++) {
+                segments.get(route.get(index) / this.stops).add(
+                    String.format(
+                        "      <segment from=\"%s\" to=\"%s\" line=\"%s\"/>%n",
+                        this.stop(route.get(index)),
+                        this.stop(route.get(index + 1)),
+                        NetworkGenerator.line(line)
+                    )
+                );
+            }
+        }
+        final StringBuilder builder = new StringBuilder()
+            .append(String.format("<?xml version=\"1.0\" encoding=\"UTF-8\"?>%n"))
+            .append(String.format("<graph xmlns=\"%s\">%n", NetworkGenerator.NAMESPACE));
+        for (int station = 0; station < this.stations; station++) {
+            builder.append(
+                String.format("  <station name=\"%s\">%n", NetworkGenerator.station(station))
+            );
+            for (int stop = 0; stop < this.stops; stop++) {
+                builder.append(
+                    String.format(
+                        "    <stop name=\"%s\"/>%n",
+                        this.stop(station * this.stops + stop)
+                    )
+                );
+            }
+            if (!segments.get(station).isEmpty()) {
+                builder.append(String.format("    <segments>%n"));
+                segments.get(station).forEach(builder::append);
+                builder.append(String.format("    </segments>%n"));
+            }
+            builder.append(String.format("  </station>%n"));
+        }
+        for (int line = 0; line < routes.size(); line++) {
+            final List<Integer> route = routes.get(line);
+            builder.append(
+                String.format(
+                    "  <line name=\"%s\" from=\"%s\" to=\"%s\"/>%n",
+                    NetworkGenerator.line(line),
+                    NetworkGenerator.station(route.get(0) / this.stops),
+                    NetworkGenerator.station(route.get(route.size() - 1) / this.stops)
+                )
+            );
+        }
+        return builder.append(String.format("</graph>%n")).toString();
+    }
+
+    /**
+     * Generates the simulation configuration. Parameters are drawn from
+     * ranges similar to those fitted for the MIO lines.
+     * @param routes The route of each line
+     * @return The properties document
+     */
+    private String properties(final List<List<Integer>> routes) {
+        final Random random = new Random(~this.seed);
+        final StringBuilder builder = new StringBuilder()
+            .append(
+                String.format(
+                    Locale.ROOT,
+                    "# Synthetic network: %d stations, %d stops per station, %d lines"
+                        + " of %d stations, overlap %.2f%n",
+                    this.stations,
+                    this.stops,
+                    this.lines,
+                    this.length,
+                    this.overlap
+                )
+            );
+        NetworkGenerator.property(
+            builder,
+            "lines",
+            IntStream.range(0, routes.size())
+                .mapToObj(NetworkGenerator::line)
+                .collect(Collectors.joining(","))
+        );
+        NetworkGenerator.property(builder, "fitness.params.ewt.max", "1800");
+        NetworkGenerator.property(
+            builder,
+            "simulation.params.passengers",
+            Integer.toString(100 * this.lines * this.length)
+        );
+        for (int line = 0; line < routes.size(); line++) {
+            final String name = NetworkGenerator.line(line);
+            final int fleet = 10 + random.nextInt(41);
+            builder.append(String.format("%n"));
+            NetworkGenerator.property(builder, name + ".capacity", "138");
+            NetworkGenerator.property(
+                builder, name + ".planned.buses", Integer.toString(fleet * 4 / 5));
+            NetworkGenerator.property(builder, name + ".fleet", Integer.toString(fleet));
+            NetworkGenerator.property(
+                builder, name + ".headway", Integer.toString(180 + 30 * random.nextInt(25)));
+            NetworkGenerator.property(builder, name + ".headway.min", "180");
+            NetworkGenerator.property(builder, name + ".headway.max", "1200");
+            NetworkGenerator.property(builder, name + ".arrival.distribution", "ConstantRV");
+            NetworkGenerator.property(
+                builder, name + ".arrival.distribution.value", "${" + name + ".headway}");
+            NetworkGenerator.property(builder, name + ".service.distribution", "LogLogisticRV");
+            NetworkGenerator.property(
+                builder,
+                name + ".service.distribution.shape",
+                NetworkGenerator.decimal(6.0 + 2.0 * random.nextDouble())
+            );
+            NetworkGenerator.property(
+                builder,
+                name + ".service.distribution.scale",
+                NetworkGenerator.decimal(25.0 + 15.0 * random.nextDouble())
+            );
+            final List<Integer> route = routes.get(line);
+            // The last stop has no transportation or passenger distributions
+            for (int index = 0; index < route.size() - 1; index++) {
+                final String prefix = String.format("%s.%s", name, this.stop(route.get(index)));
+                NetworkGenerator.property(
+                    builder, prefix + ".transportation.distribution", "GammaRV");
+                NetworkGenerator.property(
+                    builder,
+                    prefix + ".transportation.distribution.shape",
+                    NetworkGenerator.decimal(1.5 + random.nextDouble())
+                );
+                NetworkGenerator.property(
+                    builder,
+                    prefix + ".transportation.distribution.scale",
+                    NetworkGenerator.decimal(100.0 + 300.0 * random.nextDouble())
+                );
+                NetworkGenerator.property(
+                    builder, prefix + ".passenger.distribution", "ExponentialRV");
+                NetworkGenerator.property(
+                    builder,
+                    prefix + ".passenger.distribution.mean",
+                    NetworkGenerator.decimal(60.0 + 540.0 * random.nextDouble())
+                );
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The name of a stop.
+     * @param stop The stop, encoded as {@code station * stops + stop}
+     * @return A non-null name
+     */
+    private String stop(final int stop) {
+        return String.format(
+            "%sP%d",
+            NetworkGenerator.station(stop / this.stops),
+            stop % this.stops + 1
+        );
+    }
+
+    /**
+     * The name of a station.
+     * @param station The station index
+     * @return A non-null name
+     */
+    private static String station(final int station) {
+        return String.format("S%d", station);
+    }
+
+    /**
+     * The name of a line.
+     * @param line The line index
+     * @return A non-null name
+     */
+    private static String line(final int line) {
+        return String.format("L%d", line);
+    }
+
+    /**
+     * Formats a decimal number.
+     * @param value The number
+     * @return A locale-independent representation
+     */
+    private static String decimal(final double value) {
+        return String.format(Locale.ROOT, "%.5f", value);
+    }
+
+    /**
+     * Appends a property.
+     * @param builder The properties document
+     * @param key The property key
+     * @param value The property value
+     */
+    private static void property(final StringBuilder builder, final String key,
+        final String value) {
+        builder.append(String.format("%s=%s%n", key, value));
+    }
+
+}
@@ -0,0 +1,261 @@
+package com.rigiresearch.dt.experimentation.simulation.synthetic;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.codegen.CompiledResult;
+import com.rigiresearch.dt.experimentation.simulation.codegen.CompiledSimulation;
+import com.rigiresearch.dt.experimentation.simulation.service.ModelCache;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationJob;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationRunner;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.apache.commons.configuration2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures how the simulation scales with the size of the network, using
+ * networks generated by {@link NetworkGenerator}. For each network, it
+ * measures the time to parse the graph, to construct the JSL model and to
+ * compile the specialized simulation, the events processed per second, the
+ * heap high-water mark, and the fitness evaluations per minute.
+ *
+ * <p>As with the JMH benchmarks, each timing first runs
+ * {@link #WARM_UP_ITERATIONS} untimed iterations, so that classes are loaded
+ * and hot code is compiled, and then reports the mean of the measured
+ * iterations.</p>
+ *
+ * <p>An evaluation runs the replications of a genetic algorithm candidate,
+ * with the same replication and warm-up lengths, on the compiled engine.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class ScalabilityHarness {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(ScalabilityHarness.class);
+
+    /**
+     * The length of each replication, as in the genetic algorithm.
+     */
+    private static final double LENGTH_REPLICATION = 15000.0;
+
+    /**
+     * The length of the warm-up period, as in the genetic algorithm.
+     */
+    private static final double LENGTH_WARM_UP = 100.0;
+
+    /**
+     * The number of nanoseconds per millisecond.
+     */
+    private static final double MILLISECOND = 1.0e6;
+
+    /**
+     * The number of nanoseconds per minute.
+     */
+    private static final double MINUTE = 60.0e9;
+
+    /**
+     * The number of untimed iterations before each timing.
+     */
+    public static final int WARM_UP_ITERATIONS = 3;
+
+    /**
+     * The default number of timed iterations.
+     */
+    public static final int MEASUREMENT_ITERATIONS = 5;
+
+    /**
+     * The directory in which networks are generated.
+     */
+    private final Path directory;
+
+    /**
+     * The number of replications per evaluation.
+     */
+    private final int replications;
+
+    /**
+     * The number of timed iterations of each timing.
+     */
+    private final int iterations;
+
+    /**
+     * Default constructor.
+     * @param directory The directory in which networks are generated
+     * @param replications The number of replications per evaluation
+     * @param iterations The number of timed iterations of each timing
+     */
+    public ScalabilityHarness(final Path directory, final int replications,
+        final int iterations) {
+        if (replications < 1 || iterations < 1) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Expected at least one replication and iteration but got %d and %d",
+                    replications,
+                    iterations
+                )
+            );
+        }
+        this.directory = directory;
+        this.replications = replications;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Main entry point. Use {@code <directory> [lines] [replications]}, where
+     * lines is a comma-separated list of network sizes in number of lines
+     * (1 to 64 by default). Each network has four stations per line, two
+     * stops per station, and lines of ten stations with an overlap of 0.3.
+     * @param args The application arguments
+     * @throws IOException If a network cannot be generated
+     */
+    public static void main(final String... args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException(
+                "Expected a path to the directory in which networks are generated"
+            );
+        }
+        final String sizes;
+        if (args.length > 1) {
+            sizes = args[1];
+        } else {
+            sizes = "1,2,4,8,16,32,64";
+        }
+        final int replications;
+        if (args.length > 2) {
+            replications = Integer.parseInt(args[2]);
+        } else {
+            replications = 1;
+        }
+        final ScalabilityHarness harness =
+            new ScalabilityHarness(
+                Paths.get(args[0]),
+                replications,
+                ScalabilityHarness.MEASUREMENT_ITERATIONS
+            );
+        ScalabilityHarness.LOGGER.info(ScalabilityResult.HEADER);
+        for (final String size : sizes.split(",")) {
+            final int lines = Integer.parseInt(size.trim());
+            final int stations = Math.max(4 * lines, 10);
+            final ScalabilityResult result = harness.measure(
+                new NetworkGenerator(stations, 2, lines, 10, 0.3, lines)
+            );
+            ScalabilityHarness.LOGGER.info("{}", result);
+        }
+    }
+
+    /**
+     * Generates a network and takes the measurements.
+     * @param generator The network generator
+     * @return The measurements
+     * @throws IOException If the network cannot be generated
+     */
+    public ScalabilityResult measure(final NetworkGenerator generator) throws IOException {
+        final Path output = this.directory.resolve(
+            String.format(
+                Locale.ROOT,
+                "%d-%d-%d-%d",
+                generator.getStations(),
+                generator.getStops(),
+                generator.getLines(),
+                generator.getLength()
+            )
+        );
+        generator.write(output);
+        final Path graphFile = output.resolve(NetworkGenerator.GRAPH);
+        final Path configFile = output.resolve(NetworkGenerator.PROPERTIES);
+        final List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans()
+            .stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .collect(Collectors.toList());
+        pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        final double parse = this.mean(() -> new ModelCache().graph(graphFile))
+            / ScalabilityHarness.MILLISECOND;
+        final ModelCache cache = new ModelCache();
+        final Graph<Node> graph = cache.graph(graphFile);
+        final Configuration config = cache.config(configFile, Collections.emptyMap());
+        final double construction = this.mean(() -> new DtSimulation(graph, config))
+            / ScalabilityHarness.MILLISECOND;
+        // A new cache per iteration, since the cache would skip the compilation
+        final double compilation = this.mean(() -> new ModelCache().compiled(graph, config))
+            / ScalabilityHarness.MILLISECOND;
+        final CompiledSimulation simulation = cache.compiled(graph, config);
+        final double[] parameters = simulation.values(config);
+        final CompiledResult result = simulation.run(
+            parameters,
+            1L,
+            ScalabilityHarness.LENGTH_REPLICATION,
+            ScalabilityHarness.LENGTH_WARM_UP
+        );
+        // Every run processes the same events, since they share the seed
+        final double events = result.getEvents() * 1.0e9 / this.mean(
+            () -> simulation.run(
+                parameters,
+                1L,
+                ScalabilityHarness.LENGTH_REPLICATION,
+                ScalabilityHarness.LENGTH_WARM_UP
+            )
+        );
+        final SimulationRunner runner = new SimulationRunner(cache);
+        final SimulationJob job = new SimulationJob(
+            graphFile,
+            configFile,
+            Collections.emptyMap(),
+            this.replications,
+            ScalabilityHarness.LENGTH_REPLICATION,
+            ScalabilityHarness.LENGTH_WARM_UP,
+            SimulationJob.Engine.COMPILED,
+            1L
+        );
+        final double evaluations = ScalabilityHarness.MINUTE / this.mean(
+            () -> runner.run(job, summary -> { })
+        );
+        final long heap = pools.stream()
+            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+            .sum();
+        return new ScalabilityResult(
+            generator.getStations(),
+            generator.getStations() * generator.getStops(),
+            generator.getLines(),
+            parse,
+            construction,
+            compilation,
+            events,
+            heap,
+            evaluations
+        );
+    }
+
+    /**
+     * Times an action, after the warm-up iterations.
+     * @param action The timed action
+     * @return The mean time of the timed iterations, in nanoseconds
+     */
+    private double mean(final Runnable action) {
+        for (int iteration = 0; iteration < ScalabilityHarness.WARM_UP_ITERATIONS; iteration++) {
+            action.run();
+        }
+        long total = 0L;
+        for (int iteration = 0; iteration < this.iterations; iteration++) {
+            final long start = System.nanoTime();
+            action.run();
+            total += System.nanoTime() - start;
+        }
+        return (double) total / this.iterations;
+    }
+
+}
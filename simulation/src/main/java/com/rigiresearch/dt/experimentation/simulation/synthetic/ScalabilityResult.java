@@ -0,0 +1,86 @@
+package com.rigiresearch.dt.experimentation.simulation.synthetic;
+
+import java.util.Locale;
+import lombok.Value;
+
+/**
+ * The measurements taken by {@link ScalabilityHarness} for one synthetic
+ * network.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Value
+public class ScalabilityResult {
+
+    /**
+     * The column names, in the order used by {@link #toString()}.
+     */
+    public static final String HEADER =
+        "stations\tstops\tlines\tparse.ms\tmodel.ms\tcompile.ms\tevents.s\theap.mb\tevals.min";
+
+    /**
+     * The number of stations.
+     */
+    int stations;
+
+    /**
+     * The number of stops.
+     */
+    int stops;
+
+    /**
+     * The number of lines.
+     */
+    int lines;
+
+    /**
+     * The mean time taken to parse the graph, in milliseconds.
+     */
+    double parse;
+
+    /**
+     * The mean time taken to construct the JSL model, in milliseconds.
+     */
+    double construction;
+
+    /**
+     * The mean time taken to generate and compile the specialized simulation, in
+     * milliseconds.
+     */
+    double compilation;
+
+    /**
+     * The number of events processed per second by the compiled simulation.
+     */
+    double events;
+
+    /**
+     * The heap high-water mark, in bytes.
+     */
+    long heap;
+
+    /**
+     * The number of fitness evaluations per minute, each one running the
+     * replications of a genetic algorithm candidate.
+     */
+    double evaluations;
+
+    @Override
+    public String toString() {
+        return String.format(
+            Locale.ROOT,
+            "%d\t%d\t%d\t%.1f\t%.1f\t%.1f\t%.0f\t%.1f\t%.1f",
+            this.stations,
+            this.stops,
+            this.lines,
+            this.parse,
+            this.construction,
+            this.compilation,
+            this.events,
+            this.heap / (1024.0 * 1024.0),
+            this.evaluations
+        );
+    }
+
+}
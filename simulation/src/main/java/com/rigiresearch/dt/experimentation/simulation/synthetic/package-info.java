@@ -0,0 +1,5 @@
+/**
+ * Contains classes to generate synthetic networks and measure scalability.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.synthetic;
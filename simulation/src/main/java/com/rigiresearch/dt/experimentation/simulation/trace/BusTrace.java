@@ -0,0 +1,277 @@
+package com.rigiresearch.dt.experimentation.simulation.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import lombok.Getter;
+
+/**
+ * A read-only, memory-mapped trace of observed bus operations.
+ *
+ * <p>The file starts with a header listing one stream per line-stop pair,
+ * followed by the streams' data. Each stream contains the arrival times
+ * (relative to the first arrival in the trace) sorted in ascending order,
+ * followed by the corresponding service times. Arrival and service times are
+ * expressed in minutes, the time unit of the simulation clock, whereas the
+ * origin keeps the absolute time, in seconds, of the observed data. All
+ * values are big-endian doubles, so they are read directly from the mapped buffer without parsing
+ * or copying.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class BusTrace {
+
+    /**
+     * Identifies trace files ("DTTR").
+     */
+    static final int MAGIC = 0x44545452;
+
+    /**
+     * The current version of the file format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The number of seconds in a minute, the simulation's time unit.
+     */
+    static final double SECONDS_PER_MINUTE = 60.0;
+
+    /**
+     * The absolute time corresponding to time 0, in seconds.
+     */
+    @Getter
+    private final double origin;
+
+    /**
+     * The streams indexed by line and stop names.
+     */
+    private final Map<String, BusTrace.Stream> streams;
+
+    /**
+     * Default constructor.
+     * @param origin The absolute time corresponding to time 0
+     * @param streams The streams indexed by line and stop names
+     */
+    private BusTrace(final double origin, final Map<String, BusTrace.Stream> streams) {
+        this.origin = origin;
+        this.streams = Collections.unmodifiableMap(streams);
+    }
+
+    /**
+     * Maps a trace file into memory.
+     * @param path The path to the trace file
+     * @return A non-null trace
+     * @throws IOException If the file cannot be read or is not a trace file
+     */
+    public static BusTrace open(final Path path) throws IOException {
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+        }
+        if (buffer.getInt() != BusTrace.MAGIC) {
+            throw new IOException(String.format("%s is not a bus trace", path));
+        }
+        final int version = buffer.getInt();
+        if (version != BusTrace.VERSION) {
+            throw new IOException(
+                String.format("Unsupported trace version %d in %s", version, path)
+            );
+        }
+        final double origin = buffer.getDouble();
+        final int size = buffer.getInt();
+        final Map<String, BusTrace.Stream> streams = new HashMap<>(size);
+        for (int index = 0; index < size; index++) {
+            final String line = BusTrace.readName(buffer);
+            final String stop = BusTrace.readName(buffer);
+            final int count = buffer.getInt();
+            final long offset = buffer.getLong();
+            final ByteBuffer data = buffer.duplicate();
+            data.position((int) offset);
+            final DoubleBuffer values = data.slice().asDoubleBuffer();
+            values.limit(count);
+            final DoubleBuffer arrivals = values.slice();
+            values.limit(2 * count);
+            values.position(count);
+            final DoubleBuffer services = values.slice();
+            streams.put(
+                BusTrace.key(line, stop),
+                new BusTrace.Stream(line, stop, arrivals, services)
+            );
+        }
+        return new BusTrace(origin, streams);
+    }
+
+    /**
+     * Finds the stream of observations for the given line and stop.
+     * @param line The line name
+     * @param stop The stop name
+     * @return The stream, or empty if the pair was not observed
+     */
+    public Optional<BusTrace.Stream> stream(final String line, final String stop) {
+        return Optional.ofNullable(this.streams.get(BusTrace.key(line, stop)));
+    }
+
+    /**
+     * The number of line-stop pairs in this trace.
+     * @return A positive number, or zero
+     */
+    public int size() {
+        return this.streams.size();
+    }
+
+    /**
+     * Creates a unique key for a line-stop pair.
+     * @param line The line name
+     * @param stop The stop name
+     * @return A non-null string
+     */
+    static String key(final String line, final String stop) {
+        return String.format("%s.%s", line, stop);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     * @param buffer The buffer to read from
+     * @return A non-null string
+     */
+    private static String readName(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The observations for a particular line-stop pair.
+     */
+    @Getter
+    public static final class Stream {
+
+        /**
+         * The line name.
+         */
+        private final String line;
+
+        /**
+         * The stop name.
+         */
+        private final String stop;
+
+        /**
+         * Arrival times in minutes, sorted in ascending order.
+         */
+        private final DoubleBuffer arrivals;
+
+        /**
+         * Service times in minutes, in the same order as the arrivals.
+         */
+        private final DoubleBuffer services;
+
+        /**
+         * Default constructor.
+         * @param line The line name
+         * @param stop The stop name
+         * @param arrivals Arrival times sorted in ascending order
+         * @param services Service times, in the same order as the arrivals
+         */
+        Stream(final String line, final String stop, final DoubleBuffer arrivals,
+            final DoubleBuffer services) {
+            this.line = line;
+            this.stop = stop;
+            this.arrivals = arrivals;
+            this.services = services;
+        }
+
+        /**
+         * The number of buses observed.
+         * @return A positive number, or zero
+         */
+        public int size() {
+            return this.arrivals.limit();
+        }
+
+        /**
+         * Reads the service time of an observed trip.
+         * @param index The index of the trip's arrival
+         * @return A positive number, or zero
+         */
+        public double service(final int index) {
+            return this.services.get(index);
+        }
+
+        /**
+         * Creates a new cursor positioned at the start of this stream.
+         * @return A non-null cursor
+         */
+        public BusTrace.Cursor cursor() {
+            return new BusTrace.Cursor(this);
+        }
+
+    }
+
+    /**
+     * A reading position over a stream. Cursors are not thread-safe, but
+     * several cursors may read the same stream concurrently.
+     */
+    public static final class Cursor {
+
+        /**
+         * The stream being read.
+         */
+        private final BusTrace.Stream stream;
+
+        /**
+         * The index of the next arrival.
+         */
+        private int arrival;
+
+        /**
+         * Default constructor.
+         * @param stream The stream to read
+         */
+        Cursor(final BusTrace.Stream stream) {
+            this.stream = stream;
+        }
+
+        /**
+         * Whether there are more arrivals to replay.
+         * @return {@code true} if {@link #nextArrival()} can be called
+         */
+        public boolean hasNextArrival() {
+            return this.arrival < this.stream.size();
+        }
+
+        /**
+         * The index of the next arrival, which identifies the observed trip.
+         * @return A positive number, or zero
+         */
+        public int position() {
+            return this.arrival;
+        }
+
+        /**
+         * Reads the next arrival time.
+         * @return The arrival time in minutes, relative to the trace's origin
+         */
+        public double nextArrival() {
+            return this.stream.arrivals.get(this.arrival++);
+        }
+
+        /**
+         * Moves this cursor back to the start of the stream.
+         */
+        public void reset() {
+            this.arrival = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.rigiresearch.dt.experimentation.simulation.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes observed bus operations in the format read by {@link BusTrace}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class BusTraceWriter {
+
+    /**
+     * The size of a double, in bytes.
+     */
+    private static final int DOUBLE_BYTES = 8;
+
+    /**
+     * Default buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Writes the given events into a trace file. Times are made relative to
+     * the earliest arrival and converted from seconds into minutes, the
+     * simulation's time unit.
+     * @param path The target file
+     * @param events The observed events, in any order
+     * @throws IOException If there is a problem writing the file
+     */
+    public void write(final Path path, final Collection<TraceEvent> events)
+        throws IOException {
+        final Map<String, List<TraceEvent>> streams = new TreeMap<>();
+        double origin = Double.POSITIVE_INFINITY;
+        for (final TraceEvent event : events) {
+            streams.computeIfAbsent(
+                BusTrace.key(event.getLine(), event.getStop()),
+                key -> new ArrayList<>()
+            ).add(event);
+            origin = Math.min(origin, event.getArrival());
+        }
+        if (events.isEmpty()) {
+            origin = 0.0;
+        }
+        streams.values()
+            .forEach(list -> list.sort(Comparator.comparingDouble(TraceEvent::getArrival)));
+        // The header has a fixed size, so offsets can be computed beforehand
+        final int size = this.header(streams, origin, 0L).length;
+        final byte[] header = this.header(streams, origin, size);
+        try (OutputStream file = Files.newOutputStream(path);
+            DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(file, BusTraceWriter.BUFFER_SIZE))) {
+            output.write(header);
+            for (final List<TraceEvent> stream : streams.values()) {
+                for (final TraceEvent event : stream) {
+                    final double arrival = event.getArrival() - origin;
+                    output.writeDouble(arrival / BusTrace.SECONDS_PER_MINUTE);
+                }
+                for (final TraceEvent event : stream) {
+                    output.writeDouble(event.service() / BusTrace.SECONDS_PER_MINUTE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Serializes the trace header.
+     * @param streams The events grouped by line and stop
+     * @param origin The absolute time corresponding to time 0
+     * @param start The offset at which the data section starts
+     * @return The header bytes
+     * @throws IOException If there is a problem serializing the header
+     */
+    private byte[] header(final Map<String, List<TraceEvent>> streams,
+        final double origin, final long start) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(BusTrace.MAGIC);
+        output.writeInt(BusTrace.VERSION);
+        output.writeDouble(origin);
+        output.writeInt(streams.size());
+        long offset = start;
+        for (final List<TraceEvent> stream : streams.values()) {
+            final TraceEvent first = stream.get(0);
+            BusTraceWriter.writeName(output, first.getLine());
+            BusTraceWriter.writeName(output, first.getStop());
+            output.writeInt(stream.size());
+            output.writeLong(offset);
+            offset += 2L * stream.size() * BusTraceWriter.DOUBLE_BYTES;
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     * @param output The output stream
+     * @param name The string to write
+     * @throws IOException If there is a problem writing the string
+     */
+    private static void writeName(final DataOutputStream output, final String name)
+        throws IOException {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.rigiresearch.dt.experimentation.simulation.trace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts the bus events extracted from the SITM datagrams (see the
+ * {@code times} pre-processing project) into a {@link BusTrace} file.
+ *
+ * <p>The input CSV file has a header and the columns
+ * {@code line_id,stop_id,bus_id,arrival,departure}, where the times are
+ * expressed in seconds. The trace stores them in minutes, the time unit of
+ * the simulation clock. SITM identifiers are translated into graph names
+ * using a properties file with entries such as {@code line.131=T31s} and
+ * {@code stop.604009=PCA2}. Identifiers without an entry are kept as
+ * is.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+public final class TraceConverter {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER =
+        LoggerFactory.getLogger(TraceConverter.class);
+
+    /**
+     * The number of expected columns.
+     */
+    private static final int COLUMNS = 5;
+
+    /**
+     * Mapping from SITM identifiers to graph names.
+     */
+    private final Properties names;
+
+    /**
+     * Default constructor.
+     * @param names Mapping from SITM identifiers to graph names
+     */
+    public TraceConverter(final Properties names) {
+        this.names = names;
+    }
+
+    /**
+     * Reads the events from a CSV file.
+     * @param csv The path to the CSV file
+     * @return A non-null, possibly empty list
+     * @throws IOException If there is a problem reading the file
+     */
+    public List<TraceEvent> events(final Path csv) throws IOException {
+        final List<TraceEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            // Skip the header
+            String text = reader.readLine();
+            text = reader.readLine();
+            while (text != null) {
+                if (!text.isEmpty()) {
+                    events.add(this.event(text));
+                }
+                text = reader.readLine();
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Converts the given CSV file into a trace file.
+     * @param csv The path to the CSV file
+     * @param trace The path to the trace file
+     * @throws IOException If there is a problem reading or writing the files
+     */
+    public void convert(final Path csv, final Path trace) throws IOException {
+        final List<TraceEvent> events = this.events(csv);
+        new BusTraceWriter().write(trace, events);
+        TraceConverter.LOGGER.info("Wrote {} events into {}", events.size(), trace);
+    }
+
+    /**
+     * Parses a CSV line.
+     * @param text The CSV line
+     * @return A non-null event
+     */
+    private TraceEvent event(final String text) {
+        final String[] data = text.split(",");
+        if (data.length < TraceConverter.COLUMNS) {
+            throw new IllegalArgumentException(
+                String.format("Expected %d columns in '%s'", TraceConverter.COLUMNS, text)
+            );
+        }
+        return new TraceEvent(
+            this.names.getProperty(String.format("line.%s", data[0].trim()), data[0].trim()),
+            this.names.getProperty(String.format("stop.%s", data[1].trim()), data[1].trim()),
+            Double.parseDouble(data[3]),
+            Double.parseDouble(data[4])
+        );
+    }
+
+    /**
+     * Main entry point.
+     * @param args The path to the CSV file, the path to the mapping properties
+     *  file, and the path to the trace file
+     * @throws IOException If there is a problem reading or writing the files
+     */
+    public static void main(final String... args) throws IOException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException(
+                "Expected three arguments: a path to the events file, a path to"
+                    + " the names file, and a path to the trace file"
+            );
+        }
+        final Properties names = new Properties();
+        try (InputStream input = Files.newInputStream(Paths.get(args[1]))) {
+            names.load(input);
+        }
+        new TraceConverter(names).convert(Paths.get(args[0]), Paths.get(args[2]));
+    }
+
+}
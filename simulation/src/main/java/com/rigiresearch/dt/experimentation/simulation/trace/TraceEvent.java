@@ -0,0 +1,42 @@
+package com.rigiresearch.dt.experimentation.simulation.trace;
+
+import lombok.Value;
+
+/**
+ * A bus observed at a stop, from the moment it arrived until it departed.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+@Value
+public class TraceEvent {
+
+    /**
+     * The name of the line in the transit graph.
+     */
+    String line;
+
+    /**
+     * The name of the stop in the transit graph.
+     */
+    String stop;
+
+    /**
+     * The arrival time, in seconds.
+     */
+    double arrival;
+
+    /**
+     * The departure time, in seconds.
+     */
+    double departure;
+
+    /**
+     * The time the bus spent at the stop.
+     * @return A positive number, or zero
+     */
+    public double service() {
+        return Math.max(0.0, this.departure - this.arrival);
+    }
+
+}
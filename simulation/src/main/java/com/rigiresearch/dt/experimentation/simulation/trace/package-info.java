@@ -0,0 +1,5 @@
+/**
+ * Contains classes to replay observed bus operations as simulation input.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.trace;
@@ -8,11 +8,18 @@ import com.rigiresearch.dt.experimentation.simulation.metrics.HeadwayCoefficient
 import com.rigiresearch.dt.experimentation.simulation.metrics.ObservedLineHeadway;
 import com.rigiresearch.dt.experimentation.simulation.metrics.ObservedWaitingTime;
 import com.rigiresearch.dt.experimentation.simulation.metrics.PassengerQueueLength;
+import com.rigiresearch.dt.experimentation.simulation.observation.ObservationSink;
+import com.rigiresearch.dt.experimentation.simulation.trace.BusTraceWriter;
+import com.rigiresearch.dt.experimentation.simulation.trace.TraceEvent;
 import com.rigiresearch.middleware.graph.Graph;
 import com.rigiresearch.middleware.graph.GraphParser;
 import com.rigiresearch.middleware.graph.Node;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
@@ -59,18 +66,20 @@ class DtSimulationTest {
      */
     private static final String PROPERTIES_FILE = "simulation.properties";
 
+    /**
+     * The number of observed trips in the replayed trace.
+     */
+    private static final int TRIPS = 12;
+
+    /**
+     * A small number to compare doubles.
+     */
+    private static final double EPSILON = 0.000001;
+
     @Test
     void testItRuns()
         throws JAXBException, IOException, ConfigurationException {
-        final Graph<Node> graph = new GraphParser()
-            .withBindings(DtSimulationTest.BINDINGS)
-            .instance(
-                Objects.requireNonNull(
-                    Thread.currentThread()
-                        .getContextClassLoader()
-                        .getResourceAsStream(DtSimulationTest.GRAPH)
-                )
-            );
+        final Graph<Node> graph = DtSimulationTest.graph();
         Assertions.assertEquals(
             2L,
             graph.getNodes()
@@ -127,6 +136,68 @@ class DtSimulationTest {
         DtSimulationTest.LOGGER.info("{}", new BusQueueLength(simulation));
     }
 
+    @Test
+    void testItReplaysEveryObservedArrival()
+        throws JAXBException, IOException, ConfigurationException {
+        final Path path = Files.createTempFile("bus", ".trace");
+        try {
+            // More observed trips than buses in the fleet, two minutes apart
+            final List<TraceEvent> events = new ArrayList<>(DtSimulationTest.TRIPS);
+            for (int trip = 0; trip < DtSimulationTest.TRIPS; trip++) {
+                final double arrival = trip * 120.0;
+                events.add(new TraceEvent("T31s", "PP2", arrival, arrival + 30.0));
+            }
+            new BusTraceWriter().write(path, events);
+            final Configuration config = DtSimulationTest.config();
+            config.setProperty(DtSimulation.TRACE_KEY, path.toString());
+            Assertions.assertTrue(
+                config.getInt("T31s.fleet") < DtSimulationTest.TRIPS,
+                "Expected a fleet smaller than the number of trips"
+            );
+            final List<Double> arrivals = new ArrayList<>(DtSimulationTest.TRIPS);
+            final DtSimulation simulation = new DtSimulation(DtSimulationTest.graph(), config);
+            simulation.setObservations((metric, time, line, stop, value) -> {
+                if (metric == ObservationSink.Metric.HEADWAY
+                    && "T31s".equals(line.getName())
+                    && "PP2".equals(stop.getName())) {
+                    arrivals.add(time);
+                }
+            });
+            simulation.setLengthOfReplication(100.0);
+            simulation.setLengthOfWarmUp(0.0);
+            simulation.run();
+            Assertions.assertEquals(DtSimulationTest.TRIPS, arrivals.size());
+            for (int trip = 0; trip < DtSimulationTest.TRIPS; trip++) {
+                Assertions.assertEquals(
+                    trip * 2.0,
+                    arrivals.get(trip),
+                    DtSimulationTest.EPSILON,
+                    String.format("Trip %d was not replayed on time", trip)
+                );
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Parses the demo graph.
+     * @return A non-null graph
+     * @throws JAXBException If there is a problem parsing the graph
+     * @throws IOException If there is a problem reading the graph
+     */
+    private static Graph<Node> graph() throws JAXBException, IOException {
+        return new GraphParser()
+            .withBindings(DtSimulationTest.BINDINGS)
+            .instance(
+                Objects.requireNonNull(
+                    Thread.currentThread()
+                        .getContextClassLoader()
+                        .getResourceAsStream(DtSimulationTest.GRAPH)
+                )
+            );
+    }
+
     /**
      * Loads the configuration file based on a resource.
      * @return A configuration instance
@@ -0,0 +1,75 @@
+package com.rigiresearch.dt.experimentation.simulation;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link RateProfile}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class RateProfileTest {
+
+    /**
+     * A small number to compare doubles.
+     */
+    private static final double EPSILON = 0.000001;
+
+    @Test
+    void testLookups() {
+        final RateProfile profile = new RateProfile(
+            new double[] {0.0, 10.0, 30.0, 35.0},
+            new double[] {1.0, 0.0, 2.0, 0.5},
+            0.0
+        );
+        Assertions.assertEquals(1.0, profile.rate(9.9), RateProfileTest.EPSILON);
+        Assertions.assertEquals(0.0, profile.rate(10.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(2.0, profile.rate(31.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(0.5, profile.rate(1000.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(10.0, profile.cumulative(20.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(20.0, profile.cumulative(35.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(25.0, profile.cumulative(45.0), RateProfileTest.EPSILON);
+        // The zero-rate period is skipped
+        Assertions.assertEquals(31.0, profile.next(5.0, 7.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(45.0, profile.inverse(25.0), RateProfileTest.EPSILON);
+        for (double time = 30.5; time < 100.0; time += 0.7) {
+            Assertions.assertEquals(
+                time,
+                profile.inverse(profile.cumulative(time)),
+                RateProfileTest.EPSILON
+            );
+        }
+    }
+
+    @Test
+    void testPeriodicProfile() {
+        final Configuration config = new BaseConfiguration();
+        config.addProperty("T31s.PCA2.passenger.profile", "0:2, 5:0");
+        config.addProperty("T31s.PCA2.passenger.profile.period", "20");
+        final RateProfile profile = RateProfile.from(config, "T31s.PCA2.passenger");
+        Assertions.assertNotNull(profile);
+        Assertions.assertEquals(2.0, profile.rate(42.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(0.0, profile.rate(47.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(26.0, profile.cumulative(43.0), RateProfileTest.EPSILON);
+        Assertions.assertEquals(61.0, profile.next(48.0, 2.0), RateProfileTest.EPSILON);
+        Assertions.assertNull(RateProfile.from(config, "T31s.PCA1.passenger"));
+    }
+
+    @Test
+    void testNoMoreArrivals() {
+        final RateProfile profile = new RateProfile(
+            new double[] {0.0, 10.0},
+            new double[] {1.0, 0.0},
+            0.0
+        );
+        Assertions.assertTrue(Double.isInfinite(profile.next(9.0, 2.0)));
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new RateProfile(new double[] {1.0}, new double[] {1.0}, 0.0)
+        );
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.rigiresearch.dt.experimentation.simulation.batch;
+
+import com.rigiresearch.dt.experimentation.simulation.service.ModelCache;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationJob;
+import com.rigiresearch.dt.experimentation.simulation.service.SimulationRunner;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BatchRunner}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class BatchRunnerTest {
+
+    @Test
+    void testItWritesCsvResults() throws IOException, InterruptedException,
+        URISyntaxException {
+        final Path directory = Files.createTempDirectory("batch");
+        final Path results = directory.resolve("results.csv");
+        try (ScenarioReader scenarios = BatchRunnerTest.manifest(directory);
+            SummaryWriter writer = SummaryWriter.open(results)) {
+            Assertions.assertEquals(6L, BatchRunnerTest.runner().run(
+                BatchRunnerTest.job(),
+                scenarios,
+                writer
+            ));
+        }
+        final List<String> rows = Files.readAllLines(results, StandardCharsets.UTF_8);
+        Assertions.assertEquals(CsvSummaryWriter.HEADER, rows.get(0));
+        // Three scenarios, two replications and two lines
+        Assertions.assertEquals(13, rows.size());
+        Assertions.assertEquals(
+            4L,
+            rows.stream().filter(row -> row.startsWith("busy,")).count()
+        );
+    }
+
+    @Test
+    void testItWritesBinaryResults() throws IOException, InterruptedException,
+        URISyntaxException {
+        final Path directory = Files.createTempDirectory("batch");
+        final Path results = directory.resolve("results" + BinarySummaryWriter.EXTENSION);
+        try (ScenarioReader scenarios = BatchRunnerTest.manifest(directory);
+            SummaryWriter writer = SummaryWriter.open(results)) {
+            BatchRunnerTest.runner().run(BatchRunnerTest.job(), scenarios, writer);
+        }
+        int records = 0;
+        try (DataInputStream input = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(results)))) {
+            Assertions.assertEquals(BinarySummaryWriter.MAGIC, input.readInt());
+            while (true) {
+                try {
+                    input.readUTF();
+                } catch (final EOFException exception) {
+                    break;
+                }
+                input.readUTF();
+                Assertions.assertTrue(input.readInt() > 0);
+                for (int value = 0; value < 5; value++) {
+                    input.readDouble();
+                }
+                records++;
+            }
+        }
+        Assertions.assertEquals(12, records);
+    }
+
+    @Test
+    void testItRejectsIncompleteRows() throws IOException {
+        final Path manifest = Files.createTempFile("manifest", ".csv");
+        Files.write(
+            manifest,
+            Arrays.asList("scenario,simulation.params.passengers", "quiet"),
+            StandardCharsets.UTF_8
+        );
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new ScenarioReader(manifest).close()
+        );
+    }
+
+    /**
+     * Writes a manifest of three scenarios.
+     * @param directory The directory in which to write it
+     * @return A reader of the manifest
+     * @throws IOException If the manifest cannot be written
+     */
+    private static ScenarioReader manifest(final Path directory) throws IOException {
+        final Path manifest = directory.resolve("manifest.csv");
+        Files.write(
+            manifest,
+            Arrays.asList(
+                "scenario,simulation.params.passengers",
+                "# Passengers per line-stop pair",
+                "quiet,500",
+                "normal,1000",
+                "",
+                "busy,2000"
+            ),
+            StandardCharsets.UTF_8
+        );
+        return new ScenarioReader(manifest);
+    }
+
+    /**
+     * Creates a runner with two workers.
+     * @return A new runner
+     */
+    private static BatchRunner runner() {
+        return new BatchRunner(new SimulationRunner(new ModelCache()), 2);
+    }
+
+    /**
+     * Creates the base job.
+     * @return A job of two replications on the compiled engine
+     * @throws URISyntaxException If a resource location is invalid
+     */
+    private static SimulationJob job() throws URISyntaxException {
+        return new SimulationJob(
+            BatchRunnerTest.resource("stations-graph.xml"),
+            BatchRunnerTest.resource("simulation.properties"),
+            Collections.emptyMap(),
+            2,
+            1000.0,
+            100.0,
+            SimulationJob.Engine.COMPILED,
+            1L
+        );
+    }
+
+    /**
+     * Finds the path to a test resource.
+     * @param name The resource name
+     * @return The absolute path
+     * @throws URISyntaxException If the resource location is invalid
+     */
+    private static Path resource(final String name) throws URISyntaxException {
+        return Paths.get(
+            Objects.requireNonNull(
+                Thread.currentThread().getContextClassLoader().getResource(name)
+            ).toURI()
+        );
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.rigiresearch.dt.experimentation.simulation.codegen;
+
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.GraphParser;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.FileBasedConfiguration;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
+import org.apache.commons.configuration2.builder.fluent.Parameters;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.FileHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link SimulationGenerator}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class SimulationGeneratorTest {
+
+    @Test
+    void testItCompilesAndRuns()
+        throws JAXBException, IOException, ConfigurationException {
+        final Graph<Node> graph = new GraphParser()
+            .withBindings("bindings.xml")
+            .instance(
+                Objects.requireNonNull(
+                    Thread.currentThread()
+                        .getContextClassLoader()
+                        .getResourceAsStream("stations-graph.xml")
+                )
+            );
+        final Configuration config = SimulationGeneratorTest.config();
+        config.setProperty("simulation.params.passengers", 1000);
+        final CompiledSimulation simulation =
+            new SimulationGenerator(graph, config).compile("DemoSimulation");
+        Assertions.assertTrue(Arrays.asList(simulation.parameters()).contains("T31s.fleet"));
+        final double[] values = simulation.values(config);
+        final CompiledResult first = simulation.run(values, 1L, 1000.0);
+        final CompiledResult second = simulation.run(values, 1L, 1000.0);
+        Assertions.assertEquals(4, first.size());
+        for (int pair = 0; pair < first.size(); pair++) {
+            Assertions.assertTrue(first.count(CompiledResult.HEADWAY, pair) > 0L);
+            Assertions.assertEquals(
+                first.average(CompiledResult.WAITING_TIME, pair),
+                second.average(CompiledResult.WAITING_TIME, pair),
+                "Expected the same results given the same seed"
+            );
+        }
+        // Observations made during the warm-up period are discarded
+        final CompiledResult warm = simulation.run(values, 1L, 1000.0, 500.0);
+        for (int pair = 0; pair < first.size(); pair++) {
+            Assertions.assertTrue(
+                warm.count(CompiledResult.HEADWAY, pair)
+                    < first.count(CompiledResult.HEADWAY, pair)
+            );
+        }
+        Assertions.assertEquals(first.getEvents(), warm.getEvents());
+        // Buses are dispatched until the fleet runs out
+        final String[] keys = simulation.parameters();
+        for (int index = 0; index < keys.length; index++) {
+            if (keys[index].endsWith(".fleet")) {
+                values[index] = 0.0;
+            }
+        }
+        final CompiledResult empty = simulation.run(values, 1L, 1000.0);
+        Assertions.assertEquals(0L, empty.count(CompiledResult.HEADWAY, 0));
+    }
+
+    /**
+     * Loads the simulation configuration.
+     * @return The configuration
+     * @throws ConfigurationException If the configuration cannot be loaded
+     */
+    private static Configuration config() throws ConfigurationException {
+        final FileBasedConfigurationBuilder<FileBasedConfiguration> builder =
+            new FileBasedConfigurationBuilder<FileBasedConfiguration>(
+                PropertiesConfiguration.class
+            ).configure(new Parameters().fileBased());
+        final FileHandler handler = new FileHandler(builder.getConfiguration());
+        handler.load(
+            Thread.currentThread()
+                .getContextClassLoader()
+                .getResourceAsStream("simulation.properties")
+        );
+        return builder.getConfiguration();
+    }
+
+}
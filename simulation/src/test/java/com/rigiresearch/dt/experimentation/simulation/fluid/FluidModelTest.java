@@ -0,0 +1,136 @@
+package com.rigiresearch.dt.experimentation.simulation.fluid;
+
+import com.rigiresearch.dt.experimentation.simulation.Distribution;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.GraphParser;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.FileBasedConfiguration;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
+import org.apache.commons.configuration2.builder.fluent.Parameters;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.io.FileHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link FluidModel} and {@link Moments}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class FluidModelTest {
+
+    /**
+     * A small number to compare doubles.
+     */
+    private static final double EPSILON = 0.0001;
+
+    @Test
+    void testMoments() {
+        final Configuration config = new BaseConfiguration();
+        config.addProperty("shape", 1.0);
+        config.addProperty("scale", 3.0);
+        // A Weibull distribution with shape 1 is exponential
+        final Moments weibull = Moments.of(Distribution.WEIBULL, config);
+        Assertions.assertEquals(3.0, weibull.getMean(), FluidModelTest.EPSILON);
+        Assertions.assertEquals(9.0, weibull.getVariance(), FluidModelTest.EPSILON);
+        final Moments gamma = Moments.of(Distribution.GAMMA, config);
+        Assertions.assertEquals(3.0, gamma.getMean(), FluidModelTest.EPSILON);
+        Assertions.assertEquals(1.0, gamma.scv(), FluidModelTest.EPSILON);
+        final Configuration johnson = new BaseConfiguration();
+        johnson.addProperty("alpha1", 0.0);
+        johnson.addProperty("alpha2", 1.0);
+        johnson.addProperty("min", 10.0);
+        johnson.addProperty("max", 20.0);
+        // Symmetric around the middle point
+        Assertions.assertEquals(
+            15.0,
+            Moments.of(Distribution.JOHNSON, johnson).getMean(),
+            FluidModelTest.EPSILON
+        );
+    }
+
+    @Test
+    void testEstimates() throws JAXBException, IOException, ConfigurationException {
+        final Graph<Node> graph = new GraphParser()
+            .withBindings("bindings.xml")
+            .instance(
+                Objects.requireNonNull(
+                    Thread.currentThread()
+                        .getContextClassLoader()
+                        .getResourceAsStream("stations-graph.xml")
+                )
+            );
+        final Configuration config = FluidModelTest.config();
+        final Map<Line, FluidEstimate> estimates =
+            new FluidModel(graph, config, 1000.0).estimates();
+        Assertions.assertEquals(2, estimates.size());
+        estimates.values().forEach(estimate -> {
+            Assertions.assertEquals(5.0, estimate.getHeadway(), FluidModelTest.EPSILON);
+            Assertions.assertEquals(
+                estimate.getStops().size(),
+                estimate.getWaitingTimes().length
+            );
+            Assertions.assertTrue(estimate.excessWaitingTimeAverage() >= 0.0);
+            Assertions.assertTrue(
+                Double.isFinite(estimate.headwayCoefficientOfVariation())
+            );
+        });
+        final double before = FluidModelTest.waiting(graph, config);
+        // A single seat per bus cannot carry the passengers arriving within a
+        // headway, so passengers accumulate while the fleet is dispatched
+        config.setProperty("T31s.capacity", 1);
+        config.setProperty("T31s.PP2.passenger.distribution.mean", 0.5);
+        final double binding = FluidModelTest.waiting(graph, config);
+        Assertions.assertTrue(
+            binding > before + 1.0,
+            String.format("Expected a backlog, but waiting went from %f to %f", before, binding)
+        );
+        // A smaller fleet is dispatched for a shorter period, accumulating less
+        config.setProperty("T31s.fleet", 1);
+        Assertions.assertTrue(FluidModelTest.waiting(graph, config) < binding);
+    }
+
+    /**
+     * Estimates the waiting time at the first stop of line T31s.
+     * @param graph The graph of stations
+     * @param config The simulation configuration
+     * @return The mean waiting time
+     */
+    private static double waiting(final Graph<Node> graph, final Configuration config) {
+        return new FluidModel(graph, config, 1000.0).estimates()
+            .entrySet()
+            .stream()
+            .filter(entry -> "T31s".equals(entry.getKey().getName()))
+            .mapToDouble(entry -> entry.getValue().getWaitingTimes()[0])
+            .sum();
+    }
+
+    /**
+     * Loads the simulation configuration.
+     * @return The configuration
+     * @throws ConfigurationException If the configuration cannot be loaded
+     */
+    private static Configuration config() throws ConfigurationException {
+        final FileBasedConfigurationBuilder<FileBasedConfiguration> builder =
+            new FileBasedConfigurationBuilder<FileBasedConfiguration>(
+                PropertiesConfiguration.class
+            ).configure(new Parameters().fileBased());
+        final FileHandler handler = new FileHandler(builder.getConfiguration());
+        handler.load(
+            Thread.currentThread()
+                .getContextClassLoader()
+                .getResourceAsStream("simulation.properties")
+        );
+        return builder.getConfiguration();
+    }
+
+}
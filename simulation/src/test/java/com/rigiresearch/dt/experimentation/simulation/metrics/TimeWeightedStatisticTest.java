@@ -0,0 +1,53 @@
+package com.rigiresearch.dt.experimentation.simulation.metrics;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link TimeWeightedStatistic}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class TimeWeightedStatisticTest {
+
+    @Test
+    void testItWeightsValuesByTime() {
+        final TimeWeightedStatistic statistic = new TimeWeightedStatistic("queue", 10.0);
+        // Empty for 10, one for 5, three for 5, empty for 20
+        statistic.update(10.0, 1.0);
+        statistic.update(15.0, 3.0);
+        statistic.update(20.0, 0.0);
+        statistic.update(40.0, 0.0);
+        Assertions.assertEquals(40.0, statistic.getDuration(), 1e-9);
+        Assertions.assertEquals(20.0 / 40.0, statistic.getAverage(), 1e-9);
+        Assertions.assertEquals(50.0 / 40.0 - 0.25, statistic.getVariance(), 1e-9);
+        Assertions.assertEquals(3.0, statistic.getMax(), 1e-9);
+        Assertions.assertArrayEquals(new double[] {0.0, 2.0, 0.0, 0.0}, statistic.series(), 1e-9);
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> statistic.update(30.0, 1.0)
+        );
+    }
+
+    @Test
+    void testItAccumulatesReplications() {
+        final TimeWeightedStatistic first = new TimeWeightedStatistic("first");
+        first.update(10.0, 2.0);
+        first.update(20.0, 2.0);
+        // A new replication starts at time zero with an empty queue
+        first.restart();
+        first.update(20.0, 0.0);
+        Assertions.assertEquals(40.0, first.getDuration(), 1e-9);
+        Assertions.assertEquals(0.5, first.getAverage(), 1e-9);
+        Assertions.assertEquals(0, first.series().length);
+        final TimeWeightedStatistic second = new TimeWeightedStatistic("second");
+        second.update(10.0, 0.0);
+        final TimeWeightedStatistic consolidated =
+            TimeWeightedStatistic.consolidated(Arrays.asList(first, second));
+        Assertions.assertEquals(50.0, consolidated.getDuration(), 1e-9);
+        Assertions.assertEquals(0.4, consolidated.getAverage(), 1e-9);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.rigiresearch.dt.experimentation.simulation.observation;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ColumnarObservationSink}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class ColumnarObservationSinkTest {
+
+    @Test
+    void testItExportsColumns() throws IOException {
+        final Path directory = Files.createTempDirectory("observations");
+        // More observations than values mapped at once
+        final int count = 100_000;
+        try {
+            final Line[] lines = {new Line("T31n"), new Line("T31s")};
+            final Stop stop = new Stop("AP1");
+            try (ColumnarObservationSink sink = new ColumnarObservationSink(directory)) {
+                for (int index = 0; index < count; index++) {
+                    sink.observe(
+                        ObservationSink.Metric.WAITING_TIME,
+                        index,
+                        lines[index % 2],
+                        stop,
+                        index * 0.5
+                    );
+                }
+                sink.observe(ObservationSink.Metric.HEADWAY, 1.0, lines[1], stop, 420.0);
+                Assertions.assertEquals(count, sink.count(ObservationSink.Metric.WAITING_TIME));
+            }
+            final ByteBuffer values = ColumnarObservationSinkTest.read(
+                directory.resolve("waiting-time.value.f64")
+            );
+            Assertions.assertEquals(count, values.getLong(ColumnarObservationSink.COUNT_OFFSET));
+            Assertions.assertEquals(
+                ColumnarObservationSink.HEADER_BYTES + count * Double.BYTES,
+                values.capacity()
+            );
+            Assertions.assertEquals(
+                (count - 1) * 0.5,
+                values.getDouble(ColumnarObservationSink.HEADER_BYTES + (count - 1) * Double.BYTES)
+            );
+            final ByteBuffer ids = ColumnarObservationSinkTest.read(
+                directory.resolve("waiting-time.line.i32")
+            );
+            Assertions.assertEquals(1, ids.getInt(ColumnarObservationSink.HEADER_BYTES + 4));
+            final Properties schema = new Properties();
+            try (Reader reader = Files.newBufferedReader(
+                directory.resolve(ColumnarObservationSink.SCHEMA), StandardCharsets.UTF_8)) {
+                schema.load(reader);
+            }
+            Assertions.assertEquals("T31n,T31s", schema.getProperty("lines"));
+            Assertions.assertEquals("AP1", schema.getProperty("stops"));
+            Assertions.assertEquals("1", schema.getProperty("headway.value.f64.count"));
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Collections.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Reads a column file.
+     * @param file The column file
+     * @return A little-endian buffer with the file contents
+     * @throws IOException If the file cannot be read
+     */
+    private static ByteBuffer read(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size())
+                .order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading
+            }
+            return buffer;
+        }
+    }
+
+}
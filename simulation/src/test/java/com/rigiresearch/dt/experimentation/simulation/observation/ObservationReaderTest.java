@@ -0,0 +1,93 @@
+package com.rigiresearch.dt.experimentation.simulation.observation;
+
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.GraphParser;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import javax.xml.bind.JAXBException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ObservationReader}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class ObservationReaderTest {
+
+    @Test
+    void testItReplaysObservations() throws JAXBException, IOException {
+        final Graph<Node> graph = new GraphParser()
+            .withBindings("bindings.xml")
+            .instance(
+                Objects.requireNonNull(
+                    Thread.currentThread()
+                        .getContextClassLoader()
+                        .getResourceAsStream("stations-graph.xml")
+                )
+            );
+        final Line line = graph.getNodes()
+            .stream()
+            .filter(Line.class::isInstance)
+            .map(Line.class::cast)
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+        final Stop stop = line.journey().getFirst();
+        final Path directory = Files.createTempDirectory("observations");
+        try {
+            try (ColumnarObservationSink sink = new ColumnarObservationSink(directory)) {
+                for (int index = 0; index < 10; index++) {
+                    sink.observe(ObservationSink.Metric.WAITING_TIME, index, line, stop, index);
+                }
+                sink.observe(ObservationSink.Metric.BUS_QUEUE, 3.0, line, stop, 2.0);
+            }
+            final List<String> replayed = new ArrayList<>();
+            new ObservationReader(directory).replay(
+                graph,
+                (metric, time, observed, at, value) -> replayed.add(
+                    String.format(
+                        "%s %.1f %s %s %.1f",
+                        metric.getName(),
+                        time,
+                        observed.getName(),
+                        at.getName(),
+                        value
+                    )
+                )
+            );
+            Assertions.assertEquals(11, replayed.size());
+            Assertions.assertEquals(
+                String.format("waiting-time 9.0 %s %s 9.0", line.getName(), stop.getName()),
+                replayed.get(9)
+            );
+            Assertions.assertEquals(
+                String.format("bus-queue 3.0 %s %s 2.0", line.getName(), stop.getName()),
+                replayed.get(10)
+            );
+            // Observations of another network cannot be replayed
+            try (ColumnarObservationSink sink = new ColumnarObservationSink(directory)) {
+                sink.observe(ObservationSink.Metric.HEADWAY, 1.0, new Line("X"), stop, 1.0);
+            }
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new ObservationReader(directory).replay(graph, ObservationSink.NONE)
+            );
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Collections.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains tests for the observation export classes.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.observation;
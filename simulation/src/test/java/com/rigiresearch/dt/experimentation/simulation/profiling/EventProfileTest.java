@@ -0,0 +1,89 @@
+package com.rigiresearch.dt.experimentation.simulation.profiling;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link EventProfile} and {@link EventProfiles}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class EventProfileTest {
+
+    @Test
+    void testItCountsEvents() {
+        final EventProfile profile = new EventProfile(1);
+        for (int index = 0; index < 3; index++) {
+            profile.scheduled();
+        }
+        for (int index = 0; index < 3; index++) {
+            final EventProfile.Handler handler = EventProfile.Handler.PASSENGER_ARRIVAL;
+            profile.stop(handler, profile.start(handler));
+        }
+        profile.scheduled();
+        Assertions.assertEquals(3L, profile.count(EventProfile.Handler.PASSENGER_ARRIVAL));
+        Assertions.assertEquals(0L, profile.count(EventProfile.Handler.BUS_ARRIVAL));
+        Assertions.assertEquals(3L, profile.getEvents());
+        Assertions.assertEquals(3L, profile.getCalendarHighWaterMark());
+        Assertions.assertTrue(profile.time(EventProfile.Handler.PASSENGER_ARRIVAL) >= 0.0);
+        Assertions.assertTrue(Double.isNaN(profile.time(EventProfile.Handler.BUS_ARRIVAL)));
+        Assertions.assertTrue(Double.isNaN(profile.getEventsPerTimeUnit()));
+        profile.replicationEnded(1.5);
+        Assertions.assertEquals(1, profile.getReplications());
+        Assertions.assertEquals(2.0, profile.getEventsPerTimeUnit(), 1.0e-9);
+    }
+
+    @Test
+    void testItSamplesTiming() {
+        final EventProfile profile = new EventProfile(4);
+        int timed = 0;
+        for (int index = 0; index < 8; index++) {
+            final long start = profile.start(EventProfile.Handler.BUS_DEPARTURE);
+            if (start >= 0L) {
+                timed++;
+            }
+            profile.stop(EventProfile.Handler.BUS_DEPARTURE, start);
+        }
+        Assertions.assertEquals(2, timed);
+        final EventProfile disabled = new EventProfile(0);
+        Assertions.assertTrue(disabled.start(EventProfile.Handler.BUS_DEPARTURE) < 0L);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EventProfile(-1));
+    }
+
+    @Test
+    void testItComputesDeltas() {
+        final EventProfile profile = new EventProfile(0);
+        profile.start(EventProfile.Handler.BUS_ARRIVAL);
+        profile.replicationEnded(10.0);
+        final EventProfile previous = profile.copy();
+        profile.start(EventProfile.Handler.BUS_ARRIVAL);
+        profile.start(EventProfile.Handler.BUS_ARRIVAL);
+        profile.replicationEnded(10.0);
+        final EventProfile delta = profile.since(previous);
+        Assertions.assertEquals(2L, delta.count(EventProfile.Handler.BUS_ARRIVAL));
+        Assertions.assertEquals(1, delta.getReplications());
+        Assertions.assertEquals(0.2, delta.getEventsPerTimeUnit(), 1.0e-9);
+        final EventProfile total = previous.copy();
+        total.merge(delta);
+        Assertions.assertEquals(3L, total.count(EventProfile.Handler.BUS_ARRIVAL));
+        Assertions.assertEquals(2, total.getReplications());
+    }
+
+    @Test
+    void testItIsExposedThroughJmx() throws JMException {
+        final EventProfiles profiles = EventProfiles.instance();
+        final EventProfile profile = new EventProfile(0);
+        profile.start(EventProfile.Handler.BUS_ARRIVAL_AT_NEXT_STOP);
+        profile.replicationEnded(1.0);
+        final long before = profiles.getEvents();
+        profiles.add(profile);
+        final Object events = ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName(EventProfiles.OBJECT_NAME), "Events");
+        Assertions.assertEquals(before + 1L, events);
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains tests for the event profiling classes.
+ * @since 0.1.0
+ */
+package com.rigiresearch.dt.experimentation.simulation.profiling;
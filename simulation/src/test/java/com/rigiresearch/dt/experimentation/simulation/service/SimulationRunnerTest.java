@@ -0,0 +1,30 @@
+package com.rigiresearch.dt.experimentation.simulation.service;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link SimulationRunner}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class SimulationRunnerTest {
+
+    @Test
+    void testReplicationsOfNearbySeedsDoNotShareStreams() {
+        final Set<Long> seeds = new HashSet<>();
+        for (long seed = 0L; seed < 10L; seed++) {
+            for (int replica = 1; replica <= 10; replica++) {
+                Assertions.assertTrue(
+                    seeds.add(SimulationRunner.seed(seed, replica)),
+                    String.format("Seed %d, replication %d reuses a stream", seed, replica)
+                );
+            }
+        }
+        Assertions.assertEquals(SimulationRunner.seed(3L, 2), SimulationRunner.seed(3L, 2));
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.rigiresearch.dt.experimentation.simulation.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link SimulationServer}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class SimulationServerTest {
+
+    /**
+     * The server under test.
+     */
+    private SimulationServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new SimulationServer(0, 1);
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.stop();
+    }
+
+    @Test
+    void testItStreamsSummaries() throws IOException, URISyntaxException {
+        final String job = String.format(
+            "job.graph=%s%njob.config=%s%njob.replications=2%njob.length=1000%n"
+                + "job.engine=compiled%nsimulation.params.passengers=1000%n",
+            SimulationServerTest.resource("stations-graph.xml"),
+            SimulationServerTest.resource("simulation.properties")
+        );
+        // The second job reuses the cached graph and compiled simulation
+        for (int count = 0; count < 2; count++) {
+            final HttpURLConnection connection = this.post(job);
+            Assertions.assertEquals(200, connection.getResponseCode());
+            final List<String> lines = SimulationServerTest.read(connection.getInputStream());
+            Assertions.assertEquals(ReplicationSummary.HEADER, lines.get(0));
+            Assertions.assertEquals(5, lines.size());
+            Assertions.assertTrue(lines.get(4).startsWith("2\t"));
+        }
+    }
+
+    @Test
+    void testItRejectsIncompleteJobs() throws IOException {
+        final HttpURLConnection connection = this.post("job.replications=2\n");
+        Assertions.assertEquals(400, connection.getResponseCode());
+    }
+
+    /**
+     * Submits a job.
+     * @param job The job in the properties format
+     * @return The open connection
+     * @throws IOException If there is a problem sending the job
+     */
+    private HttpURLConnection post(final String job) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(
+            "http",
+            InetAddress.getLoopbackAddress().getHostAddress(),
+            this.server.port(),
+            "/jobs"
+        ).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream output = connection.getOutputStream()) {
+            output.write(job.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    /**
+     * Reads all the lines of a response.
+     * @param input The response body
+     * @return A non-null list
+     * @throws IOException If there is a problem reading the response
+     */
+    private static List<String> read(final InputStream input) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Finds the path to a test resource, escaped for the properties format.
+     * @param name The resource name
+     * @return The absolute path
+     * @throws URISyntaxException If the resource location is invalid
+     */
+    private static String resource(final String name) throws URISyntaxException {
+        return Paths.get(
+            Objects.requireNonNull(
+                Thread.currentThread().getContextClassLoader().getResource(name)
+            ).toURI()
+        ).toString().replace("\\", "\\\\");
+    }
+
+}
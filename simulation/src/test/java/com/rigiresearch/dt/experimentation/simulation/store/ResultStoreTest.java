@@ -0,0 +1,179 @@
+package com.rigiresearch.dt.experimentation.simulation.store;
+
+import com.rigiresearch.dt.experimentation.simulation.DtSimulation;
+import com.rigiresearch.dt.experimentation.simulation.service.ReplicationSummary;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.GraphParser;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ResultStore} and {@link ResultKey}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class ResultStoreTest {
+
+    @Test
+    void testKeysAreStable() throws JAXBException, IOException {
+        final Graph<Node> graph = new GraphParser()
+            .withBindings("bindings.xml")
+            .instance(
+                Objects.requireNonNull(
+                    Thread.currentThread()
+                        .getContextClassLoader()
+                        .getResourceAsStream("stations-graph.xml")
+                )
+            );
+        final Configuration config = new BaseConfiguration();
+        config.setProperty("T31s.headway", "420");
+        config.setProperty("fitness.params.ewt.max", "60");
+        final ResultKey key = ResultKey.of(graph, config, "jsl", 0L, 1, 1000.0, 10.0);
+        Assertions.assertEquals(key, ResultKey.of(graph, config, "jsl", 0L, 1, 1000.0, 10.0));
+        Assertions.assertNotEquals(key, ResultKey.of(graph, config, "jsl", 0L, 2, 1000.0, 10.0));
+        // Fitness parameters do not affect the simulation
+        config.setProperty("fitness.params.ewt.max", "90");
+        Assertions.assertEquals(key, ResultKey.of(graph, config, "jsl", 0L, 1, 1000.0, 10.0));
+        config.setProperty("T31s.headway", "480");
+        Assertions.assertNotEquals(key, ResultKey.of(graph, config, "jsl", 0L, 1, 1000.0, 10.0));
+        // The trace is identified by its contents
+        final Path trace = Files.createTempFile("bus", ".trace");
+        try {
+            Files.write(trace, new byte[] {1, 2, 3});
+            config.setProperty(DtSimulation.TRACE_KEY, trace.toString());
+            final ResultKey traced = ResultKey.of(graph, config, "jsl", 0L, 1, 1000.0, 10.0);
+            Files.write(trace, new byte[] {4, 5, 6});
+            Assertions.assertNotEquals(
+                traced,
+                ResultKey.of(graph, config, "jsl", 0L, 1, 1000.0, 10.0)
+            );
+        } finally {
+            Files.deleteIfExists(trace);
+        }
+    }
+
+    @Test
+    void testConcurrentMissesComputeOnce() throws Exception {
+        final Path directory = Files.createTempDirectory("store");
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ResultStore store = new ResultStore(directory, Long.MAX_VALUE, 8)) {
+            final AtomicInteger calls = new AtomicInteger();
+            final CountDownLatch latch = new CountDownLatch(1);
+            final List<Future<List<ReplicationSummary>>> futures = new ArrayList<>(4);
+            for (int count = 0; count < 4; count++) {
+                futures.add(
+                    executor.submit(() -> store.computeIfAbsent(ResultStoreTest.key(1), () -> {
+                        calls.incrementAndGet();
+                        try {
+                            latch.await();
+                        } catch (final InterruptedException exception) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return ResultStoreTest.summaries(1);
+                    }))
+                );
+            }
+            // Give every thread the chance to miss before the first one stores the result
+            Thread.sleep(200L);
+            latch.countDown();
+            for (final Future<List<ReplicationSummary>> future : futures) {
+                Assertions.assertEquals(ResultStoreTest.summaries(1), future.get());
+            }
+            Assertions.assertEquals(1, calls.get());
+        } finally {
+            executor.shutdown();
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Collections.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void testItPersistsAndEvicts() throws IOException {
+        final Path directory = Files.createTempDirectory("store");
+        try {
+            final ResultKey first = ResultStoreTest.key(1);
+            final ResultKey second = ResultStoreTest.key(2);
+            final ResultKey third = ResultStoreTest.key(3);
+            final long size;
+            try (ResultStore store = new ResultStore(directory, 1000L, 8)) {
+                store.put(first, ResultStoreTest.summaries(1));
+                size = store.bytes();
+            }
+            try (ResultStore store = new ResultStore(directory, size * 2L, 8)) {
+                final List<ReplicationSummary> stored = store.get(first)
+                    .orElseThrow(IllegalStateException::new);
+                Assertions.assertEquals(ResultStoreTest.summaries(1), stored);
+                store.put(second, ResultStoreTest.summaries(2));
+                // Make the first entry the most recently used
+                Assertions.assertTrue(store.get(first).isPresent());
+                store.put(third, ResultStoreTest.summaries(3));
+                Assertions.assertEquals(2, store.size());
+                Assertions.assertFalse(store.get(second).isPresent());
+                Assertions.assertTrue(store.get(first).isPresent());
+                Assertions.assertEquals(
+                    ResultStoreTest.summaries(3),
+                    store.computeIfAbsent(third, () -> {
+                        throw new IllegalStateException("Expected a stored result");
+                    })
+                );
+            }
+            // Inserting more entries than slots rehashes and evicts entries
+            try (ResultStore store = new ResultStore(directory, Long.MAX_VALUE, 8)) {
+                for (int count = 10; count < 30; count++) {
+                    store.put(ResultStoreTest.key(count), ResultStoreTest.summaries(count));
+                }
+                Assertions.assertEquals(6, store.size());
+                Assertions.assertTrue(store.get(ResultStoreTest.key(29)).isPresent());
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Collections.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Creates a key.
+     * @param value The value of the first key byte
+     * @return A non-null key
+     */
+    private static ResultKey key(final int value) {
+        final byte[] bytes = new byte[ResultKey.SIZE];
+        bytes[0] = (byte) value;
+        bytes[ResultKey.SIZE - 1] = (byte) value;
+        return new ResultKey(bytes);
+    }
+
+    /**
+     * Creates a list of summaries.
+     * @param replica The replica number
+     * @return A non-null list
+     */
+    private static List<ReplicationSummary> summaries(final int replica) {
+        return Collections.singletonList(
+            new ReplicationSummary(replica, "T31s", 120.0, 400.0, 0.3, 12.0, 4.0)
+        );
+    }
+
+}
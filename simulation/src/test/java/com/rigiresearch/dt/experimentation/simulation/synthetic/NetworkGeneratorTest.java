@@ -0,0 +1,86 @@
+package com.rigiresearch.dt.experimentation.simulation.synthetic;
+
+import com.rigiresearch.dt.experimentation.simulation.codegen.CompiledResult;
+import com.rigiresearch.dt.experimentation.simulation.codegen.CompiledSimulation;
+import com.rigiresearch.dt.experimentation.simulation.graph.Line;
+import com.rigiresearch.dt.experimentation.simulation.graph.Stop;
+import com.rigiresearch.dt.experimentation.simulation.service.ModelCache;
+import com.rigiresearch.middleware.graph.Graph;
+import com.rigiresearch.middleware.graph.Node;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.configuration2.Configuration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link NetworkGenerator}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class NetworkGeneratorTest {
+
+    @Test
+    void testItGeneratesValidNetworks() throws IOException {
+        final Path directory = Files.createTempDirectory("network");
+        try {
+            new NetworkGenerator(20, 2, 5, 6, 0.5, 1L).write(directory);
+            final ModelCache cache = new ModelCache();
+            final Graph<Node> graph = cache.graph(directory.resolve(NetworkGenerator.GRAPH));
+            final Configuration config = cache.config(
+                directory.resolve(NetworkGenerator.PROPERTIES),
+                Collections.emptyMap()
+            );
+            final List<Line> lines = graph.getNodes()
+                .stream()
+                .filter(Line.class::isInstance)
+                .map(Line.class::cast)
+                .collect(Collectors.toList());
+            Assertions.assertEquals(5, lines.size());
+            Assertions.assertEquals(5, config.getString("lines").split(",").length);
+            final Set<Stop> stops = new HashSet<>();
+            for (final Line line : lines) {
+                final LinkedList<Stop> journey = line.journey();
+                Assertions.assertEquals(6, journey.size());
+                Assertions.assertEquals(
+                    config.getString(String.format("%s.headway", line.getName())),
+                    config.getString(String.format("%s.arrival.distribution.value", line.getName()))
+                );
+                journey.removeLast();
+                for (final Stop stop : journey) {
+                    Assertions.assertTrue(
+                        config.containsKey(
+                            String.format(
+                                "%s.%s.passenger.distribution",
+                                line.getName(),
+                                stop.getName()
+                            )
+                        )
+                    );
+                }
+                stops.addAll(journey);
+            }
+            Assertions.assertTrue(stops.size() < 25, "Expected lines sharing stops");
+            // The generated configuration runs as is
+            final CompiledSimulation simulation = cache.compiled(graph, config);
+            final CompiledResult result = simulation.run(simulation.values(config), 1L, 5000.0);
+            Assertions.assertTrue(result.getEvents() > 0L);
+            Assertions.assertTrue(result.count(CompiledResult.HEADWAY, 0) > 0L);
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Collections.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+}
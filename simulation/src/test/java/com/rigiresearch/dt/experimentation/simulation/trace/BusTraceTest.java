@@ -0,0 +1,63 @@
+package com.rigiresearch.dt.experimentation.simulation.trace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BusTrace} and {@link BusTraceWriter}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @version $Id$
+ * @since 0.1.0
+ */
+class BusTraceTest {
+
+    /**
+     * A small number to compare doubles.
+     */
+    private static final double EPSILON = 0.000001;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        final Path path = Files.createTempFile("bus", ".trace");
+        try {
+            new BusTraceWriter().write(
+                path,
+                Arrays.asList(
+                    new TraceEvent("T31s", "PCA2", 1300.0, 1330.0),
+                    new TraceEvent("T31s", "PCA2", 1000.0, 1045.0),
+                    new TraceEvent("T31s", "CHA2", 1600.0, 1620.0)
+                )
+            );
+            final BusTrace trace = BusTrace.open(path);
+            Assertions.assertEquals(2, trace.size());
+            Assertions.assertEquals(1000.0, trace.getOrigin(), BusTraceTest.EPSILON);
+            Assertions.assertFalse(trace.stream("T31n", "PCA2").isPresent());
+            final BusTrace.Cursor cursor = trace.stream("T31s", "PCA2")
+                .orElseThrow(IllegalStateException::new)
+                .cursor();
+            Assertions.assertEquals(0.0, cursor.nextArrival(), BusTraceTest.EPSILON);
+            Assertions.assertEquals(5.0, cursor.nextArrival(), BusTraceTest.EPSILON);
+            Assertions.assertFalse(cursor.hasNextArrival());
+            Assertions.assertEquals(2, cursor.position());
+            // Times are stored in minutes, and services follow their arrivals
+            final BusTrace.Stream stream = trace.stream("T31s", "PCA2")
+                .orElseThrow(IllegalStateException::new);
+            Assertions.assertEquals(0.75, stream.service(0), BusTraceTest.EPSILON);
+            Assertions.assertEquals(0.5, stream.service(1), BusTraceTest.EPSILON);
+            cursor.reset();
+            Assertions.assertTrue(cursor.hasNextArrival());
+            Assertions.assertEquals(0, cursor.position());
+            final BusTrace.Stream other = trace.stream("T31s", "CHA2")
+                .orElseThrow(IllegalStateException::new);
+            Assertions.assertEquals(10.0, other.cursor().nextArrival(), BusTraceTest.EPSILON);
+            Assertions.assertEquals(1.0 / 3.0, other.service(0), BusTraceTest.EPSILON);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+}